@@ -1593,8 +1593,8 @@ public class ZclProtocolCodeGenerator {
                 }
                 // imports.add(packageRoot + ".ZigBeeEndpoint");
                 imports.add(packageRoot + packageZcl + ".ZclAttribute");
+                imports.add(packageRoot + packageZcl + ".ZclAttributeDefinition");
                 imports.add("java.util.Map");
-                imports.add("java.util.concurrent.ConcurrentHashMap");
 
                 if (!cluster.attributes.isEmpty() | !commands.isEmpty()) {
                     imports.add("java.util.concurrent.Future");
@@ -1663,26 +1663,29 @@ public class ZclProtocolCodeGenerator {
                     out.println();
                 }
 
-                out.println("    // Attribute initialisation");
-                out.println("    protected Map<Integer, ZclAttribute> initializeAttributes() {");
-                out.println(
-                        "        Map<Integer, ZclAttribute> attributeMap = new ConcurrentHashMap<Integer, ZclAttribute>("
-                                + cluster.attributes.size() + ");");
-
+                out.println("    // Attribute definitions");
                 if (cluster.attributes.size() != 0) {
-                    out.println();
+                    out.println(
+                            "    private static final ZclAttributeDefinition[] ATTRIBUTE_DEFINITIONS = new ZclAttributeDefinition[] {");
                     for (final Attribute attribute : cluster.attributes.values()) {
-                        out.println("        attributeMap.put(" + attribute.enumName
-                                + ", new ZclAttribute(ZclClusterType." + cluster.clusterType + ", " + attribute.enumName
-                                + ", \"" + attribute.attributeLabel + "\", " + "ZclDataType." + attribute.dataType
-                                + ", " + "mandatory".equals(attribute.attributeImplementation.toLowerCase()) + ", "
+                        out.println("            new ZclAttributeDefinition(ZclClusterType." + cluster.clusterType + ", "
+                                + attribute.enumName + ", \"" + attribute.attributeLabel + "\", " + "ZclDataType."
+                                + attribute.dataType + ", "
+                                + "mandatory".equals(attribute.attributeImplementation.toLowerCase()) + ", "
                                 + attribute.attributeAccess.toLowerCase().contains("read") + ", "
                                 + attribute.attributeAccess.toLowerCase().contains("write") + ", "
-                                + "mandatory".equals(attribute.attributeReporting.toLowerCase()) + "));");
+                                + "mandatory".equals(attribute.attributeReporting.toLowerCase()) + "),");
                     }
+                    out.println("    };");
+                } else {
+                    out.println(
+                            "    private static final ZclAttributeDefinition[] ATTRIBUTE_DEFINITIONS = new ZclAttributeDefinition[0];");
                 }
                 out.println();
-                out.println("        return attributeMap;");
+
+                out.println("    // Attribute initialisation");
+                out.println("    protected Map<Integer, ZclAttribute> initializeAttributes() {");
+                out.println("        return createAttributes(ATTRIBUTE_DEFINITIONS);");
                 out.println("    }");
                 out.println();
 
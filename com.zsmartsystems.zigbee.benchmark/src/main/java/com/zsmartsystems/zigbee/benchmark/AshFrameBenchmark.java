@@ -0,0 +1,86 @@
+/**
+ * Copyright (c) 2016-2019 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.benchmark;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspSendUnicastRequest;
+import com.zsmartsystems.zigbee.dongle.ember.ezsp.structure.EmberApsFrame;
+import com.zsmartsystems.zigbee.dongle.ember.ezsp.structure.EmberApsOption;
+import com.zsmartsystems.zigbee.dongle.ember.ezsp.structure.EmberOutgoingMessageType;
+import com.zsmartsystems.zigbee.dongle.ember.internal.ash.AshFrame;
+import com.zsmartsystems.zigbee.dongle.ember.internal.ash.AshFrameData;
+import com.zsmartsystems.zigbee.dongle.ember.internal.ash.AshFrameHandler;
+
+/**
+ * Benchmarks the ASH framing used by the {@link AshFrameHandler}. Framing converts an EZSP request into the data
+ * randomised, CRC protected and byte stuffed output buffer written to the serial port. Unframing removes the byte
+ * stuffing, checks the CRC and derandomises a received frame (excluding the flag byte, as it is passed from the
+ * handler's receive loop).
+ *
+ * @author Chris Jackson
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AshFrameBenchmark {
+    private AshFrameData frame;
+    private int[] received;
+
+    @Setup
+    public void setup() {
+        EmberApsFrame apsFrame = new EmberApsFrame();
+        apsFrame.setProfileId(0x0104);
+        apsFrame.setClusterId(0x0006);
+        apsFrame.setSourceEndpoint(1);
+        apsFrame.setDestinationEndpoint(1);
+        apsFrame.addOptions(EmberApsOption.EMBER_APS_OPTION_RETRY);
+        apsFrame.addOptions(EmberApsOption.EMBER_APS_OPTION_ENABLE_ROUTE_DISCOVERY);
+        apsFrame.setSequence(0x42);
+
+        EzspSendUnicastRequest request = new EzspSendUnicastRequest();
+        request.setType(EmberOutgoingMessageType.EMBER_OUTGOING_DIRECT);
+        request.setIndexOrDestination(0x1234);
+        request.setApsFrame(apsFrame);
+        request.setMessageTag(0x21);
+        request.setMessageContents(new int[] { 0x18, 0x01, 0x0A, 0x00, 0x00, 0x10, 0x01 });
+        request.setSequenceNumber(0x11);
+
+        frame = new AshFrameData(request);
+        frame.setFrmNum(3);
+        frame.setAckNum(5);
+
+        int[] output = frame.getOutputBuffer();
+        received = Arrays.copyOfRange(output, 0, output.length - 1);
+    }
+
+    @Benchmark
+    public int[] frame() {
+        return frame.getOutputBuffer();
+    }
+
+    @Benchmark
+    public AshFrame unframe() {
+        return AshFrame.createFromInput(received);
+    }
+}
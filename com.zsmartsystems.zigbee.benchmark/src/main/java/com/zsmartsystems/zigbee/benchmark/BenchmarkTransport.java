@@ -0,0 +1,140 @@
+/**
+ * Copyright (c) 2016-2019 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.benchmark;
+
+import com.zsmartsystems.zigbee.ExtendedPanId;
+import com.zsmartsystems.zigbee.IeeeAddress;
+import com.zsmartsystems.zigbee.ZigBeeApsFrame;
+import com.zsmartsystems.zigbee.ZigBeeChannel;
+import com.zsmartsystems.zigbee.ZigBeeStatus;
+import com.zsmartsystems.zigbee.security.ZigBeeKey;
+import com.zsmartsystems.zigbee.transport.TransportConfig;
+import com.zsmartsystems.zigbee.transport.ZigBeeTransportReceive;
+import com.zsmartsystems.zigbee.transport.ZigBeeTransportTransmit;
+
+/**
+ * A transport that discards all outgoing frames so that the network manager can be benchmarked without a dongle.
+ * Incoming frames are injected by calling the {@link ZigBeeTransportReceive} directly.
+ *
+ * @author Chris Jackson
+ */
+class BenchmarkTransport implements ZigBeeTransportTransmit {
+    private ZigBeeTransportReceive receiver;
+    private int framesSent;
+
+    /**
+     * Gets the {@link ZigBeeTransportReceive} registered with this transport
+     *
+     * @return the {@link ZigBeeTransportReceive}
+     */
+    ZigBeeTransportReceive getReceiver() {
+        return receiver;
+    }
+
+    /**
+     * Gets the number of frames that have been sent to the transport
+     *
+     * @return the number of frames sent
+     */
+    int getFramesSent() {
+        return framesSent;
+    }
+
+    @Override
+    public ZigBeeStatus initialize() {
+        return ZigBeeStatus.SUCCESS;
+    }
+
+    @Override
+    public ZigBeeStatus startup(boolean reinitialize) {
+        return ZigBeeStatus.SUCCESS;
+    }
+
+    @Override
+    public void shutdown() {
+    }
+
+    @Override
+    public String getVersionString() {
+        return "Benchmark";
+    }
+
+    @Override
+    public IeeeAddress getIeeeAddress() {
+        return new IeeeAddress("0000000000000000");
+    }
+
+    @Override
+    public Integer getNwkAddress() {
+        return 0;
+    }
+
+    @Override
+    public void sendCommand(ZigBeeApsFrame apsFrame) {
+        framesSent++;
+    }
+
+    @Override
+    public void setZigBeeTransportReceive(ZigBeeTransportReceive zigbeeTransportReceive) {
+        receiver = zigbeeTransportReceive;
+    }
+
+    @Override
+    public ZigBeeChannel getZigBeeChannel() {
+        return ZigBeeChannel.CHANNEL_11;
+    }
+
+    @Override
+    public ZigBeeStatus setZigBeeChannel(ZigBeeChannel channel) {
+        return ZigBeeStatus.SUCCESS;
+    }
+
+    @Override
+    public int getZigBeePanId() {
+        return 0x1234;
+    }
+
+    @Override
+    public ZigBeeStatus setZigBeePanId(int panId) {
+        return ZigBeeStatus.SUCCESS;
+    }
+
+    @Override
+    public ExtendedPanId getZigBeeExtendedPanId() {
+        return new ExtendedPanId("0000000000000000");
+    }
+
+    @Override
+    public ZigBeeStatus setZigBeeExtendedPanId(ExtendedPanId panId) {
+        return ZigBeeStatus.SUCCESS;
+    }
+
+    @Override
+    public ZigBeeStatus setZigBeeNetworkKey(ZigBeeKey key) {
+        return ZigBeeStatus.SUCCESS;
+    }
+
+    @Override
+    public ZigBeeKey getZigBeeNetworkKey() {
+        return null;
+    }
+
+    @Override
+    public ZigBeeStatus setTcLinkKey(ZigBeeKey key) {
+        return ZigBeeStatus.SUCCESS;
+    }
+
+    @Override
+    public ZigBeeKey getTcLinkKey() {
+        return null;
+    }
+
+    @Override
+    public void updateTransportConfig(TransportConfig configuration) {
+    }
+}
@@ -0,0 +1,97 @@
+/**
+ * Copyright (c) 2016-2019 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.benchmark;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.zsmartsystems.zigbee.dongle.ember.ezsp.EzspFrame;
+import com.zsmartsystems.zigbee.dongle.ember.ezsp.EzspFrameResponse;
+
+/**
+ * Benchmarks the creation of EZSP response frames from the data received from the NCP with
+ * {@link EzspFrame#createHandler(int[])}. The {@link #createHandlerReflection()} benchmark reproduces the previous
+ * implementation, which looked up the response class in a map and created it through reflection, to provide a
+ * baseline for the frame ID indexed factory.
+ *
+ * @author Chris Jackson
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EzspFrameBenchmark {
+    @Param({ "incomingMessageHandler", "messageSentHandler", "sendUnicastResponse", "getNetworkParametersResponse" })
+    public String frame;
+
+    private int[] data;
+
+    private final Map<Integer, Class<?>> handlerMap = new HashMap<Integer, Class<?>>();
+
+    @Setup
+    public void setup() {
+        switch (frame) {
+            case "incomingMessageHandler":
+                data = getPacketData("01 90 45 00 00 00 01 80 00 00 40 00 00 00 EE FF 00 00 00 FF FF 0C 00 81 F0 F0 00 "
+                        + "20 00 00 00 00 00 01");
+                break;
+            case "messageSentHandler":
+                data = getPacketData("04 90 3F 00 00 00 00 00 04 00 00 00 40 11 00 00 78 04 00 00");
+                break;
+            case "sendUnicastResponse":
+                data = getPacketData("05 80 34 00 42");
+                break;
+            case "getNetworkParametersResponse":
+                data = getPacketData("05 80 28 00 01 EF CB B1 57 A8 CC C6 D7 05 C8 00 0B 00 00 00 00 00 F8 FF 07");
+                break;
+            default:
+                throw new IllegalArgumentException("No benchmark data defined for " + frame);
+        }
+
+        EzspFrameResponse response = EzspFrame.createHandler(data);
+        if (response == null) {
+            throw new IllegalStateException("No EZSP handler created for " + frame);
+        }
+        handlerMap.put(response.getFrameId(), response.getClass());
+    }
+
+    @Benchmark
+    public EzspFrameResponse createHandler() {
+        return EzspFrame.createHandler(data);
+    }
+
+    @Benchmark
+    public EzspFrameResponse createHandlerReflection() throws ReflectiveOperationException {
+        Class<?> ezspClass = handlerMap.get(data[2]);
+        return (EzspFrameResponse) ezspClass.getConstructor(int[].class).newInstance(data);
+    }
+
+    private static int[] getPacketData(String packetString) {
+        String[] hexValues = packetString.split(" ");
+        int[] packet = new int[hexValues.length];
+        for (int cnt = 0; cnt < hexValues.length; cnt++) {
+            packet[cnt] = Integer.parseInt(hexValues[cnt], 16);
+        }
+        return packet;
+    }
+}
@@ -0,0 +1,97 @@
+/**
+ * Copyright (c) 2016-2019 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.benchmark;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.zsmartsystems.zigbee.IeeeAddress;
+import com.zsmartsystems.zigbee.ZigBeeApsFrame;
+import com.zsmartsystems.zigbee.ZigBeeEndpoint;
+import com.zsmartsystems.zigbee.ZigBeeNetworkManager;
+import com.zsmartsystems.zigbee.ZigBeeNode;
+import com.zsmartsystems.zigbee.serialization.DefaultDeserializer;
+import com.zsmartsystems.zigbee.serialization.DefaultSerializer;
+import com.zsmartsystems.zigbee.zcl.clusters.ZclOnOffCluster;
+
+/**
+ * Benchmarks {@link ZigBeeNetworkManager#receiveCommand(ZigBeeApsFrame)} with different network sizes. Each
+ * invocation receives an OnOff attribute report from one of the nodes, which is deserialized, passed to the transaction
+ * manager, and dispatched to the command listeners. Listener notifications are executed asynchronously, so this
+ * measures the cost to the thread receiving the frame from the transport.
+ *
+ * @author Chris Jackson
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NetworkManagerReceiveBenchmark {
+    /**
+     * ZCL Report Attributes command reporting OnOff attribute 0x0000 (BOOLEAN) as true
+     */
+    private static final int[] REPORT_PAYLOAD = new int[] { 0x18, 0x01, 0x0A, 0x00, 0x00, 0x10, 0x01 };
+
+    @Param({ "10", "1000", "10000" })
+    public int nodes;
+
+    private ZigBeeNetworkManager networkManager;
+    private ZigBeeApsFrame apsFrame;
+
+    @Setup
+    public void setup() {
+        networkManager = new ZigBeeNetworkManager(new BenchmarkTransport());
+        networkManager.setSerializer(DefaultSerializer.class, DefaultDeserializer.class);
+
+        for (int cnt = 1; cnt <= nodes; cnt++) {
+            ZigBeeNode node = new ZigBeeNode(networkManager, new IeeeAddress(String.format("%016X", cnt)));
+            node.setNetworkAddress(cnt);
+
+            ZigBeeEndpoint endpoint = new ZigBeeEndpoint(node, 1);
+            endpoint.setProfileId(0x0104);
+            endpoint.setInputClusterIds(Arrays.asList(ZclOnOffCluster.CLUSTER_ID));
+            node.addEndpoint(endpoint);
+
+            networkManager.addNode(node);
+        }
+
+        apsFrame = new ZigBeeApsFrame();
+        apsFrame.setSourceAddress(nodes);
+        apsFrame.setSourceEndpoint(1);
+        apsFrame.setDestinationAddress(0);
+        apsFrame.setDestinationEndpoint(1);
+        apsFrame.setProfile(0x0104);
+        apsFrame.setCluster(ZclOnOffCluster.CLUSTER_ID);
+        apsFrame.setPayload(REPORT_PAYLOAD);
+    }
+
+    @TearDown
+    public void tearDown() {
+        networkManager.shutdown();
+    }
+
+    @Benchmark
+    public void receiveCommand() {
+        networkManager.receiveCommand(apsFrame);
+    }
+}
@@ -0,0 +1,116 @@
+/**
+ * Copyright (c) 2016-2019 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.benchmark;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.zsmartsystems.zigbee.ZigBeeCommand;
+import com.zsmartsystems.zigbee.ZigBeeEndpointAddress;
+import com.zsmartsystems.zigbee.ZigBeeNetworkManager;
+import com.zsmartsystems.zigbee.internal.NotificationService;
+import com.zsmartsystems.zigbee.transaction.ZigBeeTransaction;
+import com.zsmartsystems.zigbee.transaction.ZigBeeTransactionManager;
+import com.zsmartsystems.zigbee.zcl.ZclTransactionMatcher;
+import com.zsmartsystems.zigbee.zcl.clusters.ZclBasicCluster;
+import com.zsmartsystems.zigbee.zcl.clusters.general.ReadAttributesCommand;
+import com.zsmartsystems.zigbee.zcl.clusters.general.ReadAttributesResponse;
+
+/**
+ * Benchmarks the matching of a received response against the outstanding transactions in the
+ * {@link ZigBeeTransactionManager}. Each outstanding transaction is a Read Attributes request to a different node,
+ * and the received response doesn't match any of them, so every transaction must be checked.
+ * <p>
+ * {@link #receive()} measures the cost of {@link ZigBeeTransactionManager#receive(ZigBeeCommand)} to the receiving
+ * thread, which schedules the matching of each transaction. {@link #match()} measures the matching itself. The
+ * scheduled notifications are drained at the end of each iteration so that the backlog doesn't carry over into the
+ * next iteration.
+ *
+ * @author Chris Jackson
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TransactionMatchingBenchmark {
+    @Param({ "1", "10", "100", "1000" })
+    public int outstanding;
+
+    private ZigBeeNetworkManager networkManager;
+    private ZigBeeTransactionManager transactionManager;
+    private List<ZigBeeTransaction> transactions;
+    private ZigBeeCommand response;
+
+    @Setup
+    public void setup() {
+        networkManager = new ZigBeeNetworkManager(new BenchmarkTransport());
+        transactionManager = new ZigBeeTransactionManager(networkManager);
+
+        ZclTransactionMatcher matcher = new ZclTransactionMatcher();
+        transactions = new ArrayList<ZigBeeTransaction>(outstanding);
+        for (int cnt = 0; cnt < outstanding; cnt++) {
+            ReadAttributesCommand request = new ReadAttributesCommand();
+            request.setClusterId(ZclBasicCluster.CLUSTER_ID);
+            request.setIdentifiers(Collections.singletonList(ZclBasicCluster.ATTR_MODELIDENTIFIER));
+            request.setDestinationAddress(new ZigBeeEndpointAddress(cnt + 1, 1));
+            request.setTransactionId(cnt & 0xFF);
+
+            ZigBeeTransaction transaction = new ZigBeeTransaction(transactionManager, request, matcher);
+            transactionManager.addTransactionListener(transaction);
+            transactions.add(transaction);
+        }
+
+        ReadAttributesResponse readResponse = new ReadAttributesResponse();
+        readResponse.setClusterId(ZclBasicCluster.CLUSTER_ID);
+        readResponse.setSourceAddress(new ZigBeeEndpointAddress(outstanding, 1));
+        readResponse.setTransactionId((outstanding + 1) & 0xFF);
+        response = readResponse;
+    }
+
+    @TearDown(Level.Iteration)
+    public void drainNotifications() throws InterruptedException {
+        while (NotificationService.getPendingCount() != 0) {
+            Thread.sleep(1);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        networkManager.shutdown();
+    }
+
+    @Benchmark
+    public ZigBeeCommand receive() {
+        return transactionManager.receive(response);
+    }
+
+    @Benchmark
+    public void match() {
+        for (ZigBeeTransaction transaction : transactions) {
+            transaction.commandReceived(response);
+        }
+    }
+}
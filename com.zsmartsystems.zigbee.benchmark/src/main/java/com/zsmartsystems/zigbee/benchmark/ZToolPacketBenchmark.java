@@ -0,0 +1,163 @@
+/**
+ * Copyright (c) 2016-2019 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.benchmark;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.zsmartsystems.zigbee.dongle.cc2531.network.packet.ZToolPacket;
+import com.zsmartsystems.zigbee.dongle.cc2531.network.packet.ZToolPacketDecoder;
+import com.zsmartsystems.zigbee.dongle.cc2531.network.packet.ZToolPacketHandler;
+import com.zsmartsystems.zigbee.dongle.cc2531.network.packet.ZToolPacketStream;
+import com.zsmartsystems.zigbee.transport.ZigBeePort;
+
+/**
+ * Benchmarks decoding of a recorded ZNP receive stream. The {@link #decodeBuffered(Blackhole)} benchmark passes the
+ * stream to the {@link ZToolPacketDecoder} in blocks of {@link #blockSize} values, as received by the bulk port read.
+ * The {@link #parseStream(Blackhole)} benchmark reproduces the previous implementation, which read each value from
+ * the port and parsed the packet with a {@link ZToolPacketStream}, to provide a baseline.
+ *
+ * @author Chris Jackson
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ZToolPacketBenchmark {
+    /**
+     * ZNP frames recorded from a CC2531 while discovering a device, followed by the response and confirm for an AF
+     * data request
+     */
+    private static final String[] RECORDED_FRAMES = { "FE 01 67 0A 01 6D",
+            "FE 0D 45 C1 2A 2F 2A 2F F9 41 F6 02 00 4B 12 00 00 9C",
+            "FE 11 45 81 00 14 D4 F1 02 00 4B 12 00 00 00 00 02 8F 22 2A 2F 15",
+            "FE 0F 45 81 00 86 06 00 00 00 EE 1F 00 21 A4 00 01 00 00 3E",
+            "FE 15 45 FF 00 00 00 01 80 00 00 00 1B 00 5B 23 EB 09 00 4B 12 00 00 00 00 F6",
+            "FE 12 45 82 00 00 00 00 00 00 40 0F 00 00 50 A0 00 01 00 A0 00 00 CB",
+            "FE 07 45 83 00 00 00 00 00 10 C1 10", "FE 03 45 B4 E6 D2 00 C6",
+            "FE 0B 45 B2 00 00 00 01 00 01 2A 2F 00 35 38 F4", "FE 01 64 01 00 64", "FE 03 44 80 00 01 2A EC" };
+
+    @Param({ "1", "64" })
+    public int blockSize;
+
+    private int[] stream;
+
+    private ZToolPacketDecoder decoder;
+
+    private ReplayPort port;
+
+    @Setup
+    public void setup() {
+        List<Integer> values = new ArrayList<Integer>();
+        for (String frame : RECORDED_FRAMES) {
+            for (String value : frame.split(" ")) {
+                values.add(Integer.parseInt(value, 16));
+            }
+        }
+        stream = new int[values.size()];
+        for (int cnt = 0; cnt < stream.length; cnt++) {
+            stream[cnt] = values.get(cnt);
+        }
+
+        decoder = new ZToolPacketDecoder();
+        port = new ReplayPort(stream);
+    }
+
+    @Benchmark
+    public void decodeBuffered(final Blackhole blackhole) {
+        ZToolPacketHandler handler = new ZToolPacketHandler() {
+            @Override
+            public void handlePacket(ZToolPacket packet) {
+                blackhole.consume(packet);
+            }
+
+            @Override
+            public void error(Throwable th) {
+                throw new IllegalStateException(th);
+            }
+        };
+
+        for (int offset = 0; offset < stream.length; offset += blockSize) {
+            decoder.decode(stream, offset, Math.min(blockSize, stream.length - offset), handler);
+        }
+    }
+
+    @Benchmark
+    public void parseStream(Blackhole blackhole) throws IOException {
+        port.position = 0;
+        int value;
+        while ((value = port.read()) != -1) {
+            if (value == ZToolPacket.START_BYTE) {
+                blackhole.consume(new ZToolPacketStream(port).parsePacket());
+            }
+        }
+    }
+
+    private static class ReplayPort implements ZigBeePort {
+        private final int[] data;
+        private int position;
+
+        ReplayPort(int[] data) {
+            this.data = data;
+        }
+
+        @Override
+        public boolean open() {
+            return true;
+        }
+
+        @Override
+        public boolean open(int baudRate) {
+            return true;
+        }
+
+        @Override
+        public boolean open(int baudRate, FlowControl flowControl) {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public void write(int value) {
+        }
+
+        @Override
+        public int read() {
+            return position < data.length ? data[position++] : -1;
+        }
+
+        @Override
+        public int read(int timeout) {
+            return read();
+        }
+
+        @Override
+        public void purgeRxBuffer() {
+        }
+    }
+}
@@ -0,0 +1,129 @@
+/**
+ * Copyright (c) 2016-2019 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.zsmartsystems.zigbee.IeeeAddress;
+import com.zsmartsystems.zigbee.ZigBeeEndpoint;
+import com.zsmartsystems.zigbee.ZigBeeNetworkManager;
+import com.zsmartsystems.zigbee.ZigBeeNode;
+import com.zsmartsystems.zigbee.zcl.ZclAttribute;
+import com.zsmartsystems.zigbee.zcl.ZclAttributeDefinition;
+import com.zsmartsystems.zigbee.zcl.ZclCluster;
+import com.zsmartsystems.zigbee.zcl.clusters.ZclBasicCluster;
+import com.zsmartsystems.zigbee.zcl.clusters.ZclColorControlCluster;
+import com.zsmartsystems.zigbee.zcl.clusters.ZclDoorLockCluster;
+import com.zsmartsystems.zigbee.zcl.clusters.ZclElectricalMeasurementCluster;
+import com.zsmartsystems.zigbee.zcl.clusters.ZclIasZoneCluster;
+import com.zsmartsystems.zigbee.zcl.clusters.ZclLevelControlCluster;
+import com.zsmartsystems.zigbee.zcl.clusters.ZclMeteringCluster;
+import com.zsmartsystems.zigbee.zcl.clusters.ZclOnOffCluster;
+import com.zsmartsystems.zigbee.zcl.clusters.ZclPowerConfigurationCluster;
+import com.zsmartsystems.zigbee.zcl.clusters.ZclThermostatCluster;
+
+/**
+ * Benchmarks the creation of the attributes for the clusters of a single node, comparing attributes that share a
+ * {@link ZclAttributeDefinition} with attributes that each hold their own copy of the static information (as
+ * {@link ZclAttribute} did before the definitions were shared).
+ * <p>
+ * All the attributes that are created are retained by the node, so the allocation per operation is the heap used by
+ * the attributes of each node. Run with the GC profiler (-prof gc) and compare gc.alloc.rate.norm.
+ *
+ * @author Chris Jackson
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ZclAttributeFootprintBenchmark {
+    private ZigBeeNetworkManager networkManager;
+    private List<ZclAttributeDefinition[]> definitions;
+
+    @Setup
+    public void setup() {
+        networkManager = new ZigBeeNetworkManager(new BenchmarkTransport());
+        ZigBeeNode node = new ZigBeeNode(networkManager, new IeeeAddress("1234567890ABCDEF"));
+        ZigBeeEndpoint endpoint = new ZigBeeEndpoint(node, 1);
+
+        List<ZclCluster> templates = new ArrayList<ZclCluster>();
+        templates.add(new ZclBasicCluster(endpoint));
+        templates.add(new ZclPowerConfigurationCluster(endpoint));
+        templates.add(new ZclOnOffCluster(endpoint));
+        templates.add(new ZclLevelControlCluster(endpoint));
+        templates.add(new ZclColorControlCluster(endpoint));
+        templates.add(new ZclDoorLockCluster(endpoint));
+        templates.add(new ZclThermostatCluster(endpoint));
+        templates.add(new ZclIasZoneCluster(endpoint));
+        templates.add(new ZclMeteringCluster(endpoint));
+        templates.add(new ZclElectricalMeasurementCluster(endpoint));
+
+        definitions = new ArrayList<ZclAttributeDefinition[]>();
+        for (ZclCluster cluster : templates) {
+            List<ZclAttributeDefinition> clusterDefinitions = new ArrayList<ZclAttributeDefinition>();
+            for (ZclAttribute attribute : cluster.getAttributes()) {
+                clusterDefinitions.add(attribute.getDefinition());
+            }
+            definitions.add(clusterDefinitions.toArray(new ZclAttributeDefinition[clusterDefinitions.size()]));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        networkManager.shutdown();
+    }
+
+    @Benchmark
+    public List<Map<Integer, ZclAttribute>> sharedDefinitions() {
+        List<Map<Integer, ZclAttribute>> node = new ArrayList<Map<Integer, ZclAttribute>>(definitions.size());
+        for (ZclAttributeDefinition[] clusterDefinitions : definitions) {
+            Map<Integer, ZclAttribute> attributeMap = new ConcurrentHashMap<Integer, ZclAttribute>(
+                    clusterDefinitions.length);
+            for (ZclAttributeDefinition definition : clusterDefinitions) {
+                attributeMap.put(definition.getId(), new ZclAttribute(definition));
+            }
+            node.add(attributeMap);
+        }
+        return node;
+    }
+
+    @Benchmark
+    public List<Map<Integer, ZclAttribute>> copiedDefinitions() {
+        List<Map<Integer, ZclAttribute>> node = new ArrayList<Map<Integer, ZclAttribute>>(definitions.size());
+        for (ZclAttributeDefinition[] clusterDefinitions : definitions) {
+            Map<Integer, ZclAttribute> attributeMap = new ConcurrentHashMap<Integer, ZclAttribute>(
+                    clusterDefinitions.length);
+            for (ZclAttributeDefinition definition : clusterDefinitions) {
+                attributeMap.put(definition.getId(),
+                        new ZclAttribute(definition.getCluster(), definition.getId(), definition.getName(),
+                                definition.getDataType(), definition.isMandatory(), definition.isReadable(),
+                                definition.isWritable(), definition.isReportable()));
+            }
+            node.add(attributeMap);
+        }
+        return node;
+    }
+}
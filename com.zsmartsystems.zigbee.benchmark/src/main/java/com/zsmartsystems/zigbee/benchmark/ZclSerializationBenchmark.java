@@ -0,0 +1,107 @@
+/**
+ * Copyright (c) 2016-2019 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.zsmartsystems.zigbee.IeeeAddress;
+import com.zsmartsystems.zigbee.serialization.DefaultDeserializer;
+import com.zsmartsystems.zigbee.serialization.DefaultSerializer;
+import com.zsmartsystems.zigbee.zcl.ZclFieldDeserializer;
+import com.zsmartsystems.zigbee.zcl.ZclFieldSerializer;
+import com.zsmartsystems.zigbee.zcl.field.ByteArray;
+import com.zsmartsystems.zigbee.zcl.protocol.ZclDataType;
+
+/**
+ * Benchmarks the encoding and decoding of a single ZCL field of each of the common data types through the
+ * {@link ZclFieldSerializer} and {@link ZclFieldDeserializer} using the {@link DefaultSerializer} and
+ * {@link DefaultDeserializer}. This is the path used for every field of every ZCL and ZDO command.
+ *
+ * @author Chris Jackson
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ZclSerializationBenchmark {
+    @Param({ "BOOLEAN", "UNSIGNED_8_BIT_INTEGER", "UNSIGNED_16_BIT_INTEGER", "SIGNED_16_BIT_INTEGER",
+            "UNSIGNED_32_BIT_INTEGER", "UNSIGNED_48_BIT_INTEGER", "BITMAP_8_BIT", "ENUMERATION_8_BIT",
+            "CHARACTER_STRING", "OCTET_STRING", "IEEE_ADDRESS" })
+    public String type;
+
+    private ZclDataType dataType;
+    private Object value;
+    private int[] payload;
+
+    @Setup
+    public void setup() {
+        dataType = ZclDataType.valueOf(type);
+        switch (dataType) {
+            case BOOLEAN:
+                value = Boolean.TRUE;
+                break;
+            case UNSIGNED_8_BIT_INTEGER:
+            case BITMAP_8_BIT:
+            case ENUMERATION_8_BIT:
+                value = Integer.valueOf(0xA5);
+                break;
+            case UNSIGNED_16_BIT_INTEGER:
+                value = Integer.valueOf(0xA55A);
+                break;
+            case SIGNED_16_BIT_INTEGER:
+                value = Integer.valueOf(-1234);
+                break;
+            case UNSIGNED_32_BIT_INTEGER:
+                value = Integer.valueOf(0x12345678);
+                break;
+            case UNSIGNED_48_BIT_INTEGER:
+                value = Long.valueOf(0x123456789ABCL);
+                break;
+            case CHARACTER_STRING:
+                value = "TRADFRI bulb E27 WS opal 980lm";
+                break;
+            case OCTET_STRING:
+                value = new ByteArray(new int[] { 0x01, 0x02, 0x03, 0x04, 0x05, 0x06, 0x07, 0x08 });
+                break;
+            case IEEE_ADDRESS:
+                value = new IeeeAddress("000D6F0001A2B3C4");
+                break;
+            default:
+                throw new IllegalArgumentException("No benchmark value defined for " + dataType);
+        }
+
+        payload = encode();
+    }
+
+    @Benchmark
+    public int[] encode() {
+        ZclFieldSerializer serializer = new ZclFieldSerializer(new DefaultSerializer());
+        serializer.serialize(value, dataType);
+        return serializer.getPayload();
+    }
+
+    @Benchmark
+    public Object decode() {
+        ZclFieldDeserializer deserializer = new ZclFieldDeserializer(new DefaultDeserializer(payload));
+        return deserializer.deserialize(dataType);
+    }
+}
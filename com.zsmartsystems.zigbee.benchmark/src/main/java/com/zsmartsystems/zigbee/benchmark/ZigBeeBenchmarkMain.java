@@ -0,0 +1,42 @@
+/**
+ * Copyright (c) 2016-2019 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.benchmark;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.openjdk.jmh.Main;
+
+/**
+ * Runs the JMH benchmarks. All JMH command line options are supported - if the result format and file are not
+ * specified, the results are written as JSON to jmh-result.json so they can be compared between releases.
+ * <p>
+ * Build with mvn package and run with -
+ * <p>
+ * <code>java -jar com.zsmartsystems.zigbee.benchmark/target/benchmarks.jar [regexp*] [options]</code>
+ *
+ * @author Chris Jackson
+ */
+public class ZigBeeBenchmarkMain {
+    private static final String DEFAULT_RESULT_FILE = "jmh-result.json";
+
+    public static void main(String[] args) throws Exception {
+        List<String> arguments = new ArrayList<String>(Arrays.asList(args));
+        if (!arguments.contains("-rf")) {
+            arguments.add("-rf");
+            arguments.add("json");
+        }
+        if (!arguments.contains("-rff")) {
+            arguments.add("-rff");
+            arguments.add(DEFAULT_RESULT_FILE);
+        }
+
+        Main.main(arguments.toArray(new String[arguments.size()]));
+    }
+}
@@ -0,0 +1,121 @@
+/**
+ * Copyright (c) 2016-2019 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.console.main;
+
+import java.lang.reflect.Field;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.thoughtworks.xstream.converters.ConversionException;
+import com.thoughtworks.xstream.converters.UnmarshallingContext;
+import com.thoughtworks.xstream.converters.reflection.ReflectionConverter;
+import com.thoughtworks.xstream.converters.reflection.ReflectionProvider;
+import com.thoughtworks.xstream.core.util.HierarchicalStreams;
+import com.thoughtworks.xstream.io.HierarchicalStreamReader;
+import com.thoughtworks.xstream.mapper.Mapper;
+import com.zsmartsystems.zigbee.zcl.ZclAttribute;
+import com.zsmartsystems.zigbee.zcl.ZclAttributeDefinition;
+import com.zsmartsystems.zigbee.zcl.protocol.ZclClusterType;
+import com.zsmartsystems.zigbee.zcl.protocol.ZclDataType;
+
+/**
+ * Converter for XStream to read the {@link ZclAttribute}. Attributes are written with the
+ * {@link ZclAttributeDefinition} as a child element. Files written before the definition was split from the attribute
+ * hold the static information as fields of the attribute, and the definition is rebuilt from these fields.
+ * <p>
+ * Definitions read from the file are shared between all attributes with the same definition.
+ *
+ * @author Chris Jackson
+ *
+ */
+public class ZclAttributeConverter extends ReflectionConverter {
+    /**
+     * The types of the fields that were held in the {@link ZclAttribute} before the {@link ZclAttributeDefinition} was
+     * introduced
+     */
+    private static final Map<String, Class<?>> LEGACY_FIELDS = new HashMap<>();
+    static {
+        LEGACY_FIELDS.put("cluster", ZclClusterType.class);
+        LEGACY_FIELDS.put("id", Integer.class);
+        LEGACY_FIELDS.put("name", String.class);
+        LEGACY_FIELDS.put("dataType", ZclDataType.class);
+        LEGACY_FIELDS.put("mandatory", Boolean.class);
+        LEGACY_FIELDS.put("readable", Boolean.class);
+        LEGACY_FIELDS.put("writeable", Boolean.class);
+        LEGACY_FIELDS.put("reportable", Boolean.class);
+    }
+
+    /**
+     * The {@link ZclAttributeDefinition}s read by this converter, so that all attributes with the same definition
+     * share a single instance
+     */
+    private final ConcurrentMap<ZclAttributeDefinition, ZclAttributeDefinition> definitions = new ConcurrentHashMap<>();
+
+    public ZclAttributeConverter(Mapper mapper, ReflectionProvider reflectionProvider) {
+        super(mapper, reflectionProvider, ZclAttribute.class);
+    }
+
+    @Override
+    public Object unmarshal(HierarchicalStreamReader reader, UnmarshallingContext context) {
+        ZclAttributeDefinition definition = null;
+        Map<String, Object> legacyValues = new HashMap<>();
+        Map<String, Object> values = new HashMap<>();
+
+        while (reader.hasMoreChildren()) {
+            reader.moveDown();
+            String fieldName = mapper.realMember(ZclAttribute.class, reader.getNodeName());
+            if ("definition".equals(fieldName)) {
+                definition = (ZclAttributeDefinition) context.convertAnother(null, ZclAttributeDefinition.class);
+            } else if (LEGACY_FIELDS.containsKey(fieldName)) {
+                legacyValues.put(fieldName, context.convertAnother(null, LEGACY_FIELDS.get(fieldName)));
+            } else {
+                Field field = reflectionProvider.getFieldOrNull(ZclAttribute.class, fieldName);
+                if (field == null) {
+                    throw new ConversionException("Unknown ZclAttribute field " + fieldName);
+                }
+                String classAttribute = HierarchicalStreams.readClassAttribute(reader, mapper);
+                Class<?> type = classAttribute == null ? mapper.defaultImplementationOf(field.getType())
+                        : mapper.realClass(classAttribute);
+                values.put(fieldName, context.convertAnother(null, type));
+            }
+            reader.moveUp();
+        }
+
+        if (definition == null) {
+            definition = getLegacyDefinition(legacyValues);
+        }
+        ZclAttributeDefinition sharedDefinition = definitions.putIfAbsent(definition, definition);
+        if (sharedDefinition != null) {
+            definition = sharedDefinition;
+        }
+
+        ZclAttribute attribute = new ZclAttribute(definition);
+        for (Map.Entry<String, Object> value : values.entrySet()) {
+            reflectionProvider.writeField(attribute, value.getKey(), value.getValue(), ZclAttribute.class);
+        }
+        return attribute;
+    }
+
+    private ZclAttributeDefinition getLegacyDefinition(Map<String, Object> legacyValues) {
+        if (legacyValues.get("cluster") == null || legacyValues.get("id") == null) {
+            throw new ConversionException("ZclAttribute has no definition");
+        }
+        return new ZclAttributeDefinition((ZclClusterType) legacyValues.get("cluster"),
+                (Integer) legacyValues.get("id"), (String) legacyValues.get("name"),
+                (ZclDataType) legacyValues.get("dataType"), getFlag(legacyValues, "mandatory"),
+                getFlag(legacyValues, "readable"), getFlag(legacyValues, "writeable"),
+                getFlag(legacyValues, "reportable"));
+    }
+
+    private boolean getFlag(Map<String, Object> legacyValues, String fieldName) {
+        Boolean flag = (Boolean) legacyValues.get(fieldName);
+        return flag != null && flag;
+    }
+}
@@ -0,0 +1,65 @@
+/**
+ * Copyright (c) 2016-2019 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.console.main;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import com.zsmartsystems.zigbee.dao.ZigBeeNodeDao;
+import com.zsmartsystems.zigbee.database.ZigBeeNetworkStateSnapshot;
+
+/**
+ * Command line tool to migrate an XML network state file written by {@link ZigBeeNetworkStateSerializerImpl} to the
+ * binary {@link ZigBeeNetworkStateSnapshot} format.
+ * <p>
+ * Usage: ZigBeeNetworkStateMigrator &lt;input XML file&gt; &lt;output binary file&gt;
+ *
+ * @author Chris Jackson
+ */
+public class ZigBeeNetworkStateMigrator {
+    /**
+     * Private constructor to disable constructing main class.
+     */
+    private ZigBeeNetworkStateMigrator() {
+    }
+
+    /**
+     * The main method.
+     *
+     * @param args the command arguments
+     */
+    public static void main(final String[] args) {
+        if (args.length != 2) {
+            System.err.println("Usage: ZigBeeNetworkStateMigrator <input XML file> <output binary file>");
+            System.exit(1);
+        }
+
+        final File xmlFile = new File(args[0]);
+        final File binaryFile = new File(args[1]);
+        if (!xmlFile.exists()) {
+            System.err.println("Input file " + xmlFile + " does not exist");
+            System.exit(1);
+        }
+
+        try {
+            long start = System.nanoTime();
+            List<ZigBeeNodeDao> nodes = ZigBeeNetworkStateSerializerImpl.readNodes(xmlFile);
+            long read = System.nanoTime();
+            ZigBeeNetworkStateSnapshot.write(binaryFile, nodes);
+            long written = System.nanoTime();
+
+            System.out.println(String.format("Migrated %d nodes from %s (%d bytes, read in %dms) to %s (%d bytes, %dms)",
+                    nodes.size(), xmlFile, xmlFile.length(), (read - start) / 1000000, binaryFile,
+                    binaryFile.length(), (written - read) / 1000000));
+        } catch (IOException e) {
+            System.err.println("Error migrating network state: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+}
@@ -61,7 +61,7 @@ public class ZigBeeNetworkStateSerializerImpl implements ZigBeeNetworkStateSeria
         this.networkId = networkId + "-" + networkStateFilePath;
     }
 
-    private XStream openStream() {
+    private static XStream openStream() {
         XStream stream = new XStream(new StaxDriver());
         stream.alias("ZigBeeKey", ZigBeeKey.class);
         stream.alias("ZigBeeNode", ZigBeeNodeDao.class);
@@ -77,6 +77,7 @@ public class ZigBeeNetworkStateSerializerImpl implements ZigBeeNetworkStateSeria
         stream.registerLocalConverter(ZigBeeKey.class, "address", new IeeeAddressConverter());
         stream.registerLocalConverter(BindingTable.class, "srcAddr", new IeeeAddressConverter());
         stream.registerLocalConverter(BindingTable.class, "dstAddr", new IeeeAddressConverter());
+        stream.registerConverter(new ZclAttributeConverter(stream.getMapper(), stream.getReflectionProvider()));
         return stream;
     }
 
@@ -132,10 +133,7 @@ public class ZigBeeNetworkStateSerializerImpl implements ZigBeeNetworkStateSeria
 
         int keyCnt = 0;
         try {
-            XStream stream = openStream();
-            BufferedReader reader;
-            reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), "UTF-8"));
-            final List<Object> objects = (List<Object>) stream.fromXML(reader);
+            final List<Object> objects = readObjects(file);
             for (final Object object : objects) {
                 if (object instanceof ZigBeeKey) {
                     switch (keyCnt) {
@@ -165,4 +163,30 @@ public class ZigBeeNetworkStateSerializerImpl implements ZigBeeNetworkStateSeria
         logger.info("Loading network state complete.");
     }
 
+    /**
+     * Reads the {@link ZigBeeNodeDao}s from an XML network state file without creating any nodes.
+     *
+     * @param file the XML network state {@link File}
+     * @return {@link List} of {@link ZigBeeNodeDao}s in the file
+     * @throws IOException if the file can't be read
+     */
+    public static List<ZigBeeNodeDao> readNodes(final File file) throws IOException {
+        final List<ZigBeeNodeDao> nodes = new ArrayList<>();
+        for (final Object object : readObjects(file)) {
+            if (object instanceof ZigBeeNodeDao) {
+                nodes.add((ZigBeeNodeDao) object);
+            }
+        }
+        return nodes;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Object> readObjects(final File file) throws IOException {
+        XStream stream = openStream();
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new FileInputStream(file), "UTF-8"))) {
+            return (List<Object>) stream.fromXML(reader);
+        }
+    }
+
 }
@@ -0,0 +1,103 @@
+/**
+ * Copyright (c) 2016-2019 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.console.main;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mockito;
+
+import com.zsmartsystems.zigbee.ZigBeeNetworkManager;
+import com.zsmartsystems.zigbee.ZigBeeNode;
+import com.zsmartsystems.zigbee.dao.ZigBeeNodeDao;
+import com.zsmartsystems.zigbee.zcl.ZclAttribute;
+import com.zsmartsystems.zigbee.zcl.ZclAttributeDefinition;
+import com.zsmartsystems.zigbee.zcl.protocol.ZclClusterType;
+import com.zsmartsystems.zigbee.zcl.protocol.ZclDataType;
+
+/**
+ *
+ * @author Chris Jackson
+ *
+ */
+public class ZigBeeNetworkStateSerializerImplTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File getLegacyFile() throws Exception {
+        return new File(getClass().getResource("/legacy-network.xml").toURI());
+    }
+
+    private ZclAttribute getAttribute(ZigBeeNodeDao node, int endpoint, int attributeId) {
+        return node.getEndpoints().get(endpoint).getInputClusters().get(0).getAttributes().get(attributeId);
+    }
+
+    private void checkNodes(List<ZigBeeNodeDao> nodes) {
+        assertEquals(1, nodes.size());
+        ZigBeeNodeDao node = nodes.get(0);
+        assertEquals("1234567890ABCDEF", node.getIeeeAddress());
+        assertEquals(2, node.getEndpoints().size());
+
+        ZclAttribute onOff = getAttribute(node, 0, 0);
+        ZclAttributeDefinition definition = onOff.getDefinition();
+        assertEquals(ZclClusterType.ON_OFF, definition.getCluster());
+        assertEquals(0, definition.getId());
+        assertEquals("OnOff", definition.getName());
+        assertEquals(ZclDataType.BOOLEAN, definition.getDataType());
+        assertTrue(definition.isMandatory());
+        assertTrue(definition.isReadable());
+        assertFalse(definition.isWritable());
+        assertTrue(definition.isReportable());
+        assertTrue(onOff.isImplemented());
+        assertEquals(Boolean.TRUE, onOff.getLastValue());
+        assertEquals(1546300800000L, onOff.getLastReportTime().getTimeInMillis());
+
+        ZclAttribute offTime = getAttribute(node, 0, 0x4001);
+        assertEquals(ZclDataType.UNSIGNED_16_BIT_INTEGER, offTime.getDefinition().getDataType());
+        assertTrue(offTime.getDefinition().isWritable());
+        assertFalse(offTime.isImplemented());
+
+        // The same attribute on different endpoints holds its own state, but shares the definition
+        ZclAttribute otherOnOff = getAttribute(node, 1, 0);
+        assertEquals(Boolean.FALSE, otherOnOff.getLastValue());
+        assertSame(definition, otherOnOff.getDefinition());
+    }
+
+    @Test
+    public void readLegacyNodes() throws Exception {
+        checkNodes(ZigBeeNetworkStateSerializerImpl.readNodes(getLegacyFile()));
+    }
+
+    @Test
+    public void serializeLegacyNodes() throws Exception {
+        ZigBeeNodeDao nodeDao = ZigBeeNetworkStateSerializerImpl.readNodes(getLegacyFile()).get(0);
+        ZigBeeNode node = Mockito.mock(ZigBeeNode.class);
+        Mockito.when(node.getDao()).thenReturn(nodeDao);
+        ZigBeeNetworkManager networkManager = Mockito.mock(ZigBeeNetworkManager.class);
+        Mockito.when(networkManager.getNodes()).thenReturn(Collections.singleton(node));
+
+        new ZigBeeNetworkStateSerializerImpl(new File(folder.getRoot(), "test").getPath()).serialize(networkManager);
+
+        // The state is written with the definition, and can be read back
+        File file = new File(folder.getRoot(), "test-simple-network.xml");
+        String xml = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+        assertTrue(xml.contains("<definition>"));
+        checkNodes(ZigBeeNetworkStateSerializerImpl.readNodes(file));
+    }
+}
@@ -30,6 +30,7 @@ import com.zsmartsystems.zigbee.dongle.cc2531.frame.ZdoManagementRouting;
 import com.zsmartsystems.zigbee.dongle.cc2531.frame.ZdoNodeDescriptor;
 import com.zsmartsystems.zigbee.dongle.cc2531.frame.ZdoPowerDescriptor;
 import com.zsmartsystems.zigbee.dongle.cc2531.frame.ZdoSimpleDescriptor;
+import com.zsmartsystems.zigbee.dongle.cc2531.network.ApplicationFrameworkConfirmListener;
 import com.zsmartsystems.zigbee.dongle.cc2531.network.ApplicationFrameworkMessageListener;
 import com.zsmartsystems.zigbee.dongle.cc2531.network.AsynchronousCommandListener;
 import com.zsmartsystems.zigbee.dongle.cc2531.network.DriverStatus;
@@ -38,6 +39,7 @@ import com.zsmartsystems.zigbee.dongle.cc2531.network.ZigBeeNetworkManager;
 import com.zsmartsystems.zigbee.dongle.cc2531.network.impl.CommandInterfaceImpl;
 import com.zsmartsystems.zigbee.dongle.cc2531.network.packet.ZToolCMD;
 import com.zsmartsystems.zigbee.dongle.cc2531.network.packet.ZToolPacket;
+import com.zsmartsystems.zigbee.dongle.cc2531.network.packet.af.AF_DATA_CONFIRM;
 import com.zsmartsystems.zigbee.dongle.cc2531.network.packet.af.AF_DATA_REQUEST;
 import com.zsmartsystems.zigbee.dongle.cc2531.network.packet.af.AF_DATA_REQUEST_EXT;
 import com.zsmartsystems.zigbee.dongle.cc2531.network.packet.af.AF_INCOMING_MSG;
@@ -47,6 +49,7 @@ import com.zsmartsystems.zigbee.security.ZigBeeKey;
 import com.zsmartsystems.zigbee.transport.TransportConfig;
 import com.zsmartsystems.zigbee.transport.TransportConfigOption;
 import com.zsmartsystems.zigbee.transport.ZigBeePort;
+import com.zsmartsystems.zigbee.transport.ZigBeeTransportProgressState;
 import com.zsmartsystems.zigbee.transport.ZigBeeTransportReceive;
 import com.zsmartsystems.zigbee.transport.ZigBeeTransportTransmit;
 import com.zsmartsystems.zigbee.zdo.SynchronousResponse;
@@ -64,7 +67,8 @@ import com.zsmartsystems.zigbee.zdo.SynchronousResponse;
  *
  */
 public class ZigBeeDongleTiCc2531
-        implements ZigBeeTransportTransmit, ApplicationFrameworkMessageListener, AsynchronousCommandListener {
+        implements ZigBeeTransportTransmit, ApplicationFrameworkMessageListener, ApplicationFrameworkConfirmListener,
+        AsynchronousCommandListener {
     /**
      * The {@link Logger}.
      */
@@ -278,25 +282,39 @@ public class ZigBeeDongleTiCc2531
 
     @Override
     public void sendCommand(final ZigBeeApsFrame apsFrame) {
-        synchronized (networkManager) {
-            final short sender;
-            if (apsFrame.getProfile() == 0) {
-                sender = 0;
-            } else {
-                sender = (short) getSendingEndpoint(apsFrame.getProfile());
-            }
+        final short sender;
+        if (apsFrame.getProfile() == 0) {
+            sender = 0;
+        } else {
+            sender = (short) getSendingEndpoint(apsFrame.getProfile());
+        }
 
-            // TODO: How to differentiate group and device addressing?????
-            boolean groupCommand = false;
-            if (!groupCommand) {
-                networkManager.sendCommand(new AF_DATA_REQUEST(apsFrame.getDestinationAddress(),
-                        (short) apsFrame.getDestinationEndpoint(), sender, apsFrame.getCluster(),
-                        apsFrame.getApsCounter(), (byte) 0x30, (byte) apsFrame.getRadius(), apsFrame.getPayload()));
-            } else {
-                networkManager.sendCommand(new AF_DATA_REQUEST_EXT(apsFrame.getDestinationAddress(), sender,
-                        apsFrame.getCluster(), apsFrame.getApsCounter(), (byte) (0), (byte) 0, apsFrame.getPayload()));
+        // TODO: How to differentiate group and device addressing?????
+        boolean groupCommand = false;
+        if (!groupCommand) {
+            // The AF_DATA_CONFIRM is correlated using the APS counter as the TransID, so other commands can be sent
+            // while waiting for the confirm
+            if (!networkManager.sendAFDataRequest(new AF_DATA_REQUEST(apsFrame.getDestinationAddress(),
+                    (short) apsFrame.getDestinationEndpoint(), sender, apsFrame.getCluster(), apsFrame.getApsCounter(),
+                    (byte) 0x30, (byte) apsFrame.getRadius(), apsFrame.getPayload()), this)) {
+                zigbeeNetworkReceive.receiveCommandStatus(apsFrame.getApsCounter(),
+                        ZigBeeTransportProgressState.TX_NAK);
             }
+        } else {
+            networkManager.sendCommand(new AF_DATA_REQUEST_EXT(apsFrame.getDestinationAddress(), sender,
+                    apsFrame.getCluster(), apsFrame.getApsCounter(), (byte) (0), (byte) 0, apsFrame.getPayload()));
+        }
+    }
+
+    @Override
+    public void confirmReceived(int transactionId, AF_DATA_CONFIRM confirm) {
+        ZigBeeTransportProgressState state;
+        if (confirm != null && confirm.Status == 0) {
+            state = ZigBeeTransportProgressState.TX_ACK;
+        } else {
+            state = ZigBeeTransportProgressState.TX_NAK;
         }
+        zigbeeNetworkReceive.receiveCommandStatus(transactionId, state);
     }
 
     @Override
@@ -0,0 +1,29 @@
+/**
+ * Copyright (c) 2016-2019 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.dongle.cc2531.network;
+
+import com.zsmartsystems.zigbee.dongle.cc2531.network.packet.af.AF_DATA_CONFIRM;
+import com.zsmartsystems.zigbee.dongle.cc2531.network.packet.af.AF_DATA_REQUEST;
+
+/**
+ * Callback invoked by the {@link ZigBeeNetworkManager} when the transmission of an {@link AF_DATA_REQUEST} sent with
+ * {@link ZigBeeNetworkManager#sendAFDataRequest(AF_DATA_REQUEST, ApplicationFrameworkConfirmListener)} completes.
+ *
+ * @author Chris Jackson
+ *
+ */
+public interface ApplicationFrameworkConfirmListener {
+    /**
+     * Called when the {@link AF_DATA_CONFIRM} for a request is received, or when no confirm is received before the
+     * timeout.
+     *
+     * @param transactionId the TransID of the {@link AF_DATA_REQUEST}
+     * @param confirm the {@link AF_DATA_CONFIRM}, or null if no confirm was received
+     */
+    void confirmReceived(int transactionId, AF_DATA_CONFIRM confirm);
+}
@@ -39,6 +39,7 @@ import org.slf4j.LoggerFactory;
 
 import com.zsmartsystems.zigbee.ExtendedPanId;
 import com.zsmartsystems.zigbee.ZigBeeStatus;
+import com.zsmartsystems.zigbee.dongle.cc2531.network.impl.AfDataConfirmTracker;
 import com.zsmartsystems.zigbee.dongle.cc2531.network.impl.BlockingCommandReceiver;
 import com.zsmartsystems.zigbee.dongle.cc2531.network.packet.ResponseStatus;
 import com.zsmartsystems.zigbee.dongle.cc2531.network.packet.ZToolCMD;
@@ -155,6 +156,7 @@ public class ZigBeeNetworkManager {
 
     private final ArrayList<ApplicationFrameworkMessageListener> messageListeners = new ArrayList<ApplicationFrameworkMessageListener>();
     private final AFMessageListenerFilter afMessageListenerFilter = new AFMessageListenerFilter(messageListeners);
+    private final AfDataConfirmTracker afDataConfirmTracker = new AfDataConfirmTracker();
 
     /**
      * The cached current IEEE address read from dongle.
@@ -299,6 +301,7 @@ public class ZigBeeNetworkManager {
             commandInterface.close();
             setState(DriverStatus.CREATED);
         }
+        afDataConfirmTracker.shutdown();
         setState(DriverStatus.CLOSED);
     }
 
@@ -478,6 +481,7 @@ public class ZigBeeNetworkManager {
         // if (!announceListeners.contains(announceListenerFilter)) {
         commandInterface.addAsynchronousCommandListener(announceListenerFilter);
         // }
+        commandInterface.addAsynchronousCommandListener(afDataConfirmTracker);
     }
 
     private boolean waitForHardware() {
@@ -936,24 +940,71 @@ public class ZigBeeNetworkManager {
         return response;
     }
 
+    /**
+     * Sends an Application Framework data request and waits for the {@link AF_DATA_CONFIRM}.
+     *
+     * @param request {@link AF_DATA_REQUEST}
+     * @return the {@link AF_DATA_CONFIRM}, or null if the request failed or no confirm was received
+     */
     public AF_DATA_CONFIRM sendAFDataRequest(AF_DATA_REQUEST request) {
         if (!waitForNetwork()) {
             return null;
         }
-        AF_DATA_CONFIRM result = null;
 
-        waitAndLock3WayConversation(request);
-        final BlockingCommandReceiver waiter = new BlockingCommandReceiver(ZToolCMD.AF_DATA_CONFIRM, commandInterface);
+        final AF_DATA_CONFIRM[] result = new AF_DATA_CONFIRM[] { null };
+        final boolean[] complete = new boolean[] { false };
+        ApplicationFrameworkConfirmListener listener = new ApplicationFrameworkConfirmListener() {
+            @Override
+            public void confirmReceived(int transactionId, AF_DATA_CONFIRM confirm) {
+                synchronized (result) {
+                    result[0] = confirm;
+                    complete[0] = true;
+                    result.notify();
+                }
+            }
+        };
+
+        if (!sendAFDataRequest(request, listener)) {
+            return null;
+        }
+        synchronized (result) {
+            while (!complete[0]) {
+                try {
+                    result.wait();
+                } catch (InterruptedException e) {
+                    afDataConfirmTracker.removeTransaction(request.TransID, listener);
+                    Thread.currentThread().interrupt();
+                    return null;
+                }
+            }
+            return result[0];
+        }
+    }
+
+    /**
+     * Sends an Application Framework data request without waiting for the {@link AF_DATA_CONFIRM}. The confirm is
+     * correlated with the request using the TransID, so multiple requests may be outstanding at the same time, and the
+     * listener is called when the confirm is received, or with a null confirm if no confirm is received before the
+     * timeout.
+     * <p>
+     * This method blocks until the dongle has responded to the request.
+     *
+     * @param request {@link AF_DATA_REQUEST}
+     * @param listener the {@link ApplicationFrameworkConfirmListener} to be called when the transmission completes
+     * @return true if the request was accepted by the dongle. If false, the listener will not be called.
+     */
+    public boolean sendAFDataRequest(AF_DATA_REQUEST request, ApplicationFrameworkConfirmListener listener) {
+        // The transaction must be added before the request is sent, since the confirm may be received before the
+        // synchronous response is returned
+        afDataConfirmTracker.addTransaction(request.TransID, listener, TIMEOUT);
 
         AF_DATA_SRSP response = (AF_DATA_SRSP) sendSynchronous(request);
         if (response == null || response.Status != 0) {
-            waiter.cleanup();
-        } else {
-            result = (AF_DATA_CONFIRM) waiter.getCommand(TIMEOUT);
+            logger.debug("AF_DATA_REQUEST with TransID {} failed: {}", request.TransID, response);
+            afDataConfirmTracker.removeTransaction(request.TransID, listener);
+            return false;
         }
-        unLock3WayConversation(request);
-
-        return result;
+        return true;
     }
 
     /**
@@ -0,0 +1,179 @@
+/**
+ * Copyright (c) 2016-2019 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.dongle.cc2531.network.impl;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.zsmartsystems.zigbee.dongle.cc2531.network.ApplicationFrameworkConfirmListener;
+import com.zsmartsystems.zigbee.dongle.cc2531.network.AsynchronousCommandListener;
+import com.zsmartsystems.zigbee.dongle.cc2531.network.packet.ZToolPacket;
+import com.zsmartsystems.zigbee.dongle.cc2531.network.packet.af.AF_DATA_CONFIRM;
+
+/**
+ * Correlates {@link AF_DATA_CONFIRM} packets with the AF_DATA_REQUEST that they confirm using the TransID. This allows
+ * multiple requests to be outstanding at the same time, rather than waiting for the confirm of each request before
+ * the next is sent.
+ * <p>
+ * A transaction is added with {@link #addTransaction(int, ApplicationFrameworkConfirmListener, long)} before the
+ * request is sent. The listener is called once, either with the confirm, or with null if no confirm is received before
+ * the timeout.
+ *
+ * @author Chris Jackson
+ *
+ */
+public class AfDataConfirmTracker implements AsynchronousCommandListener {
+    /**
+     * The logger.
+     */
+    private final Logger logger = LoggerFactory.getLogger(AfDataConfirmTracker.class);
+
+    /**
+     * The outstanding transactions, indexed by TransID
+     */
+    private final Map<Integer, Transaction> transactions = new HashMap<>();
+
+    /**
+     * Scheduler used to expire transactions that do not receive a confirm
+     */
+    private ScheduledExecutorService timeoutScheduler;
+
+    /**
+     * An outstanding transaction
+     */
+    private class Transaction {
+        private final ApplicationFrameworkConfirmListener listener;
+        private ScheduledFuture<?> timeout;
+
+        Transaction(ApplicationFrameworkConfirmListener listener) {
+            this.listener = listener;
+        }
+    }
+
+    /**
+     * Adds a transaction. If a transaction with the same ID is still outstanding, it is completed without a confirm
+     * since the confirm can no longer be correlated with the request.
+     *
+     * @param transactionId the TransID of the AF_DATA_REQUEST
+     * @param listener the {@link ApplicationFrameworkConfirmListener} to call when the transaction completes
+     * @param timeoutMillis the time to wait for the confirm in milliseconds
+     */
+    public void addTransaction(final int transactionId, final ApplicationFrameworkConfirmListener listener,
+            long timeoutMillis) {
+        final Transaction transaction = new Transaction(listener);
+        final Transaction replaced;
+        synchronized (transactions) {
+            if (timeoutScheduler == null) {
+                timeoutScheduler = Executors.newSingleThreadScheduledExecutor();
+            }
+            replaced = transactions.put(transactionId, transaction);
+            if (replaced != null && replaced.timeout != null) {
+                replaced.timeout.cancel(false);
+            }
+            transaction.timeout = timeoutScheduler.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    if (removeTransaction(transactionId, transaction)) {
+                        logger.debug("AF_DATA_CONFIRM for TransID {} timed out", transactionId);
+                        transaction.listener.confirmReceived(transactionId, null);
+                    }
+                }
+            }, timeoutMillis, TimeUnit.MILLISECONDS);
+        }
+
+        if (replaced != null) {
+            logger.debug("AF_DATA_REQUEST with TransID {} replaced before confirm was received", transactionId);
+            replaced.listener.confirmReceived(transactionId, null);
+        }
+    }
+
+    /**
+     * Removes a transaction without calling the listener. This should be called if the request is not accepted by the
+     * dongle, since no confirm will be received.
+     *
+     * @param transactionId the TransID of the AF_DATA_REQUEST
+     * @param listener the {@link ApplicationFrameworkConfirmListener} used when the transaction was added
+     * @return true if the transaction was outstanding
+     */
+    public boolean removeTransaction(int transactionId, ApplicationFrameworkConfirmListener listener) {
+        synchronized (transactions) {
+            Transaction transaction = transactions.get(transactionId);
+            if (transaction == null || transaction.listener != listener) {
+                return false;
+            }
+            return removeTransaction(transactionId, transaction);
+        }
+    }
+
+    /**
+     * Gets the number of outstanding transactions
+     *
+     * @return the number of transactions waiting for a confirm
+     */
+    public int getTransactionCount() {
+        synchronized (transactions) {
+            return transactions.size();
+        }
+    }
+
+    /**
+     * Removes all transactions and stops the timeout scheduler. The listeners are not called.
+     */
+    public void shutdown() {
+        synchronized (transactions) {
+            if (timeoutScheduler != null) {
+                timeoutScheduler.shutdownNow();
+                timeoutScheduler = null;
+            }
+            transactions.clear();
+        }
+    }
+
+    private boolean removeTransaction(int transactionId, Transaction transaction) {
+        synchronized (transactions) {
+            if (transactions.get(transactionId) != transaction) {
+                return false;
+            }
+            transactions.remove(transactionId);
+            if (transaction.timeout != null) {
+                transaction.timeout.cancel(false);
+            }
+            return true;
+        }
+    }
+
+    @Override
+    public void receivedAsynchronousCommand(ZToolPacket packet) {
+        if (packet.isError() || !(packet instanceof AF_DATA_CONFIRM)) {
+            return;
+        }
+
+        AF_DATA_CONFIRM confirm = (AF_DATA_CONFIRM) packet;
+        Transaction transaction;
+        synchronized (transactions) {
+            transaction = transactions.get(confirm.TransID);
+            if (transaction == null || !removeTransaction(confirm.TransID, transaction)) {
+                logger.debug("Received {} with no outstanding request", confirm);
+                return;
+            }
+        }
+        transaction.listener.confirmReceived(confirm.TransID, confirm);
+    }
+
+    @Override
+    public void receivedUnclaimedSynchronousCommandResponse(ZToolPacket packet) {
+        // Response handler not required
+    }
+}
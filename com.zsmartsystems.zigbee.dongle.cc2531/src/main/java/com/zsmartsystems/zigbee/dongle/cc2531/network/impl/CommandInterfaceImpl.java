@@ -29,12 +29,16 @@
 package com.zsmartsystems.zigbee.dongle.cc2531.network.impl;
 
 import java.io.IOException;
-import java.util.ArrayList;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Hashtable;
-import java.util.Iterator;
 import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -74,19 +78,46 @@ public class CommandInterfaceImpl implements ZToolPacketHandler, CommandInterfac
      * Support parallel processing of different command types.
      * Only one command per command ID can be in process at a time.
      */
-    private final boolean supportMultipleSynchrounsCommand = false;
+    private boolean supportMultipleSynchrounsCommand = false;
     /**
-     * Synchronous command listeners.
+     * The queue key used for all commands when multiple synchronous commands are not supported
      */
-    private final Hashtable<Short, SynchronousCommandListener> synchronousCommandListeners = new Hashtable<Short, SynchronousCommandListener>();
+    private static final short ALL_COMMANDS = -1;
+    /**
+     * Synchronous commands waiting for their response, indexed by command ID. This is also used as the lock for all
+     * synchronous command state.
+     */
+    private final Map<Short, PendingCommand> synchronousCommandListeners = new HashMap<>();
+    /**
+     * Threads waiting to send a synchronous command, in the order they will be sent. When multiple synchronous
+     * commands are supported, there is a queue for each command ID.
+     */
+    private final Map<Short, Queue<PendingCommand>> synchronousCommandQueues = new HashMap<>();
+    /**
+     * Scheduler used to expire synchronous commands that do not receive a response.
+     */
+    private ScheduledExecutorService timeoutScheduler;
+    /**
+     * Set when the interface is closed, so that threads waiting to send a synchronous command fail rather than
+     * writing to the closed port.
+     */
+    private boolean closed;
     /**
      * Asynchronous command listeners.
      */
     private final HashSet<AsynchronousCommandListener> asynchrounsCommandListeners = new HashSet<AsynchronousCommandListener>();
+
     /**
-     * Timeout times for synchronous command listeners.
+     * A synchronous command waiting for its response.
      */
-    private final HashMap<SynchronousCommandListener, Long> synchronousCommandListenerTimeouts = new HashMap<SynchronousCommandListener, Long>();
+    private class PendingCommand {
+        private final SynchronousCommandListener listener;
+        private ScheduledFuture<?> timeout;
+
+        PendingCommand(SynchronousCommandListener listener) {
+            this.listener = listener;
+        }
+    }
 
     /**
      * Constructor for configuring the ZigBee Network connection parameters.
@@ -97,6 +128,20 @@ public class CommandInterfaceImpl implements ZToolPacketHandler, CommandInterfac
         this.port = port;
     }
 
+    /**
+     * Sets whether synchronous commands with different command IDs may be sent without waiting for the response to
+     * the previous command. Commands with the same command ID are always sent one at a time, in the order they were
+     * requested, since the response can only be correlated to the request by the command ID.
+     *
+     * @param multipleSynchronousCommands true to allow synchronous commands with different command IDs to be
+     *            outstanding at the same time
+     */
+    public void setMultipleSynchronousCommands(boolean multipleSynchronousCommands) {
+        synchronized (synchronousCommandListeners) {
+            supportMultipleSynchrounsCommand = multipleSynchronousCommands;
+        }
+    }
+
     /**
      * Opens connection to ZigBee Network.
      *
@@ -107,6 +152,9 @@ public class CommandInterfaceImpl implements ZToolPacketHandler, CommandInterfac
         if (!port.open()) {
             return false;
         }
+        synchronized (synchronousCommandListeners) {
+            closed = false;
+        }
         parser = new ZToolPacketParser(port, this);
         return true;
     }
@@ -127,6 +175,15 @@ public class CommandInterfaceImpl implements ZToolPacketHandler, CommandInterfac
                 parser.close();
             }
         }
+        synchronized (synchronousCommandListeners) {
+            closed = true;
+            if (timeoutScheduler != null) {
+                timeoutScheduler.shutdownNow();
+                timeoutScheduler = null;
+            }
+            synchronousCommandListeners.clear();
+            synchronousCommandListeners.notifyAll();
+        }
     }
 
     /* ZToolPacketHandler */
@@ -186,32 +243,46 @@ public class CommandInterfaceImpl implements ZToolPacketHandler, CommandInterfac
     }
 
     /**
-     * Cleans expired synchronous command listeners.
+     * Removes a synchronous command listener, allowing the next command with the same ID to be sent. This is called
+     * when the response is received, or when the command times out.
+     *
+     * @param id the command ID
+     * @param pending the {@link PendingCommand} to remove
+     * @return true if the command was still pending
      */
-    private void cleanExpiredSynchronousCommandListeners() {
-        final long now = System.currentTimeMillis();
-        final ArrayList<Short> expired = new ArrayList<Short>();
+    private boolean removeSynchronousCommandListener(short id, PendingCommand pending) {
         synchronized (synchronousCommandListeners) {
-            final Iterator<Map.Entry<Short, SynchronousCommandListener>> i = synchronousCommandListeners.entrySet()
-                    .iterator();
-            while (i.hasNext()) {
-                Map.Entry<Short, SynchronousCommandListener> entry = i.next();
-
-                final long expiration = synchronousCommandListenerTimeouts.get(entry.getValue());
-                if (expiration != -1L && expiration < now) {
-                    expired.add(entry.getKey());
-                }
+            if (synchronousCommandListeners.get(id) != pending) {
+                return false;
             }
-
-            for (Short key : expired) {
-                synchronousCommandListeners.remove(key);
+            synchronousCommandListeners.remove(id);
+            if (pending.timeout != null) {
+                pending.timeout.cancel(false);
             }
             synchronousCommandListeners.notifyAll();
+            return true;
+        }
+    }
+
+    /**
+     * Checks if a synchronous command can be sent. Must be called with the synchronousCommandListeners lock held.
+     *
+     * @param id the command ID
+     * @return true if another command is preventing the command from being sent
+     */
+    private boolean isSynchronousCommandBlocked(short id) {
+        if (supportMultipleSynchrounsCommand) {
+            return synchronousCommandListeners.containsKey(id);
         }
+        return !synchronousCommandListeners.isEmpty();
     }
 
     /**
-     * Sends synchronous command and adds listener.
+     * Sends synchronous command and adds listener. If a command with the same ID is waiting for its response (or any
+     * command if multiple synchronous commands are not supported), this will block until the response is received or
+     * the command times out.
+     * <p>
+     * If the interface is closed while waiting, the command is not sent and an {@link IOException} is thrown.
      *
      * @param packet the command packet
      * @param listener the synchronous command response listener
@@ -221,13 +292,6 @@ public class CommandInterfaceImpl implements ZToolPacketHandler, CommandInterfac
     @Override
     public void sendSynchronousCommand(final ZToolPacket packet, final SynchronousCommandListener listener,
             final long timeoutMillis) throws IOException {
-        if (timeoutMillis == -1L) {
-            synchronousCommandListenerTimeouts.put(listener, -1L);
-        } else {
-            final long expirationTime = System.currentTimeMillis() + timeoutMillis;
-            synchronousCommandListenerTimeouts.put(listener, expirationTime);
-        }
-
         final DoubleByte cmdId = packet.getCMD();
         final int value = (cmdId.getMsb() & 0xE0);
         if (value != 0x20) {
@@ -236,38 +300,60 @@ public class CommandInterfaceImpl implements ZToolPacketHandler, CommandInterfac
                             + " instead of " + 0x20 + "\nPacket " + packet.getClass().getName() + "\n" + packet);
         }
 
-        cleanExpiredSynchronousCommandListeners();
-
-        if (supportMultipleSynchrounsCommand) {
-            synchronized (synchronousCommandListeners) {
-                final short id = (short) (cmdId.get16BitValue() & 0x1FFF);
-                while (synchronousCommandListeners.get(cmdId) != null) {
-                    try {
-                        logger.trace("Waiting for other request {} to complete", id);
-                        synchronousCommandListeners.wait(500);
-                        cleanExpiredSynchronousCommandListeners();
-                    } catch (InterruptedException ignored) {
-                    }
+        final short id = (short) (cmdId.get16BitValue() & 0x1FFF);
+        final PendingCommand pending = new PendingCommand(listener);
+        synchronized (synchronousCommandListeners) {
+            // Commands are queued so that they are sent in the order they were requested
+            final short queueId = supportMultipleSynchrounsCommand ? id : ALL_COMMANDS;
+            Queue<PendingCommand> queue = synchronousCommandQueues.get(queueId);
+            if (queue == null) {
+                queue = new ArrayDeque<>();
+                synchronousCommandQueues.put(queueId, queue);
+            }
+            queue.add(pending);
+            try {
+                while (!closed && (queue.peek() != pending || isSynchronousCommandBlocked(id))) {
+                    logger.trace("Waiting for other request {} to complete", id);
+                    synchronousCommandListeners.wait();
                 }
-                synchronousCommandListeners.put(id, listener);
+                if (closed) {
+                    throw new IOException("Interface closed while waiting to send synchronous command " + id);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted waiting to send synchronous command " + id);
+            } finally {
+                queue.remove(pending);
+                if (queue.isEmpty()) {
+                    synchronousCommandQueues.remove(queueId);
+                }
+                synchronousCommandListeners.notifyAll();
             }
-        } else {
-            synchronized (synchronousCommandListeners) {
-                final short id = (short) (cmdId.get16BitValue() & 0x1FFF);
-                while (!synchronousCommandListeners.isEmpty()) {
-                    try {
-                        logger.trace("Waiting for other request to complete");
-                        synchronousCommandListeners.wait(500);
-                        cleanExpiredSynchronousCommandListeners();
-                    } catch (InterruptedException ignored) {
-                    }
+
+            logger.trace("Put synchronousCommandListeners listener for {} command", id);
+            synchronousCommandListeners.put(id, pending);
+            if (timeoutMillis != -1L) {
+                if (timeoutScheduler == null) {
+                    timeoutScheduler = Executors.newSingleThreadScheduledExecutor();
                 }
-                logger.trace("Put synchronousCommandListeners listener for {} command", id);
-                synchronousCommandListeners.put(id, listener);
+                pending.timeout = timeoutScheduler.schedule(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (removeSynchronousCommandListener(id, pending)) {
+                            logger.trace("Synchronous command {} expired", id);
+                        }
+                    }
+                }, timeoutMillis, TimeUnit.MILLISECONDS);
             }
         }
+
         logger.trace("Sending SynchronousCommand {} ", packet);
-        sendPacket(packet);
+        try {
+            sendPacket(packet);
+        } catch (IOException e) {
+            removeSynchronousCommandListener(id, pending);
+            throw e;
+        }
     }
 
     /**
@@ -295,9 +381,7 @@ public class CommandInterfaceImpl implements ZToolPacketHandler, CommandInterfac
     @Override
     public void sendRaw(int[] packet) throws IOException {
         synchronized (port) {
-            for (int i = 0; i < packet.length; i++) {
-                port.write(packet[i]);
-            }
+            port.write(packet, 0, packet.length);
         }
     }
 
@@ -308,28 +392,27 @@ public class CommandInterfaceImpl implements ZToolPacketHandler, CommandInterfac
      */
     private void notifySynchronousCommand(final ZToolPacket packet) {
         final DoubleByte cmdId = packet.getCMD();
+        final short id = (short) (cmdId.get16BitValue() & 0x1FFF);
+        final PendingCommand pending;
         synchronized (synchronousCommandListeners) {
-            final short id = (short) (cmdId.get16BitValue() & 0x1FFF);
-            final SynchronousCommandListener listener = synchronousCommandListeners.get(id);
-            if (listener != null) {
-                listener.receivedCommandResponse(packet);
-                synchronousCommandListeners.remove(id);
-                synchronousCommandListeners.notifyAll();
-            } else {
-                // Notify asynchronous command listeners of unclaimed asynchronous command responses.
-                final AsynchronousCommandListener[] listeners;
-                synchronized (asynchrounsCommandListeners) {
-                    listeners = asynchrounsCommandListeners.toArray(new AsynchronousCommandListener[] {});
-                }
-                for (final AsynchronousCommandListener asynchronousCommandListener : listeners) {
-                    try {
-                        asynchronousCommandListener.receivedUnclaimedSynchronousCommandResponse(packet);
-                    } catch (Throwable e) {
-                        logger.error("Error in incoming asynchronous message processing: ", e);
-                    }
-                }
-            }
+            pending = synchronousCommandListeners.get(id);
+        }
+        if (pending != null && removeSynchronousCommandListener(id, pending)) {
+            pending.listener.receivedCommandResponse(packet);
+            return;
+        }
 
+        // Notify asynchronous command listeners of unclaimed asynchronous command responses.
+        final AsynchronousCommandListener[] listeners;
+        synchronized (asynchrounsCommandListeners) {
+            listeners = asynchrounsCommandListeners.toArray(new AsynchronousCommandListener[] {});
+        }
+        for (final AsynchronousCommandListener asynchronousCommandListener : listeners) {
+            try {
+                asynchronousCommandListener.receivedUnclaimedSynchronousCommandResponse(packet);
+            } catch (Throwable e) {
+                logger.error("Error in incoming asynchronous message processing: ", e);
+            }
         }
     }
 
@@ -0,0 +1,157 @@
+/**
+ * Copyright (c) 2016-2019 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.dongle.cc2531.network.packet;
+
+import java.util.Arrays;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.zsmartsystems.zigbee.dongle.cc2531.zigbee.util.DoubleByte;
+
+/**
+ * Decodes ZNP frames from blocks of received data. Data is added to a buffer, which is then scanned for the start
+ * byte. Each complete frame has its FCS checked and its payload sliced from the buffer in a single pass, and is then
+ * passed to the {@link ZToolPacketHandler} as a typed {@link ZToolPacket}. Any incomplete frame is retained until
+ * the next block of data is received.
+ * <p>
+ * If the FCS or length is incorrect, the start byte is discarded and the decoder resynchronises on the next start
+ * byte, so a corrupted frame does not cause following frames to be lost.
+ * <p>
+ * This class is not thread safe, and is intended to be used from a single receive thread.
+ *
+ * @author Chris Jackson
+ *
+ */
+public class ZToolPacketDecoder {
+    /**
+     * The logger.
+     */
+    private final static Logger logger = LoggerFactory.getLogger(ZToolPacketDecoder.class);
+
+    /**
+     * The frame overhead - start byte, length, 2 command bytes and the FCS
+     */
+    private static final int FRAME_OVERHEAD = 5;
+
+    /**
+     * The offset of the first payload byte in the frame
+     */
+    private static final int PAYLOAD_OFFSET = 4;
+
+    /**
+     * The maximum payload length supported by the ZNP
+     */
+    private static final int MAX_PAYLOAD_LENGTH = 250;
+
+    /**
+     * The received data that has not yet been decoded
+     */
+    private int[] buffer = new int[512];
+
+    /**
+     * The number of values in the buffer
+     */
+    private int bufferLength = 0;
+
+    /**
+     * Adds received data to the buffer, and passes all complete frames to the handler.
+     *
+     * @param data the received data
+     * @param offset the offset of the first value in the data
+     * @param length the number of values received
+     * @param handler the {@link ZToolPacketHandler} to receive the decoded packets
+     */
+    public void decode(int[] data, int offset, int length, ZToolPacketHandler handler) {
+        if (bufferLength + length > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, bufferLength + length));
+        }
+        System.arraycopy(data, offset, buffer, bufferLength, length);
+        bufferLength += length;
+
+        int position = 0;
+        int discarded = 0;
+        while (position < bufferLength) {
+            if (buffer[position] != ZToolPacket.START_BYTE) {
+                discarded++;
+                position++;
+                continue;
+            }
+            if (bufferLength - position < 2) {
+                break;
+            }
+            int payloadLength = buffer[position + 1];
+            if (payloadLength > MAX_PAYLOAD_LENGTH) {
+                // This can not be the start of a frame, so don't wait for data that will not arrive
+                discarded++;
+                position++;
+                continue;
+            }
+            int frameLength = payloadLength + FRAME_OVERHEAD;
+            if (bufferLength - position < frameLength) {
+                break;
+            }
+
+            int fcs = 0;
+            int fcsPosition = position + frameLength - 1;
+            for (int cnt = position + 1; cnt < fcsPosition; cnt++) {
+                fcs ^= buffer[cnt];
+            }
+            if (fcs != buffer[fcsPosition]) {
+                logger.debug("Received a BAD PACKET: checksum {} expected {}", buffer[fcsPosition], fcs);
+                discarded++;
+                position++;
+                continue;
+            }
+
+            if (discarded != 0) {
+                logger.debug("Discarded {} bytes: expected start byte", discarded);
+                discarded = 0;
+            }
+
+            ZToolPacket packet = createPacket(position, payloadLength);
+            position += frameLength;
+            if (packet == null) {
+                continue;
+            }
+            try {
+                handler.handlePacket(packet);
+            } catch (RuntimeException e) {
+                handler.error(e);
+            }
+        }
+
+        if (discarded != 0) {
+            logger.debug("Discarded {} bytes: expected start byte", discarded);
+        }
+
+        bufferLength -= position;
+        System.arraycopy(buffer, position, buffer, 0, bufferLength);
+    }
+
+    /**
+     * Discards any partially received frame
+     */
+    public void reset() {
+        bufferLength = 0;
+    }
+
+    private ZToolPacket createPacket(int position, int payloadLength) {
+        DoubleByte cmdId = new DoubleByte(buffer[position + 2], buffer[position + 3]);
+        int[] payload = Arrays.copyOfRange(buffer, position + PAYLOAD_OFFSET, position + PAYLOAD_OFFSET + payloadLength);
+        try {
+            ZToolPacket packet = ZToolPacketStream.parsePayload(cmdId, payload);
+            logger.trace("Response is {} -> {}", packet.getClass().getSimpleName(), packet);
+            return packet;
+        } catch (RuntimeException e) {
+            logger.debug("Received a BAD PACKET: error parsing {} payload {}",
+                    String.format("%04X", cmdId.get16BitValue()), Arrays.toString(payload), e);
+            return null;
+        }
+    }
+}
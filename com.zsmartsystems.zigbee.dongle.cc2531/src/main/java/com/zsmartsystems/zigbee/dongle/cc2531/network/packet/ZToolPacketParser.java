@@ -36,12 +36,9 @@
 
 package com.zsmartsystems.zigbee.dongle.cc2531.network.packet;
 
-import java.io.IOException;
-
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.zsmartsystems.zigbee.dongle.cc2531.zigbee.util.ByteUtils;
 import com.zsmartsystems.zigbee.transport.ZigBeePort;
 
 /**
@@ -57,6 +54,15 @@ public class ZToolPacketParser implements Runnable {
      * The logger.
      */
     private final static Logger logger = LoggerFactory.getLogger(ZToolPacketParser.class);
+    /**
+     * The maximum time to wait for data before checking if the parser is closing.
+     */
+    private static final int READ_TIMEOUT = 1000;
+    /**
+     * The number of values requested from the port in each read. This is large enough to receive several maximum
+     * length frames in a single read.
+     */
+    private static final int READ_BUFFER_SIZE = 1024;
     /**
      * The packet handler.
      */
@@ -93,35 +99,23 @@ public class ZToolPacketParser implements Runnable {
     }
 
     /**
-     * Run method executed by the parser thread.
+     * Run method executed by the parser thread. All available data is read from the port in a single operation, and
+     * is then decoded by the {@link ZToolPacketDecoder}.
      */
     @Override
     public void run() {
         logger.trace("ZToolPacketParser parserThread started");
+        final ZToolPacketDecoder decoder = new ZToolPacketDecoder();
+        final int[] readBuffer = new int[READ_BUFFER_SIZE];
         while (!close) {
             try {
-                int val = port.read();
-                if (val == ZToolPacket.START_BYTE) {
-                    // inputStream.mark(256);
-                    final ZToolPacketStream packetStream = new ZToolPacketStream(port);
-                    final ZToolPacket response = packetStream.parsePacket();
-
-                    logger.trace("Response is {} -> {}", response.getClass().getSimpleName(), response);
-                    if (response.isError()) {
-                        logger.debug("Received a BAD PACKET {}", response.getPacketString());
-                        // inputStream.reset();
-                        continue;
-                    }
-
-                    packetHandler.handlePacket(response);
-                } else if (val != -1) {
-                    // Log if not end of stream.
-                    logger.debug("Discarded stream: expected start byte but received {}", ByteUtils.toBase16(val));
+                int length = port.read(readBuffer, 0, readBuffer.length, READ_TIMEOUT);
+                if (length > 0) {
+                    decoder.decode(readBuffer, 0, length, packetHandler);
                 }
-            } catch (final IOException e) {
+            } catch (final Exception e) {
                 if (!close) {
                     packetHandler.error(e);
-                    close = true;
                 }
             }
         }
@@ -159,7 +159,7 @@ public class ZToolPacketStream implements IIntArrayInputStream {
         return exceptionResponse;
     }
 
-    private static ZToolPacket parsePayload(final DoubleByte cmdId, final int[] payload) {
+    static ZToolPacket parsePayload(final DoubleByte cmdId, final int[] payload) {
         switch (cmdId.get16BitValue()) {
             case ZToolCMD.SYS_RESET_RESPONSE:
                 return new SYS_RESET_RESPONSE(payload);
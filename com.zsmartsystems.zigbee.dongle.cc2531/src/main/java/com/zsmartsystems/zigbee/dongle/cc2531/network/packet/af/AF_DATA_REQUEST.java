@@ -96,6 +96,8 @@ public class AF_DATA_REQUEST extends ZToolPacket/* implements IREQUEST,IAF */ {
             throw new IllegalArgumentException("Payload is too big, maximum is 128");
         }
 
+        this.TransID = transId & 0xFF;
+
         int[] framedata = new int[payload.length + 10];
         framedata[0] = Integers.getByteAsInteger(nwkDstAddress, 0);
         framedata[1] = Integers.getByteAsInteger(nwkDstAddress, 1);
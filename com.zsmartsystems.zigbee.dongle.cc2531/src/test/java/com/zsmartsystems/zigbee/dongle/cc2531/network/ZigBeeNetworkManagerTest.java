@@ -7,6 +7,8 @@
  */
 package com.zsmartsystems.zigbee.dongle.cc2531.network;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 import java.io.IOException;
@@ -16,9 +18,15 @@ import java.util.Arrays;
 
 import org.junit.Test;
 import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
 import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 
 import com.zsmartsystems.zigbee.dongle.cc2531.network.packet.ZToolPacket;
+import com.zsmartsystems.zigbee.dongle.cc2531.network.packet.af.AF_DATA_CONFIRM;
+import com.zsmartsystems.zigbee.dongle.cc2531.network.packet.af.AF_DATA_REQUEST;
+import com.zsmartsystems.zigbee.dongle.cc2531.network.packet.af.AF_DATA_SRSP;
 
 /**
  *
@@ -115,4 +123,36 @@ public class ZigBeeNetworkManagerTest {
             e.printStackTrace();
         }
     }
+
+    @Test
+    public void sendAFDataRequest() throws Exception {
+        CommandInterface commandInterface = Mockito.mock(CommandInterface.class);
+        final int[] srspStatus = new int[] { 0 };
+        Mockito.doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) {
+                ((SynchronousCommandListener) invocation.getArgument(1))
+                        .receivedCommandResponse(new AF_DATA_SRSP(new int[] { srspStatus[0] }));
+                return null;
+            }
+        }).when(commandInterface).sendSynchronousCommand(ArgumentMatchers.any(ZToolPacket.class),
+                ArgumentMatchers.any(SynchronousCommandListener.class), ArgumentMatchers.anyLong());
+
+        ZigBeeNetworkManager networkManager = new ZigBeeNetworkManager(commandInterface, null, 0);
+        networkManager.setRetryConfiguration(1, 0);
+        ApplicationFrameworkConfirmListener listener = Mockito.mock(ApplicationFrameworkConfirmListener.class);
+
+        AF_DATA_REQUEST request = new AF_DATA_REQUEST(0x1234, (short) 1, (short) 1, 6, 0x2A, (byte) 0x30,
+                (byte) 31, new int[] { 1, 2, 3 });
+        assertEquals(0x2A, request.TransID);
+        assertTrue(networkManager.sendAFDataRequest(request, listener));
+
+        // The dongle rejects the request, so no confirm will be received
+        srspStatus[0] = 0x10;
+        request = new AF_DATA_REQUEST(0x1234, (short) 1, (short) 1, 6, 0x2B, (byte) 0x30, (byte) 31,
+                new int[] { 1, 2, 3 });
+        assertFalse(networkManager.sendAFDataRequest(request, listener));
+        Mockito.verify(listener, Mockito.never()).confirmReceived(ArgumentMatchers.anyInt(),
+                ArgumentMatchers.<AF_DATA_CONFIRM> any());
+    }
 }
@@ -0,0 +1,89 @@
+/**
+ * Copyright (c) 2016-2019 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.dongle.cc2531.network.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+
+import com.zsmartsystems.zigbee.dongle.cc2531.network.ApplicationFrameworkConfirmListener;
+import com.zsmartsystems.zigbee.dongle.cc2531.network.packet.af.AF_DATA_CONFIRM;
+
+/**
+ *
+ * @author Chris Jackson
+ *
+ */
+public class AfDataConfirmTrackerTest {
+    @Test
+    public void confirm() {
+        AfDataConfirmTracker tracker = new AfDataConfirmTracker();
+        ApplicationFrameworkConfirmListener listener1 = Mockito.mock(ApplicationFrameworkConfirmListener.class);
+        ApplicationFrameworkConfirmListener listener2 = Mockito.mock(ApplicationFrameworkConfirmListener.class);
+
+        // Multiple transactions can be outstanding, and are completed in any order
+        tracker.addTransaction(1, listener1, 10000);
+        tracker.addTransaction(2, listener2, 10000);
+        assertEquals(2, tracker.getTransactionCount());
+
+        AF_DATA_CONFIRM confirm2 = new AF_DATA_CONFIRM(0, 1, 2);
+        tracker.receivedAsynchronousCommand(confirm2);
+        Mockito.verify(listener2, Mockito.times(1)).confirmReceived(2, confirm2);
+        Mockito.verify(listener1, Mockito.never()).confirmReceived(ArgumentMatchers.anyInt(),
+                ArgumentMatchers.any(AF_DATA_CONFIRM.class));
+
+        AF_DATA_CONFIRM confirm1 = new AF_DATA_CONFIRM(0xE9, 1, 1);
+        tracker.receivedAsynchronousCommand(confirm1);
+        Mockito.verify(listener1, Mockito.times(1)).confirmReceived(1, confirm1);
+        assertEquals(0, tracker.getTransactionCount());
+
+        // A confirm that is not outstanding is ignored
+        tracker.receivedAsynchronousCommand(new AF_DATA_CONFIRM(0, 1, 1));
+        Mockito.verify(listener1, Mockito.times(1)).confirmReceived(ArgumentMatchers.anyInt(),
+                ArgumentMatchers.any(AF_DATA_CONFIRM.class));
+
+        tracker.shutdown();
+    }
+
+    @Test
+    public void replaceAndRemove() {
+        AfDataConfirmTracker tracker = new AfDataConfirmTracker();
+        ApplicationFrameworkConfirmListener listener1 = Mockito.mock(ApplicationFrameworkConfirmListener.class);
+        ApplicationFrameworkConfirmListener listener2 = Mockito.mock(ApplicationFrameworkConfirmListener.class);
+
+        // A transaction with the same ID completes the outstanding transaction without a confirm
+        tracker.addTransaction(1, listener1, 10000);
+        tracker.addTransaction(1, listener2, 10000);
+        Mockito.verify(listener1, Mockito.times(1)).confirmReceived(1, null);
+        assertEquals(1, tracker.getTransactionCount());
+
+        assertFalse(tracker.removeTransaction(1, listener1));
+        assertTrue(tracker.removeTransaction(1, listener2));
+        assertEquals(0, tracker.getTransactionCount());
+        Mockito.verify(listener2, Mockito.never()).confirmReceived(ArgumentMatchers.anyInt(),
+                ArgumentMatchers.<AF_DATA_CONFIRM> any());
+
+        tracker.shutdown();
+    }
+
+    @Test
+    public void timeout() {
+        AfDataConfirmTracker tracker = new AfDataConfirmTracker();
+        ApplicationFrameworkConfirmListener listener = Mockito.mock(ApplicationFrameworkConfirmListener.class);
+
+        tracker.addTransaction(1, listener, 10);
+        Mockito.verify(listener, Mockito.timeout(1000).times(1)).confirmReceived(1, null);
+        assertEquals(0, tracker.getTransactionCount());
+
+        tracker.shutdown();
+    }
+}
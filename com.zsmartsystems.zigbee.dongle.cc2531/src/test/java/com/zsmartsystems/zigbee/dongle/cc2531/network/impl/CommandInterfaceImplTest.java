@@ -0,0 +1,192 @@
+/**
+ * Copyright (c) 2016-2019 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.dongle.cc2531.network.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+
+import com.zsmartsystems.zigbee.dongle.cc2531.network.AsynchronousCommandListener;
+import com.zsmartsystems.zigbee.dongle.cc2531.network.SynchronousCommandListener;
+import com.zsmartsystems.zigbee.dongle.cc2531.network.packet.ZToolPacket;
+import com.zsmartsystems.zigbee.dongle.cc2531.zigbee.util.DoubleByte;
+import com.zsmartsystems.zigbee.transport.ZigBeePort;
+
+/**
+ *
+ * @author Chris Jackson
+ *
+ */
+public class CommandInterfaceImplTest {
+    private final List<ZToolPacket> responses = Collections.synchronizedList(new ArrayList<ZToolPacket>());
+
+    private SynchronousCommandListener listener = new SynchronousCommandListener() {
+        @Override
+        public void receivedCommandResponse(ZToolPacket packet) {
+            responses.add(packet);
+        }
+    };
+
+    private ZToolPacket getRequest(int lsb) {
+        return new ZToolPacket(new DoubleByte(0x21, lsb), new int[] {});
+    }
+
+    private ZToolPacket getResponse(int lsb) {
+        return new ZToolPacket(new DoubleByte(0x61, lsb), new int[] {});
+    }
+
+    private Thread sendInThread(final CommandInterfaceImpl commandInterface, final ZToolPacket packet,
+            final CountDownLatch sent) {
+        return sendInThread(commandInterface, packet, sent, new CountDownLatch(1));
+    }
+
+    private Thread sendInThread(final CommandInterfaceImpl commandInterface, final ZToolPacket packet,
+            final CountDownLatch sent, final CountDownLatch failed) {
+        Thread thread = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    commandInterface.sendSynchronousCommand(packet, listener, -1);
+                    sent.countDown();
+                } catch (IOException e) {
+                    failed.countDown();
+                }
+            }
+        };
+        thread.start();
+        return thread;
+    }
+
+    @Test
+    public void sendDifferentCommands() throws Exception {
+        ZigBeePort port = Mockito.mock(ZigBeePort.class);
+        CommandInterfaceImpl commandInterface = new CommandInterfaceImpl(port);
+        commandInterface.setMultipleSynchronousCommands(true);
+
+        // Commands with different IDs are sent without waiting for the response
+        commandInterface.sendSynchronousCommand(getRequest(0x01), listener, -1);
+        commandInterface.sendSynchronousCommand(getRequest(0x02), listener, -1);
+        Mockito.verify(port, Mockito.times(2)).write(ArgumentMatchers.any(int[].class), ArgumentMatchers.anyInt(),
+                ArgumentMatchers.anyInt());
+
+        commandInterface.handlePacket(getResponse(0x02));
+        commandInterface.handlePacket(getResponse(0x01));
+        assertEquals(2, responses.size());
+        assertEquals(0x6102, responses.get(0).getCMD().get16BitValue());
+        assertEquals(0x6101, responses.get(1).getCMD().get16BitValue());
+
+        commandInterface.close();
+    }
+
+    @Test
+    public void sendSameCommand() throws Exception {
+        ZigBeePort port = Mockito.mock(ZigBeePort.class);
+        CommandInterfaceImpl commandInterface = new CommandInterfaceImpl(port);
+        commandInterface.setMultipleSynchronousCommands(true);
+
+        commandInterface.sendSynchronousCommand(getRequest(0x01), listener, -1);
+
+        // A second command with the same ID waits for the response to the first
+        CountDownLatch sent = new CountDownLatch(1);
+        Thread thread = sendInThread(commandInterface, getRequest(0x01), sent);
+        assertFalse(sent.await(100, TimeUnit.MILLISECONDS));
+
+        // Other commands are not blocked
+        commandInterface.sendSynchronousCommand(getRequest(0x02), listener, -1);
+
+        commandInterface.handlePacket(getResponse(0x01));
+        assertTrue(sent.await(1, TimeUnit.SECONDS));
+        thread.join();
+        Mockito.verify(port, Mockito.times(3)).write(ArgumentMatchers.any(int[].class), ArgumentMatchers.anyInt(),
+                ArgumentMatchers.anyInt());
+
+        // Only the outstanding command receives the next response
+        commandInterface.handlePacket(getResponse(0x01));
+        assertEquals(2, responses.size());
+
+        // A response that is not claimed is passed to the asynchronous listeners
+        AsynchronousCommandListener asyncListener = Mockito.mock(AsynchronousCommandListener.class);
+        commandInterface.addAsynchronousCommandListener(asyncListener);
+        ZToolPacket unclaimed = getResponse(0x01);
+        commandInterface.handlePacket(unclaimed);
+        assertEquals(2, responses.size());
+        Mockito.verify(asyncListener, Mockito.times(1)).receivedUnclaimedSynchronousCommandResponse(unclaimed);
+
+        commandInterface.close();
+    }
+
+    @Test
+    public void sendSerialized() throws Exception {
+        ZigBeePort port = Mockito.mock(ZigBeePort.class);
+        CommandInterfaceImpl commandInterface = new CommandInterfaceImpl(port);
+
+        commandInterface.sendSynchronousCommand(getRequest(0x01), listener, -1);
+
+        // By default, all commands wait for the outstanding response
+        CountDownLatch sent = new CountDownLatch(1);
+        Thread thread = sendInThread(commandInterface, getRequest(0x02), sent);
+        assertFalse(sent.await(100, TimeUnit.MILLISECONDS));
+
+        commandInterface.handlePacket(getResponse(0x01));
+        assertTrue(sent.await(1, TimeUnit.SECONDS));
+        thread.join();
+
+        commandInterface.close();
+    }
+
+    @Test
+    public void sendTimeout() throws Exception {
+        ZigBeePort port = Mockito.mock(ZigBeePort.class);
+        CommandInterfaceImpl commandInterface = new CommandInterfaceImpl(port);
+
+        commandInterface.sendSynchronousCommand(getRequest(0x01), listener, 50);
+
+        // The next command is sent once the outstanding command expires
+        CountDownLatch sent = new CountDownLatch(1);
+        Thread thread = sendInThread(commandInterface, getRequest(0x01), sent);
+        assertTrue(sent.await(1, TimeUnit.SECONDS));
+        thread.join();
+
+        commandInterface.handlePacket(getResponse(0x01));
+        assertEquals(1, responses.size());
+
+        commandInterface.close();
+    }
+
+    @Test
+    public void sendClosed() throws Exception {
+        ZigBeePort port = Mockito.mock(ZigBeePort.class);
+        CommandInterfaceImpl commandInterface = new CommandInterfaceImpl(port);
+
+        commandInterface.sendSynchronousCommand(getRequest(0x01), listener, -1);
+
+        CountDownLatch sent = new CountDownLatch(1);
+        CountDownLatch failed = new CountDownLatch(1);
+        Thread thread = sendInThread(commandInterface, getRequest(0x02), sent, failed);
+        assertFalse(sent.await(100, TimeUnit.MILLISECONDS));
+
+        // The waiting command fails when the interface is closed, and is not written to the port
+        commandInterface.close();
+        assertTrue(failed.await(1, TimeUnit.SECONDS));
+        thread.join();
+        assertEquals(1, sent.getCount());
+        Mockito.verify(port, Mockito.times(1)).write(ArgumentMatchers.any(int[].class), ArgumentMatchers.anyInt(),
+                ArgumentMatchers.anyInt());
+    }
+}
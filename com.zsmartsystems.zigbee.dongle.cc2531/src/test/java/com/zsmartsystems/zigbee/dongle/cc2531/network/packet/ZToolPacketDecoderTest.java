@@ -0,0 +1,138 @@
+/**
+ * Copyright (c) 2016-2019 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.dongle.cc2531.network.packet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.zsmartsystems.zigbee.dongle.cc2531.network.packet.af.AF_DATA_CONFIRM;
+import com.zsmartsystems.zigbee.dongle.cc2531.network.packet.util.UTIL_LED_CONTROL_RESPONSE;
+
+/**
+ *
+ * @author Chris Jackson
+ *
+ */
+public class ZToolPacketDecoderTest {
+    private static final String AF_DATA_CONFIRM_FRAME = "FE 03 44 80 00 01 2A EC";
+    private static final String LED_CONTROL_FRAME = "FE 01 67 0A 01 6D";
+    private static final String IEEE_ADDR_FRAME = "FE 11 45 81 00 14 D4 F1 02 00 4B 12 00 00 00 00 02 8F 22 2A 2F 15";
+
+    private final List<ZToolPacket> packets = new ArrayList<>();
+    private final List<Throwable> errors = new ArrayList<>();
+
+    private final ZToolPacketHandler handler = new ZToolPacketHandler() {
+        @Override
+        public void handlePacket(ZToolPacket response) {
+            packets.add(response);
+        }
+
+        @Override
+        public void error(Throwable th) {
+            errors.add(th);
+        }
+    };
+
+    private int[] getPacketData(String... frames) {
+        List<Integer> values = new ArrayList<>();
+        for (String frame : frames) {
+            for (String value : frame.split(" ")) {
+                values.add(Integer.parseInt(value, 16));
+            }
+        }
+        int[] data = new int[values.size()];
+        for (int cnt = 0; cnt < data.length; cnt++) {
+            data[cnt] = values.get(cnt);
+        }
+        return data;
+    }
+
+    @Test
+    public void decodeBlock() {
+        ZToolPacketDecoder decoder = new ZToolPacketDecoder();
+        int[] data = getPacketData(AF_DATA_CONFIRM_FRAME, LED_CONTROL_FRAME, IEEE_ADDR_FRAME);
+        decoder.decode(data, 0, data.length, handler);
+
+        assertEquals(3, packets.size());
+        assertTrue(packets.get(0) instanceof AF_DATA_CONFIRM);
+        assertEquals(0x2A, ((AF_DATA_CONFIRM) packets.get(0)).TransID);
+        assertTrue(packets.get(1) instanceof UTIL_LED_CONTROL_RESPONSE);
+        assertEquals(ZToolCMD.ZDO_IEEE_ADDR_RSP, packets.get(2).getCMD().get16BitValue());
+        assertEquals(0x15, packets.get(2).getFCS());
+        assertTrue(errors.isEmpty());
+    }
+
+    @Test
+    public void decodeSplit() {
+        ZToolPacketDecoder decoder = new ZToolPacketDecoder();
+        int[] data = getPacketData(IEEE_ADDR_FRAME, AF_DATA_CONFIRM_FRAME);
+
+        // Frames are decoded when they are complete, regardless of how the data is split
+        for (int cnt = 0; cnt < data.length; cnt++) {
+            decoder.decode(data, cnt, 1, handler);
+            if (cnt < 21) {
+                assertEquals(0, packets.size());
+            }
+        }
+        assertEquals(2, packets.size());
+        assertTrue(packets.get(1) instanceof AF_DATA_CONFIRM);
+    }
+
+    @Test
+    public void decodeResynchronise() {
+        ZToolPacketDecoder decoder = new ZToolPacketDecoder();
+
+        // Data before the start byte is discarded, as is a frame with an incorrect FCS
+        int[] data = getPacketData("12 34", "FE 03 44 80 00 01 2A ED", LED_CONTROL_FRAME, "00");
+        decoder.decode(data, 0, data.length, handler);
+        assertEquals(1, packets.size());
+        assertTrue(packets.get(0) instanceof UTIL_LED_CONTROL_RESPONSE);
+
+        // A start byte within a corrupted frame does not prevent the next frame being decoded
+        data = getPacketData("FE 10 FE", AF_DATA_CONFIRM_FRAME);
+        decoder.decode(data, 0, data.length, handler);
+        assertEquals(1, packets.size());
+        decoder.decode(getPacketData("00 00 00 00 00 00 00 00 00 00 00 00 00 00 00"), 0, 15, handler);
+        assertEquals(2, packets.size());
+        assertTrue(packets.get(1) instanceof AF_DATA_CONFIRM);
+    }
+
+    @Test
+    public void decodeHandlerException() {
+        ZToolPacketDecoder decoder = new ZToolPacketDecoder();
+        ZToolPacketHandler failingHandler = new ZToolPacketHandler() {
+            @Override
+            public void handlePacket(ZToolPacket response) {
+                packets.add(response);
+                throw new IllegalStateException();
+            }
+
+            @Override
+            public void error(Throwable th) {
+                errors.add(th);
+            }
+        };
+
+        // An exception in the handler does not prevent the following frames being decoded
+        int[] data = getPacketData(AF_DATA_CONFIRM_FRAME, LED_CONTROL_FRAME);
+        decoder.decode(data, 0, data.length, failingHandler);
+        assertEquals(2, packets.size());
+        assertEquals(2, errors.size());
+
+        decoder.reset();
+        decoder.decode(data, 0, 3, handler);
+        decoder.reset();
+        decoder.decode(data, 3, 5, handler);
+        assertEquals(2, packets.size());
+    }
+}
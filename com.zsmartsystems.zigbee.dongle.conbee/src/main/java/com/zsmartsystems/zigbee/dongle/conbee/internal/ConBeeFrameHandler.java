@@ -34,6 +34,7 @@ import com.zsmartsystems.zigbee.dongle.conbee.internal.frame.ConBeeQuerySendData
 import com.zsmartsystems.zigbee.dongle.conbee.internal.frame.ConBeeReadReceivedDataRequest;
 import com.zsmartsystems.zigbee.dongle.conbee.internal.transaction.ConBeeTransaction;
 import com.zsmartsystems.zigbee.transport.ZigBeePort;
+import com.zsmartsystems.zigbee.transport.ZigBeePortReader;
 
 /**
  * Frame parser for ConBee SLIP protocol.
@@ -76,6 +77,11 @@ public class ConBeeFrameHandler {
      */
     private ZigBeePort serialPort;
 
+    /**
+     * Buffers the data received from the port
+     */
+    private final ZigBeePortReader portReader;
+
     /**
      * The receive thread.
      */
@@ -101,6 +107,7 @@ public class ConBeeFrameHandler {
      */
     public ConBeeFrameHandler(final ZigBeePort serialPort, final ZigBeeDongleConBee dongle) {
         this.serialPort = serialPort;
+        this.portReader = new ZigBeePortReader(serialPort, SLIP_MAX_LENGTH);
 
         receiveThread = new Thread("ConBeeReceiveHandler") {
             @Override
@@ -157,7 +164,7 @@ public class ConBeeFrameHandler {
         boolean escaped = false;
 
         while (!closeHandler) {
-            int val = serialPort.read();
+            int val = portReader.read();
             // logger.debug("CONBEE RX: " + String.format("[% 2d] %02X", inputCount, val));
             if (val == SLIP_ESC) {
                 escaped = true;
@@ -274,31 +281,33 @@ public class ConBeeFrameHandler {
         StringBuilder result = new StringBuilder();
         // Send the data
         logger.debug("CONBEE TX: {}", frame);
-        serialPort.write(SLIP_END);
+        // Encode the frame into a single block - in the worst case every byte is escaped
+        int[] frameData = frame.getOutputBuffer();
+        int[] outputBuffer = new int[frameData.length * 2 + 2];
+        int outputLength = 0;
+        outputBuffer[outputLength++] = SLIP_END;
 
-        for (int val : frame.getOutputBuffer()) {
+        for (int val : frameData) {
             result.append(String.format(" %02X", val));
-            // logger.debug("CONBEE TX: {}", String.format("%02X", val));
             switch (val) {
                 case SLIP_END:
-                    // logger.debug("CONBEE TX: [ESC]");
-                    serialPort.write(SLIP_ESC);
-                    serialPort.write(SLIP_ESC_END);
+                    outputBuffer[outputLength++] = SLIP_ESC;
+                    outputBuffer[outputLength++] = SLIP_ESC_END;
                     break;
                 case SLIP_ESC:
-                    // logger.debug("CONBEE TX: [ESC]");
-                    serialPort.write(SLIP_ESC);
-                    serialPort.write(SLIP_ESC_ESC);
+                    outputBuffer[outputLength++] = SLIP_ESC;
+                    outputBuffer[outputLength++] = SLIP_ESC_ESC;
                     break;
                 default:
-                    serialPort.write(val);
+                    outputBuffer[outputLength++] = val;
                     break;
             }
         }
 
         logger.debug("CONBEE TX:{}", result.toString());
 
-        serialPort.write(SLIP_END);
+        outputBuffer[outputLength++] = SLIP_END;
+        serialPort.write(outputBuffer, 0, outputLength);
 
         startRetryTimer();
     }
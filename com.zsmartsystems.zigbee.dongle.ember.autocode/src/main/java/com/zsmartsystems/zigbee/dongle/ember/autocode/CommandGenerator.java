@@ -689,6 +689,9 @@ public class CommandGenerator extends ClassGenerator {
             case "EmberRouteTableEntry":
                 addImport(ezspStructurePackage + ".EmberRouteTableEntry");
                 return "EmberRouteTableEntry";
+            case "EmberMulticastTableEntry":
+                addImport(ezspStructurePackage + ".EmberMulticastTableEntry");
+                return "EmberMulticastTableEntry";
             case "EmberBindingTableEntry":
                 addImport(ezspStructurePackage + ".EmberBindingTableEntry");
                 return "EmberBindingTableEntry";
@@ -877,11 +880,6 @@ public class CommandGenerator extends ClassGenerator {
 
         out.println("package " + ezspPackage + ";");
         out.println();
-        out.println("import java.lang.reflect.Constructor;");
-        out.println("import java.lang.reflect.InvocationTargetException;");
-        out.println("import java.util.HashMap;");
-        out.println("import java.util.Map;");
-        out.println();
         out.println("import org.slf4j.Logger;");
         out.println("import org.slf4j.LoggerFactory;");
         // out.println();
@@ -976,7 +974,17 @@ public class CommandGenerator extends ClassGenerator {
         out.println("    protected int frameId = 0;");
         out.println("    protected boolean isResponse = false;");
         out.println();
-        out.println("    private static Map<Integer, Class<?>> ezspHandlerMap = new HashMap<Integer, Class<?>>();");
+        out.println("    /**");
+        out.println("     * Creates an {@link EzspFrameResponse} from the received data");
+        out.println("     */");
+        out.println("    private interface EzspFrameFactory {");
+        out.println("        EzspFrameResponse create(int[] data);");
+        out.println("    }");
+        out.println();
+        out.println("    /**");
+        out.println("     * The response factories, indexed by frame ID. This avoids reflection and boxing when decoding frames.");
+        out.println("     */");
+        out.println("    private static final EzspFrameFactory[] ezspHandlers = new EzspFrameFactory[256];");
         out.println("    static {");
         for (Command command : commandMap.values()) {
             String className;
@@ -989,7 +997,7 @@ public class CommandGenerator extends ClassGenerator {
 
             String reference = camelCaseToConstant(
                     command.name.substring(0, 1).toUpperCase() + command.name.substring(1));
-            out.println("        ezspHandlerMap.put(FRAME_ID_" + reference + ", " + className + ".class);");
+            out.println("        ezspHandlers[FRAME_ID_" + reference + "] = " + className + "::new;");
         }
         out.println("    }");
         out.println();
@@ -1037,25 +1045,20 @@ public class CommandGenerator extends ClassGenerator {
         out.println("     * @return the {@link EzspFrameResponse} or null if the response can't be created.");
         out.println("     */");
         out.println("    public static EzspFrameResponse createHandler(int[] data) {");
-        out.println("        Class<?> ezspClass;");
-        out.println("        if (data[2] != 0xFF) {");
-        out.println("            ezspClass = ezspHandlerMap.get(data[2]);");
+        out.println("        EzspFrameFactory factory;");
+        out.println("        if (data[2] != EZSP_LEGACY_FRAME_ID) {");
+        out.println("            factory = ezspHandlers[data[2] & 0xFF];");
         out.println("        } else {");
-        out.println("            ezspClass = ezspHandlerMap.get(data[4]);");
+        out.println("            factory = ezspHandlers[data[4] & 0xFF];");
         out.println("        }");
         out.println();
-        out.println("        if (ezspClass == null) {");
+        out.println("        if (factory == null) {");
         out.println("            return null;");
         out.println("        }");
         out.println();
-        out.println("        Constructor<?> ctor;");
         out.println("        try {");
-        out.println("            ctor = ezspClass.getConstructor(int[].class);");
-        out.println("            EzspFrameResponse ezspFrame = (EzspFrameResponse) ctor.newInstance(data);");
-        out.println("            return ezspFrame;");
-        out.println(
-                "        } catch (SecurityException | NoSuchMethodException | IllegalArgumentException | InstantiationException");
-        out.println("                | IllegalAccessException | InvocationTargetException e) {");
+        out.println("            return factory.create(data);");
+        out.println("        } catch (RuntimeException e) {");
         out.println("            logger.debug(\"Error creating instance of EzspFrame\", e);");
         out.println("        }");
         out.println();
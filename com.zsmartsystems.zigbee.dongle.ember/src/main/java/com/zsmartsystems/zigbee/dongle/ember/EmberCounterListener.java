@@ -0,0 +1,29 @@
+/**
+ * Copyright (c) 2016-2019 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.dongle.ember;
+
+import com.zsmartsystems.zigbee.dongle.ember.ezsp.structure.EmberCounterType;
+
+/**
+ * A listener interface to notify a user when the rate of an NCP counter exceeds its configured threshold. Thresholds
+ * are set with {@link ZigBeeDongleEzsp#setCounterThreshold(EmberCounterType, double)}.
+ *
+ * @author Chris Jackson
+ *
+ */
+public interface EmberCounterListener {
+    /**
+     * Called when the rate of a counter rises above its threshold. The listener is not called again for the counter
+     * until the rate has fallen below the threshold.
+     *
+     * @param counter the {@link EmberCounterType} that exceeded its threshold
+     * @param rate the rate of the counter over the last sample period in events per second
+     * @param threshold the configured threshold in events per second
+     */
+    void emberCounterThresholdExceeded(EmberCounterType counter, double rate, double threshold);
+}
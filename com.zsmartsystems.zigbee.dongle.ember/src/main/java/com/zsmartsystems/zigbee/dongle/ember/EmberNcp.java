@@ -10,8 +10,13 @@ package com.zsmartsystems.zigbee.dongle.ember;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -48,6 +53,10 @@ import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspGetLibraryStatusRe
 import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspGetLibraryStatusResponse;
 import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspGetMfgTokenRequest;
 import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspGetMfgTokenResponse;
+import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspGetMulticastTableEntryRequest;
+import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspGetMulticastTableEntryResponse;
+import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspGetNeighborRequest;
+import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspGetNeighborResponse;
 import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspGetNetworkParametersRequest;
 import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspGetNetworkParametersResponse;
 import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspGetNodeIdRequest;
@@ -56,20 +65,28 @@ import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspGetParentChildPara
 import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspGetParentChildParametersResponse;
 import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspGetPolicyRequest;
 import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspGetPolicyResponse;
+import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspGetRouteTableEntryRequest;
+import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspGetRouteTableEntryResponse;
 import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspGetValueRequest;
 import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspGetValueResponse;
 import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspLeaveNetworkRequest;
 import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspLeaveNetworkResponse;
+import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspNeighborCountRequest;
+import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspNeighborCountResponse;
 import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspNetworkFoundHandler;
 import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspNetworkInitRequest;
 import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspNetworkInitResponse;
 import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspNetworkStateRequest;
 import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspNetworkStateResponse;
+import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspReadAndClearCountersRequest;
+import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspReadAndClearCountersResponse;
 import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspReadCountersRequest;
 import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspReadCountersResponse;
 import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspScanCompleteHandler;
 import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspSetConfigurationValueRequest;
 import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspSetConfigurationValueResponse;
+import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspSetMulticastTableEntryRequest;
+import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspSetMulticastTableEntryResponse;
 import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspSetPolicyRequest;
 import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspSetPolicyResponse;
 import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspSetRadioPowerRequest;
@@ -89,8 +106,11 @@ import com.zsmartsystems.zigbee.dongle.ember.ezsp.structure.EmberKeyStruct;
 import com.zsmartsystems.zigbee.dongle.ember.ezsp.structure.EmberKeyType;
 import com.zsmartsystems.zigbee.dongle.ember.ezsp.structure.EmberLibraryId;
 import com.zsmartsystems.zigbee.dongle.ember.ezsp.structure.EmberLibraryStatus;
+import com.zsmartsystems.zigbee.dongle.ember.ezsp.structure.EmberMulticastTableEntry;
+import com.zsmartsystems.zigbee.dongle.ember.ezsp.structure.EmberNeighborTableEntry;
 import com.zsmartsystems.zigbee.dongle.ember.ezsp.structure.EmberNetworkParameters;
 import com.zsmartsystems.zigbee.dongle.ember.ezsp.structure.EmberNetworkStatus;
+import com.zsmartsystems.zigbee.dongle.ember.ezsp.structure.EmberRouteTableEntry;
 import com.zsmartsystems.zigbee.dongle.ember.ezsp.structure.EmberStatus;
 import com.zsmartsystems.zigbee.dongle.ember.ezsp.structure.EzspConfigId;
 import com.zsmartsystems.zigbee.dongle.ember.ezsp.structure.EzspDecisionId;
@@ -286,6 +306,113 @@ public class EmberNcp {
         return response;
     }
 
+    /**
+     * Returns the number of active entries in the neighbor table.
+     *
+     * @return the number of active entries in the neighbor table
+     */
+    public int getNeighborCount() {
+        EzspNeighborCountRequest request = new EzspNeighborCountRequest();
+        EzspTransaction transaction = protocolHandler
+                .sendEzspTransaction(new EzspSingleResponseTransaction(request, EzspNeighborCountResponse.class));
+        EzspNeighborCountResponse response = (EzspNeighborCountResponse) transaction.getResponse();
+        lastStatus = null;
+
+        return response.getValue();
+    }
+
+    /**
+     * Returns an entry from the neighbor table.
+     *
+     * @param index the index of the neighbor table entry
+     * @return the {@link EmberNeighborTableEntry} at the requested index or null on error
+     */
+    public EmberNeighborTableEntry getNeighbor(int index) {
+        EzspGetNeighborRequest request = new EzspGetNeighborRequest();
+        request.setIndex(index);
+        EzspTransaction transaction = protocolHandler
+                .sendEzspTransaction(new EzspSingleResponseTransaction(request, EzspGetNeighborResponse.class));
+        EzspGetNeighborResponse response = (EzspGetNeighborResponse) transaction.getResponse();
+        logger.debug(response.toString());
+        lastStatus = response.getStatus();
+        if (lastStatus != EmberStatus.EMBER_SUCCESS) {
+            return null;
+        }
+
+        return response.getValue();
+    }
+
+    /**
+     * Returns an entry from the route table.
+     *
+     * @param index the index of the route table entry
+     * @return the {@link EmberRouteTableEntry} at the requested index or null on error
+     */
+    public EmberRouteTableEntry getRouteTableEntry(int index) {
+        EzspGetRouteTableEntryRequest request = new EzspGetRouteTableEntryRequest();
+        request.setIndex(index);
+        EzspTransaction transaction = protocolHandler.sendEzspTransaction(
+                new EzspSingleResponseTransaction(request, EzspGetRouteTableEntryResponse.class));
+        EzspGetRouteTableEntryResponse response = (EzspGetRouteTableEntryResponse) transaction.getResponse();
+        logger.debug(response.toString());
+        lastStatus = response.getStatus();
+        if (lastStatus != EmberStatus.EMBER_SUCCESS) {
+            return null;
+        }
+
+        return response.getValue();
+    }
+
+    /**
+     * Returns an entry from the multicast table.
+     *
+     * @param index the index of the multicast table entry
+     * @return the {@link EmberMulticastTableEntry} at the requested index or null on error
+     */
+    public EmberMulticastTableEntry getMulticastTableEntry(int index) {
+        EzspGetMulticastTableEntryRequest request = new EzspGetMulticastTableEntryRequest();
+        request.setIndex(index);
+        EzspTransaction transaction = protocolHandler.sendEzspTransaction(
+                new EzspSingleResponseTransaction(request, EzspGetMulticastTableEntryResponse.class));
+        EzspGetMulticastTableEntryResponse response = (EzspGetMulticastTableEntryResponse) transaction
+                .getResponse();
+        if (response == null) {
+            lastStatus = null;
+            return null;
+        }
+        logger.debug(response.toString());
+        lastStatus = response.getStatus();
+        if (lastStatus != EmberStatus.EMBER_SUCCESS) {
+            return null;
+        }
+
+        return response.getValue();
+    }
+
+    /**
+     * Sets an entry in the multicast table. An entry with an endpoint of 0 is not in use.
+     *
+     * @param index the index of the multicast table entry
+     * @param entry the {@link EmberMulticastTableEntry} to set at the requested index
+     * @return the response {@link EmberStatus} of the request or null if no response was received
+     */
+    public EmberStatus setMulticastTableEntry(int index, EmberMulticastTableEntry entry) {
+        EzspSetMulticastTableEntryRequest request = new EzspSetMulticastTableEntryRequest();
+        request.setIndex(index);
+        request.setValue(entry);
+        EzspTransaction transaction = protocolHandler.sendEzspTransaction(
+                new EzspSingleResponseTransaction(request, EzspSetMulticastTableEntryResponse.class));
+        EzspSetMulticastTableEntryResponse response = (EzspSetMulticastTableEntryResponse) transaction
+                .getResponse();
+        if (response == null) {
+            lastStatus = null;
+            return null;
+        }
+        logger.debug(response.toString());
+        lastStatus = response.getStatus();
+        return lastStatus;
+    }
+
     /**
      * Configures endpoint information on the NCP. The NCP does not remember these settings after a reset. Endpoints can
      * be added by the Host after the NCP has reset. Once the status of the stack changes to EMBER_NETWORK_UP, endpoints
@@ -331,6 +458,26 @@ public class EmberNcp {
         return response.getValues();
     }
 
+    /**
+     * Retrieves Ember counters, and clears the counters in the NCP. The counters saturate rather than roll over, so
+     * reading and clearing the counters periodically allows the counts to be accumulated by the host. See the
+     * EmberCounterType enumeration for the counter types.
+     *
+     * @return the array of counters or null on error
+     */
+    public int[] readAndClearCounters() {
+        EzspReadAndClearCountersRequest request = new EzspReadAndClearCountersRequest();
+        EzspTransaction transaction = protocolHandler.sendEzspTransaction(
+                new EzspSingleResponseTransaction(request, EzspReadAndClearCountersResponse.class));
+        EzspReadAndClearCountersResponse response = (EzspReadAndClearCountersResponse) transaction.getResponse();
+        lastStatus = null;
+        if (response == null) {
+            return null;
+        }
+        logger.debug(response.toString());
+        return response.getValues();
+    }
+
     /**
      * Gets a Security Key based on the passed key type.
      *
@@ -462,6 +609,134 @@ public class EmberNcp {
         return getPolicyResponse.getDecisionId();
     }
 
+    /**
+     * Get a set of configuration values. The requests are all queued to the NCP before waiting for the responses, so
+     * the NCP is not left idle between requests.
+     *
+     * @param configIds the {@link Set} of {@link EzspConfigId}s to get
+     * @return {@link Map} of {@link EzspConfigId} to the configuration value. The value will be null on error.
+     */
+    public Map<EzspConfigId, Integer> getConfiguration(Set<EzspConfigId> configIds) {
+        List<EzspTransaction> transactions = new ArrayList<>();
+        for (EzspConfigId configId : configIds) {
+            EzspGetConfigurationValueRequest request = new EzspGetConfigurationValueRequest();
+            request.setConfigId(configId);
+            transactions.add(new EzspSingleResponseTransaction(request, EzspGetConfigurationValueResponse.class));
+        }
+        sendEzspTransactions(transactions);
+        lastStatus = null;
+
+        Map<EzspConfigId, Integer> values = new LinkedHashMap<>();
+        for (EzspTransaction transaction : transactions) {
+            EzspGetConfigurationValueRequest request = (EzspGetConfigurationValueRequest) transaction.getRequest();
+            EzspGetConfigurationValueResponse response = (EzspGetConfigurationValueResponse) transaction
+                    .getResponse();
+            if (response == null || response.getStatus() != EzspStatus.EZSP_SUCCESS) {
+                logger.debug("Error getting configuration {}: {}", request.getConfigId(), response);
+                values.put(request.getConfigId(), null);
+                continue;
+            }
+            values.put(request.getConfigId(), response.getValue());
+        }
+
+        return values;
+    }
+
+    /**
+     * Set a number of configuration values. The requests are all queued to the NCP before waiting for the responses,
+     * so the NCP is not left idle between requests.
+     *
+     * @param configuration {@link Map} of {@link EzspConfigId} to the value to set
+     * @return {@link Map} of {@link EzspConfigId} to the {@link EzspStatus} of the response. The status will be null if
+     *         no response was received.
+     */
+    public Map<EzspConfigId, EzspStatus> setConfiguration(Map<EzspConfigId, Integer> configuration) {
+        List<EzspTransaction> transactions = new ArrayList<>();
+        for (Entry<EzspConfigId, Integer> config : configuration.entrySet()) {
+            EzspSetConfigurationValueRequest request = new EzspSetConfigurationValueRequest();
+            request.setConfigId(config.getKey());
+            request.setValue(config.getValue());
+            logger.debug(request.toString());
+            transactions.add(new EzspSingleResponseTransaction(request, EzspSetConfigurationValueResponse.class));
+        }
+        sendEzspTransactions(transactions);
+        lastStatus = null;
+
+        Map<EzspConfigId, EzspStatus> results = new LinkedHashMap<>();
+        for (EzspTransaction transaction : transactions) {
+            EzspSetConfigurationValueRequest request = (EzspSetConfigurationValueRequest) transaction.getRequest();
+            EzspSetConfigurationValueResponse response = (EzspSetConfigurationValueResponse) transaction
+                    .getResponse();
+            results.put(request.getConfigId(), response == null ? null : response.getStatus());
+        }
+
+        return results;
+    }
+
+    /**
+     * Get a set of policies. The requests are all queued to the NCP before waiting for the responses, so the NCP is
+     * not left idle between requests.
+     *
+     * @param policyIds the {@link Set} of {@link EzspPolicyId}s to get
+     * @return {@link Map} of {@link EzspPolicyId} to the {@link EzspDecisionId}. The decision will be null on error.
+     */
+    public Map<EzspPolicyId, EzspDecisionId> getPolicy(Set<EzspPolicyId> policyIds) {
+        List<EzspTransaction> transactions = new ArrayList<>();
+        for (EzspPolicyId policyId : policyIds) {
+            EzspGetPolicyRequest request = new EzspGetPolicyRequest();
+            request.setPolicyId(policyId);
+            transactions.add(new EzspSingleResponseTransaction(request, EzspGetPolicyResponse.class));
+        }
+        sendEzspTransactions(transactions);
+        lastStatus = null;
+
+        Map<EzspPolicyId, EzspDecisionId> policies = new LinkedHashMap<>();
+        for (EzspTransaction transaction : transactions) {
+            EzspGetPolicyRequest request = (EzspGetPolicyRequest) transaction.getRequest();
+            EzspGetPolicyResponse response = (EzspGetPolicyResponse) transaction.getResponse();
+            if (response == null || response.getStatus() != EzspStatus.EZSP_SUCCESS) {
+                logger.debug("Error getting policy {}: {}", request.getPolicyId(), response);
+                policies.put(request.getPolicyId(), null);
+                continue;
+            }
+            policies.put(request.getPolicyId(), response.getDecisionId());
+        }
+
+        return policies;
+    }
+
+    /**
+     * Set a number of policies. The requests are all queued to the NCP before waiting for the responses, so the NCP is
+     * not left idle between requests.
+     *
+     * @param policies {@link Map} of {@link EzspPolicyId} to the {@link EzspDecisionId} to set
+     * @return {@link Map} of {@link EzspPolicyId} to the {@link EzspStatus} of the response. The status will be null if
+     *         no response was received.
+     */
+    public Map<EzspPolicyId, EzspStatus> setPolicy(Map<EzspPolicyId, EzspDecisionId> policies) {
+        List<EzspTransaction> transactions = new ArrayList<>();
+        for (Entry<EzspPolicyId, EzspDecisionId> policy : policies.entrySet()) {
+            EzspSetPolicyRequest request = new EzspSetPolicyRequest();
+            request.setPolicyId(policy.getKey());
+            request.setDecisionId(policy.getValue());
+            transactions.add(new EzspSingleResponseTransaction(request, EzspSetPolicyResponse.class));
+        }
+        sendEzspTransactions(transactions);
+        lastStatus = null;
+
+        Map<EzspPolicyId, EzspStatus> results = new LinkedHashMap<>();
+        for (EzspTransaction transaction : transactions) {
+            EzspSetPolicyRequest request = (EzspSetPolicyRequest) transaction.getRequest();
+            EzspSetPolicyResponse response = (EzspSetPolicyResponse) transaction.getResponse();
+            if (response == null || response.getStatus() != EzspStatus.EZSP_SUCCESS) {
+                logger.debug("Error during setting policy {}: {}", request.getPolicyId(), response);
+            }
+            results.put(request.getPolicyId(), response == null ? null : response.getStatus());
+        }
+
+        return results;
+    }
+
     /**
      * Set a memory value used by the NCP.
      *
@@ -810,4 +1085,35 @@ public class EmberNcp {
         EzspGetMfgTokenResponse response = (EzspGetMfgTokenResponse) transaction.getResponse();
         return response.getTokenData();
     }
+
+    /**
+     * Sends a number of independent transactions to the NCP. All requests are queued before waiting for any response,
+     * and this method returns once all transactions are complete. Transactions that fail will have a null response.
+     *
+     * @param transactions the {@link List} of {@link EzspTransaction}s to send
+     */
+    private void sendEzspTransactions(List<EzspTransaction> transactions) {
+        List<CompletableFuture<EzspTransaction>> futures = new ArrayList<>();
+        for (EzspTransaction transaction : transactions) {
+            CompletableFuture<EzspTransaction> future = protocolHandler.sendEzspRequestAsync(transaction);
+            if (future != null) {
+                futures.add(future);
+            }
+        }
+
+        for (CompletableFuture<EzspTransaction> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                logger.debug("Interrupted waiting for EZSP transactions");
+                for (CompletableFuture<EzspTransaction> outstanding : futures) {
+                    outstanding.cancel(true);
+                }
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException e) {
+                logger.debug("Exception waiting for EZSP transaction: ", e);
+            }
+        }
+    }
 }
@@ -8,15 +8,20 @@
 package com.zsmartsystems.zigbee.dongle.ember;
 
 import java.io.InputStream;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -33,13 +38,13 @@ import com.zsmartsystems.zigbee.ZigBeeProfileType;
 import com.zsmartsystems.zigbee.ZigBeeStatus;
 import com.zsmartsystems.zigbee.dongle.ember.ezsp.EzspFrame;
 import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspChildJoinHandler;
-import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspGetParentChildParametersResponse;
 import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspIncomingMessageHandler;
 import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspLaunchStandaloneBootloaderRequest;
 import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspLaunchStandaloneBootloaderResponse;
 import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspMessageSentHandler;
 import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspMfglibRxHandler;
 import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspNetworkStateRequest;
+import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspNetworkStateResponse;
 import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspSendBroadcastRequest;
 import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspSendBroadcastResponse;
 import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspSendMulticastRequest;
@@ -48,13 +53,17 @@ import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspSendUnicastRequest
 import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspSendUnicastResponse;
 import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspSetConcentratorRequest;
 import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspSetConcentratorResponse;
+import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspSetSourceRouteRequest;
+import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspSetSourceRouteResponse;
 import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspStackStatusHandler;
 import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspTrustCenterJoinHandler;
 import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspVersionResponse;
 import com.zsmartsystems.zigbee.dongle.ember.ezsp.structure.EmberApsFrame;
 import com.zsmartsystems.zigbee.dongle.ember.ezsp.structure.EmberApsOption;
 import com.zsmartsystems.zigbee.dongle.ember.ezsp.structure.EmberConcentratorType;
+import com.zsmartsystems.zigbee.dongle.ember.ezsp.structure.EmberCounterType;
 import com.zsmartsystems.zigbee.dongle.ember.ezsp.structure.EmberCurrentSecurityState;
+import com.zsmartsystems.zigbee.dongle.ember.ezsp.structure.EmberIncomingMessageType;
 import com.zsmartsystems.zigbee.dongle.ember.ezsp.structure.EmberKeyStruct;
 import com.zsmartsystems.zigbee.dongle.ember.ezsp.structure.EmberKeyStructBitmask;
 import com.zsmartsystems.zigbee.dongle.ember.ezsp.structure.EmberKeyType;
@@ -69,12 +78,20 @@ import com.zsmartsystems.zigbee.dongle.ember.ezsp.structure.EzspStatus;
 import com.zsmartsystems.zigbee.dongle.ember.internal.EmberFirmwareUpdateHandler;
 import com.zsmartsystems.zigbee.dongle.ember.internal.EmberNetworkInitialisation;
 import com.zsmartsystems.zigbee.dongle.ember.internal.EmberStackConfiguration;
+import com.zsmartsystems.zigbee.dongle.ember.internal.EzspCounterSampler;
 import com.zsmartsystems.zigbee.dongle.ember.internal.EzspFrameHandler;
+import com.zsmartsystems.zigbee.dongle.ember.internal.EzspMessageTagAllocator;
+import com.zsmartsystems.zigbee.dongle.ember.internal.EzspMulticastTable;
+import com.zsmartsystems.zigbee.dongle.ember.internal.EzspNeighborTable;
 import com.zsmartsystems.zigbee.dongle.ember.internal.EzspProtocolHandler;
+import com.zsmartsystems.zigbee.dongle.ember.internal.EzspSourceRouteTable;
 import com.zsmartsystems.zigbee.dongle.ember.internal.ash.AshFrameHandler;
 import com.zsmartsystems.zigbee.dongle.ember.internal.spi.SpiFrameHandler;
 import com.zsmartsystems.zigbee.dongle.ember.internal.transaction.EzspSingleResponseTransaction;
 import com.zsmartsystems.zigbee.dongle.ember.internal.transaction.EzspTransaction;
+import com.zsmartsystems.zigbee.metrics.ZigBeeCounter;
+import com.zsmartsystems.zigbee.metrics.ZigBeeMetricProvider;
+import com.zsmartsystems.zigbee.metrics.ZigBeeMetricRegistry;
 import com.zsmartsystems.zigbee.security.ZigBeeKey;
 import com.zsmartsystems.zigbee.transport.ConcentratorConfig;
 import com.zsmartsystems.zigbee.transport.DeviceType;
@@ -85,10 +102,13 @@ import com.zsmartsystems.zigbee.transport.ZigBeePort;
 import com.zsmartsystems.zigbee.transport.ZigBeeTransportFirmwareCallback;
 import com.zsmartsystems.zigbee.transport.ZigBeeTransportFirmwareStatus;
 import com.zsmartsystems.zigbee.transport.ZigBeeTransportFirmwareUpdate;
+import com.zsmartsystems.zigbee.transport.ZigBeeTransportMetrics;
 import com.zsmartsystems.zigbee.transport.ZigBeeTransportProgressState;
 import com.zsmartsystems.zigbee.transport.ZigBeeTransportReceive;
 import com.zsmartsystems.zigbee.transport.ZigBeeTransportState;
 import com.zsmartsystems.zigbee.transport.ZigBeeTransportTransmit;
+import com.zsmartsystems.zigbee.zdo.field.NeighborTable;
+import com.zsmartsystems.zigbee.zdo.field.RoutingTable;
 
 /**
  * Implementation of the Silabs Ember NCP (Network Co Processor) EZSP dongle implementation.
@@ -96,7 +116,8 @@ import com.zsmartsystems.zigbee.transport.ZigBeeTransportTransmit;
  * @author Chris Jackson
  *
  */
-public class ZigBeeDongleEzsp implements ZigBeeTransportTransmit, ZigBeeTransportFirmwareUpdate, EzspFrameHandler {
+public class ZigBeeDongleEzsp implements ZigBeeTransportTransmit, ZigBeeTransportFirmwareUpdate,
+        ZigBeeTransportMetrics, EzspFrameHandler {
 
     private static final int POLL_FRAME_ID = EzspNetworkStateRequest.FRAME_ID;
     /**
@@ -114,6 +135,14 @@ public class ZigBeeDongleEzsp implements ZigBeeTransportTransmit, ZigBeeTranspor
      */
     private EzspProtocolHandler frameHandler;
 
+    /**
+     * Transport metrics. These are replaced with the counters from the network registry in
+     * {@link #registerMetrics(ZigBeeMetricRegistry)}.
+     */
+    private ZigBeeCounter txFrameCounter = new ZigBeeCounter();
+    private ZigBeeCounter rxFrameCounter = new ZigBeeCounter();
+    private ZigBeeCounter txErrorCounter = new ZigBeeCounter();
+
     /**
      * The Ember bootload handler
      */
@@ -185,12 +214,70 @@ public class ZigBeeDongleEzsp implements ZigBeeTransportTransmit, ZigBeeTranspor
     private boolean initialised = false;
 
     private ScheduledExecutorService executorService;
-    private ScheduledFuture<?> pollingTimer = null;
+    private ScheduledFuture<?> keepaliveTimer = null;
+    private ScheduledFuture<?> neighborTableTimer = null;
+    private ScheduledFuture<?> counterSampleTimer = null;
+
+    /**
+     * The period in milliseconds without any frames received from the NCP before a keepalive is sent
+     */
+    private int keepaliveInterval = 10000;
+
+    /**
+     * The time, from {@link System#nanoTime()}, at which the last frame was received from the NCP
+     */
+    private volatile long lastRxTime = System.nanoTime();
+
+    /**
+     * The number of ASH DATA frames that can be sent to the NCP before an ACK is received
+     */
+    private int ashTxWindow = 1;
+
+    /**
+     * The host copy of the NCP neighbor, child and route tables
+     */
+    private final EzspNeighborTable neighborTable = new EzspNeighborTable();
+
+    /**
+     * The period in seconds between reconciling the {@link EzspNeighborTable} with the NCP
+     */
+    private int neighborTableUpdatePeriod = 1800;
+
+    /**
+     * Samples the NCP counters into the transport metrics
+     */
+    private final EzspCounterSampler counterSampler = new EzspCounterSampler();
+
+    /**
+     * The period in seconds between sampling the NCP counters, or 0 if the counters are not sampled
+     */
+    private int counterSamplePeriod = 60;
+
+    /**
+     * The host source route table, used when the NCP is configured as a concentrator
+     */
+    private final EzspSourceRouteTable sourceRouteTable = new EzspSourceRouteTable();
 
     /**
-     * The rate at which we will do a status poll if we've not sent any other messages within this period
+     * True if source routes from the {@link EzspSourceRouteTable} are provided to the NCP before each unicast
      */
-    private int pollRate = 1000;
+    private boolean sourceRouting = false;
+
+    /**
+     * Synchronisation object to ensure the source route is queued immediately before the unicast it applies to
+     */
+    private final Object sendSync = new Object();
+
+    /**
+     * Allocates the message tags used to correlate the {@link EzspMessageSentHandler} with the frame that was sent
+     */
+    private final EzspMessageTagAllocator messageTagAllocator = new EzspMessageTagAllocator();
+
+    /**
+     * Maintains the NCP multicast table so that group messages are received for the groups the local node is a member
+     * of
+     */
+    private final EzspMulticastTable multicastTable = new EzspMulticastTable(1);
 
     /**
      * If the dongle is being used with the manufacturing library, then this records the listener to be called when
@@ -268,6 +355,133 @@ public class ZigBeeDongleEzsp implements ZigBeeTransportTransmit, ZigBeeTranspor
         return stackConfiguration.put(configId, value);
     }
 
+    /**
+     * Sets the number of ASH DATA frames that can be sent to the NCP before an ACK is received. The default of 1
+     * requires each frame to be acknowledged before the next is sent - increasing the window allows higher throughput
+     * on the serial link on busy networks. This is only used with the {@link EmberSerialProtocol#ASH2} protocol.
+     * <p>
+     * Note that this must be called prior to {@link #initialize()} for the configuration to be effective.
+     *
+     * @param txWindow the transmit window from 1 to {@link AshFrameHandler#TX_WINDOW_MAX}
+     */
+    public void setAshTxWindow(int txWindow) {
+        if (txWindow < 1 || txWindow > AshFrameHandler.TX_WINDOW_MAX) {
+            throw new IllegalArgumentException(
+                    "ASH transmit window must be between 1 and " + AshFrameHandler.TX_WINDOW_MAX);
+        }
+        ashTxWindow = txWindow;
+    }
+
+    /**
+     * Sets the keepalive interval. The network state is tracked from the {@link EzspStackStatusHandler} callbacks, so
+     * the NCP is only polled if no frames have been received for this period. This allows a failed link to be detected
+     * while the network is idle.
+     * <p>
+     * Note that this must be called prior to {@link #initialize()} for the configuration to be effective.
+     *
+     * @param interval the keepalive interval in milliseconds
+     */
+    public void setKeepaliveInterval(int interval) {
+        if (interval < 1) {
+            throw new IllegalArgumentException("Keepalive interval must be greater than 0");
+        }
+        keepaliveInterval = interval;
+    }
+
+    /**
+     * Sets the period between reading the neighbor, child and route tables from the NCP. Between reads, the tables
+     * provided by {@link #getNeighbors()} and {@link #getRoutes()} are updated from the NCP callbacks, so this only
+     * needs to be short enough to correct for changes that are not signalled by the NCP.
+     * <p>
+     * Note that this must be called prior to {@link #startup(boolean)} for the configuration to be effective.
+     *
+     * @param period the update period in seconds
+     */
+    public void setNeighborTableUpdatePeriod(int period) {
+        if (period < 1) {
+            throw new IllegalArgumentException("Neighbor table update period must be greater than 0");
+        }
+        neighborTableUpdatePeriod = period;
+    }
+
+    /**
+     * Gets the neighbors and children of the NCP. This is provided from a copy of the NCP tables held by the host, and
+     * does not communicate with the NCP, so may be used to update the local node's neighbors with
+     * {@link com.zsmartsystems.zigbee.ZigBeeNode#setNeighbors(Set)}.
+     *
+     * @return a {@link Set} of {@link NeighborTable} entries
+     */
+    public Set<NeighborTable> getNeighbors() {
+        return neighborTable.getNeighbors();
+    }
+
+    /**
+     * Gets the routes known to the NCP. This is provided from a copy of the NCP tables held by the host, and does not
+     * communicate with the NCP, so may be used to update the local node's routes with
+     * {@link com.zsmartsystems.zigbee.ZigBeeNode#setRoutes(Set)}.
+     *
+     * @return a {@link Set} of {@link RoutingTable} entries
+     */
+    public Set<RoutingTable> getRoutes() {
+        return neighborTable.getRoutes();
+    }
+
+    /**
+     * Sets the period between sampling the NCP counters. Each sample reads and clears the counters in the NCP, adds
+     * them to the transport metrics, and checks the counter rates against the thresholds set with
+     * {@link #setCounterThreshold(EmberCounterType, double)}. Since the counters are cleared,
+     * {@link EmberNcp#getCounters()} will only return the counts since the last sample while sampling is enabled.
+     * <p>
+     * Note that this must be called prior to {@link #startup(boolean)} for the configuration to be effective.
+     *
+     * @param period the sample period in seconds, or 0 to disable sampling
+     */
+    public void setCounterSamplePeriod(int period) {
+        if (period < 0) {
+            throw new IllegalArgumentException("Counter sample period must not be negative");
+        }
+        counterSamplePeriod = period;
+    }
+
+    /**
+     * Sets the threshold rate for an NCP counter. The {@link EmberCounterListener}s are notified when the rate of the
+     * counter over a sample period rises above the threshold - eg to detect a spike in
+     * {@link EmberCounterType#EMBER_COUNTER_PHY_CCA_FAIL_COUNT} when the channel is congested.
+     *
+     * @param counter the {@link EmberCounterType}
+     * @param threshold the threshold in events per second, or 0 to remove the threshold
+     */
+    public void setCounterThreshold(EmberCounterType counter, double threshold) {
+        counterSampler.setThreshold(counter, threshold);
+    }
+
+    /**
+     * Adds a listener to be notified when an NCP counter exceeds its threshold
+     *
+     * @param listener the {@link EmberCounterListener} to add
+     */
+    public void addCounterListener(EmberCounterListener listener) {
+        counterSampler.addListener(listener);
+    }
+
+    /**
+     * Removes an NCP counter listener
+     *
+     * @param listener the {@link EmberCounterListener} to remove
+     */
+    public void removeCounterListener(EmberCounterListener listener) {
+        counterSampler.removeListener(listener);
+    }
+
+    /**
+     * Gets the rate of each NCP counter over the last sample period. This does not communicate with the NCP.
+     *
+     * @return a {@link Map} of the rate in events per second for each {@link EmberCounterType}
+     */
+    public Map<EmberCounterType, Double> getCounterRates() {
+        return counterSampler.getRates();
+    }
+
     /**
      * Update the Ember policies that will be sent to the dongle during the initialisation.
      * <p>
@@ -311,30 +525,10 @@ public class ZigBeeDongleEzsp implements ZigBeeTransportTransmit, ZigBeeTranspor
             return ZigBeeStatus.COMMUNICATION_ERROR;
         }
 
-        // Perform any stack configuration
+        // Perform any stack configuration. Only values that differ from the current NCP configuration are set.
         EmberStackConfiguration stackConfigurer = new EmberStackConfiguration(getEmberNcp());
-
-        Map<EzspConfigId, Integer> configuration = stackConfigurer.getConfiguration(stackConfiguration.keySet());
-        for (Entry<EzspConfigId, Integer> config : configuration.entrySet()) {
-            logger.debug("Configuration state {} = {}", config.getKey(), config.getValue());
-        }
-
-        Map<EzspPolicyId, EzspDecisionId> policies = stackConfigurer.getPolicy(stackPolicies.keySet());
-        for (Entry<EzspPolicyId, EzspDecisionId> policy : policies.entrySet()) {
-            logger.debug("Policy state {} = {}", policy.getKey(), policy.getValue());
-        }
-
-        stackConfigurer.setConfiguration(stackConfiguration);
-        configuration = stackConfigurer.getConfiguration(stackConfiguration.keySet());
-        for (Entry<EzspConfigId, Integer> config : configuration.entrySet()) {
-            logger.debug("Configuration state {} = {}", config.getKey(), config.getValue());
-        }
-
-        stackConfigurer.setPolicy(stackPolicies);
-        policies = stackConfigurer.getPolicy(stackPolicies.keySet());
-        for (Entry<EzspPolicyId, EzspDecisionId> policy : policies.entrySet()) {
-            logger.debug("Policy state {} = {}", policy.getKey(), policy.getValue());
-        }
+        stackConfigurer.updateConfiguration(stackConfiguration);
+        stackConfigurer.updatePolicy(stackPolicies);
 
         EmberNcp ncp = getEmberNcp();
 
@@ -354,7 +548,7 @@ public class ZigBeeDongleEzsp implements ZigBeeTransportTransmit, ZigBeeTranspor
         ncp.getCurrentSecurityState();
 
         executorService = Executors.newScheduledThreadPool(6);
-        scheduleNetworkStatePolling();
+        scheduleKeepalive(keepaliveInterval);
 
         logger.debug("EZSP dongle initialize done: Initialised {}", initResponse != EmberStatus.EMBER_NOT_JOINED);
 
@@ -399,11 +593,13 @@ public class ZigBeeDongleEzsp implements ZigBeeTransportTransmit, ZigBeeTranspor
         EmberCurrentSecurityState currentSecurityState = ncp.getCurrentSecurityState();
         logger.debug("Current Security State = {}", currentSecurityState);
 
-        EzspGetParentChildParametersResponse childParametersResponse = ncp.getChildParameters();
-        logger.debug("Current Parent Child Information = {}", childParametersResponse);
-        for (int childId = 0; childId < childParametersResponse.getChildCount(); childId++) {
-            ncp.getChildInformation(childId);
-        }
+        // Read the neighbor, child and route tables - these are then maintained from the NCP callbacks
+        neighborTable.reconcile(ncp);
+        scheduleNeighborTableUpdate();
+        scheduleCounterSampling();
+
+        // Add the group memberships to the multicast table
+        multicastTable.synchronize(ncp);
 
         EmberStatus txPowerResponse = ncp.setRadioPower(networkParameters.getRadioTxPower());
         if (txPowerResponse != EmberStatus.EMBER_SUCCESS) {
@@ -422,24 +618,84 @@ public class ZigBeeDongleEzsp implements ZigBeeTransportTransmit, ZigBeeTranspor
     }
 
     /**
-     * This method schedules sending a status request frame on the interval specified by pollRate. If the frameHandler
-     * does not receive a response after a certain amount of retries, the state will be set to OFFLINE.
+     * Schedules a check of the link activity. If no frame has been received from the NCP within the keepalive
+     * interval, a network state request is sent to check the link. If the frameHandler does not receive a response
+     * after a certain amount of retries, the state will be set to OFFLINE.
+     *
+     * @param delay the delay in milliseconds before the link activity is checked
      */
-    private void scheduleNetworkStatePolling() {
-        if (pollingTimer != null) {
-            pollingTimer.cancel(true);
+    private synchronized void scheduleKeepalive(long delay) {
+        if (executorService.isShutdown()) {
+            return;
         }
 
-        pollingTimer = executorService.scheduleWithFixedDelay(new Runnable() {
+        keepaliveTimer = executorService.schedule(new Runnable() {
             @Override
             public void run() {
+                long idleTime = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - lastRxTime);
+                if (idleTime < keepaliveInterval) {
+                    scheduleKeepalive(keepaliveInterval - idleTime);
+                    return;
+                }
+
                 // Don't poll the state if the network is down
-                if (!networkStateUp) {
+                if (networkStateUp && frameHandler != null) {
+                    frameHandler.queueFrame(new EzspNetworkStateRequest());
+                }
+                scheduleKeepalive(keepaliveInterval);
+            }
+        }, delay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Schedules the periodic reconciliation of the {@link EzspNeighborTable} with the NCP tables.
+     */
+    private void scheduleNeighborTableUpdate() {
+        if (neighborTableTimer != null) {
+            neighborTableTimer.cancel(false);
+        }
+
+        neighborTableTimer = executorService.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                // Don't read the tables if the network is down
+                if (!networkStateUp || frameHandler == null) {
+                    return;
+                }
+                try {
+                    neighborTable.reconcile(getEmberNcp());
+                } catch (Exception e) {
+                    logger.debug("Exception updating Ember neighbor table", e);
+                }
+            }
+        }, neighborTableUpdatePeriod, neighborTableUpdatePeriod, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Schedules the periodic sampling of the NCP counters. The first sample clears the counters accumulated before
+     * startup.
+     */
+    private void scheduleCounterSampling() {
+        if (counterSampleTimer != null) {
+            counterSampleTimer.cancel(false);
+        }
+        if (counterSamplePeriod == 0) {
+            return;
+        }
+
+        counterSampleTimer = executorService.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                if (frameHandler == null) {
                     return;
                 }
-                frameHandler.queueFrame(new EzspNetworkStateRequest());
+                try {
+                    counterSampler.sample(getEmberNcp());
+                } catch (Exception e) {
+                    logger.debug("Exception sampling Ember counters", e);
+                }
             }
-        }, pollRate, pollRate, TimeUnit.MILLISECONDS);
+        }, 0, counterSamplePeriod, TimeUnit.SECONDS);
     }
 
     @Override
@@ -452,10 +708,24 @@ public class ZigBeeDongleEzsp implements ZigBeeTransportTransmit, ZigBeeTranspor
             mfglibListener = null;
         }
 
-        if (pollingTimer != null) {
-            pollingTimer.cancel(true);
+        synchronized (this) {
+            if (keepaliveTimer != null) {
+                keepaliveTimer.cancel(true);
+            }
         }
 
+        if (neighborTableTimer != null) {
+            neighborTableTimer.cancel(true);
+        }
+        if (counterSampleTimer != null) {
+            counterSampleTimer.cancel(true);
+        }
+        counterSampler.reset();
+        neighborTable.clear();
+        sourceRouteTable.clear();
+        messageTagAllocator.clear();
+        multicastTable.clear();
+
         if (executorService != null) {
             executorService.shutdown();
         }
@@ -466,6 +736,24 @@ public class ZigBeeDongleEzsp implements ZigBeeTransportTransmit, ZigBeeTranspor
         frameHandler = null;
     }
 
+    /**
+     * Writes changes to the multicast table to the NCP. This is run from the executor so that it does not block the
+     * caller.
+     */
+    private void scheduleMulticastTableUpdate() {
+        if (executorService == null || executorService.isShutdown()) {
+            return;
+        }
+        executorService.execute(new Runnable() {
+            @Override
+            public void run() {
+                if (frameHandler != null) {
+                    multicastTable.synchronize(getEmberNcp());
+                }
+            }
+        });
+    }
+
     /**
      * Returns an instance of the {@link EmberNcp}
      *
@@ -490,8 +778,20 @@ public class ZigBeeDongleEzsp implements ZigBeeTransportTransmit, ZigBeeTranspor
         if (frameHandler == null) {
             return;
         }
-        int messageTag = apsFrame.getApsCounter();
+
+        // The message tag identifies the frame in the EzspMessageSentHandler. Status is reported to the framework
+        // using the APS counter of the frame, so the tag is mapped back to this when the frame is complete.
+        final int apsCounter = apsFrame.getApsCounter();
+        final Integer messageTag = messageTagAllocator.allocate(apsCounter);
+        if (messageTag == null) {
+            logger.debug("EZSP message not sent as no message tags are free: {}", apsFrame);
+            txErrorCounter.increment();
+            zigbeeTransportReceive.receiveCommandStatus(apsCounter, ZigBeeTransportProgressState.TX_NAK);
+            return;
+        }
+
         EzspTransaction transaction;
+        EzspSetSourceRouteRequest sourceRoute = null;
 
         EmberApsFrame emberApsFrame = new EmberApsFrame();
         emberApsFrame.setClusterId(apsFrame.getCluster());
@@ -518,6 +818,10 @@ public class ZigBeeDongleEzsp implements ZigBeeTransportTransmit, ZigBeeTranspor
             emberUnicast.setMessageContents(apsFrame.getPayload());
 
             transaction = new EzspSingleResponseTransaction(emberUnicast, EzspSendUnicastResponse.class);
+
+            if (sourceRouting) {
+                sourceRoute = sourceRouteTable.getSourceRouteRequest(apsFrame.getDestinationAddress());
+            }
         } else if (apsFrame.getAddressMode() == ZigBeeNwkAddressMode.DEVICE
                 && ZigBeeBroadcastDestination.isBroadcast(apsFrame.getDestinationAddress())) {
 
@@ -533,6 +837,11 @@ public class ZigBeeDongleEzsp implements ZigBeeTransportTransmit, ZigBeeTranspor
         } else if (apsFrame.getAddressMode() == ZigBeeNwkAddressMode.GROUP) {
             emberApsFrame.setGroupId(apsFrame.getGroupAddress());
 
+            // A group that is in use is kept in the multicast table in preference to the least recently used groups
+            if (multicastTable.groupUsed(apsFrame.getGroupAddress())) {
+                scheduleMulticastTableUpdate();
+            }
+
             EzspSendMulticastRequest emberMulticast = new EzspSendMulticastRequest();
             emberMulticast.setApsFrame(emberApsFrame);
             emberMulticast.setHops(apsFrame.getRadius());
@@ -543,19 +852,36 @@ public class ZigBeeDongleEzsp implements ZigBeeTransportTransmit, ZigBeeTranspor
             transaction = new EzspSingleResponseTransaction(emberMulticast, EzspSendMulticastResponse.class);
         } else {
             logger.debug("EZSP message not sent: {}, {}", apsFrame);
+            messageTagAllocator.release(messageTag);
             // ZigBeeGroupAddress groupAddress = (ZigBeeGroupAddress) zclCommand.getDestinationAddress();
             // apsFrame.setGroupId(groupAddress.getGroupId());
             return;
         }
 
+        txFrameCounter.increment();
+
         // The response from the SendXxxcast messages returns the network layer sequence number
-        // We need to correlate this with the messageTag
-        executorService.schedule(new Runnable() {
-            @Override
-            public void run() {
-                logger.debug("TX EZSP: {}", transaction.getRequest());
+        // The response is processed when the transaction completes so that no thread is held waiting for the NCP.
+        logger.debug("TX EZSP: {}", transaction.getRequest());
+        CompletableFuture<EzspTransaction> future;
+        synchronized (sendSync) {
+            // The source route is used by the NCP for the next outgoing message
+            if (sourceRoute != null) {
+                sendSourceRoute(sourceRoute);
+            }
+            future = frameHandler.sendEzspRequestAsync(transaction);
+        }
+        if (future == null) {
+            logger.debug("EZSP message not sent as handler is closed: {}", transaction.getRequest());
+            messageTagAllocator.release(messageTag);
+            return;
+        }
 
-                frameHandler.sendEzspTransaction(transaction);
+        // The future is completed from the thread receiving frames from the NCP, so the response is processed on the
+        // executor to avoid holding up the receive thread while the status is passed to the framework
+        future.thenAcceptAsync(new Consumer<EzspTransaction>() {
+            @Override
+            public void accept(EzspTransaction completedTransaction) {
                 logger.debug("TX EZSP: {}", transaction.getResponse());
 
                 EmberStatus status = null;
@@ -566,19 +892,56 @@ public class ZigBeeDongleEzsp implements ZigBeeTransportTransmit, ZigBeeTranspor
                 } else if (transaction.getResponse() instanceof EzspSendMulticastResponse) {
                     status = ((EzspSendMulticastResponse) transaction.getResponse()).getStatus();
                 } else {
-                    logger.debug("Unable to get response from {} :: ", transaction.getRequest(),
+                    // The NCP may still hold the message tag, so it is not released until the EzspMessageSentHandler
+                    // is received, the NCP is reset, or the tag expires
+                    logger.debug("Unable to get response from {} :: {}", transaction.getRequest(),
                             transaction.getResponse());
+                    txErrorCounter.increment();
+                    zigbeeTransportReceive.receiveCommandStatus(apsCounter, ZigBeeTransportProgressState.TX_NAK);
                     return;
                 }
 
                 // If this is EMBER_SUCCESS, then do nothing as the command is still not transmitted.
                 // If there was an error, then we let the system know we've failed already!
+                // The NCP will not send the EzspMessageSentHandler, so the tag is released here.
                 if (status == EmberStatus.EMBER_SUCCESS) {
                     return;
                 }
-                zigbeeTransportReceive.receiveCommandStatus(messageTag, ZigBeeTransportProgressState.TX_NAK);
+                messageTagAllocator.release(messageTag);
+                txErrorCounter.increment();
+                zigbeeTransportReceive.receiveCommandStatus(apsCounter, ZigBeeTransportProgressState.TX_NAK);
+            }
+        }, executorService);
+    }
+
+    /**
+     * Sends the source route to the NCP ahead of a unicast. If the NCP can not set the route (eg if it has no free
+     * buffers) the unicast is sent using the routes held in the NCP, and the route is removed from the host table so
+     * that it is not used again until a new route record is received.
+     *
+     * @param sourceRoute the {@link EzspSetSourceRouteRequest} to send
+     */
+    private void sendSourceRoute(final EzspSetSourceRouteRequest sourceRoute) {
+        logger.debug("TX EZSP: {}", sourceRoute);
+        final EzspTransaction transaction = new EzspSingleResponseTransaction(sourceRoute,
+                EzspSetSourceRouteResponse.class);
+        CompletableFuture<EzspTransaction> future = frameHandler.sendEzspRequestAsync(transaction);
+        if (future == null) {
+            return;
+        }
+
+        future.thenAcceptAsync(new Consumer<EzspTransaction>() {
+            @Override
+            public void accept(EzspTransaction completedTransaction) {
+                EzspSetSourceRouteResponse response = (EzspSetSourceRouteResponse) transaction.getResponse();
+                if (response != null && response.getStatus() == EmberStatus.EMBER_SUCCESS) {
+                    return;
+                }
+                logger.debug("EZSP source route to {} not set: {}", String.format("%04X", sourceRoute.getDestination()),
+                        response == null ? null : response.getStatus());
+                sourceRouteTable.removeRoute(sourceRoute.getDestination());
             }
-        }, 0, TimeUnit.MILLISECONDS);
+        }, executorService);
     }
 
     @Override
@@ -588,10 +951,15 @@ public class ZigBeeDongleEzsp implements ZigBeeTransportTransmit, ZigBeeTranspor
 
     @Override
     public void handlePacket(EzspFrame response) {
+        lastRxTime = System.nanoTime();
         if (response.getFrameId() != POLL_FRAME_ID) {
             logger.debug("RX EZSP: " + response.toString());
         }
 
+        // Keep the host copy of the NCP tables up to date - the frames may also be processed below
+        neighborTable.handleCallback(response);
+        sourceRouteTable.handleCallback(response);
+
         if (response instanceof EzspIncomingMessageHandler) {
             if (nwkAddress == null) {
                 logger.debug("Ignoring received frame as stack still initialising");
@@ -599,6 +967,9 @@ public class ZigBeeDongleEzsp implements ZigBeeTransportTransmit, ZigBeeTranspor
             }
             EzspIncomingMessageHandler incomingMessage = (EzspIncomingMessageHandler) response;
             EmberApsFrame emberApsFrame = incomingMessage.getApsFrame();
+            if (incomingMessage.getType() == EmberIncomingMessageType.EMBER_INCOMING_MULTICAST) {
+                multicastTable.groupUsed(emberApsFrame.getGroupId());
+            }
 
             ZigBeeApsFrame apsFrame = new ZigBeeApsFrame();
             apsFrame.setApsCounter(emberApsFrame.getSequence());
@@ -614,6 +985,7 @@ public class ZigBeeDongleEzsp implements ZigBeeTransportTransmit, ZigBeeTranspor
             apsFrame.setSourceEndpoint(emberApsFrame.getSourceEndpoint());
 
             apsFrame.setPayload(incomingMessage.getMessageContents());
+            rxFrameCounter.increment();
             zigbeeTransportReceive.receiveCommand(apsFrame);
 
             return;
@@ -622,13 +994,28 @@ public class ZigBeeDongleEzsp implements ZigBeeTransportTransmit, ZigBeeTranspor
         // Message has been completed by the NCP
         if (response instanceof EzspMessageSentHandler) {
             EzspMessageSentHandler sentHandler = (EzspMessageSentHandler) response;
+            Integer apsCounter = messageTagAllocator.release(sentHandler.getMessageTag());
+            if (apsCounter == null) {
+                logger.debug("EZSP message sent with unknown message tag {}", sentHandler.getMessageTag());
+                return;
+            }
             ZigBeeTransportProgressState sentHandlerState;
             if (sentHandler.getStatus() == EmberStatus.EMBER_SUCCESS) {
                 sentHandlerState = ZigBeeTransportProgressState.TX_ACK;
             } else {
+                txErrorCounter.increment();
                 sentHandlerState = ZigBeeTransportProgressState.TX_NAK;
             }
-            zigbeeTransportReceive.receiveCommandStatus(sentHandler.getMessageTag(), sentHandlerState);
+            zigbeeTransportReceive.receiveCommandStatus(apsCounter, sentHandlerState);
+            return;
+        }
+
+        // The network state is tracked from the EzspStackStatusHandler - the keepalive response only catches a missed
+        // callback if the NCP has left the network
+        if (response instanceof EzspNetworkStateResponse) {
+            if (((EzspNetworkStateResponse) response).getStatus() == EmberNetworkStatus.EMBER_NO_NETWORK) {
+                handleLinkStateChange(false);
+            }
             return;
         }
 
@@ -697,6 +1084,11 @@ public class ZigBeeDongleEzsp implements ZigBeeTransportTransmit, ZigBeeTranspor
 
     @Override
     public void handleLinkStateChange(final boolean linkState) {
+        // The NCP will not complete frames that were outstanding when the link went down
+        if (!linkState) {
+            failOutstandingMessages();
+        }
+
         // Only act on changes to OFFLINE once we have completed initialisation
         // changes to ONLINE have to work during init because they mark the end of the initialisation
         if (!initialised && !linkState || linkState == networkStateUp) {
@@ -721,6 +1113,22 @@ public class ZigBeeDongleEzsp implements ZigBeeTransportTransmit, ZigBeeTranspor
         }.start();
     }
 
+    /**
+     * Releases all message tags and reports the frames that were waiting for the {@link EzspMessageSentHandler} as
+     * failed
+     */
+    private void failOutstandingMessages() {
+        List<Integer> apsCounters = messageTagAllocator.clear();
+        if (apsCounters.isEmpty()) {
+            return;
+        }
+        logger.debug("EZSP releasing {} outstanding message tags", apsCounters.size());
+        for (Integer apsCounter : apsCounters) {
+            txErrorCounter.increment();
+            zigbeeTransportReceive.receiveCommandStatus(apsCounter, ZigBeeTransportProgressState.TX_NAK);
+        }
+    }
+
     @Override
     public ZigBeeChannel getZigBeeChannel() {
         return ZigBeeChannel.create(networkParameters.getRadioChannel());
@@ -835,6 +1243,12 @@ public class ZigBeeDongleEzsp implements ZigBeeTransportTransmit, ZigBeeTranspor
                                 setTcJoinMode((TrustCentreJoinMode) configuration.getValue(option)));
                         break;
 
+                    case MULTICAST_GROUPS:
+                        @SuppressWarnings("unchecked")
+                        Collection<Integer> groupIds = (Collection<Integer>) configuration.getValue(option);
+                        configuration.setResult(option, setMulticastGroups(groupIds));
+                        break;
+
                     default:
                         configuration.setResult(option, ZigBeeStatus.UNSUPPORTED);
                         logger.debug("Unsupported configuration option \"{}\" in EZSP dongle", option);
@@ -846,6 +1260,16 @@ public class ZigBeeDongleEzsp implements ZigBeeTransportTransmit, ZigBeeTranspor
         }
     }
 
+    private ZigBeeStatus setMulticastGroups(Collection<Integer> groupIds) {
+        multicastTable.setGroups(groupIds);
+
+        // Once the dongle is started, the table is updated from the executor. Otherwise it is written during startup.
+        if (initialised) {
+            scheduleMulticastTableUpdate();
+        }
+        return ZigBeeStatus.SUCCESS;
+    }
+
     private ZigBeeStatus setTcJoinMode(TrustCentreJoinMode joinMode) {
         EzspDecisionId emberJoinMode;
         switch (joinMode) {
@@ -882,7 +1306,9 @@ public class ZigBeeDongleEzsp implements ZigBeeTransportTransmit, ZigBeeTranspor
 
         switch (protocol) {
             case ASH2:
-                frameHandler = new AshFrameHandler(this);
+                AshFrameHandler ashHandler = new AshFrameHandler(this);
+                ashHandler.setTxWindow(ashTxWindow);
+                frameHandler = ashHandler;
                 break;
             case SPI:
                 frameHandler = new SpiFrameHandler(this);
@@ -1032,6 +1458,7 @@ public class ZigBeeDongleEzsp implements ZigBeeTransportTransmit, ZigBeeTranspor
         logger.debug(concentratorResponse.toString());
 
         if (concentratorResponse.getStatus() == EzspStatus.EZSP_SUCCESS) {
+            sourceRouting = concentratorRequest.getEnable();
             return ZigBeeStatus.SUCCESS;
         }
         return ZigBeeStatus.FAILURE;
@@ -1066,6 +1493,29 @@ public class ZigBeeDongleEzsp implements ZigBeeTransportTransmit, ZigBeeTranspor
         return counters;
     }
 
+    @Override
+    public void registerMetrics(ZigBeeMetricRegistry registry) {
+        txFrameCounter = registry.getCounter(TRANSPORT_TX_FRAMES);
+        rxFrameCounter = registry.getCounter(TRANSPORT_RX_FRAMES);
+        txErrorCounter = registry.getCounter(TRANSPORT_TX_ERRORS);
+        counterSampler.registerMetrics(registry);
+
+        // Export the protocol handler counters
+        registry.addProvider(new ZigBeeMetricProvider() {
+            @Override
+            public void getMetrics(Map<String, Number> metrics) {
+                Map<String, Long> counters = getCounters();
+                for (Entry<String, Long> counter : counters.entrySet()) {
+                    metrics.put(TRANSPORT_PREFIX + counter.getKey().toLowerCase(), counter.getValue());
+                }
+                if (counters.containsKey("ASH_RX_ERR")) {
+                    metrics.put(TRANSPORT_LINK_ERRORS,
+                            counters.get("ASH_RX_ERR") + counters.get("ASH_RX_NAK") + counters.get("ASH_TX_NAK"));
+                }
+            }
+        });
+    }
+
     /**
      * Converts from an {@link EmberKeyStruct} to {@link ZigBeeKey}
      *
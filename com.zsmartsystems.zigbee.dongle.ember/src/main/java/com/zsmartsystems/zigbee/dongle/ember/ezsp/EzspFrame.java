@@ -7,11 +7,6 @@
  */
 package com.zsmartsystems.zigbee.dongle.ember.ezsp;
 
-import java.lang.reflect.Constructor;
-import java.lang.reflect.InvocationTargetException;
-import java.util.HashMap;
-import java.util.Map;
-
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.*;
@@ -126,6 +121,7 @@ public abstract class EzspFrame {
     protected static final int FRAME_ID_GET_KEY_TABLE_ENTRY = 0x71;
     protected static final int FRAME_ID_GET_LIBRARY_STATUS = 0x01;
     protected static final int FRAME_ID_GET_MFG_TOKEN = 0x0B;
+    protected static final int FRAME_ID_GET_MULTICAST_TABLE_ENTRY = 0x63;
     protected static final int FRAME_ID_GET_NEIGHBOR = 0x79;
     protected static final int FRAME_ID_GET_NETWORK_PARAMETERS = 0x28;
     protected static final int FRAME_ID_GET_NODE_ID = 0x27;
@@ -192,6 +188,7 @@ public abstract class EzspFrame {
     protected static final int FRAME_ID_SET_EXTENDED_TIMEOUT = 0x7E;
     protected static final int FRAME_ID_SET_INITIAL_SECURITY_STATE = 0x68;
     protected static final int FRAME_ID_SET_KEY_TABLE_ENTRY = 0x72;
+    protected static final int FRAME_ID_SET_MULTICAST_TABLE_ENTRY = 0x64;
     protected static final int FRAME_ID_SET_POLICY = 0x55;
     protected static final int FRAME_ID_SET_PREINSTALLED_CBKE_DATA = 0xA2;
     protected static final int FRAME_ID_SET_PREINSTALLED_CBKE_DATA283K1 = 0xED;
@@ -213,135 +210,147 @@ public abstract class EzspFrame {
     protected int frameId = 0;
     protected boolean isResponse = false;
 
-    private static Map<Integer, Class<?>> ezspHandlerMap = new HashMap<Integer, Class<?>>();
+    /**
+     * Creates an {@link EzspFrameResponse} from the received data
+     */
+    private interface EzspFrameFactory {
+        EzspFrameResponse create(int[] data);
+    }
+
+    /**
+     * The response factories, indexed by frame ID. This avoids reflection and boxing when decoding frames.
+     */
+    private static final EzspFrameFactory[] ezspHandlers = new EzspFrameFactory[256];
     static {
-        ezspHandlerMap.put(FRAME_ID_ADD_ENDPOINT, EzspAddEndpointResponse.class);
-        ezspHandlerMap.put(FRAME_ID_ADD_OR_UPDATE_KEY_TABLE_ENTRY, EzspAddOrUpdateKeyTableEntryResponse.class);
-        ezspHandlerMap.put(FRAME_ID_ADD_TRANSIENT_LINK_KEY, EzspAddTransientLinkKeyResponse.class);
-        ezspHandlerMap.put(FRAME_ID_AES_MMO_HASH, EzspAesMmoHashResponse.class);
-        ezspHandlerMap.put(FRAME_ID_BECOME_TRUST_CENTER, EzspBecomeTrustCenterResponse.class);
-        ezspHandlerMap.put(FRAME_ID_BINDING_IS_ACTIVE, EzspBindingIsActiveResponse.class);
-        ezspHandlerMap.put(FRAME_ID_CALCULATE_SMACS, EzspCalculateSmacsResponse.class);
-        ezspHandlerMap.put(FRAME_ID_CALCULATE_SMACS283K1, EzspCalculateSmacs283k1Response.class);
-        ezspHandlerMap.put(FRAME_ID_CALCULATE_SMACS_HANDLER, EzspCalculateSmacsHandler.class);
-        ezspHandlerMap.put(FRAME_ID_CALCULATE_SMACS_HANDLER283K1, EzspCalculateSmacsHandler283k1Response.class);
-        ezspHandlerMap.put(FRAME_ID_CALLBACK, EzspCallbackResponse.class);
-        ezspHandlerMap.put(FRAME_ID_CHANGE_SOURCE_ROUTE_HANDLER, EzspChangeSourceRouteHandler.class);
-        ezspHandlerMap.put(FRAME_ID_CHILD_JOIN_HANDLER, EzspChildJoinHandler.class);
-        ezspHandlerMap.put(FRAME_ID_CLEAR_BINDING_TABLE, EzspClearBindingTableResponse.class);
-        ezspHandlerMap.put(FRAME_ID_CLEAR_KEY_TABLE, EzspClearKeyTableResponse.class);
-        ezspHandlerMap.put(FRAME_ID_CLEAR_TEMPORARY_DATA_MAYBE_STORE_LINK_KEY, EzspClearTemporaryDataMaybeStoreLinkKeyResponse.class);
-        ezspHandlerMap.put(FRAME_ID_CLEAR_TEMPORARY_DATA_MAYBE_STORE_LINK_KEY283K1, EzspClearTemporaryDataMaybeStoreLinkKey283k1Response.class);
-        ezspHandlerMap.put(FRAME_ID_CLEAR_TRANSIENT_LINK_KEYS, EzspClearTransientLinkKeysResponse.class);
-        ezspHandlerMap.put(FRAME_ID_COUNTER_ROLLOVER_HANDLER, EzspCounterRolloverHandler.class);
-        ezspHandlerMap.put(FRAME_ID_D_GP_SEND, EzspDGpSendResponse.class);
-        ezspHandlerMap.put(FRAME_ID_D_GP_SENT_HANDLER, EzspDGpSentHandler.class);
-        ezspHandlerMap.put(FRAME_ID_DELETE_BINDING, EzspDeleteBindingResponse.class);
-        ezspHandlerMap.put(FRAME_ID_ENERGY_SCAN_REQUEST, EzspEnergyScanRequestResponse.class);
-        ezspHandlerMap.put(FRAME_ID_ENERGY_SCAN_RESULT_HANDLER, EzspEnergyScanResultHandler.class);
-        ezspHandlerMap.put(FRAME_ID_ERASE_KEY_TABLE_ENTRY, EzspEraseKeyTableEntryResponse.class);
-        ezspHandlerMap.put(FRAME_ID_FIND_AND_REJOIN_NETWORK, EzspFindAndRejoinNetworkResponse.class);
-        ezspHandlerMap.put(FRAME_ID_FIND_KEY_TABLE_ENTRY, EzspFindKeyTableEntryResponse.class);
-        ezspHandlerMap.put(FRAME_ID_FORM_NETWORK, EzspFormNetworkResponse.class);
-        ezspHandlerMap.put(FRAME_ID_GENERATE_CBKE_KEYS, EzspGenerateCbkeKeysResponse.class);
-        ezspHandlerMap.put(FRAME_ID_GENERATE_CBKE_KEYS283K1, EzspGenerateCbkeKeys283k1Response.class);
-        ezspHandlerMap.put(FRAME_ID_GENERATE_CBKE_KEYS_HANDLER, EzspGenerateCbkeKeysHandler.class);
-        ezspHandlerMap.put(FRAME_ID_GENERATE_CBKE_KEYS_HANDLER283K1, EzspGenerateCbkeKeysHandler283k1Response.class);
-        ezspHandlerMap.put(FRAME_ID_GET_ADDRESS_TABLE_REMOTE_EUI64, EzspGetAddressTableRemoteEui64Response.class);
-        ezspHandlerMap.put(FRAME_ID_GET_BINDING, EzspGetBindingResponse.class);
-        ezspHandlerMap.put(FRAME_ID_GET_BINDING_REMOTE_NODE_ID, EzspGetBindingRemoteNodeIdResponse.class);
-        ezspHandlerMap.put(FRAME_ID_GET_CERTIFICATE, EzspGetCertificateResponse.class);
-        ezspHandlerMap.put(FRAME_ID_GET_CERTIFICATE283K1, EzspGetCertificate283k1Response.class);
-        ezspHandlerMap.put(FRAME_ID_GET_CHILD_DATA, EzspGetChildDataResponse.class);
-        ezspHandlerMap.put(FRAME_ID_GET_CONFIGURATION_VALUE, EzspGetConfigurationValueResponse.class);
-        ezspHandlerMap.put(FRAME_ID_GET_CURRENT_SECURITY_STATE, EzspGetCurrentSecurityStateResponse.class);
-        ezspHandlerMap.put(FRAME_ID_GET_EUI64, EzspGetEui64Response.class);
-        ezspHandlerMap.put(FRAME_ID_GET_EXTENDED_TIMEOUT, EzspGetExtendedTimeoutResponse.class);
-        ezspHandlerMap.put(FRAME_ID_GET_KEY, EzspGetKeyResponse.class);
-        ezspHandlerMap.put(FRAME_ID_GET_KEY_TABLE_ENTRY, EzspGetKeyTableEntryResponse.class);
-        ezspHandlerMap.put(FRAME_ID_GET_LIBRARY_STATUS, EzspGetLibraryStatusResponse.class);
-        ezspHandlerMap.put(FRAME_ID_GET_MFG_TOKEN, EzspGetMfgTokenResponse.class);
-        ezspHandlerMap.put(FRAME_ID_GET_NEIGHBOR, EzspGetNeighborResponse.class);
-        ezspHandlerMap.put(FRAME_ID_GET_NETWORK_PARAMETERS, EzspGetNetworkParametersResponse.class);
-        ezspHandlerMap.put(FRAME_ID_GET_NODE_ID, EzspGetNodeIdResponse.class);
-        ezspHandlerMap.put(FRAME_ID_GET_PARENT_CHILD_PARAMETERS, EzspGetParentChildParametersResponse.class);
-        ezspHandlerMap.put(FRAME_ID_GET_POLICY, EzspGetPolicyResponse.class);
-        ezspHandlerMap.put(FRAME_ID_GET_ROUTE_TABLE_ENTRY, EzspGetRouteTableEntryResponse.class);
-        ezspHandlerMap.put(FRAME_ID_GET_STANDALONE_BOOTLOADER_VERSION_PLAT_MICRO_PHY, EzspGetStandaloneBootloaderVersionPlatMicroPhyResponse.class);
-        ezspHandlerMap.put(FRAME_ID_GET_VALUE, EzspGetValueResponse.class);
-        ezspHandlerMap.put(FRAME_ID_GET_XNCP_INFO, EzspGetXncpInfoResponse.class);
-        ezspHandlerMap.put(FRAME_ID_GP_PROXY_TABLE_LOOKUP, EzspGpProxyTableLookupResponse.class);
-        ezspHandlerMap.put(FRAME_ID_GP_PROXY_TABLE_PROCESS_GP_PAIRING, EzspGpProxyTableProcessGpPairingResponse.class);
-        ezspHandlerMap.put(FRAME_ID_GPEP_INCOMING_MESSAGE_HANDLER, EzspGpepIncomingMessageHandler.class);
-        ezspHandlerMap.put(FRAME_ID_ID_CONFLICT_HANDLER, EzspIdConflictHandler.class);
-        ezspHandlerMap.put(FRAME_ID_INCOMING_MANY_TO_ONE_ROUTE_REQUEST_HANDLER, EzspIncomingManyToOneRouteRequestHandler.class);
-        ezspHandlerMap.put(FRAME_ID_INCOMING_MESSAGE_HANDLER, EzspIncomingMessageHandler.class);
-        ezspHandlerMap.put(FRAME_ID_INCOMING_ROUTE_ERROR_HANDLER, EzspIncomingRouteErrorHandler.class);
-        ezspHandlerMap.put(FRAME_ID_INCOMING_ROUTE_RECORD_HANDLER, EzspIncomingRouteRecordHandler.class);
-        ezspHandlerMap.put(FRAME_ID_INCOMING_SENDER_EUI64_HANDLER, EzspIncomingSenderEui64Handler.class);
-        ezspHandlerMap.put(FRAME_ID_INVALID_COMMAND, EzspInvalidCommandResponse.class);
-        ezspHandlerMap.put(FRAME_ID_JOIN_NETWORK, EzspJoinNetworkResponse.class);
-        ezspHandlerMap.put(FRAME_ID_LAUNCH_STANDALONE_BOOTLOADER, EzspLaunchStandaloneBootloaderResponse.class);
-        ezspHandlerMap.put(FRAME_ID_LEAVE_NETWORK, EzspLeaveNetworkResponse.class);
-        ezspHandlerMap.put(FRAME_ID_LOOKUP_EUI64_BY_NODE_ID, EzspLookupEui64ByNodeIdResponse.class);
-        ezspHandlerMap.put(FRAME_ID_LOOKUP_NODE_ID_BY_EUI64, EzspLookupNodeIdByEui64Response.class);
-        ezspHandlerMap.put(FRAME_ID_MAC_FILTER_MATCH_MESSAGE_HANDLER, EzspMacFilterMatchMessageHandler.class);
-        ezspHandlerMap.put(FRAME_ID_MESSAGE_SENT_HANDLER, EzspMessageSentHandler.class);
-        ezspHandlerMap.put(FRAME_ID_MFGLIB_END, EzspMfglibEndResponse.class);
-        ezspHandlerMap.put(FRAME_ID_MFGLIB_GET_CHANNEL, EzspMfglibGetChannelResponse.class);
-        ezspHandlerMap.put(FRAME_ID_MFGLIB_GET_POWER, EzspMfglibGetPowerResponse.class);
-        ezspHandlerMap.put(FRAME_ID_MFGLIB_RX_HANDLER, EzspMfglibRxHandler.class);
-        ezspHandlerMap.put(FRAME_ID_MFGLIB_SEND_PACKET, EzspMfglibSendPacketResponse.class);
-        ezspHandlerMap.put(FRAME_ID_MFGLIB_SET_CHANNEL, EzspMfglibSetChannelResponse.class);
-        ezspHandlerMap.put(FRAME_ID_MFGLIB_SET_POWER, EzspMfglibSetPowerResponse.class);
-        ezspHandlerMap.put(FRAME_ID_MFGLIB_START, EzspMfglibStartResponse.class);
-        ezspHandlerMap.put(FRAME_ID_MFGLIB_START_STREAM, EzspMfglibStartStreamResponse.class);
-        ezspHandlerMap.put(FRAME_ID_MFGLIB_START_TONE, EzspMfglibStartToneResponse.class);
-        ezspHandlerMap.put(FRAME_ID_MFGLIB_STOP_STREAM, EzspMfglibStopStreamResponse.class);
-        ezspHandlerMap.put(FRAME_ID_MFGLIB_STOP_TONE, EzspMfglibStopToneResponse.class);
-        ezspHandlerMap.put(FRAME_ID_NEIGHBOR_COUNT, EzspNeighborCountResponse.class);
-        ezspHandlerMap.put(FRAME_ID_NETWORK_FOUND_HANDLER, EzspNetworkFoundHandler.class);
-        ezspHandlerMap.put(FRAME_ID_NETWORK_INIT, EzspNetworkInitResponse.class);
-        ezspHandlerMap.put(FRAME_ID_NETWORK_STATE, EzspNetworkStateResponse.class);
-        ezspHandlerMap.put(FRAME_ID_NO_CALLBACKS, EzspNoCallbacksResponse.class);
-        ezspHandlerMap.put(FRAME_ID_PERMIT_JOINING, EzspPermitJoiningResponse.class);
-        ezspHandlerMap.put(FRAME_ID_POLL_HANDLER, EzspPollHandler.class);
-        ezspHandlerMap.put(FRAME_ID_READ_AND_CLEAR_COUNTERS, EzspReadAndClearCountersResponse.class);
-        ezspHandlerMap.put(FRAME_ID_READ_COUNTERS, EzspReadCountersResponse.class);
-        ezspHandlerMap.put(FRAME_ID_REMOTE_DELETE_BINDING_HANDLER, EzspRemoteDeleteBindingHandler.class);
-        ezspHandlerMap.put(FRAME_ID_REMOTE_SET_BINDING_HANDLER, EzspRemoteSetBindingHandler.class);
-        ezspHandlerMap.put(FRAME_ID_REMOVE_DEVICE, EzspRemoveDeviceResponse.class);
-        ezspHandlerMap.put(FRAME_ID_REQUEST_LINK_KEY, EzspRequestLinkKeyResponse.class);
-        ezspHandlerMap.put(FRAME_ID_RESET_TO_FACTORY_DEFAULTS, EzspResetToFactoryDefaultsResponse.class);
-        ezspHandlerMap.put(FRAME_ID_SCAN_COMPLETE_HANDLER, EzspScanCompleteHandler.class);
-        ezspHandlerMap.put(FRAME_ID_SEND_BROADCAST, EzspSendBroadcastResponse.class);
-        ezspHandlerMap.put(FRAME_ID_SEND_MANY_TO_ONE_ROUTE_REQUEST, EzspSendManyToOneRouteRequestResponse.class);
-        ezspHandlerMap.put(FRAME_ID_SEND_MULTICAST, EzspSendMulticastResponse.class);
-        ezspHandlerMap.put(FRAME_ID_SEND_REPLY, EzspSendReplyResponse.class);
-        ezspHandlerMap.put(FRAME_ID_SEND_TRUST_CENTER_LINK_KEY, EzspSendTrustCenterLinkKeyResponse.class);
-        ezspHandlerMap.put(FRAME_ID_SEND_UNICAST, EzspSendUnicastResponse.class);
-        ezspHandlerMap.put(FRAME_ID_SET_BINDING, EzspSetBindingResponse.class);
-        ezspHandlerMap.put(FRAME_ID_SET_BINDING_REMOTE_NODE_ID, EzspSetBindingRemoteNodeIdResponse.class);
-        ezspHandlerMap.put(FRAME_ID_SET_CONCENTRATOR, EzspSetConcentratorResponse.class);
-        ezspHandlerMap.put(FRAME_ID_SET_CONFIGURATION_VALUE, EzspSetConfigurationValueResponse.class);
-        ezspHandlerMap.put(FRAME_ID_SET_EXTENDED_TIMEOUT, EzspSetExtendedTimeoutResponse.class);
-        ezspHandlerMap.put(FRAME_ID_SET_INITIAL_SECURITY_STATE, EzspSetInitialSecurityStateResponse.class);
-        ezspHandlerMap.put(FRAME_ID_SET_KEY_TABLE_ENTRY, EzspSetKeyTableEntryResponse.class);
-        ezspHandlerMap.put(FRAME_ID_SET_POLICY, EzspSetPolicyResponse.class);
-        ezspHandlerMap.put(FRAME_ID_SET_PREINSTALLED_CBKE_DATA, EzspSetPreinstalledCbkeDataResponse.class);
-        ezspHandlerMap.put(FRAME_ID_SET_PREINSTALLED_CBKE_DATA283K1, EzspSetPreinstalledCbkeData283k1Response.class);
-        ezspHandlerMap.put(FRAME_ID_SET_RADIO_CHANNEL, EzspSetRadioChannelResponse.class);
-        ezspHandlerMap.put(FRAME_ID_SET_RADIO_POWER, EzspSetRadioPowerResponse.class);
-        ezspHandlerMap.put(FRAME_ID_SET_SOURCE_ROUTE, EzspSetSourceRouteResponse.class);
-        ezspHandlerMap.put(FRAME_ID_SET_VALUE, EzspSetValueResponse.class);
-        ezspHandlerMap.put(FRAME_ID_STACK_STATUS_HANDLER, EzspStackStatusHandler.class);
-        ezspHandlerMap.put(FRAME_ID_STACK_TOKEN_CHANGED_HANDLER, EzspStackTokenChangedHandler.class);
-        ezspHandlerMap.put(FRAME_ID_START_SCAN, EzspStartScanResponse.class);
-        ezspHandlerMap.put(FRAME_ID_STOP_SCAN, EzspStopScanResponse.class);
-        ezspHandlerMap.put(FRAME_ID_SWITCH_NETWORK_KEY_HANDLER, EzspSwitchNetworkKeyHandler.class);
-        ezspHandlerMap.put(FRAME_ID_TRUST_CENTER_JOIN_HANDLER, EzspTrustCenterJoinHandler.class);
-        ezspHandlerMap.put(FRAME_ID_VERSION, EzspVersionResponse.class);
-        ezspHandlerMap.put(FRAME_ID_ZIGBEE_KEY_ESTABLISHMENT_HANDLER, EzspZigbeeKeyEstablishmentHandler.class);
+        ezspHandlers[FRAME_ID_ADD_ENDPOINT] = EzspAddEndpointResponse::new;
+        ezspHandlers[FRAME_ID_ADD_OR_UPDATE_KEY_TABLE_ENTRY] = EzspAddOrUpdateKeyTableEntryResponse::new;
+        ezspHandlers[FRAME_ID_ADD_TRANSIENT_LINK_KEY] = EzspAddTransientLinkKeyResponse::new;
+        ezspHandlers[FRAME_ID_AES_MMO_HASH] = EzspAesMmoHashResponse::new;
+        ezspHandlers[FRAME_ID_BECOME_TRUST_CENTER] = EzspBecomeTrustCenterResponse::new;
+        ezspHandlers[FRAME_ID_BINDING_IS_ACTIVE] = EzspBindingIsActiveResponse::new;
+        ezspHandlers[FRAME_ID_CALCULATE_SMACS] = EzspCalculateSmacsResponse::new;
+        ezspHandlers[FRAME_ID_CALCULATE_SMACS283K1] = EzspCalculateSmacs283k1Response::new;
+        ezspHandlers[FRAME_ID_CALCULATE_SMACS_HANDLER] = EzspCalculateSmacsHandler::new;
+        ezspHandlers[FRAME_ID_CALCULATE_SMACS_HANDLER283K1] = EzspCalculateSmacsHandler283k1Response::new;
+        ezspHandlers[FRAME_ID_CALLBACK] = EzspCallbackResponse::new;
+        ezspHandlers[FRAME_ID_CHANGE_SOURCE_ROUTE_HANDLER] = EzspChangeSourceRouteHandler::new;
+        ezspHandlers[FRAME_ID_CHILD_JOIN_HANDLER] = EzspChildJoinHandler::new;
+        ezspHandlers[FRAME_ID_CLEAR_BINDING_TABLE] = EzspClearBindingTableResponse::new;
+        ezspHandlers[FRAME_ID_CLEAR_KEY_TABLE] = EzspClearKeyTableResponse::new;
+        ezspHandlers[FRAME_ID_CLEAR_TEMPORARY_DATA_MAYBE_STORE_LINK_KEY] = EzspClearTemporaryDataMaybeStoreLinkKeyResponse::new;
+        ezspHandlers[FRAME_ID_CLEAR_TEMPORARY_DATA_MAYBE_STORE_LINK_KEY283K1] = EzspClearTemporaryDataMaybeStoreLinkKey283k1Response::new;
+        ezspHandlers[FRAME_ID_CLEAR_TRANSIENT_LINK_KEYS] = EzspClearTransientLinkKeysResponse::new;
+        ezspHandlers[FRAME_ID_COUNTER_ROLLOVER_HANDLER] = EzspCounterRolloverHandler::new;
+        ezspHandlers[FRAME_ID_D_GP_SEND] = EzspDGpSendResponse::new;
+        ezspHandlers[FRAME_ID_D_GP_SENT_HANDLER] = EzspDGpSentHandler::new;
+        ezspHandlers[FRAME_ID_DELETE_BINDING] = EzspDeleteBindingResponse::new;
+        ezspHandlers[FRAME_ID_ENERGY_SCAN_REQUEST] = EzspEnergyScanRequestResponse::new;
+        ezspHandlers[FRAME_ID_ENERGY_SCAN_RESULT_HANDLER] = EzspEnergyScanResultHandler::new;
+        ezspHandlers[FRAME_ID_ERASE_KEY_TABLE_ENTRY] = EzspEraseKeyTableEntryResponse::new;
+        ezspHandlers[FRAME_ID_FIND_AND_REJOIN_NETWORK] = EzspFindAndRejoinNetworkResponse::new;
+        ezspHandlers[FRAME_ID_FIND_KEY_TABLE_ENTRY] = EzspFindKeyTableEntryResponse::new;
+        ezspHandlers[FRAME_ID_FORM_NETWORK] = EzspFormNetworkResponse::new;
+        ezspHandlers[FRAME_ID_GENERATE_CBKE_KEYS] = EzspGenerateCbkeKeysResponse::new;
+        ezspHandlers[FRAME_ID_GENERATE_CBKE_KEYS283K1] = EzspGenerateCbkeKeys283k1Response::new;
+        ezspHandlers[FRAME_ID_GENERATE_CBKE_KEYS_HANDLER] = EzspGenerateCbkeKeysHandler::new;
+        ezspHandlers[FRAME_ID_GENERATE_CBKE_KEYS_HANDLER283K1] = EzspGenerateCbkeKeysHandler283k1Response::new;
+        ezspHandlers[FRAME_ID_GET_ADDRESS_TABLE_REMOTE_EUI64] = EzspGetAddressTableRemoteEui64Response::new;
+        ezspHandlers[FRAME_ID_GET_BINDING] = EzspGetBindingResponse::new;
+        ezspHandlers[FRAME_ID_GET_BINDING_REMOTE_NODE_ID] = EzspGetBindingRemoteNodeIdResponse::new;
+        ezspHandlers[FRAME_ID_GET_CERTIFICATE] = EzspGetCertificateResponse::new;
+        ezspHandlers[FRAME_ID_GET_CERTIFICATE283K1] = EzspGetCertificate283k1Response::new;
+        ezspHandlers[FRAME_ID_GET_CHILD_DATA] = EzspGetChildDataResponse::new;
+        ezspHandlers[FRAME_ID_GET_CONFIGURATION_VALUE] = EzspGetConfigurationValueResponse::new;
+        ezspHandlers[FRAME_ID_GET_CURRENT_SECURITY_STATE] = EzspGetCurrentSecurityStateResponse::new;
+        ezspHandlers[FRAME_ID_GET_EUI64] = EzspGetEui64Response::new;
+        ezspHandlers[FRAME_ID_GET_EXTENDED_TIMEOUT] = EzspGetExtendedTimeoutResponse::new;
+        ezspHandlers[FRAME_ID_GET_KEY] = EzspGetKeyResponse::new;
+        ezspHandlers[FRAME_ID_GET_KEY_TABLE_ENTRY] = EzspGetKeyTableEntryResponse::new;
+        ezspHandlers[FRAME_ID_GET_LIBRARY_STATUS] = EzspGetLibraryStatusResponse::new;
+        ezspHandlers[FRAME_ID_GET_MFG_TOKEN] = EzspGetMfgTokenResponse::new;
+        ezspHandlers[FRAME_ID_GET_MULTICAST_TABLE_ENTRY] = EzspGetMulticastTableEntryResponse::new;
+        ezspHandlers[FRAME_ID_GET_NEIGHBOR] = EzspGetNeighborResponse::new;
+        ezspHandlers[FRAME_ID_GET_NETWORK_PARAMETERS] = EzspGetNetworkParametersResponse::new;
+        ezspHandlers[FRAME_ID_GET_NODE_ID] = EzspGetNodeIdResponse::new;
+        ezspHandlers[FRAME_ID_GET_PARENT_CHILD_PARAMETERS] = EzspGetParentChildParametersResponse::new;
+        ezspHandlers[FRAME_ID_GET_POLICY] = EzspGetPolicyResponse::new;
+        ezspHandlers[FRAME_ID_GET_ROUTE_TABLE_ENTRY] = EzspGetRouteTableEntryResponse::new;
+        ezspHandlers[FRAME_ID_GET_STANDALONE_BOOTLOADER_VERSION_PLAT_MICRO_PHY] = EzspGetStandaloneBootloaderVersionPlatMicroPhyResponse::new;
+        ezspHandlers[FRAME_ID_GET_VALUE] = EzspGetValueResponse::new;
+        ezspHandlers[FRAME_ID_GET_XNCP_INFO] = EzspGetXncpInfoResponse::new;
+        ezspHandlers[FRAME_ID_GP_PROXY_TABLE_LOOKUP] = EzspGpProxyTableLookupResponse::new;
+        ezspHandlers[FRAME_ID_GP_PROXY_TABLE_PROCESS_GP_PAIRING] = EzspGpProxyTableProcessGpPairingResponse::new;
+        ezspHandlers[FRAME_ID_GPEP_INCOMING_MESSAGE_HANDLER] = EzspGpepIncomingMessageHandler::new;
+        ezspHandlers[FRAME_ID_ID_CONFLICT_HANDLER] = EzspIdConflictHandler::new;
+        ezspHandlers[FRAME_ID_INCOMING_MANY_TO_ONE_ROUTE_REQUEST_HANDLER] = EzspIncomingManyToOneRouteRequestHandler::new;
+        ezspHandlers[FRAME_ID_INCOMING_MESSAGE_HANDLER] = EzspIncomingMessageHandler::new;
+        ezspHandlers[FRAME_ID_INCOMING_ROUTE_ERROR_HANDLER] = EzspIncomingRouteErrorHandler::new;
+        ezspHandlers[FRAME_ID_INCOMING_ROUTE_RECORD_HANDLER] = EzspIncomingRouteRecordHandler::new;
+        ezspHandlers[FRAME_ID_INCOMING_SENDER_EUI64_HANDLER] = EzspIncomingSenderEui64Handler::new;
+        ezspHandlers[FRAME_ID_INVALID_COMMAND] = EzspInvalidCommandResponse::new;
+        ezspHandlers[FRAME_ID_JOIN_NETWORK] = EzspJoinNetworkResponse::new;
+        ezspHandlers[FRAME_ID_LAUNCH_STANDALONE_BOOTLOADER] = EzspLaunchStandaloneBootloaderResponse::new;
+        ezspHandlers[FRAME_ID_LEAVE_NETWORK] = EzspLeaveNetworkResponse::new;
+        ezspHandlers[FRAME_ID_LOOKUP_EUI64_BY_NODE_ID] = EzspLookupEui64ByNodeIdResponse::new;
+        ezspHandlers[FRAME_ID_LOOKUP_NODE_ID_BY_EUI64] = EzspLookupNodeIdByEui64Response::new;
+        ezspHandlers[FRAME_ID_MAC_FILTER_MATCH_MESSAGE_HANDLER] = EzspMacFilterMatchMessageHandler::new;
+        ezspHandlers[FRAME_ID_MESSAGE_SENT_HANDLER] = EzspMessageSentHandler::new;
+        ezspHandlers[FRAME_ID_MFGLIB_END] = EzspMfglibEndResponse::new;
+        ezspHandlers[FRAME_ID_MFGLIB_GET_CHANNEL] = EzspMfglibGetChannelResponse::new;
+        ezspHandlers[FRAME_ID_MFGLIB_GET_POWER] = EzspMfglibGetPowerResponse::new;
+        ezspHandlers[FRAME_ID_MFGLIB_RX_HANDLER] = EzspMfglibRxHandler::new;
+        ezspHandlers[FRAME_ID_MFGLIB_SEND_PACKET] = EzspMfglibSendPacketResponse::new;
+        ezspHandlers[FRAME_ID_MFGLIB_SET_CHANNEL] = EzspMfglibSetChannelResponse::new;
+        ezspHandlers[FRAME_ID_MFGLIB_SET_POWER] = EzspMfglibSetPowerResponse::new;
+        ezspHandlers[FRAME_ID_MFGLIB_START] = EzspMfglibStartResponse::new;
+        ezspHandlers[FRAME_ID_MFGLIB_START_STREAM] = EzspMfglibStartStreamResponse::new;
+        ezspHandlers[FRAME_ID_MFGLIB_START_TONE] = EzspMfglibStartToneResponse::new;
+        ezspHandlers[FRAME_ID_MFGLIB_STOP_STREAM] = EzspMfglibStopStreamResponse::new;
+        ezspHandlers[FRAME_ID_MFGLIB_STOP_TONE] = EzspMfglibStopToneResponse::new;
+        ezspHandlers[FRAME_ID_NEIGHBOR_COUNT] = EzspNeighborCountResponse::new;
+        ezspHandlers[FRAME_ID_NETWORK_FOUND_HANDLER] = EzspNetworkFoundHandler::new;
+        ezspHandlers[FRAME_ID_NETWORK_INIT] = EzspNetworkInitResponse::new;
+        ezspHandlers[FRAME_ID_NETWORK_STATE] = EzspNetworkStateResponse::new;
+        ezspHandlers[FRAME_ID_NO_CALLBACKS] = EzspNoCallbacksResponse::new;
+        ezspHandlers[FRAME_ID_PERMIT_JOINING] = EzspPermitJoiningResponse::new;
+        ezspHandlers[FRAME_ID_POLL_HANDLER] = EzspPollHandler::new;
+        ezspHandlers[FRAME_ID_READ_AND_CLEAR_COUNTERS] = EzspReadAndClearCountersResponse::new;
+        ezspHandlers[FRAME_ID_READ_COUNTERS] = EzspReadCountersResponse::new;
+        ezspHandlers[FRAME_ID_REMOTE_DELETE_BINDING_HANDLER] = EzspRemoteDeleteBindingHandler::new;
+        ezspHandlers[FRAME_ID_REMOTE_SET_BINDING_HANDLER] = EzspRemoteSetBindingHandler::new;
+        ezspHandlers[FRAME_ID_REMOVE_DEVICE] = EzspRemoveDeviceResponse::new;
+        ezspHandlers[FRAME_ID_REQUEST_LINK_KEY] = EzspRequestLinkKeyResponse::new;
+        ezspHandlers[FRAME_ID_RESET_TO_FACTORY_DEFAULTS] = EzspResetToFactoryDefaultsResponse::new;
+        ezspHandlers[FRAME_ID_SCAN_COMPLETE_HANDLER] = EzspScanCompleteHandler::new;
+        ezspHandlers[FRAME_ID_SEND_BROADCAST] = EzspSendBroadcastResponse::new;
+        ezspHandlers[FRAME_ID_SEND_MANY_TO_ONE_ROUTE_REQUEST] = EzspSendManyToOneRouteRequestResponse::new;
+        ezspHandlers[FRAME_ID_SEND_MULTICAST] = EzspSendMulticastResponse::new;
+        ezspHandlers[FRAME_ID_SEND_REPLY] = EzspSendReplyResponse::new;
+        ezspHandlers[FRAME_ID_SEND_TRUST_CENTER_LINK_KEY] = EzspSendTrustCenterLinkKeyResponse::new;
+        ezspHandlers[FRAME_ID_SEND_UNICAST] = EzspSendUnicastResponse::new;
+        ezspHandlers[FRAME_ID_SET_BINDING] = EzspSetBindingResponse::new;
+        ezspHandlers[FRAME_ID_SET_BINDING_REMOTE_NODE_ID] = EzspSetBindingRemoteNodeIdResponse::new;
+        ezspHandlers[FRAME_ID_SET_CONCENTRATOR] = EzspSetConcentratorResponse::new;
+        ezspHandlers[FRAME_ID_SET_CONFIGURATION_VALUE] = EzspSetConfigurationValueResponse::new;
+        ezspHandlers[FRAME_ID_SET_EXTENDED_TIMEOUT] = EzspSetExtendedTimeoutResponse::new;
+        ezspHandlers[FRAME_ID_SET_INITIAL_SECURITY_STATE] = EzspSetInitialSecurityStateResponse::new;
+        ezspHandlers[FRAME_ID_SET_KEY_TABLE_ENTRY] = EzspSetKeyTableEntryResponse::new;
+        ezspHandlers[FRAME_ID_SET_MULTICAST_TABLE_ENTRY] = EzspSetMulticastTableEntryResponse::new;
+        ezspHandlers[FRAME_ID_SET_POLICY] = EzspSetPolicyResponse::new;
+        ezspHandlers[FRAME_ID_SET_PREINSTALLED_CBKE_DATA] = EzspSetPreinstalledCbkeDataResponse::new;
+        ezspHandlers[FRAME_ID_SET_PREINSTALLED_CBKE_DATA283K1] = EzspSetPreinstalledCbkeData283k1Response::new;
+        ezspHandlers[FRAME_ID_SET_RADIO_CHANNEL] = EzspSetRadioChannelResponse::new;
+        ezspHandlers[FRAME_ID_SET_RADIO_POWER] = EzspSetRadioPowerResponse::new;
+        ezspHandlers[FRAME_ID_SET_SOURCE_ROUTE] = EzspSetSourceRouteResponse::new;
+        ezspHandlers[FRAME_ID_SET_VALUE] = EzspSetValueResponse::new;
+        ezspHandlers[FRAME_ID_STACK_STATUS_HANDLER] = EzspStackStatusHandler::new;
+        ezspHandlers[FRAME_ID_STACK_TOKEN_CHANGED_HANDLER] = EzspStackTokenChangedHandler::new;
+        ezspHandlers[FRAME_ID_START_SCAN] = EzspStartScanResponse::new;
+        ezspHandlers[FRAME_ID_STOP_SCAN] = EzspStopScanResponse::new;
+        ezspHandlers[FRAME_ID_SWITCH_NETWORK_KEY_HANDLER] = EzspSwitchNetworkKeyHandler::new;
+        ezspHandlers[FRAME_ID_TRUST_CENTER_JOIN_HANDLER] = EzspTrustCenterJoinHandler::new;
+        ezspHandlers[FRAME_ID_VERSION] = EzspVersionResponse::new;
+        ezspHandlers[FRAME_ID_ZIGBEE_KEY_ESTABLISHMENT_HANDLER] = EzspZigbeeKeyEstablishmentHandler::new;
     }
 
     /**
@@ -387,24 +396,20 @@ public abstract class EzspFrame {
      * @return the {@link EzspFrameResponse} or null if the response can't be created.
      */
     public static EzspFrameResponse createHandler(int[] data) {
-        Class<?> ezspClass;
-        if (data[2] != 0xFF) {
-            ezspClass = ezspHandlerMap.get(data[2]);
+        EzspFrameFactory factory;
+        if (data[2] != EZSP_LEGACY_FRAME_ID) {
+            factory = ezspHandlers[data[2] & 0xFF];
         } else {
-            ezspClass = ezspHandlerMap.get(data[4]);
+            factory = ezspHandlers[data[4] & 0xFF];
         }
 
-        if (ezspClass == null) {
+        if (factory == null) {
             return null;
         }
 
-        Constructor<?> ctor;
         try {
-            ctor = ezspClass.getConstructor(int[].class);
-            EzspFrameResponse ezspFrame = (EzspFrameResponse) ctor.newInstance(data);
-            return ezspFrame;
-        } catch (SecurityException | NoSuchMethodException | IllegalArgumentException | InstantiationException
-                | IllegalAccessException | InvocationTargetException e) {
+            return factory.create(data);
+        } catch (RuntimeException e) {
             logger.debug("Error creating instance of EzspFrame", e);
         }
 
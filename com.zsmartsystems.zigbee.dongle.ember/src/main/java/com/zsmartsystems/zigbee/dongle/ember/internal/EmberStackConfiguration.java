@@ -7,11 +7,14 @@
  */
 package com.zsmartsystems.zigbee.dongle.ember.internal;
 
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import com.zsmartsystems.zigbee.dongle.ember.EmberNcp;
 import com.zsmartsystems.zigbee.dongle.ember.ezsp.structure.EzspConfigId;
 import com.zsmartsystems.zigbee.dongle.ember.ezsp.structure.EzspDecisionId;
@@ -20,20 +23,28 @@ import com.zsmartsystems.zigbee.dongle.ember.ezsp.structure.EzspStatus;
 
 /**
  * This class provides utility functions to configure, and read the configuration from the Ember stack.
+ * <p>
+ * The configuration and policies are independent of each other, so all requests in each group are queued to the NCP
+ * together and the responses are then collected. This avoids waiting for a round trip to the NCP for each value.
  *
  * @author Chris Jackson
  *
  */
 public class EmberStackConfiguration {
+    /**
+     * The {@link Logger}.
+     */
+    private final Logger logger = LoggerFactory.getLogger(EmberStackConfiguration.class);
+
     /**
      * The {@link EmberNcp} used to send the EZSP frames to the NCP
      */
     private EmberNcp ncp;
 
     /**
-     * Constructor to set the {@link EzspProtocolHandler}
+     * Constructor to set the {@link EmberNcp}
      *
-     * @param frameHandler the {@link EzspProtocolHandler} used to communicate with the NCP
+     * @param ncp the {@link EmberNcp} used to communicate with the NCP
      */
     public EmberStackConfiguration(EmberNcp ncp) {
         this.ncp = ncp;
@@ -49,8 +60,8 @@ public class EmberStackConfiguration {
     public boolean setConfiguration(Map<EzspConfigId, Integer> configuration) {
         boolean success = true;
 
-        for (Entry<EzspConfigId, Integer> config : configuration.entrySet()) {
-            if (ncp.setConfiguration(config.getKey(), config.getValue()) != EzspStatus.EZSP_SUCCESS) {
+        for (EzspStatus status : ncp.setConfiguration(configuration).values()) {
+            if (status != EzspStatus.EZSP_SUCCESS) {
                 success = false;
             }
         }
@@ -66,13 +77,33 @@ public class EmberStackConfiguration {
      *         occurred.
      */
     public Map<EzspConfigId, Integer> getConfiguration(Set<EzspConfigId> configuration) {
-        Map<EzspConfigId, Integer> response = new HashMap<EzspConfigId, Integer>();
+        return ncp.getConfiguration(configuration);
+    }
+
+    /**
+     * Configuration utility. Takes a {@link Map} of {@link EzspConfigId} to {@link Integer}, reads the current
+     * configuration from the NCP, and sets only the values that differ from the current configuration.
+     *
+     * @param configuration {@link Map} of {@link EzspConfigId} to {@link Integer} with configuration to set
+     * @return true if all configuration were set successfully
+     */
+    public boolean updateConfiguration(Map<EzspConfigId, Integer> configuration) {
+        Map<EzspConfigId, Integer> currentConfiguration = getConfiguration(configuration.keySet());
 
-        for (EzspConfigId configId : configuration) {
-            response.put(configId, ncp.getConfiguration(configId));
+        Map<EzspConfigId, Integer> changedConfiguration = new LinkedHashMap<EzspConfigId, Integer>();
+        for (Entry<EzspConfigId, Integer> config : configuration.entrySet()) {
+            Integer currentValue = currentConfiguration.get(config.getKey());
+            logger.debug("Configuration state {} = {}", config.getKey(), currentValue);
+            if (!config.getValue().equals(currentValue)) {
+                changedConfiguration.put(config.getKey(), config.getValue());
+            }
         }
 
-        return response;
+        if (changedConfiguration.isEmpty()) {
+            return true;
+        }
+        logger.debug("Updating configuration {}", changedConfiguration);
+        return setConfiguration(changedConfiguration);
     }
 
     /**
@@ -85,8 +116,8 @@ public class EmberStackConfiguration {
     public boolean setPolicy(Map<EzspPolicyId, EzspDecisionId> policies) {
         boolean success = true;
 
-        for (Entry<EzspPolicyId, EzspDecisionId> policy : policies.entrySet()) {
-            if (ncp.setPolicy(policy.getKey(), policy.getValue()) != EzspStatus.EZSP_SUCCESS) {
+        for (EzspStatus status : ncp.setPolicy(policies).values()) {
+            if (status != EzspStatus.EZSP_SUCCESS) {
                 success = false;
             }
         }
@@ -102,13 +133,32 @@ public class EmberStackConfiguration {
      *         error occurred.
      */
     public Map<EzspPolicyId, EzspDecisionId> getPolicy(Set<EzspPolicyId> policies) {
-        Map<EzspPolicyId, EzspDecisionId> response = new HashMap<EzspPolicyId, EzspDecisionId>();
+        return ncp.getPolicy(policies);
+    }
 
-        for (EzspPolicyId policyId : policies) {
-            response.put(policyId, ncp.getPolicy(policyId));
+    /**
+     * Configuration utility. Takes a {@link Map} of {@link EzspPolicyId} to {@link EzspDecisionId}, reads the current
+     * policies from the NCP, and sets only the policies that differ from the current decision.
+     *
+     * @param policies {@link Map} of {@link EzspPolicyId} to {@link EzspDecisionId} with configuration to set
+     * @return true if all policies were set successfully
+     */
+    public boolean updatePolicy(Map<EzspPolicyId, EzspDecisionId> policies) {
+        Map<EzspPolicyId, EzspDecisionId> currentPolicies = getPolicy(policies.keySet());
+
+        Map<EzspPolicyId, EzspDecisionId> changedPolicies = new LinkedHashMap<EzspPolicyId, EzspDecisionId>();
+        for (Entry<EzspPolicyId, EzspDecisionId> policy : policies.entrySet()) {
+            EzspDecisionId currentDecision = currentPolicies.get(policy.getKey());
+            logger.debug("Policy state {} = {}", policy.getKey(), currentDecision);
+            if (policy.getValue() != currentDecision) {
+                changedPolicies.put(policy.getKey(), policy.getValue());
+            }
         }
 
-        return response;
+        if (changedPolicies.isEmpty()) {
+            return true;
+        }
+        logger.debug("Updating policies {}", changedPolicies);
+        return setPolicy(changedPolicies);
     }
-
 }
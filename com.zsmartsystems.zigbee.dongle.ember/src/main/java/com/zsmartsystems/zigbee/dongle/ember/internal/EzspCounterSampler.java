@@ -0,0 +1,240 @@
+/**
+ * Copyright (c) 2016-2019 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.dongle.ember.internal;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.zsmartsystems.zigbee.dongle.ember.EmberCounterListener;
+import com.zsmartsystems.zigbee.dongle.ember.EmberNcp;
+import com.zsmartsystems.zigbee.dongle.ember.ezsp.structure.EmberCounterType;
+import com.zsmartsystems.zigbee.metrics.ZigBeeCounter;
+import com.zsmartsystems.zigbee.metrics.ZigBeeMetricRegistry;
+import com.zsmartsystems.zigbee.transport.ZigBeeTransportMetrics;
+
+/**
+ * Samples the NCP counters. Each sample reads and clears the counters in the NCP, and adds the counts to a
+ * {@link ZigBeeCounter} for each {@link EmberCounterType}. The counters are named with the
+ * {@link #NCP_COUNTER_PREFIX} followed by the lower case counter name - eg
+ * <code>transport.ncp.phy_cca_fail_count</code>.
+ * <p>
+ * The rate of each counter over the sample period is compared with any threshold set with
+ * {@link #setThreshold(EmberCounterType, double)}, and the {@link EmberCounterListener}s are notified when the rate
+ * rises above the threshold.
+ * <p>
+ * This class is thread safe.
+ *
+ * @author Chris Jackson
+ *
+ */
+public class EzspCounterSampler {
+    /**
+     * The {@link Logger}.
+     */
+    private final Logger logger = LoggerFactory.getLogger(EzspCounterSampler.class);
+
+    /**
+     * The prefix for the NCP counter metrics
+     */
+    public static final String NCP_COUNTER_PREFIX = ZigBeeTransportMetrics.TRANSPORT_PREFIX + "ncp.";
+
+    /**
+     * The counters for each counter type. These are replaced with the counters from the network registry in
+     * {@link #registerMetrics(ZigBeeMetricRegistry)}.
+     */
+    private final Map<EmberCounterType, ZigBeeCounter> counters = new EnumMap<>(EmberCounterType.class);
+
+    /**
+     * The rate of each counter over the last sample period in events per second
+     */
+    private final Map<EmberCounterType, Double> rates = new EnumMap<>(EmberCounterType.class);
+
+    /**
+     * The threshold rate for each counter in events per second
+     */
+    private final Map<EmberCounterType, Double> thresholds = new EnumMap<>(EmberCounterType.class);
+
+    /**
+     * The counters that are currently above their threshold
+     */
+    private final Set<EmberCounterType> exceeded = EnumSet.noneOf(EmberCounterType.class);
+
+    private final List<EmberCounterListener> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * The time of the last sample, or null if no sample has been taken since the sampler was reset
+     */
+    private Long lastSampleTime;
+
+    /**
+     * Creates the sampler
+     */
+    public EzspCounterSampler() {
+        for (EmberCounterType type : EmberCounterType.values()) {
+            if (isCounter(type)) {
+                counters.put(type, new ZigBeeCounter());
+            }
+        }
+    }
+
+    /**
+     * Registers the NCP counters with the registry
+     *
+     * @param registry the {@link ZigBeeMetricRegistry} of the network
+     */
+    public synchronized void registerMetrics(ZigBeeMetricRegistry registry) {
+        for (EmberCounterType type : counters.keySet()) {
+            counters.put(type, registry.getCounter(getMetricName(type)));
+        }
+    }
+
+    /**
+     * Sets the threshold rate for a counter. The {@link EmberCounterListener}s are notified when the rate of the
+     * counter over a sample period rises above the threshold.
+     *
+     * @param type the {@link EmberCounterType}
+     * @param threshold the threshold in events per second, or 0 to remove the threshold
+     */
+    public synchronized void setThreshold(EmberCounterType type, double threshold) {
+        if (threshold <= 0) {
+            thresholds.remove(type);
+            exceeded.remove(type);
+        } else {
+            thresholds.put(type, threshold);
+        }
+    }
+
+    /**
+     * Adds a listener to be notified when a counter exceeds its threshold
+     *
+     * @param listener the {@link EmberCounterListener} to add
+     */
+    public void addListener(EmberCounterListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Removes a listener
+     *
+     * @param listener the {@link EmberCounterListener} to remove
+     */
+    public void removeListener(EmberCounterListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Gets the rate of each counter over the last sample period
+     *
+     * @return a {@link Map} of the rate in events per second for each {@link EmberCounterType}
+     */
+    public synchronized Map<EmberCounterType, Double> getRates() {
+        return Collections.unmodifiableMap(new EnumMap<>(rates));
+    }
+
+    /**
+     * Reads and clears the counters in the NCP, and updates the metrics. The rates are not updated by the first sample
+     * after the sampler is reset, as the period over which the counts were accumulated is not known.
+     * <p>
+     * This will block while the counters are read, and should not be called from the thread that receives frames from
+     * the NCP.
+     *
+     * @param ncp the {@link EmberNcp} used to read the counters
+     */
+    public void sample(EmberNcp ncp) {
+        int[] values = ncp.readAndClearCounters();
+        if (values == null) {
+            logger.debug("Ember counters not read");
+            return;
+        }
+        update(values, System.nanoTime());
+    }
+
+    /**
+     * Resets the sampler. This should be called if the NCP is reset, since the NCP counters are then cleared.
+     */
+    public synchronized void reset() {
+        lastSampleTime = null;
+        rates.clear();
+        exceeded.clear();
+    }
+
+    /**
+     * Updates the metrics with the counter values read from the NCP
+     *
+     * @param values the counter values, indexed by {@link EmberCounterType}
+     * @param sampleTime the time of the sample in nanoseconds
+     */
+    void update(int[] values, long sampleTime) {
+        Map<EmberCounterType, Double> exceededRates = new EnumMap<>(EmberCounterType.class);
+        Map<EmberCounterType, Double> exceededThresholds = new EnumMap<>(EmberCounterType.class);
+        synchronized (this) {
+            double period = 0;
+            if (lastSampleTime != null) {
+                period = (double) (sampleTime - lastSampleTime) / TimeUnit.SECONDS.toNanos(1);
+            }
+            lastSampleTime = sampleTime;
+
+            for (int index = 0; index < values.length; index++) {
+                EmberCounterType type = EmberCounterType.getEmberCounterType(index);
+                if (!isCounter(type)) {
+                    continue;
+                }
+                counters.get(type).add(values[index]);
+                if (period <= 0) {
+                    continue;
+                }
+                double rate = values[index] / period;
+                rates.put(type, rate);
+
+                Double threshold = thresholds.get(type);
+                if (threshold == null) {
+                    continue;
+                }
+                if (rate < threshold) {
+                    exceeded.remove(type);
+                } else if (exceeded.add(type)) {
+                    exceededRates.put(type, rate);
+                    exceededThresholds.put(type, threshold);
+                }
+            }
+        }
+
+        for (Map.Entry<EmberCounterType, Double> entry : exceededRates.entrySet()) {
+            double threshold = exceededThresholds.get(entry.getKey());
+            logger.debug("Ember counter {} rate {} exceeds threshold {}", entry.getKey(),
+                    String.format("%.2f", entry.getValue()), threshold);
+            for (EmberCounterListener listener : listeners) {
+                listener.emberCounterThresholdExceeded(entry.getKey(), entry.getValue(), threshold);
+            }
+        }
+    }
+
+    /**
+     * Gets the metric name used for the counter
+     *
+     * @param type the {@link EmberCounterType}
+     * @return the metric name
+     */
+    public static String getMetricName(EmberCounterType type) {
+        String name = type.name().replaceFirst("^EMBER_COUNTER_(TYPE_)?", "");
+        return NCP_COUNTER_PREFIX + name.toLowerCase();
+    }
+
+    private static boolean isCounter(EmberCounterType type) {
+        return type != EmberCounterType.UNKNOWN && type != EmberCounterType.EMBER_COUNTER_TYPE_COUNT;
+    }
+}
@@ -0,0 +1,174 @@
+/**
+ * Copyright (c) 2016-2019 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.dongle.ember.internal;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspMessageSentHandler;
+
+/**
+ * Allocates the message tags used to identify frames sent to the NCP. The NCP returns the tag in the
+ * {@link EzspMessageSentHandler} once the frame has been transmitted, and the allocator maps the tag back to the handle
+ * the frame was sent with.
+ * <p>
+ * A tag is not reused until it has been released, so a late {@link EzspMessageSentHandler} for one frame can not be
+ * attributed to a later frame that happens to use the same value. Tags are allocated in turn so that a released tag is
+ * not immediately reused.
+ * <p>
+ * If the NCP never returns the {@link EzspMessageSentHandler} for a frame, the tag expires once it has been allocated
+ * for longer than the expiry time. Expired tags are only reclaimed when no other tags are free, so that the tag is held
+ * for as long as possible in case the NCP does still complete the frame.
+ * <p>
+ * This class is thread safe.
+ *
+ * @author Chris Jackson
+ *
+ */
+public class EzspMessageTagAllocator {
+    /**
+     * The number of message tags available - the tag is a uint8_t
+     */
+    public static final int TAG_COUNT = 256;
+
+    /**
+     * The default time in milliseconds after which an allocated tag may be reclaimed
+     */
+    public static final long DEFAULT_EXPIRY = 60000;
+
+    /**
+     * The {@link Logger}.
+     */
+    private final Logger logger = LoggerFactory.getLogger(EzspMessageTagAllocator.class);
+
+    /**
+     * The handle for each allocated tag, or null if the tag is free
+     */
+    private final Integer[] handles = new Integer[TAG_COUNT];
+
+    /**
+     * The time at which each tag was allocated in nanoseconds
+     */
+    private final long[] allocationTimes = new long[TAG_COUNT];
+
+    /**
+     * The time in nanoseconds after which an allocated tag may be reclaimed
+     */
+    private final long expiry;
+
+    /**
+     * The number of allocated tags
+     */
+    private int allocated;
+
+    /**
+     * The next tag to check when allocating
+     */
+    private int nextTag;
+
+    /**
+     * Creates an allocator with the {@link #DEFAULT_EXPIRY}
+     */
+    public EzspMessageTagAllocator() {
+        this(DEFAULT_EXPIRY);
+    }
+
+    /**
+     * Creates an allocator
+     *
+     * @param expiry the time in milliseconds after which an allocated tag may be reclaimed
+     */
+    public EzspMessageTagAllocator(long expiry) {
+        this.expiry = TimeUnit.MILLISECONDS.toNanos(expiry);
+    }
+
+    /**
+     * Allocates a message tag for a frame
+     *
+     * @param handle the handle to return when the tag is released
+     * @return the allocated message tag, or null if all tags are in use
+     */
+    public synchronized Integer allocate(int handle) {
+        if (allocated == TAG_COUNT && releaseExpired() == 0) {
+            return null;
+        }
+
+        while (handles[nextTag] != null) {
+            nextTag = (nextTag + 1) % TAG_COUNT;
+        }
+
+        int tag = nextTag;
+        handles[tag] = handle;
+        allocationTimes[tag] = System.nanoTime();
+        allocated++;
+        nextTag = (nextTag + 1) % TAG_COUNT;
+        return tag;
+    }
+
+    /**
+     * Releases a message tag so that it may be reused
+     *
+     * @param tag the message tag returned by the NCP
+     * @return the handle the tag was allocated for, or null if the tag is not allocated
+     */
+    public synchronized Integer release(int tag) {
+        if (tag < 0 || tag >= TAG_COUNT || handles[tag] == null) {
+            return null;
+        }
+
+        Integer handle = handles[tag];
+        handles[tag] = null;
+        allocated--;
+        return handle;
+    }
+
+    /**
+     * Gets the number of message tags currently allocated
+     *
+     * @return the number of message tags in use
+     */
+    public synchronized int size() {
+        return allocated;
+    }
+
+    /**
+     * Releases all message tags. This should be called when the NCP is reset, since the NCP will not return the
+     * {@link EzspMessageSentHandler} for frames that were outstanding.
+     *
+     * @return the {@link List} of handles for the tags that were allocated
+     */
+    public synchronized List<Integer> clear() {
+        List<Integer> released = new ArrayList<>();
+        for (int tag = 0; tag < TAG_COUNT; tag++) {
+            if (handles[tag] != null) {
+                released.add(handles[tag]);
+                handles[tag] = null;
+            }
+        }
+        allocated = 0;
+        return released;
+    }
+
+    private int releaseExpired() {
+        long now = System.nanoTime();
+        int expired = 0;
+        for (int tag = 0; tag < TAG_COUNT; tag++) {
+            if (handles[tag] != null && now - allocationTimes[tag] >= expiry) {
+                logger.debug("EZSP message tag {} expired for handle {}", tag, handles[tag]);
+                handles[tag] = null;
+                expired++;
+            }
+        }
+        allocated -= expired;
+        return expired;
+    }
+}
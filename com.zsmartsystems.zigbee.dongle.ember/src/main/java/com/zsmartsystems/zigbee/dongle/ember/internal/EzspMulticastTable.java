@@ -0,0 +1,267 @@
+/**
+ * Copyright (c) 2016-2019 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.dongle.ember.internal;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.zsmartsystems.zigbee.dongle.ember.EmberNcp;
+import com.zsmartsystems.zigbee.dongle.ember.ezsp.structure.EmberMulticastTableEntry;
+import com.zsmartsystems.zigbee.dongle.ember.ezsp.structure.EmberStatus;
+import com.zsmartsystems.zigbee.dongle.ember.ezsp.structure.EzspConfigId;
+
+/**
+ * Maintains the multicast table of the NCP. The NCP only receives group messages for groups that are in its multicast
+ * table, so the groups that the local node is a member of must be programmed into the table.
+ * <p>
+ * The multicast table is normally small, so the number of groups may exceed the table size. When the table is full,
+ * the least recently used group is removed to make room for a group that has been newly added, or that has been used
+ * with {@link #groupUsed(int)}. Groups that are not in the table remain members, and will be returned to the table
+ * when they are used.
+ * <p>
+ * The table is written by calling {@link #synchronize(EmberNcp)}. This will block while the table is written, and
+ * should not be called from the thread that receives frames from the NCP.
+ * <p>
+ * This class is thread safe.
+ *
+ * @author Chris Jackson
+ *
+ */
+public class EzspMulticastTable {
+    /**
+     * The {@link Logger}.
+     */
+    private final Logger logger = LoggerFactory.getLogger(EzspMulticastTable.class);
+
+    /**
+     * The endpoint that is registered as a member of the groups
+     */
+    private final int endpoint;
+
+    /**
+     * The groups the local node is a member of
+     */
+    private final Set<Integer> groups = new HashSet<>();
+
+    /**
+     * The groups that should be added to the table, even if another group needs to be removed
+     */
+    private final Set<Integer> pending = new LinkedHashSet<>();
+
+    /**
+     * The table index of the groups in the NCP multicast table, in least recently used order
+     */
+    private final Map<Integer, Integer> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * Ensures that only a single thread writes the table
+     */
+    private final Object syncLock = new Object();
+
+    /**
+     * The size of the NCP multicast table, or null if it is not yet known
+     */
+    private Integer tableSize;
+
+    /**
+     * Creates the multicast table
+     *
+     * @param endpoint the local endpoint that is registered as a member of the groups
+     */
+    public EzspMulticastTable(int endpoint) {
+        this.endpoint = endpoint;
+    }
+
+    /**
+     * Sets the groups the local node is a member of. Groups that are not already members will be added to the table on
+     * the next call to {@link #synchronize(EmberNcp)}, and groups that are no longer members will be removed.
+     *
+     * @param groupIds a {@link Collection} of the group IDs
+     */
+    public synchronized void setGroups(Collection<Integer> groupIds) {
+        for (Integer groupId : groupIds) {
+            if (!groups.contains(groupId)) {
+                pending.add(groupId);
+            }
+        }
+        groups.clear();
+        groups.addAll(groupIds);
+        pending.retainAll(groups);
+    }
+
+    /**
+     * Gets the groups the local node is a member of
+     *
+     * @return a {@link Set} of the group IDs
+     */
+    public synchronized Set<Integer> getGroups() {
+        return new TreeSet<>(groups);
+    }
+
+    /**
+     * Gets the groups that are currently programmed into the NCP multicast table
+     *
+     * @return a {@link Set} of the group IDs
+     */
+    public synchronized Set<Integer> getTableGroups() {
+        return new TreeSet<>(entries.keySet());
+    }
+
+    /**
+     * Notifies the table that a group has been used. If the group is in the table it becomes the most recently used
+     * group. If it is a member that is not in the table, it will be added on the next call to
+     * {@link #synchronize(EmberNcp)}.
+     *
+     * @param groupId the group ID
+     * @return true if the table needs to be synchronized with the NCP
+     */
+    public synchronized boolean groupUsed(int groupId) {
+        if (entries.get(groupId) != null) {
+            return false;
+        }
+        if (!groups.contains(groupId)) {
+            return false;
+        }
+        pending.add(groupId);
+        return true;
+    }
+
+    /**
+     * Writes the changes to the NCP multicast table. Groups that are no longer members are removed, and members are
+     * added while there are free entries in the table. Groups that were newly added or used will replace the least
+     * recently used groups if the table is full.
+     *
+     * @param ncp the {@link EmberNcp} used to write the table
+     */
+    public void synchronize(EmberNcp ncp) {
+        synchronized (syncLock) {
+            if (getTableSize(ncp) == 0) {
+                logger.debug("Ember multicast table not available");
+                return;
+            }
+
+            List<Integer> writeIndexes = new ArrayList<>();
+            List<Integer> writeGroups = new ArrayList<>();
+            synchronized (this) {
+                Set<Integer> freeIndexes = new TreeSet<>();
+                for (int index = 0; index < tableSize; index++) {
+                    freeIndexes.add(index);
+                }
+                freeIndexes.removeAll(entries.values());
+
+                Iterator<Map.Entry<Integer, Integer>> iterator = entries.entrySet().iterator();
+                while (iterator.hasNext()) {
+                    Map.Entry<Integer, Integer> entry = iterator.next();
+                    if (!groups.contains(entry.getKey())) {
+                        iterator.remove();
+                        freeIndexes.add(entry.getValue());
+                        writeIndexes.add(entry.getValue());
+                        writeGroups.add(null);
+                    }
+                }
+
+                // Pending groups are added first so that they can replace the least recently used groups
+                Set<Integer> additions = new LinkedHashSet<>(pending);
+                additions.addAll(new TreeSet<>(groups));
+                additions.removeAll(entries.keySet());
+                for (Integer groupId : additions) {
+                    Integer index;
+                    if (!freeIndexes.isEmpty()) {
+                        index = freeIndexes.iterator().next();
+                        freeIndexes.remove(index);
+                    } else if (pending.contains(groupId) && !entries.isEmpty()) {
+                        Integer evictedGroup = entries.keySet().iterator().next();
+                        index = entries.remove(evictedGroup);
+                        logger.debug("Ember multicast table removing least recently used group {}",
+                                String.format("%04X", evictedGroup));
+                    } else {
+                        continue;
+                    }
+
+                    // The index may already be queued to be cleared, in which case the entry is replaced
+                    int cleared = writeIndexes.indexOf(index);
+                    if (cleared != -1) {
+                        writeIndexes.remove(cleared);
+                        writeGroups.remove(cleared);
+                    }
+                    entries.put(groupId, index);
+                    writeIndexes.add(index);
+                    writeGroups.add(groupId);
+                }
+                pending.clear();
+            }
+
+            for (int cnt = 0; cnt < writeIndexes.size(); cnt++) {
+                writeEntry(ncp, writeIndexes.get(cnt), writeGroups.get(cnt));
+            }
+        }
+    }
+
+    /**
+     * Clears the cached table. This should be called if the NCP is reset, since the NCP does not retain the multicast
+     * table. The group membership is retained, and all groups will be added again on the next call to
+     * {@link #synchronize(EmberNcp)}.
+     */
+    public synchronized void clear() {
+        entries.clear();
+        pending.clear();
+        tableSize = null;
+    }
+
+    private int getTableSize(EmberNcp ncp) {
+        synchronized (this) {
+            if (tableSize != null) {
+                return tableSize;
+            }
+        }
+        Integer size = ncp.getConfiguration(EzspConfigId.EZSP_CONFIG_MULTICAST_TABLE_SIZE);
+        if (size == null || size == 0) {
+            // A failed read is not cached so that the size is read again on the next synchronization
+            return 0;
+        }
+        synchronized (this) {
+            tableSize = size;
+            return tableSize;
+        }
+    }
+
+    private void writeEntry(EmberNcp ncp, int index, Integer groupId) {
+        EmberMulticastTableEntry entry = new EmberMulticastTableEntry();
+        entry.setMulticastId(groupId == null ? 0 : groupId);
+        entry.setEndpoint(groupId == null ? 0 : endpoint);
+        entry.setNetworkIndex(0);
+
+        EmberStatus status = ncp.setMulticastTableEntry(index, entry);
+        if (status == EmberStatus.EMBER_SUCCESS) {
+            logger.debug("Ember multicast table entry {} set to {}", index,
+                    groupId == null ? "unused" : String.format("%04X", groupId));
+            return;
+        }
+
+        logger.debug("Ember multicast table entry {} failed to set: {}", index, status);
+        if (groupId != null) {
+            synchronized (this) {
+                // The state of the entry is not known, so it will be written again on the next synchronization
+                if (Integer.valueOf(index).equals(entries.get(groupId))) {
+                    entries.remove(groupId);
+                }
+            }
+        }
+    }
+}
@@ -7,29 +7,47 @@
  */
 package com.zsmartsystems.zigbee.dongle.ember.internal;
 
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspGetConfigurationValueRequest;
-import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspGetConfigurationValueResponse;
-import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspGetNeighborRequest;
-import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspGetNeighborResponse;
-import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspGetRouteTableEntryRequest;
-import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspGetRouteTableEntryResponse;
-import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspNeighborCountRequest;
-import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspNeighborCountResponse;
+import com.zsmartsystems.zigbee.IeeeAddress;
+import com.zsmartsystems.zigbee.dongle.ember.EmberNcp;
+import com.zsmartsystems.zigbee.dongle.ember.ezsp.EzspFrame;
+import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspChildJoinHandler;
+import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspGetChildDataResponse;
+import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspGetParentChildParametersResponse;
+import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspIdConflictHandler;
+import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspIncomingRouteRecordHandler;
+import com.zsmartsystems.zigbee.dongle.ember.ezsp.structure.EmberNeighborTableEntry;
+import com.zsmartsystems.zigbee.dongle.ember.ezsp.structure.EmberNodeType;
+import com.zsmartsystems.zigbee.dongle.ember.ezsp.structure.EmberRouteTableEntry;
 import com.zsmartsystems.zigbee.dongle.ember.ezsp.structure.EzspConfigId;
-import com.zsmartsystems.zigbee.dongle.ember.ezsp.structure.EzspStatus;
-import com.zsmartsystems.zigbee.dongle.ember.internal.ash.AshFrameHandler;
-import com.zsmartsystems.zigbee.dongle.ember.internal.transaction.EzspSingleResponseTransaction;
-import com.zsmartsystems.zigbee.dongle.ember.internal.transaction.EzspTransaction;
+import com.zsmartsystems.zigbee.zdo.field.NeighborTable;
+import com.zsmartsystems.zigbee.zdo.field.NeighborTable.NeighborTableJoining;
+import com.zsmartsystems.zigbee.zdo.field.NeighborTable.NeighborTableRelationship;
+import com.zsmartsystems.zigbee.zdo.field.NeighborTable.NeighborTableRxState;
+import com.zsmartsystems.zigbee.zdo.field.NodeDescriptor.LogicalType;
+import com.zsmartsystems.zigbee.zdo.field.RoutingTable;
+import com.zsmartsystems.zigbee.zdo.field.RoutingTable.DiscoveryState;
 
 /**
- * Class uses the native Ember commands to retrieve the neighbor table
+ * Maintains a host side copy of the neighbor, child and route tables of the NCP.
+ * <p>
+ * The tables are kept up to date from the callbacks generated by the NCP ({@link EzspChildJoinHandler},
+ * {@link EzspIncomingRouteRecordHandler} and {@link EzspIdConflictHandler}) so that they can be provided to the
+ * framework without reading the tables from the NCP. Since not all changes within the NCP generate a callback, the
+ * tables should be reconciled with the NCP occasionally by calling {@link #reconcile(EmberNcp)}.
+ * <p>
+ * The tables are provided in the same {@link NeighborTable} and {@link RoutingTable} format as the ZDO management
+ * responses so that they can be used to update the local node.
+ * <p>
+ * This class is thread safe.
  *
  * @author Chris Jackson
  *
@@ -38,99 +56,321 @@ public class EzspNeighborTable {
     /**
      * The {@link Logger}.
      */
-    private final Logger logger = LoggerFactory.getLogger(EmberNetworkInitialisation.class);
+    private final Logger logger = LoggerFactory.getLogger(EzspNeighborTable.class);
 
     /**
-     * Scheduler to run the service
+     * Neighbors and children of the NCP, indexed by network address
      */
-    private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(1);
+    private final Map<Integer, NeighborTable> neighbors = new HashMap<>();
 
-    private AshFrameHandler ashHandler;
+    /**
+     * Routes from the NCP, indexed by destination address
+     */
+    private final Map<Integer, RoutingTable> routes = new HashMap<>();
+
+    /**
+     * The size of the NCP route table, or null if it is not yet known
+     */
+    private Integer routeTableSize;
 
-    private int routingEntries;
+    /**
+     * Lock used to ensure that only one reconciliation runs at a time
+     */
+    private final Object reconcileLock = new Object();
+
+    /**
+     * Addresses of neighbors updated from callbacks while a reconciliation is in progress, or null if no
+     * reconciliation is in progress
+     */
+    private Set<Integer> changedNeighbors;
 
     /**
-     * @param ashHandler the {@link AshFrameHandler} used to communicate with the NCP
+     * Destinations of routes updated from callbacks while a reconciliation is in progress, or null if no
+     * reconciliation is in progress
      */
-    public EzspNeighborTable(AshFrameHandler ashHandler, int updatePeriod) {
-        this.ashHandler = ashHandler;
+    private Set<Integer> changedRoutes;
 
-        Runnable neighborUpdateThread = new Runnable() {
-            @Override
-            public void run() {
-                updateNeighbors();
+    /**
+     * Updates the tables from a frame received from the NCP. Frames that do not relate to the tables are ignored.
+     *
+     * @param response the {@link EzspFrame} received from the NCP
+     * @return true if the frame updated the tables
+     */
+    public boolean handleCallback(EzspFrame response) {
+        if (response instanceof EzspChildJoinHandler) {
+            EzspChildJoinHandler joinHandler = (EzspChildJoinHandler) response;
+            if (joinHandler.getJoining()) {
+                addChild(joinHandler.getChildId(), joinHandler.getChildEui64(), joinHandler.getChildType());
+            } else {
+                removeChild(joinHandler.getChildId());
             }
-        };
+            return true;
+        }
 
-        routingEntries = getConfiguration(EzspConfigId.EZSP_CONFIG_SOURCE_ROUTE_TABLE_SIZE);
+        if (response instanceof EzspIncomingRouteRecordHandler) {
+            EzspIncomingRouteRecordHandler routeRecord = (EzspIncomingRouteRecordHandler) response;
+            updateRouteRecord(routeRecord.getSource(), routeRecord.getSourceEui(), routeRecord.getLastHopLqi(),
+                    routeRecord.getRelayList());
+            return true;
+        }
+
+        if (response instanceof EzspIdConflictHandler) {
+            removeAddress(((EzspIdConflictHandler) response).getId());
+            return true;
+        }
+
+        return false;
+    }
 
-        scheduler.scheduleAtFixedRate(neighborUpdateThread, updatePeriod, updatePeriod, TimeUnit.SECONDS);
+    /**
+     * Reads the neighbor, child and route tables from the NCP and updates the cached tables. Neighbors and children are
+     * replaced with those read from the NCP. Routes read from the NCP are added to the routes learned from route
+     * records. Updates received from callbacks while the tables are being read are retained, since they are newer than
+     * the entries read from the NCP.
+     * <p>
+     * This will block while the tables are read, and should not be called from the thread that receives frames from
+     * the NCP.
+     *
+     * @param ncp the {@link EmberNcp} used to read the tables
+     */
+    public void reconcile(EmberNcp ncp) {
+        synchronized (reconcileLock) {
+            synchronized (this) {
+                changedNeighbors = new HashSet<>();
+                changedRoutes = new HashSet<>();
+            }
+            try {
+                reconcileTables(ncp);
+            } finally {
+                synchronized (this) {
+                    changedNeighbors = null;
+                    changedRoutes = null;
+                }
+            }
+        }
     }
 
-    private void updateNeighbors() {
-        for (int neighbor = 0; neighbor < getNeighborCount(); neighbor++) {
-            getNeighbor(neighbor);
+    private void reconcileTables(EmberNcp ncp) {
+        Map<Integer, NeighborTable> newNeighbors = new HashMap<>();
+
+        int neighborCount = ncp.getNeighborCount();
+        for (int index = 0; index < neighborCount; index++) {
+            EmberNeighborTableEntry neighbor = ncp.getNeighbor(index);
+            if (neighbor == null) {
+                continue;
+            }
+            newNeighbors.put(neighbor.getShortId(), createNeighbor(neighbor.getShortId(), neighbor.getLongId(),
+                    LogicalType.ROUTER, NeighborTableRelationship.SIBLING, neighbor.getAverageLqi()));
         }
 
-        for (int route = 0; route < routingEntries; route++) {
-            getRoute(route);
+        EzspGetParentChildParametersResponse childParameters = ncp.getChildParameters();
+        for (int index = 0; index < childParameters.getChildCount(); index++) {
+            EzspGetChildDataResponse child = ncp.getChildInformation(index);
+            if (child == null) {
+                continue;
+            }
+            newNeighbors.put(child.getChildId(),
+                    createChild(child.getChildId(), child.getChildEui64(), child.getChildType()));
         }
-    }
 
-    private int getNeighborCount() {
-        // Check if the network is initialised
-        EzspNeighborCountRequest neighborCountRequest = new EzspNeighborCountRequest();
-        EzspTransaction neighborCountTransaction = ashHandler.sendEzspTransaction(
-                new EzspSingleResponseTransaction(neighborCountRequest, EzspNeighborCountResponse.class));
-        EzspNeighborCountResponse neighborCountResponse = (EzspNeighborCountResponse) neighborCountTransaction
-                .getResponse();
-        logger.debug(neighborCountResponse.toString());
-        logger.debug("EZSP neighborCountResponse {}", neighborCountResponse);
+        if (routeTableSize == null) {
+            routeTableSize = ncp.getConfiguration(EzspConfigId.EZSP_CONFIG_ROUTE_TABLE_SIZE);
+        }
+        Map<Integer, RoutingTable> tableRoutes = new HashMap<>();
+        Set<Integer> unusedRoutes = new HashSet<>();
+        int routeCount = routeTableSize == null ? 0 : routeTableSize;
+        for (int index = 0; index < routeCount; index++) {
+            EmberRouteTableEntry route = ncp.getRouteTableEntry(index);
+            if (route == null || route.getDestination() == 0xFFFF) {
+                continue;
+            }
+            if (route.getStatus() == 3) {
+                unusedRoutes.add(route.getDestination());
+                continue;
+            }
+            tableRoutes.put(route.getDestination(),
+                    createRoute(route.getDestination(), route.getNextHop(), getDiscoveryState(route.getStatus())));
+        }
 
-        return neighborCountResponse.getValue();
-    }
+        synchronized (this) {
+            // Retain the link quality of neighbors that have been updated from route records
+            for (NeighborTable neighbor : newNeighbors.values()) {
+                NeighborTable current = neighbors.get(neighbor.getNetworkAddress());
+                if (neighbor.getRelationship() == NeighborTableRelationship.CHILD && current != null) {
+                    neighbor.setLqi(current.getLqi());
+                }
+            }
+
+            // Replay the callback updates received while the tables were being read over the NCP tables
+            for (Integer address : changedNeighbors) {
+                NeighborTable current = neighbors.get(address);
+                if (current == null) {
+                    newNeighbors.remove(address);
+                } else {
+                    newNeighbors.put(address, current);
+                }
+            }
+            unusedRoutes.removeAll(changedRoutes);
+            tableRoutes.keySet().removeAll(changedRoutes);
+
+            neighbors.clear();
+            neighbors.putAll(newNeighbors);
 
-    private void getNeighbor(int neighbor) {
-        EzspGetNeighborRequest neighborRequest = new EzspGetNeighborRequest();
-        neighborRequest.setIndex(neighbor);
-        EzspTransaction neighborTransaction = ashHandler
-                .sendEzspTransaction(new EzspSingleResponseTransaction(neighborRequest, EzspGetNeighborResponse.class));
-        EzspGetNeighborResponse neighborResponse = (EzspGetNeighborResponse) neighborTransaction.getResponse();
-        logger.debug(neighborResponse.toString());
-        logger.debug("EZSP getNetworkResponse {}", neighborResponse);
+            routes.keySet().removeAll(unusedRoutes);
+            routes.putAll(tableRoutes);
+        }
+
+        logger.debug("Ember neighbor table reconciled: {} neighbors, {} routes", newNeighbors.size(),
+                tableRoutes.size());
     }
 
-    private void getRoute(int route) {
-        EzspGetRouteTableEntryRequest routeRequest = new EzspGetRouteTableEntryRequest();
-        routeRequest.setIndex(route);
-        EzspTransaction neighborTransaction = ashHandler.sendEzspTransaction(
-                new EzspSingleResponseTransaction(routeRequest, EzspGetRouteTableEntryResponse.class));
-        EzspGetRouteTableEntryResponse routeResponse = (EzspGetRouteTableEntryResponse) neighborTransaction
-                .getResponse();
-        logger.debug(routeResponse.toString());
-        logger.debug("EZSP getRouteTableEntry {}", routeResponse);
+    /**
+     * Gets the cached neighbors and children of the NCP
+     *
+     * @return a {@link Set} of {@link NeighborTable} entries
+     */
+    public synchronized Set<NeighborTable> getNeighbors() {
+        return new HashSet<>(neighbors.values());
     }
 
     /**
-     * Get a configuration value
+     * Gets the cached routes of the NCP
      *
-     * @param configId the {@link EzspConfigId} to set
-     * @return the configuration value as {@link Integer} or null on error
+     * @return a {@link Set} of {@link RoutingTable} entries
      */
-    private Integer getConfiguration(EzspConfigId configId) {
-        EzspGetConfigurationValueRequest configValue = new EzspGetConfigurationValueRequest();
-        configValue.setConfigId(configId);
+    public synchronized Set<RoutingTable> getRoutes() {
+        return new HashSet<>(routes.values());
+    }
+
+    /**
+     * Clears the cached tables. This should be called if the NCP leaves the network.
+     */
+    public synchronized void clear() {
+        neighbors.clear();
+        routes.clear();
+    }
+
+    private synchronized void addChild(int childId, IeeeAddress childEui64, EmberNodeType childType) {
+        logger.debug("{}: Ember neighbor table adding child {}", childEui64, String.format("%04X", childId));
+        neighbors.put(childId, createChild(childId, childEui64, childType));
+        neighborChanged(childId);
+    }
+
+    private synchronized void removeChild(int childId) {
+        NeighborTable child = neighbors.get(childId);
+        if (child != null && child.getRelationship() == NeighborTableRelationship.CHILD) {
+            logger.debug("{}: Ember neighbor table removing child {}", child.getExtendedAddress(),
+                    String.format("%04X", childId));
+            neighbors.remove(childId);
+            neighborChanged(childId);
+        }
+    }
+
+    private synchronized void updateRouteRecord(int source, IeeeAddress sourceEui, int lastHopLqi, int[] relayList) {
+        // The relay list is ordered from the source, so the last relay is our neighbor
+        int nextHop = (relayList == null || relayList.length == 0) ? source : relayList[relayList.length - 1];
+        routes.put(source, createRoute(source, nextHop, DiscoveryState.ACTIVE));
+        routeChanged(source);
+
+        // Entries are replaced rather than updated so that sets previously returned are not modified
+        NeighborTable neighbor = neighbors.get(nextHop);
+        if (neighbor != null) {
+            neighbors.put(nextHop, createNeighbor(nextHop, neighbor.getExtendedAddress(), neighbor.getDeviceType(),
+                    neighbor.getRelationship(), lastHopLqi));
+            neighborChanged(nextHop);
+        } else if (nextHop == source) {
+            neighbors.put(source, createNeighbor(source, sourceEui, LogicalType.UNKNOWN,
+                    NeighborTableRelationship.SIBLING, lastHopLqi));
+            neighborChanged(source);
+        }
+    }
 
-        EzspTransaction configTransaction = ashHandler.sendEzspTransaction(
-                new EzspSingleResponseTransaction(configValue, EzspGetConfigurationValueResponse.class));
-        EzspGetConfigurationValueResponse configResponse = (EzspGetConfigurationValueResponse) configTransaction
-                .getResponse();
-        logger.debug(configResponse.toString());
+    private synchronized void removeAddress(int address) {
+        logger.debug("Ember neighbor table removing conflicting address {}", String.format("%04X", address));
+        neighbors.remove(address);
+        neighborChanged(address);
+        routes.remove(address);
+        routeChanged(address);
+        Iterator<RoutingTable> iterator = routes.values().iterator();
+        while (iterator.hasNext()) {
+            RoutingTable route = iterator.next();
+            if (route.getNextHopAddress() == address) {
+                iterator.remove();
+                routeChanged(route.getDestinationAddress());
+            }
+        }
+    }
+
+    private void neighborChanged(int address) {
+        if (changedNeighbors != null) {
+            changedNeighbors.add(address);
+        }
+    }
 
-        if (configResponse.getStatus() != EzspStatus.EZSP_SUCCESS) {
-            return null;
+    private void routeChanged(int destination) {
+        if (changedRoutes != null) {
+            changedRoutes.add(destination);
         }
+    }
+
+    private NeighborTable createChild(int childId, IeeeAddress childEui64, EmberNodeType childType) {
+        NeighborTable child = createNeighbor(childId, childEui64, getLogicalType(childType),
+                NeighborTableRelationship.CHILD, 0);
+        if (childType == EmberNodeType.EMBER_SLEEPY_END_DEVICE || childType == EmberNodeType.EMBER_MOBILE_END_DEVICE) {
+            child.setRxOnWhenIdle(NeighborTableRxState.RX_OFF);
+        }
+        return child;
+    }
 
-        return configResponse.getValue();
+    private NeighborTable createNeighbor(int networkAddress, IeeeAddress ieeeAddress, LogicalType deviceType,
+            NeighborTableRelationship relationship, int lqi) {
+        NeighborTable neighbor = new NeighborTable();
+        neighbor.setNetworkAddress(networkAddress);
+        neighbor.setExtendedAddress(ieeeAddress);
+        neighbor.setDeviceType(deviceType);
+        neighbor.setRelationship(relationship);
+        neighbor.setRxOnWhenIdle(NeighborTableRxState.RX_ON);
+        neighbor.setPermitJoining(NeighborTableJoining.UNKNOWN);
+        neighbor.setLqi(lqi);
+        return neighbor;
+    }
+
+    private RoutingTable createRoute(int destination, int nextHop, DiscoveryState state) {
+        RoutingTable route = new RoutingTable();
+        route.setDestinationAddress(destination);
+        route.setNextHopAddress(nextHop);
+        route.setStatus(state);
+        return route;
+    }
+
+    private LogicalType getLogicalType(EmberNodeType nodeType) {
+        if (nodeType == null) {
+            return LogicalType.UNKNOWN;
+        }
+        switch (nodeType) {
+            case EMBER_COORDINATOR:
+                return LogicalType.COORDINATOR;
+            case EMBER_ROUTER:
+                return LogicalType.ROUTER;
+            case EMBER_END_DEVICE:
+            case EMBER_SLEEPY_END_DEVICE:
+            case EMBER_MOBILE_END_DEVICE:
+                return LogicalType.END_DEVICE;
+            default:
+                return LogicalType.UNKNOWN;
+        }
+    }
+
+    private DiscoveryState getDiscoveryState(int status) {
+        switch (status) {
+            case 0:
+                return DiscoveryState.ACTIVE;
+            case 1:
+                return DiscoveryState.DISCOVERY_UNDERWAY;
+            case 4:
+                return DiscoveryState.VALIDATION_UNDERWAY;
+            default:
+                return DiscoveryState.UNKNOWN;
+        }
     }
 }
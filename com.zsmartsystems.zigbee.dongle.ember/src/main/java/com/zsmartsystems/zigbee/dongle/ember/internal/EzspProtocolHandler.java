@@ -8,7 +8,7 @@
 package com.zsmartsystems.zigbee.dongle.ember.internal;
 
 import java.util.Map;
-import java.util.concurrent.Future;
+import java.util.concurrent.CompletableFuture;
 
 import com.zsmartsystems.zigbee.dongle.ember.ezsp.EzspFrame;
 import com.zsmartsystems.zigbee.dongle.ember.ezsp.EzspFrameRequest;
@@ -63,12 +63,15 @@ public interface EzspProtocolHandler {
     public void connect();
 
     /**
-     * Sends an EZSP request to the NCP without waiting for the response.
+     * Sends an EZSP request to the NCP without waiting for the response. The returned {@link CompletableFuture} is
+     * completed with the {@link EzspTransaction} by the receive thread once the response has been correlated with the
+     * request, or when the handler is closed. No thread is held while the transaction is outstanding, so callers
+     * should chain any processing of the response onto the future rather than blocking on it.
      *
      * @param ezspTransaction Request {@link EzspTransaction}
-     * @return response {@link Future} {@link EzspFrame}
+     * @return {@link CompletableFuture} completed with the {@link EzspTransaction}, or null if the handler is closed
      */
-    public Future<EzspFrame> sendEzspRequestAsync(final EzspTransaction ezspTransaction);
+    public CompletableFuture<EzspTransaction> sendEzspRequestAsync(final EzspTransaction ezspTransaction);
 
     /**
      * Sends an EZSP request to the NCP and waits for the response. The response is correlated with the request and the
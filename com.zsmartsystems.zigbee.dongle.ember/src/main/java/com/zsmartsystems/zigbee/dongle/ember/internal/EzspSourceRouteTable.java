@@ -0,0 +1,169 @@
+/**
+ * Copyright (c) 2016-2019 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.dongle.ember.internal;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.zsmartsystems.zigbee.dongle.ember.ezsp.EzspFrame;
+import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspIdConflictHandler;
+import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspIncomingRouteErrorHandler;
+import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspIncomingRouteRecordHandler;
+import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspSetSourceRouteRequest;
+import com.zsmartsystems.zigbee.dongle.ember.ezsp.structure.EmberStatus;
+
+/**
+ * Stores source routes on the host for use when the NCP is operating as a concentrator. The NCP source route table is
+ * limited in size, so on larger networks, unicasts to nodes not in the table require route discovery. Holding the
+ * routes on the host allows the route to be provided to the NCP with {@link EzspSetSourceRouteRequest} immediately
+ * before a unicast is sent.
+ * <p>
+ * Routes are learned from the route records received from the network ({@link EzspIncomingRouteRecordHandler}), and
+ * are removed when a source route failure is reported ({@link EzspIncomingRouteErrorHandler}) or the address is in
+ * conflict ({@link EzspIdConflictHandler}). When the table is full, the least recently used route is discarded.
+ * <p>
+ * This class is thread safe.
+ *
+ * @author Chris Jackson
+ *
+ */
+public class EzspSourceRouteTable {
+    /**
+     * The {@link Logger}.
+     */
+    private final Logger logger = LoggerFactory.getLogger(EzspSourceRouteTable.class);
+
+    /**
+     * The default maximum number of routes held in the table
+     */
+    public static final int DEFAULT_TABLE_SIZE = 1000;
+
+    /**
+     * The relay lists indexed by destination address, in least recently used order
+     */
+    private final Map<Integer, int[]> routes;
+
+    /**
+     * Creates a source route table with the default size
+     */
+    public EzspSourceRouteTable() {
+        this(DEFAULT_TABLE_SIZE);
+    }
+
+    /**
+     * Creates a source route table
+     *
+     * @param tableSize the maximum number of routes to hold
+     */
+    public EzspSourceRouteTable(final int tableSize) {
+        routes = new LinkedHashMap<Integer, int[]>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, int[]> eldest) {
+                return size() > tableSize;
+            }
+        };
+    }
+
+    /**
+     * Updates the table from a frame received from the NCP. Frames that do not relate to source routing are ignored.
+     *
+     * @param response the {@link EzspFrame} received from the NCP
+     * @return true if the frame updated the table
+     */
+    public boolean handleCallback(EzspFrame response) {
+        if (response instanceof EzspIncomingRouteRecordHandler) {
+            EzspIncomingRouteRecordHandler routeRecord = (EzspIncomingRouteRecordHandler) response;
+            setRoute(routeRecord.getSource(), routeRecord.getRelayList());
+            return true;
+        }
+
+        if (response instanceof EzspIncomingRouteErrorHandler) {
+            EzspIncomingRouteErrorHandler routeError = (EzspIncomingRouteErrorHandler) response;
+            if (routeError.getStatus() == EmberStatus.EMBER_SOURCE_ROUTE_FAILURE) {
+                removeRoute(routeError.getTarget());
+                return true;
+            }
+            return false;
+        }
+
+        if (response instanceof EzspIdConflictHandler) {
+            removeRoute(((EzspIdConflictHandler) response).getId());
+            return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Sets the route to a destination. If the relay list is empty, the destination is a neighbor and does not need a
+     * source route, so any existing route is removed.
+     *
+     * @param destination the network address of the destination
+     * @param relayList the relays as received in the route record
+     */
+    public synchronized void setRoute(int destination, int[] relayList) {
+        if (relayList == null || relayList.length == 0) {
+            routes.remove(destination);
+            return;
+        }
+        logger.trace("Source route to {}: {}", String.format("%04X", destination), relayList);
+        routes.put(destination, Arrays.copyOf(relayList, relayList.length));
+    }
+
+    /**
+     * Removes the route to a destination
+     *
+     * @param destination the network address of the destination
+     */
+    public synchronized void removeRoute(int destination) {
+        if (routes.remove(destination) != null) {
+            logger.debug("Source route to {} removed", String.format("%04X", destination));
+        }
+    }
+
+    /**
+     * Gets the request to set the source route to a destination. This marks the route as recently used.
+     *
+     * @param destination the network address of the destination
+     * @return the {@link EzspSetSourceRouteRequest} to send to the NCP before the unicast, or null if no route is
+     *         known
+     */
+    public synchronized EzspSetSourceRouteRequest getSourceRouteRequest(int destination) {
+        int[] relayList = routes.get(destination);
+        if (relayList == null) {
+            return null;
+        }
+
+        EzspSetSourceRouteRequest request = new EzspSetSourceRouteRequest();
+        request.setDestination(destination);
+        request.setRelayList(relayList);
+        return request;
+    }
+
+    /**
+     * Gets the number of routes in the table
+     *
+     * @return the number of routes in the table
+     */
+    public synchronized int size() {
+        return routes.size();
+    }
+
+    /**
+     * Removes all routes from the table
+     */
+    public synchronized void clear() {
+        routes.clear();
+    }
+}
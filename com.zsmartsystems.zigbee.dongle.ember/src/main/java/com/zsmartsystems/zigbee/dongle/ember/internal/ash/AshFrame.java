@@ -74,6 +74,7 @@ public class AshFrame {
             case ERROR:
                 break;
             case NAK:
+                outputData[outputPos++] = 0xA0 + ackNum;
                 break;
             case RST:
                 outputData[outputPos++] = 0xC0;
@@ -8,20 +8,15 @@
 package com.zsmartsystems.zigbee.dongle.ember.internal.ash;
 
 import java.io.IOException;
-import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.List;
 import java.util.Map;
 import java.util.Queue;
 import java.util.Timer;
 import java.util.TimerTask;
-import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -32,7 +27,9 @@ import com.zsmartsystems.zigbee.dongle.ember.ezsp.EzspFrameResponse;
 import com.zsmartsystems.zigbee.dongle.ember.internal.EzspFrameHandler;
 import com.zsmartsystems.zigbee.dongle.ember.internal.EzspProtocolHandler;
 import com.zsmartsystems.zigbee.dongle.ember.internal.transaction.EzspTransaction;
+import com.zsmartsystems.zigbee.dongle.ember.internal.transaction.EzspTransactionRegistry;
 import com.zsmartsystems.zigbee.transport.ZigBeePort;
+import com.zsmartsystems.zigbee.transport.ZigBeePortReader;
 
 /**
  * Frame parser for the Silicon Labs Asynchronous Serial Host (ASH) protocol.
@@ -71,13 +68,27 @@ public class AshFrameHandler implements EzspProtocolHandler {
     private final int ACK_TIMEOUTS = 4;
     private int retries = 0;
 
+    /**
+     * Maximum number of DATA frames the ASH protocol allows to be outstanding without an ACK
+     */
+    public static final int TX_WINDOW_MAX = 7;
+
     /**
      * Maximum number of DATA frames we can transmit without an ACK
      */
-    private final int TX_WINDOW = 1;
+    private int txWindow = 1;
 
+    /**
+     * The time the oldest unacknowledged DATA frame was sent, or 0 if no timing is in progress
+     */
     private long sentTime;
 
+    /**
+     * Set when we have sent a NAK for an out of sequence frame. Further out of sequence frames are discarded without
+     * a NAK until a frame is received in sequence.
+     */
+    private boolean rejectCondition = false;
+
     private final int ASH_CANCEL_BYTE = 0x1A;
     private final int ASH_FLAG_BYTE = 0x7E;
     private final int ASH_SUBSTITUTE_BYTE = 0x18;
@@ -113,8 +124,7 @@ public class AshFrameHandler implements EzspProtocolHandler {
 
     private boolean stateConnected = false;
 
-    private ExecutorService executor = Executors.newCachedThreadPool();
-    private final List<AshListener> transactionListeners = new ArrayList<AshListener>();
+    private final EzspTransactionRegistry transactionRegistry = new EzspTransactionRegistry();
 
     /**
      * The packet handler.
@@ -126,6 +136,11 @@ public class AshFrameHandler implements EzspProtocolHandler {
      */
     private ZigBeePort port;
 
+    /**
+     * Buffers the data received from the port
+     */
+    private ZigBeePortReader portReader;
+
     /**
      * The parser parserThread.
      */
@@ -146,9 +161,32 @@ public class AshFrameHandler implements EzspProtocolHandler {
         this.frameHandler = frameHandler;
     }
 
+    /**
+     * Sets the maximum number of DATA frames that can be sent to the NCP before an ACK is received. Larger windows
+     * allow more frames to be in transit on the serial link, improving throughput when the link is busy.
+     *
+     * @param txWindow the transmit window from 1 to {@link #TX_WINDOW_MAX}
+     */
+    public void setTxWindow(int txWindow) {
+        if (txWindow < 1 || txWindow > TX_WINDOW_MAX) {
+            throw new IllegalArgumentException("ASH transmit window must be between 1 and " + TX_WINDOW_MAX);
+        }
+        this.txWindow = txWindow;
+    }
+
+    /**
+     * Gets the maximum number of DATA frames that can be sent to the NCP before an ACK is received
+     *
+     * @return the transmit window
+     */
+    public int getTxWindow() {
+        return txWindow;
+    }
+
     @Override
     public void start(final ZigBeePort port) {
         this.port = port;
+        this.portReader = new ZigBeePortReader(port, ASH_MAX_LENGTH);
 
         parserThread = new Thread("AshFrameHandler") {
             @Override
@@ -170,7 +208,7 @@ public class AshFrameHandler implements EzspProtocolHandler {
                             logger.debug("<-- RX ASH error: BAD PACKET {}", frameToString(packetData));
 
                             // Send a NAK
-                            responseFrame = new AshFrameNak(ackNum);
+                            responseFrame = getRejectFrame();
                         } else {
                             logger.debug("<-- RX ASH frame: {}", packet.toString());
 
@@ -190,6 +228,7 @@ public class AshFrameHandler implements EzspProtocolHandler {
                                     // Check for out of sequence frame number
                                     if (packet.getFrmNum() == ackNum) {
                                         // Frame was in sequence - prepare the response
+                                        rejectCondition = false;
                                         ackNum = (ackNum + 1) & 0x07;
                                         responseFrame = new AshFrameAck(ackNum);
 
@@ -207,7 +246,7 @@ public class AshFrameHandler implements EzspProtocolHandler {
                                         // Send a NAK - this is out of sequence and not a retransmission
                                         logger.debug("ASH: Frame out of sequence - expected {}, received {}", ackNum,
                                                 packet.getFrmNum());
-                                        responseFrame = new AshFrameNak(ackNum);
+                                        responseFrame = getRejectFrame();
                                     } else {
                                         // Send an ACK - this was out of sequence but was a retransmission
                                         responseFrame = new AshFrameAck(ackNum);
@@ -219,6 +258,8 @@ public class AshFrameHandler implements EzspProtocolHandler {
                                     break;
                                 case NAK:
                                     statsRxNaks++;
+                                    // The NAK acknowledges all frames before ackNum, and all later frames are resent
+                                    ackSentQueue(packet.getAckNum());
                                     sendRetry();
                                     break;
                                 case RSTACK:
@@ -248,7 +289,10 @@ public class AshFrameHandler implements EzspProtocolHandler {
                             sendFrame(responseFrame);
                         }
 
-                        sendNextFrame();
+                        // Fill the transmit window - an ACK may have acknowledged more than one frame
+                        while (sendNextFrame()) {
+                            continue;
+                        }
                     } catch (final IOException e) {
                         logger.error("AshFrameHandler IOException: ", e);
 
@@ -270,13 +314,28 @@ public class AshFrameHandler implements EzspProtocolHandler {
         parserThread.start();
     }
 
+    /**
+     * Gets the frame to send when a frame is received in error or out of sequence. The first error sends a NAK and
+     * enters the reject condition. While in the reject condition, further errors are ignored so that we don't
+     * trigger repeated retransmissions of the same window.
+     *
+     * @return the {@link AshFrameNak} to send, or null if we are already in the reject condition
+     */
+    private AshFrame getRejectFrame() {
+        if (rejectCondition) {
+            return null;
+        }
+        rejectCondition = true;
+        return new AshFrameNak(ackNum);
+    }
+
     private int[] getPacket() throws IOException {
         int[] inputBuffer = new int[ASH_MAX_LENGTH];
         int inputCount = 0;
         boolean inputError = false;
 
         while (!closeHandler) {
-            int val = port.read();
+            int val = portReader.read();
             logger.trace("ASH RX: {}", String.format("%02X", val));
             switch (val) {
                 case ASH_CANCEL_BYTE:
@@ -351,6 +410,8 @@ public class AshFrameHandler implements EzspProtocolHandler {
             stateConnected = true;
             ackNum = 0;
             frmNum = 0;
+            rejectCondition = false;
+            sentTime = 0;
             sentQueue.clear();
             logger.debug("ASH: Connected");
         } else {
@@ -366,7 +427,6 @@ public class AshFrameHandler implements EzspProtocolHandler {
 
     @Override
     public void setClosing() {
-        executor.shutdown();
         closeHandler = true;
     }
 
@@ -385,7 +445,6 @@ public class AshFrameHandler implements EzspProtocolHandler {
         frameHandler.handleLinkStateChange(false);
 
         timer.cancel();
-        executor.shutdownNow();
 
         try {
             parserThread.interrupt();
@@ -411,7 +470,7 @@ public class AshFrameHandler implements EzspProtocolHandler {
         }
 
         // Check how many frames are outstanding
-        if (sentQueue.size() >= TX_WINDOW) {
+        if (sentQueue.size() >= txWindow) {
             // check timer task
             if (timerTask == null) {
                 startRetryTimer();
@@ -429,7 +488,6 @@ public class AshFrameHandler implements EzspProtocolHandler {
         logger.trace("ASH TX EZSP: {}", nextFrame);
         AshFrameData ashFrame = new AshFrameData(nextFrame);
 
-        retries = 0;
         sendFrame(ashFrame);
         return true;
     }
@@ -458,16 +516,23 @@ public class AshFrameHandler implements EzspProtocolHandler {
         outputFrame(ashFrame);
     }
 
-    private void sendRetry() {
+    /**
+     * Resends all unacknowledged DATA frames in order (go-back-N). The frames keep their original frame numbers and
+     * are marked as retransmissions.
+     */
+    private synchronized void sendRetry() {
         logger.debug("ASH: Retry Sent Queue Length {}", sentQueue.size());
-        AshFrameData ashFrame = sentQueue.peek();
-        if (ashFrame == null) {
+        if (sentQueue.isEmpty()) {
             logger.debug("ASH: Retry nothing to resend!");
             return;
         }
 
-        ashFrame.setReTx();
-        outputFrame(ashFrame);
+        // Clear the sent time so that the retransmission restarts the ACK timer
+        sentTime = 0;
+        for (AshFrameData ashFrame : sentQueue) {
+            ashFrame.setReTx();
+            outputFrame(ashFrame);
+        }
     }
 
     // Synchronize this method to ensure a packet gets sent as a block
@@ -476,12 +541,12 @@ public class AshFrameHandler implements EzspProtocolHandler {
         logger.debug("--> TX ASH frame: {}", ashFrame);
 
         // Send the data
-        for (int outByte : ashFrame.getOutputBuffer()) {
-            port.write(outByte);
-        }
+        int[] outputBuffer = ashFrame.getOutputBuffer();
+        port.write(outputBuffer, 0, outputBuffer.length);
 
-        // Only start the timer for data and reset frames
-        if (ashFrame instanceof AshFrameData || ashFrame instanceof AshFrameRst) {
+        // Only start the timer for data and reset frames. With more than one frame outstanding, the timer runs from
+        // when the oldest frame was sent.
+        if ((ashFrame instanceof AshFrameData && sentTime == 0) || ashFrame instanceof AshFrameRst) {
             sentTime = System.nanoTime();
             startRetryTimer();
         }
@@ -509,6 +574,8 @@ public class AshFrameHandler implements EzspProtocolHandler {
 
         ackNum = 0;
         frmNum = 0;
+        rejectCondition = false;
+        sentTime = 0;
         sentQueue.clear();
         sendQueue.clear();
 
@@ -525,14 +592,32 @@ public class AshFrameHandler implements EzspProtocolHandler {
 
     /**
      * Acknowledge frames we've sent and removes the from the sent queue.
-     * This method is called for each DATA or ACK frame where we have the 'ack' property.
+     * This method is called for each DATA, ACK or NAK frame where we have the 'ack' property.
+     * <p>
+     * The ackNum is the number of the next frame the NCP expects to receive, so it acknowledges all outstanding frames
+     * up to, but not including, ackNum. An ackNum that is outside of the outstanding window is ignored.
      *
      * @param ackNum the last ack from the NCP
      */
-    private void ackSentQueue(int ackNum) {
-        // Handle the timer if it's running
-        if (sentTime != 0) {
-            stopRetryTimer();
+    private synchronized void ackSentQueue(int ackNum) {
+        AshFrameData oldestFrame = sentQueue.peek();
+        if (oldestFrame == null) {
+            return;
+        }
+
+        int ackedFrames = (ackNum - oldestFrame.getFrmNum()) & 0x07;
+        if (ackedFrames > sentQueue.size()) {
+            logger.debug("ASH: Invalid ackNum {} for {} outstanding frames from {}", ackNum, sentQueue.size(),
+                    oldestFrame.getFrmNum());
+            return;
+        }
+        if (ackedFrames == 0) {
+            return;
+        }
+
+        // Handle the timer if it's running. Retransmissions do not update the round trip time estimate, since the ACK
+        // can not be matched to a particular transmission of the frame.
+        if (sentTime != 0 && !oldestFrame.getReTx()) {
             receiveTimeout = (int) ((receiveTimeout * 7 / 8) + ((System.nanoTime() - sentTime) / 2000000));
             if (receiveTimeout < T_RX_ACK_MIN) {
                 receiveTimeout = T_RX_ACK_MIN;
@@ -541,13 +626,22 @@ public class AshFrameHandler implements EzspProtocolHandler {
             }
             logger.trace("ASH: RX Timer took {}ms, timer now {}ms", (System.nanoTime() - sentTime) / 1000000,
                     receiveTimeout);
-            sentTime = 0;
         }
 
-        while (sentQueue.peek() != null && sentQueue.peek().getFrmNum() != ackNum) {
+        for (int cnt = 0; cnt < ackedFrames; cnt++) {
             AshFrameData ackedFrame = sentQueue.poll();
             logger.debug("ASH: Frame acked and removed {}", ackedFrame);
         }
+        retries = 0;
+
+        // Restart the timer for any frames that are still outstanding
+        if (sentQueue.isEmpty()) {
+            stopRetryTimer();
+            sentTime = 0;
+        } else {
+            sentTime = System.nanoTime();
+            startRetryTimer();
+        }
     }
 
     private synchronized void startRetryTimer() {
@@ -571,7 +665,7 @@ public class AshFrameHandler implements EzspProtocolHandler {
     private class AshRetryTimer extends TimerTask {
         @Override
         public void run() {
-            // Resend the first message in the sentQueue
+            // Resend all messages in the sentQueue
             if (stateConnected && sentQueue.isEmpty()) {
                 return;
             }
@@ -617,11 +711,7 @@ public class AshFrameHandler implements EzspProtocolHandler {
      * Aborts all waiting transactions
      */
     private void clearTransactionQueue() {
-        synchronized (transactionListeners) {
-            for (AshListener listener : transactionListeners) {
-                listener.transactionComplete();
-            }
-        }
+        transactionRegistry.clear();
     }
 
     /**
@@ -631,110 +721,34 @@ public class AshFrameHandler implements EzspProtocolHandler {
      * @return true if the response was processed
      */
     private boolean notifyTransactionComplete(final EzspFrameResponse response) {
-        boolean processed = false;
-
-        synchronized (transactionListeners) {
-            for (AshListener listener : transactionListeners) {
-                if (listener.transactionEvent(response)) {
-                    processed = true;
-                }
-            }
-        }
-
-        return processed;
-    }
-
-    private void addTransactionListener(AshListener listener) {
-        synchronized (transactionListeners) {
-            if (transactionListeners.contains(listener)) {
-                return;
-            }
-
-            transactionListeners.add(listener);
-        }
-    }
-
-    private void removeTransactionListener(AshListener listener) {
-        synchronized (transactionListeners) {
-            transactionListeners.remove(listener);
-        }
+        return transactionRegistry.handleResponse(response);
     }
 
     @Override
-    public Future<EzspFrame> sendEzspRequestAsync(final EzspTransaction ezspTransaction) {
+    public CompletableFuture<EzspTransaction> sendEzspRequestAsync(final EzspTransaction ezspTransaction) {
         if (closeHandler) {
             logger.debug("ASH: Handler is closed");
             return null;
         }
 
-        class TransactionWaiter implements Callable<EzspFrame>, AshListener {
-            // private EzspFrame response = null;
-            private boolean complete = false;
-
-            @Override
-            public EzspFrame call() {
-                // Register a listener
-                addTransactionListener(this);
-
-                // Send the transaction
-                queueFrame(ezspTransaction.getRequest());
-
-                // Wait for the transaction to complete
-                synchronized (this) {
-                    while (!complete) {
-                        try {
-                            wait();
-                        } catch (InterruptedException e) {
-                            complete = true;
-                        }
-                    }
-                }
-
-                // Remove the listener
-                removeTransactionListener(this);
-
-                return null;// response;
-            }
-
-            @Override
-            public boolean transactionEvent(EzspFrameResponse ezspResponse) {
-                // Check if this response completes our transaction
-                if (!ezspTransaction.isMatch(ezspResponse)) {
-                    return false;
-                }
-
-                transactionComplete();
-                // response = request;
-
-                return true;
-            }
-
-            @Override
-            public void transactionComplete() {
-                synchronized (this) {
-                    complete = true;
-                    notify();
-                }
-            }
-        }
-
-        Callable<EzspFrame> worker = new TransactionWaiter();
-        return executor.submit(worker);
+        // Register the transaction before sending so the response can't be missed
+        CompletableFuture<EzspTransaction> future = transactionRegistry.register(ezspTransaction);
+        queueFrame(ezspTransaction.getRequest());
+        return future;
     }
 
     @Override
     public EzspTransaction sendEzspTransaction(EzspTransaction ezspTransaction) {
         logger.debug("TX EZSP: {}", ezspTransaction.getRequest());
 
-        Future<EzspFrame> futureResponse = sendEzspRequestAsync(ezspTransaction);
+        CompletableFuture<EzspTransaction> futureResponse = sendEzspRequestAsync(ezspTransaction);
         if (futureResponse == null) {
             logger.debug("ASH: Error sending EZSP transaction: Future is null");
             return null;
         }
 
         try {
-            futureResponse.get();
-            return ezspTransaction;
+            return futureResponse.get();
         } catch (InterruptedException | ExecutionException e) {
             futureResponse.cancel(true);
             logger.debug("ASH interrupted in sendRequest: ", e);
@@ -768,10 +782,4 @@ public class AshFrameHandler implements EzspProtocolHandler {
         }
         return result.toString();
     }
-
-    interface AshListener {
-        boolean transactionEvent(EzspFrameResponse ezspResponse);
-
-        void transactionComplete();
-    }
 }
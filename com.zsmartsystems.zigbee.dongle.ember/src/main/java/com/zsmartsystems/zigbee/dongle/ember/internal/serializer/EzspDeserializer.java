@@ -7,6 +7,7 @@
  */
 package com.zsmartsystems.zigbee.dongle.ember.internal.serializer;
 
+import com.zsmartsystems.zigbee.dongle.ember.ezsp.structure.EmberMulticastTableEntry;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -174,6 +175,10 @@ public class EzspDeserializer {
         return new EmberBindingTableEntry(this);
     }
 
+    public EmberMulticastTableEntry deserializeEmberMulticastTableEntry() {
+        return new EmberMulticastTableEntry(this);
+    }
+
     public EmberCurrentSecurityState deserializeEmberCurrentSecurityState() {
         return new EmberCurrentSecurityState(this);
     }
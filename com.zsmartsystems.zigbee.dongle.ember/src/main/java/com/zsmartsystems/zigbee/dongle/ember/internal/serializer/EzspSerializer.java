@@ -7,6 +7,7 @@
  */
 package com.zsmartsystems.zigbee.dongle.ember.internal.serializer;
 
+import com.zsmartsystems.zigbee.dongle.ember.ezsp.structure.EmberMulticastTableEntry;
 import java.util.Arrays;
 import java.util.Set;
 
@@ -161,6 +162,10 @@ public class EzspSerializer {
         tableEntry.serialize(this);
     }
 
+    public void serializeEmberMulticastTableEntry(EmberMulticastTableEntry tableEntry) {
+        tableEntry.serialize(this);
+    }
+
     public void serializeEmberInitialSecurityState(EmberInitialSecurityState securityState) {
         securityState.serialize(this);
     }
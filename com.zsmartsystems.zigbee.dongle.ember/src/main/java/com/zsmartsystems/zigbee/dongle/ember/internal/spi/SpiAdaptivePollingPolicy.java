@@ -0,0 +1,137 @@
+/**
+ * Copyright (c) 2016-2019 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.dongle.ember.internal.spi;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A timer based {@link SpiPollingPolicy} that adapts the polling period to the activity on the link. While there is
+ * callback activity, or the host is sending frames, the NCP is polled at the minimum period. Each poll that finds no
+ * callbacks doubles the period, up to the maximum period, so an idle link is polled infrequently.
+ *
+ * @author Chris Jackson
+ *
+ */
+public class SpiAdaptivePollingPolicy implements SpiPollingPolicy {
+    /**
+     * The default minimum polling period in milliseconds
+     */
+    public static final int DEFAULT_MIN_PERIOD = 25;
+
+    /**
+     * The default maximum polling period in milliseconds
+     */
+    public static final int DEFAULT_MAX_PERIOD = 1000;
+
+    private final int minPeriod;
+    private final int maxPeriod;
+
+    /**
+     * The current polling period in milliseconds
+     */
+    private int period;
+
+    private ScheduledExecutorService scheduler;
+    private ScheduledFuture<?> pollTimer;
+    private Runnable pollTask;
+
+    /**
+     * Creates the policy with the default polling periods
+     */
+    public SpiAdaptivePollingPolicy() {
+        this(DEFAULT_MIN_PERIOD, DEFAULT_MAX_PERIOD);
+    }
+
+    /**
+     * Creates the policy
+     *
+     * @param minPeriod the polling period in milliseconds used while there is activity on the link
+     * @param maxPeriod the maximum polling period in milliseconds used when the link is idle
+     */
+    public SpiAdaptivePollingPolicy(int minPeriod, int maxPeriod) {
+        if (minPeriod < 1 || maxPeriod < minPeriod) {
+            throw new IllegalArgumentException("Polling periods must be greater than 0 and max must not be below min");
+        }
+        this.minPeriod = minPeriod;
+        this.maxPeriod = maxPeriod;
+        period = minPeriod;
+    }
+
+    @Override
+    public synchronized void start(Runnable pollTask) {
+        this.pollTask = pollTask;
+        if (scheduler == null) {
+            scheduler = Executors.newSingleThreadScheduledExecutor();
+        }
+        period = minPeriod;
+        schedulePoll();
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (pollTimer != null) {
+            pollTimer.cancel(true);
+            pollTimer = null;
+        }
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    @Override
+    public synchronized void frameSent() {
+        // The response to the frame will tell us if callbacks are pending, so restart the period from the minimum
+        period = minPeriod;
+        schedulePoll();
+    }
+
+    @Override
+    public synchronized void frameReceived(boolean callbackActivity) {
+        if (callbackActivity) {
+            period = minPeriod;
+        } else {
+            period = Math.min(period * 2, maxPeriod);
+        }
+        schedulePoll();
+    }
+
+    /**
+     * Gets the current polling period
+     *
+     * @return the current polling period in milliseconds
+     */
+    public synchronized int getPeriod() {
+        return period;
+    }
+
+    private void schedulePoll() {
+        if (scheduler == null) {
+            return;
+        }
+        if (pollTimer != null) {
+            pollTimer.cancel(false);
+        }
+
+        pollTimer = scheduler.schedule(new Runnable() {
+            @Override
+            public void run() {
+                pollTask.run();
+
+                // Reschedule in case the poll could not be sent - this will be rescheduled again when the response
+                // is received
+                synchronized (SpiAdaptivePollingPolicy.this) {
+                    schedulePoll();
+                }
+            }
+        }, period, TimeUnit.MILLISECONDS);
+    }
+}
@@ -8,23 +8,15 @@
 package com.zsmartsystems.zigbee.dongle.ember.internal.spi;
 
 import java.io.IOException;
-import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.List;
 import java.util.Map;
 import java.util.Queue;
 import java.util.Timer;
 import java.util.TimerTask;
-import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ScheduledFuture;
-import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.slf4j.Logger;
@@ -40,7 +32,9 @@ import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspSendUnicastRespons
 import com.zsmartsystems.zigbee.dongle.ember.internal.EzspFrameHandler;
 import com.zsmartsystems.zigbee.dongle.ember.internal.EzspProtocolHandler;
 import com.zsmartsystems.zigbee.dongle.ember.internal.transaction.EzspTransaction;
+import com.zsmartsystems.zigbee.dongle.ember.internal.transaction.EzspTransactionRegistry;
 import com.zsmartsystems.zigbee.transport.ZigBeePort;
+import com.zsmartsystems.zigbee.transport.ZigBeePortReader;
 
 /**
  * Frame parser for the Silicon Labs SPI protocol.
@@ -92,8 +86,10 @@ public class SpiFrameHandler implements EzspProtocolHandler {
 
     private final AtomicBoolean doCallbackRequest = new AtomicBoolean();
 
-    private ScheduledExecutorService pollingScheduler;
-    private ScheduledFuture<?> pollingTimer = null;
+    /**
+     * The {@link SpiPollingPolicy} defining when the NCP is polled for callbacks
+     */
+    private SpiPollingPolicy pollingPolicy = new SpiAdaptivePollingPolicy();
 
     private Object outputFrameSynchronisation = new Object();
 
@@ -102,11 +98,6 @@ public class SpiFrameHandler implements EzspProtocolHandler {
      */
     private int receiveTimeout = 500;
 
-    /**
-     * Callback polling rate in milliseconds.
-     */
-    private int pollRate = 250;
-
     private final Timer timer = new Timer();
     private TimerTask timerTask = null;
 
@@ -119,8 +110,7 @@ public class SpiFrameHandler implements EzspProtocolHandler {
 
     private int[] lastFrameSent = null;
 
-    private ExecutorService executor = Executors.newCachedThreadPool();
-    private final List<SpiListener> transactionListeners = new ArrayList<SpiListener>();
+    private final EzspTransactionRegistry transactionRegistry = new EzspTransactionRegistry();
 
     private final Map<Integer, String> errorMessages = new ConcurrentHashMap<Integer, String>();
 
@@ -134,6 +124,11 @@ public class SpiFrameHandler implements EzspProtocolHandler {
      */
     private ZigBeePort port;
 
+    /**
+     * Buffers the data received from the port
+     */
+    private ZigBeePortReader portReader;
+
     /**
      * The parser parserThread.
      */
@@ -170,8 +165,7 @@ public class SpiFrameHandler implements EzspProtocolHandler {
     @Override
     public void start(final ZigBeePort port) {
         this.port = port;
-
-        pollingScheduler = Executors.newSingleThreadScheduledExecutor();
+        this.portReader = new ZigBeePortReader(port, SPI_MAX_LENGTH);
 
         parserThread = new Thread("SpiFrameHandler") {
             @Override
@@ -212,7 +206,27 @@ public class SpiFrameHandler implements EzspProtocolHandler {
         parserThread.setDaemon(true);
         parserThread.start();
 
-        restartPolling();
+        pollingPolicy.start(new Runnable() {
+            @Override
+            public void run() {
+                if (stateConnected && sendQueue.isEmpty()) {
+                    doCallbackRequest.set(true);
+                    sendNextFrame();
+                }
+            }
+        });
+    }
+
+    /**
+     * Sets the {@link SpiPollingPolicy} used to decide when the NCP is polled for callbacks. By default, a
+     * {@link SpiAdaptivePollingPolicy} is used.
+     * <p>
+     * Note that this must be called prior to {@link #start(ZigBeePort)} for the configuration to be effective.
+     *
+     * @param pollingPolicy the {@link SpiPollingPolicy} to use
+     */
+    public void setPollingPolicy(SpiPollingPolicy pollingPolicy) {
+        this.pollingPolicy = pollingPolicy;
     }
 
     enum RxState {
@@ -238,7 +252,7 @@ public class SpiFrameHandler implements EzspProtocolHandler {
         RxState rxState = RxState.RX_TYPE;
 
         while (!closeHandler) {
-            int val = port.read();
+            int val = portReader.read();
             logger.trace("SPI RX: {}", String.format("%02X", val));
             switch (rxState) {
                 case RX_TYPE:
@@ -411,6 +425,7 @@ public class SpiFrameHandler implements EzspProtocolHandler {
             doCallbackRequest.set(true);
         }
 
+        boolean callbackActivity = response.isCallbackPending();
         if (notifyTransactionComplete(response)) {
             // Response to our request was received
             stopRetryTimer();
@@ -418,42 +433,34 @@ public class SpiFrameHandler implements EzspProtocolHandler {
             // No transactions owned this response, so we pass it to
             // our unhandled response handler
             if (!(response instanceof EzspNoCallbacksResponse)) {
+                callbackActivity = true;
                 frameHandler.handlePacket(response);
             }
         }
 
-        // We restart polling to avoid polling too often.
+        // Let the polling policy know the state so it can schedule the next poll.
         // Rational here is that every EZSP frame contains a "Callback Pending" flag, so at this point
         // in time, we don't need to poll as we know the state.
-        restartPolling();
+        pollingPolicy.frameReceived(callbackActivity);
     }
 
     @Override
     public void setClosing() {
-        executor.shutdown();
         closeHandler = true;
     }
 
     @Override
     public void close() {
-        if (pollingTimer != null) {
-            pollingTimer.cancel(true);
-        }
-        pollingScheduler.shutdown();
+        pollingPolicy.stop();
 
         logger.debug("SpiFrameHandler close.");
 
         setClosing();
         stopRetryTimer();
 
-        synchronized (transactionListeners) {
-            for (SpiListener listener : transactionListeners) {
-                listener.transactionComplete();
-            }
-        }
+        transactionRegistry.clear();
 
         timer.cancel();
-        executor.shutdownNow();
 
         try {
             parserThread.interrupt();
@@ -509,6 +516,9 @@ public class SpiFrameHandler implements EzspProtocolHandler {
             outputData[cnt++] = outByte;
         }
         outputFrame(outputData, isCallbackRequest);
+        if (!isCallbackRequest) {
+            pollingPolicy.frameSent();
+        }
 
         return true;
     }
@@ -529,12 +539,10 @@ public class SpiFrameHandler implements EzspProtocolHandler {
                 logger.debug(logMessage);
             }
 
-            // Send the data
-            for (int outByte : outputData) {
-                logger.trace("SPI TX: {}", String.format("%02X", outByte));
-                port.write(outByte);
-            }
-            port.write(SPI_FLAG_BYTE);
+            // Send the data and the terminating flag as a single block
+            int[] outputBuffer = Arrays.copyOf(outputData, outputData.length + 1);
+            outputBuffer[outputData.length] = SPI_FLAG_BYTE;
+            port.write(outputBuffer, 0, outputBuffer.length);
 
             startRetryTimer();
         }
@@ -558,22 +566,6 @@ public class SpiFrameHandler implements EzspProtocolHandler {
         outputFrame(requestSpiVersion);
     }
 
-    private void restartPolling() {
-        if (pollingTimer != null) {
-            pollingTimer.cancel(true);
-        }
-
-        pollingTimer = pollingScheduler.scheduleAtFixedRate(new Runnable() {
-            @Override
-            public void run() {
-                if (stateConnected && sendQueue.isEmpty()) {
-                    doCallbackRequest.set(true);
-                    sendNextFrame();
-                }
-            }
-        }, pollRate, pollRate, TimeUnit.MILLISECONDS);
-    }
-
     private synchronized void startRetryTimer() {
         if (closeHandler) {
             logger.debug("SPI Timer task not started as thread closing.");
@@ -636,15 +628,7 @@ public class SpiFrameHandler implements EzspProtocolHandler {
      * @return true if the response was processed
      */
     private boolean notifyTransactionComplete(final EzspFrameResponse response) {
-        boolean processed = false;
-
-        synchronized (transactionListeners) {
-            for (SpiListener listener : transactionListeners) {
-                if (listener.transactionEvent(response)) {
-                    processed = true;
-                }
-            }
-        }
+        boolean processed = transactionRegistry.handleResponse(response);
 
         // For responses to higher level commands, we still want to pass these up so we can provide the
         // update the transaction progress.
@@ -655,93 +639,29 @@ public class SpiFrameHandler implements EzspProtocolHandler {
         return processed;
     }
 
-    private void addTransactionListener(SpiListener listener) {
-        synchronized (transactionListeners) {
-            if (transactionListeners.contains(listener)) {
-                return;
-            }
-
-            transactionListeners.add(listener);
-        }
-    }
-
-    private void removeTransactionListener(SpiListener listener) {
-        synchronized (transactionListeners) {
-            transactionListeners.remove(listener);
-        }
-    }
-
     @Override
-    public Future<EzspFrame> sendEzspRequestAsync(final EzspTransaction ezspTransaction) {
-        class TransactionWaiter implements Callable<EzspFrame>, SpiListener {
-            // private EzspFrame response = null;
-            private boolean complete = false;
-
-            @Override
-            public EzspFrame call() {
-                // Register a listener
-                addTransactionListener(this);
-
-                // Send the transaction
-                queueFrame(ezspTransaction.getRequest());
-
-                // Wait for the transaction to complete
-                synchronized (this) {
-                    while (!complete) {
-                        try {
-                            wait();
-                        } catch (InterruptedException e) {
-                            complete = true;
-                        }
-                    }
-                }
-
-                // Remove the listener
-                removeTransactionListener(this);
-
-                return null;// response;
-            }
-
-            @Override
-            public boolean transactionEvent(EzspFrameResponse ezspResponse) {
-                // Check if this response completes our transaction
-                if (!ezspTransaction.isMatch(ezspResponse)) {
-                    return false;
-                }
-
-                // response = request;
-                synchronized (this) {
-                    complete = true;
-                    notify();
-                }
-
-                return true;
-            }
-
-            @Override
-            public void transactionComplete() {
-                synchronized (this) {
-                    complete = true;
-                    notify();
-                }
-            }
+    public CompletableFuture<EzspTransaction> sendEzspRequestAsync(final EzspTransaction ezspTransaction) {
+        if (closeHandler) {
+            logger.debug("SPI: Handler is closed");
+            return null;
         }
 
-        Callable<EzspFrame> worker = new TransactionWaiter();
-        return executor.submit(worker);
+        // Register the transaction before sending so the response can't be missed
+        CompletableFuture<EzspTransaction> future = transactionRegistry.register(ezspTransaction);
+        queueFrame(ezspTransaction.getRequest());
+        return future;
     }
 
     @Override
     public EzspTransaction sendEzspTransaction(EzspTransaction ezspTransaction) {
-        Future<EzspFrame> futureResponse = sendEzspRequestAsync(ezspTransaction);
+        CompletableFuture<EzspTransaction> futureResponse = sendEzspRequestAsync(ezspTransaction);
         if (futureResponse == null) {
             logger.debug("Error sending EZSP transaction: Future is null");
             return null;
         }
 
         try {
-            futureResponse.get();
-            return ezspTransaction;
+            return futureResponse.get();
         } catch (InterruptedException | ExecutionException e) {
             futureResponse.cancel(true);
             logger.debug("EZSP interrupted in sendRequest: ", e);
@@ -765,12 +685,6 @@ public class SpiFrameHandler implements EzspProtocolHandler {
         return spiErrors;
     }
 
-    interface SpiListener {
-        boolean transactionEvent(EzspFrameResponse ezspResponse);
-
-        void transactionComplete();
-    }
-
     @Override
     public Map<String, Long> getCounters() {
         Map<String, Long> counters = new ConcurrentHashMap<String, Long>();
@@ -0,0 +1,47 @@
+/**
+ * Copyright (c) 2016-2019 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.dongle.ember.internal.spi;
+
+/**
+ * Defines when the {@link SpiFrameHandler} polls the NCP for callbacks. The SPI NCP can not send data to the host
+ * unless the host clocks the SPI bus, so callbacks must be requested by the host. The policy is notified of the
+ * traffic on the link, and runs the poll task provided in {@link #start(Runnable)} when a poll should be sent.
+ * <p>
+ * Implementations may use a timer, or an external trigger such as the NCP host interrupt line.
+ * <p>
+ * Note that the {@link SpiFrameHandler} will always poll immediately if a received frame indicates that further
+ * callbacks are pending, so the policy only needs to decide when to poll the NCP once it has no callbacks pending.
+ *
+ * @author Chris Jackson
+ *
+ */
+public interface SpiPollingPolicy {
+    /**
+     * Starts the polling policy
+     *
+     * @param pollTask the {@link Runnable} to run when the NCP should be polled for callbacks
+     */
+    void start(Runnable pollTask);
+
+    /**
+     * Stops the polling policy. The poll task will not be run once this method returns.
+     */
+    void stop();
+
+    /**
+     * Called when the host has sent a frame to the NCP
+     */
+    void frameSent();
+
+    /**
+     * Called when an EZSP frame has been received from the NCP
+     *
+     * @param callbackActivity true if the frame was a callback, or indicated that further callbacks are pending
+     */
+    void frameReceived(boolean callbackActivity);
+}
@@ -0,0 +1,148 @@
+/**
+ * Copyright (c) 2016-2019 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.dongle.ember.internal.transaction;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BiConsumer;
+
+import com.zsmartsystems.zigbee.dongle.ember.ezsp.EzspFrameRequest;
+import com.zsmartsystems.zigbee.dongle.ember.ezsp.EzspFrameResponse;
+
+/**
+ * Tracks the outstanding {@link EzspTransaction}s for a protocol handler and completes them when the response is
+ * received. Each transaction is represented by a {@link CompletableFuture} which is completed with the transaction
+ * from the thread that processes the response, so no thread is held while the transaction is outstanding.
+ * <p>
+ * {@link EzspSingleResponseTransaction}s are indexed by the frame ID and sequence number of the request, allowing the
+ * response to be matched without searching all outstanding transactions. Other transactions may need to see every
+ * response (for example to collect the related responses of an {@link EzspMultiResponseTransaction}) and are checked
+ * in turn.
+ * <p>
+ * This class is thread safe.
+ *
+ * @author Chris Jackson
+ *
+ */
+public class EzspTransactionRegistry {
+    /**
+     * Outstanding {@link EzspSingleResponseTransaction}s indexed by frame ID and sequence number
+     */
+    private final Map<Integer, PendingTransaction> indexedTransactions = new ConcurrentHashMap<>();
+
+    /**
+     * Outstanding transactions that must be offered every response
+     */
+    private final List<PendingTransaction> scannedTransactions = new CopyOnWriteArrayList<>();
+
+    /**
+     * Registers a transaction. The returned {@link CompletableFuture} is completed with the transaction when the
+     * final response is received, or when the registry is cleared. If the future is cancelled, the transaction is
+     * removed from the registry.
+     *
+     * @param transaction the {@link EzspTransaction} to register
+     * @return the {@link CompletableFuture} that will be completed with the transaction
+     */
+    public CompletableFuture<EzspTransaction> register(final EzspTransaction transaction) {
+        final PendingTransaction pending = new PendingTransaction(transaction);
+
+        // If another transaction is already using the same key, fall back to scanning
+        EzspFrameRequest request = transaction.getRequest();
+        if (transaction instanceof EzspSingleResponseTransaction && request != null) {
+            Integer key = getKey(request.getFrameId(), request.getSequenceNumber());
+            if (indexedTransactions.putIfAbsent(key, pending) == null) {
+                pending.key = key;
+            }
+        }
+        if (pending.key == null) {
+            scannedTransactions.add(pending);
+        }
+
+        pending.future.whenComplete(new BiConsumer<EzspTransaction, Throwable>() {
+            @Override
+            public void accept(EzspTransaction result, Throwable throwable) {
+                remove(pending);
+            }
+        });
+
+        return pending.future;
+    }
+
+    /**
+     * Offers a received response to the outstanding transactions, completing any that it matches.
+     *
+     * @param response the received {@link EzspFrameResponse}
+     * @return true if the response completed a transaction
+     */
+    public boolean handleResponse(EzspFrameResponse response) {
+        boolean processed = false;
+
+        PendingTransaction pending = indexedTransactions
+                .get(getKey(response.getFrameId(), response.getSequenceNumber()));
+        if (pending != null && pending.transaction.isMatch(response)) {
+            pending.future.complete(pending.transaction);
+            processed = true;
+        }
+
+        for (PendingTransaction scanned : scannedTransactions) {
+            if (scanned.transaction.isMatch(response)) {
+                scanned.future.complete(scanned.transaction);
+                processed = true;
+            }
+        }
+
+        return processed;
+    }
+
+    /**
+     * Completes all outstanding transactions without a response. This is used when the handler is closed so that
+     * anyone waiting for a transaction is released.
+     */
+    public void clear() {
+        List<PendingTransaction> outstanding = new ArrayList<>(indexedTransactions.values());
+        outstanding.addAll(scannedTransactions);
+        for (PendingTransaction pending : outstanding) {
+            pending.future.complete(pending.transaction);
+        }
+    }
+
+    /**
+     * Gets the number of outstanding transactions
+     *
+     * @return the number of transactions waiting for a response
+     */
+    public int size() {
+        return indexedTransactions.size() + scannedTransactions.size();
+    }
+
+    private void remove(PendingTransaction pending) {
+        if (pending.key == null) {
+            scannedTransactions.remove(pending);
+        } else {
+            indexedTransactions.remove(pending.key, pending);
+        }
+    }
+
+    private static Integer getKey(int frameId, int sequenceNumber) {
+        return (frameId << 8) | (sequenceNumber & 0xFF);
+    }
+
+    private static class PendingTransaction {
+        private final EzspTransaction transaction;
+        private final CompletableFuture<EzspTransaction> future = new CompletableFuture<>();
+        private Integer key;
+
+        PendingTransaction(EzspTransaction transaction) {
+            this.transaction = transaction;
+        }
+    }
+}
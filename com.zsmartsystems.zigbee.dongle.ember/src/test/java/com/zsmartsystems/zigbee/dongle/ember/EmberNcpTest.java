@@ -7,9 +7,20 @@
  */
 package com.zsmartsystems.zigbee.dongle.ember;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
 import org.junit.Test;
 import org.mockito.ArgumentCaptor;
 import org.mockito.ArgumentMatchers;
@@ -19,29 +30,48 @@ import org.mockito.stubbing.Answer;
 
 import com.zsmartsystems.zigbee.IeeeAddress;
 import com.zsmartsystems.zigbee.ZigBeeChannelMask;
+import com.zsmartsystems.zigbee.dongle.ember.ezsp.EzspFrame;
 import com.zsmartsystems.zigbee.dongle.ember.ezsp.EzspFrameRequest;
 import com.zsmartsystems.zigbee.dongle.ember.ezsp.EzspFrameResponse;
+import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspGetConfigurationValueResponse;
 import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspGetEui64Request;
 import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspGetEui64Response;
+import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspGetMulticastTableEntryRequest;
+import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspGetMulticastTableEntryResponse;
+import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspGetNeighborRequest;
+import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspGetNeighborResponse;
 import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspGetNetworkParametersRequest;
 import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspGetNetworkParametersResponse;
 import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspGetNodeIdRequest;
 import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspGetNodeIdResponse;
 import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspGetParentChildParametersRequest;
 import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspGetParentChildParametersResponse;
+import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspGetRouteTableEntryRequest;
+import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspGetRouteTableEntryResponse;
 import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspLeaveNetworkRequest;
 import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspLeaveNetworkResponse;
 import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspNetworkInitRequest;
 import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspNetworkInitResponse;
 import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspNetworkStateRequest;
 import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspNetworkStateResponse;
+import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspReadAndClearCountersRequest;
+import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspReadAndClearCountersResponse;
 import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspReadCountersRequest;
 import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspReadCountersResponse;
 import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspScanCompleteHandler;
+import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspSetMulticastTableEntryRequest;
+import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspSetMulticastTableEntryResponse;
+import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspSetPolicyRequest;
+import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspSetPolicyResponse;
 import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspSetRadioPowerRequest;
 import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspSetRadioPowerResponse;
 import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspStartScanRequest;
+import com.zsmartsystems.zigbee.dongle.ember.ezsp.structure.EmberMulticastTableEntry;
 import com.zsmartsystems.zigbee.dongle.ember.ezsp.structure.EmberStatus;
+import com.zsmartsystems.zigbee.dongle.ember.ezsp.structure.EzspConfigId;
+import com.zsmartsystems.zigbee.dongle.ember.ezsp.structure.EzspDecisionId;
+import com.zsmartsystems.zigbee.dongle.ember.ezsp.structure.EzspPolicyId;
+import com.zsmartsystems.zigbee.dongle.ember.ezsp.structure.EzspStatus;
 import com.zsmartsystems.zigbee.dongle.ember.internal.EzspProtocolHandler;
 import com.zsmartsystems.zigbee.dongle.ember.internal.transaction.EzspTransaction;
 
@@ -130,6 +160,84 @@ public class EmberNcpTest {
         assertTrue(request instanceof EzspGetParentChildParametersRequest);
     }
 
+    @Test
+    public void getNeighbor() {
+        EzspGetNeighborResponse response = Mockito.mock(EzspGetNeighborResponse.class);
+        Mockito.when(response.getStatus()).thenReturn(EmberStatus.EMBER_ERR_FATAL);
+        EmberNcp ncp = getEmberNcp(response);
+
+        assertNull(ncp.getNeighbor(3));
+
+        Mockito.verify(handler, Mockito.times(1)).sendEzspTransaction(ezspTransactionCapture.capture());
+
+        EzspFrameRequest request = ezspTransactionCapture.getValue().getRequest();
+        assertTrue(request instanceof EzspGetNeighborRequest);
+        assertEquals(3, ((EzspGetNeighborRequest) request).getIndex());
+    }
+
+    @Test
+    public void getRouteTableEntry() {
+        EzspGetRouteTableEntryResponse response = Mockito.mock(EzspGetRouteTableEntryResponse.class);
+        Mockito.when(response.getStatus()).thenReturn(EmberStatus.EMBER_SUCCESS);
+        EmberNcp ncp = getEmberNcp(response);
+
+        ncp.getRouteTableEntry(2);
+
+        Mockito.verify(handler, Mockito.times(1)).sendEzspTransaction(ezspTransactionCapture.capture());
+
+        EzspFrameRequest request = ezspTransactionCapture.getValue().getRequest();
+        assertTrue(request instanceof EzspGetRouteTableEntryRequest);
+        assertEquals(2, ((EzspGetRouteTableEntryRequest) request).getIndex());
+    }
+
+    @Test
+    public void readAndClearCounters() {
+        EzspReadAndClearCountersResponse response = Mockito.mock(EzspReadAndClearCountersResponse.class);
+        Mockito.when(response.getValues()).thenReturn(new int[] { 1, 2, 3 });
+        EmberNcp ncp = getEmberNcp(response);
+
+        assertArrayEquals(new int[] { 1, 2, 3 }, ncp.readAndClearCounters());
+
+        Mockito.verify(handler, Mockito.times(1)).sendEzspTransaction(ezspTransactionCapture.capture());
+
+        EzspFrameRequest request = ezspTransactionCapture.getValue().getRequest();
+        assertTrue(request instanceof EzspReadAndClearCountersRequest);
+    }
+
+    @Test
+    public void getMulticastTableEntry() {
+        EzspGetMulticastTableEntryResponse response = Mockito.mock(EzspGetMulticastTableEntryResponse.class);
+        Mockito.when(response.getStatus()).thenReturn(EmberStatus.EMBER_ERR_FATAL);
+        EmberNcp ncp = getEmberNcp(response);
+
+        assertNull(ncp.getMulticastTableEntry(4));
+
+        Mockito.verify(handler, Mockito.times(1)).sendEzspTransaction(ezspTransactionCapture.capture());
+
+        EzspFrameRequest request = ezspTransactionCapture.getValue().getRequest();
+        assertTrue(request instanceof EzspGetMulticastTableEntryRequest);
+        assertEquals(4, ((EzspGetMulticastTableEntryRequest) request).getIndex());
+    }
+
+    @Test
+    public void setMulticastTableEntry() {
+        EzspSetMulticastTableEntryResponse response = Mockito.mock(EzspSetMulticastTableEntryResponse.class);
+        Mockito.when(response.getStatus()).thenReturn(EmberStatus.EMBER_SUCCESS);
+        EmberNcp ncp = getEmberNcp(response);
+
+        EmberMulticastTableEntry entry = new EmberMulticastTableEntry();
+        entry.setMulticastId(0x1234);
+        entry.setEndpoint(1);
+        assertEquals(EmberStatus.EMBER_SUCCESS, ncp.setMulticastTableEntry(2, entry));
+
+        Mockito.verify(handler, Mockito.times(1)).sendEzspTransaction(ezspTransactionCapture.capture());
+
+        EzspFrameRequest request = ezspTransactionCapture.getValue().getRequest();
+        assertTrue(request instanceof EzspSetMulticastTableEntryRequest);
+        assertEquals(2, ((EzspSetMulticastTableEntryRequest) request).getIndex());
+        assertEquals(entry, ((EzspSetMulticastTableEntryRequest) request).getValue());
+    }
+
     @Test
     public void getCounters() {
         EmberNcp ncp = getEmberNcp(Mockito.mock(EzspReadCountersResponse.class));
@@ -211,4 +319,104 @@ public class EmberNcpTest {
         assertEquals(ZigBeeChannelMask.CHANNEL_MASK_2GHZ, ((EzspStartScanRequest) request).getChannelMask());
     }
 
+    private List<EzspTransaction> asyncTransactions = Collections.synchronizedList(new ArrayList<EzspTransaction>());
+    private List<CompletableFuture<EzspTransaction>> asyncFutures = Collections
+            .synchronizedList(new ArrayList<CompletableFuture<EzspTransaction>>());
+
+    private EmberNcp getAsyncEmberNcp() {
+        handler = Mockito.mock(EzspProtocolHandler.class);
+        Mockito.doAnswer(new Answer<CompletableFuture<EzspTransaction>>() {
+            @Override
+            public CompletableFuture<EzspTransaction> answer(InvocationOnMock invocation) {
+                CompletableFuture<EzspTransaction> future = new CompletableFuture<>();
+                asyncTransactions.add(invocation.getArgument(0));
+                asyncFutures.add(future);
+                return future;
+            }
+        }).when(handler).sendEzspRequestAsync(ArgumentMatchers.any(EzspTransaction.class));
+
+        return new EmberNcp(handler);
+    }
+
+    private void completeAsyncTransaction(int index, EzspFrameResponse response) {
+        EzspTransaction transaction = asyncTransactions.get(index);
+        if (response != null) {
+            assertTrue(transaction.isMatch(response));
+        }
+        asyncFutures.get(index).complete(transaction);
+    }
+
+    @Test
+    public void getConfigurationBatch() throws Exception {
+        EzspFrame.setEzspVersion(4);
+        final EmberNcp ncp = getAsyncEmberNcp();
+
+        final Set<EzspConfigId> configIds = new LinkedHashSet<>();
+        configIds.add(EzspConfigId.EZSP_CONFIG_STACK_PROFILE);
+        configIds.add(EzspConfigId.EZSP_CONFIG_MAX_HOPS);
+        configIds.add(EzspConfigId.EZSP_CONFIG_SECURITY_LEVEL);
+
+        final List<Map<EzspConfigId, Integer>> result = new ArrayList<>();
+        Thread thread = new Thread() {
+            @Override
+            public void run() {
+                result.add(ncp.getConfiguration(configIds));
+            }
+        };
+        thread.start();
+
+        // All requests are sent before any response is received
+        Mockito.verify(handler, Mockito.timeout(1000).times(3))
+                .sendEzspRequestAsync(ArgumentMatchers.any(EzspTransaction.class));
+
+        int sequence = asyncTransactions.get(0).getRequest().getSequenceNumber();
+        completeAsyncTransaction(0,
+                new EzspGetConfigurationValueResponse(new int[] { sequence, 0x80, 0x52, 0x00, 0x02, 0x00 }));
+        sequence = asyncTransactions.get(1).getRequest().getSequenceNumber();
+        completeAsyncTransaction(1,
+                new EzspGetConfigurationValueResponse(new int[] { sequence, 0x80, 0x52, 0x00, 0x1E, 0x00 }));
+        completeAsyncTransaction(2, null);
+        thread.join(1000);
+
+        assertEquals(1, result.size());
+        assertEquals(3, result.get(0).size());
+        assertEquals(Integer.valueOf(2), result.get(0).get(EzspConfigId.EZSP_CONFIG_STACK_PROFILE));
+        assertEquals(Integer.valueOf(30), result.get(0).get(EzspConfigId.EZSP_CONFIG_MAX_HOPS));
+        assertNull(result.get(0).get(EzspConfigId.EZSP_CONFIG_SECURITY_LEVEL));
+    }
+
+    @Test
+    public void setPolicyBatch() throws Exception {
+        EzspFrame.setEzspVersion(4);
+        final EmberNcp ncp = getAsyncEmberNcp();
+
+        final Map<EzspPolicyId, EzspDecisionId> policies = new LinkedHashMap<>();
+        policies.put(EzspPolicyId.EZSP_TRUST_CENTER_POLICY, EzspDecisionId.EZSP_ALLOW_PRECONFIGURED_KEY_JOINS);
+        policies.put(EzspPolicyId.EZSP_TC_KEY_REQUEST_POLICY, EzspDecisionId.EZSP_GENERATE_NEW_TC_LINK_KEY);
+
+        final List<Map<EzspPolicyId, EzspStatus>> result = new ArrayList<>();
+        Thread thread = new Thread() {
+            @Override
+            public void run() {
+                result.add(ncp.setPolicy(policies));
+            }
+        };
+        thread.start();
+
+        Mockito.verify(handler, Mockito.timeout(1000).times(2))
+                .sendEzspRequestAsync(ArgumentMatchers.any(EzspTransaction.class));
+        EzspSetPolicyRequest request = (EzspSetPolicyRequest) asyncTransactions.get(1).getRequest();
+        assertEquals(EzspPolicyId.EZSP_TC_KEY_REQUEST_POLICY, request.getPolicyId());
+        assertEquals(EzspDecisionId.EZSP_GENERATE_NEW_TC_LINK_KEY, request.getDecisionId());
+
+        // Responses are collected in any order
+        int sequence = asyncTransactions.get(1).getRequest().getSequenceNumber();
+        completeAsyncTransaction(1, new EzspSetPolicyResponse(new int[] { sequence, 0x80, 0x55, 0x00 }));
+        completeAsyncTransaction(0, null);
+        thread.join(1000);
+
+        assertEquals(1, result.size());
+        assertNull(result.get(0).get(EzspPolicyId.EZSP_TRUST_CENTER_POLICY));
+        assertEquals(EzspStatus.EZSP_SUCCESS, result.get(0).get(EzspPolicyId.EZSP_TC_KEY_REQUEST_POLICY));
+    }
 }
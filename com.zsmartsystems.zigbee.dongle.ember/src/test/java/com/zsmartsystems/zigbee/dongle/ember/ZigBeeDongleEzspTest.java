@@ -7,20 +7,28 @@
  */
 package com.zsmartsystems.zigbee.dongle.ember;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.Test;
 import org.mockito.ArgumentCaptor;
 import org.mockito.ArgumentMatchers;
 import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 
 import com.zsmartsystems.zigbee.ExtendedPanId;
 import com.zsmartsystems.zigbee.TestUtilities;
@@ -31,9 +39,19 @@ import com.zsmartsystems.zigbee.ZigBeeProfileType;
 import com.zsmartsystems.zigbee.ZigBeeStatus;
 import com.zsmartsystems.zigbee.dongle.ember.ezsp.EzspFrame;
 import com.zsmartsystems.zigbee.dongle.ember.ezsp.EzspFrameRequest;
+import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspIncomingRouteRecordHandler;
 import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspMessageSentHandler;
+import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspNetworkStateRequest;
+import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspNetworkStateResponse;
+import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspSendUnicastRequest;
+import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspSendUnicastResponse;
+import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspSetSourceRouteRequest;
+import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspSetSourceRouteResponse;
 import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspStackStatusHandler;
+import com.zsmartsystems.zigbee.dongle.ember.ezsp.structure.EmberMulticastTableEntry;
+import com.zsmartsystems.zigbee.dongle.ember.ezsp.structure.EmberNetworkStatus;
 import com.zsmartsystems.zigbee.dongle.ember.ezsp.structure.EmberStatus;
+import com.zsmartsystems.zigbee.dongle.ember.ezsp.structure.EzspConfigId;
 import com.zsmartsystems.zigbee.dongle.ember.ezsp.structure.EzspDecisionId;
 import com.zsmartsystems.zigbee.dongle.ember.ezsp.structure.EzspPolicyId;
 import com.zsmartsystems.zigbee.dongle.ember.ezsp.structure.EzspStatus;
@@ -130,6 +148,54 @@ public class ZigBeeDongleEzspTest {
                 configuration.getResult(TransportConfigOption.TRUST_CENTRE_JOIN_MODE));
     }
 
+    @Test
+    public void setMulticastGroups() throws Exception {
+        final EmberNcp ncp = Mockito.mock(EmberNcp.class);
+        Mockito.when(ncp.getConfiguration(EzspConfigId.EZSP_CONFIG_MULTICAST_TABLE_SIZE)).thenReturn(8);
+        Mockito.when(ncp.setMulticastTableEntry(ArgumentMatchers.anyInt(),
+                ArgumentMatchers.any(EmberMulticastTableEntry.class))).thenReturn(EmberStatus.EMBER_SUCCESS);
+        ZigBeeDongleEzsp dongle = new ZigBeeDongleEzsp(null) {
+            @Override
+            public EmberNcp getEmberNcp() {
+                return ncp;
+            }
+        };
+
+        // The table is not written until the dongle is started
+        TransportConfig configuration = new TransportConfig();
+        configuration.addOption(TransportConfigOption.MULTICAST_GROUPS, Collections.singleton(0x1234));
+        dongle.updateTransportConfig(configuration);
+        assertEquals(ZigBeeStatus.SUCCESS, configuration.getResult(TransportConfigOption.MULTICAST_GROUPS));
+        Mockito.verify(ncp, Mockito.never()).setMulticastTableEntry(ArgumentMatchers.anyInt(),
+                ArgumentMatchers.any(EmberMulticastTableEntry.class));
+
+        TestUtilities.setField(ZigBeeDongleEzsp.class, dongle, "frameHandler",
+                Mockito.mock(EzspProtocolHandler.class));
+        TestUtilities.setField(ZigBeeDongleEzsp.class, dongle, "initialised", true);
+        ScheduledExecutorService executorService = Executors.newScheduledThreadPool(1);
+        TestUtilities.setField(ZigBeeDongleEzsp.class, dongle, "executorService", executorService);
+
+        // Once started, the table is written from the executor
+        configuration = new TransportConfig();
+        configuration.addOption(TransportConfigOption.MULTICAST_GROUPS, Arrays.asList(0x1234, 0x5678));
+        dongle.updateTransportConfig(configuration);
+        assertEquals(ZigBeeStatus.SUCCESS, configuration.getResult(TransportConfigOption.MULTICAST_GROUPS));
+
+        ArgumentCaptor<EmberMulticastTableEntry> entryCaptor = ArgumentCaptor.forClass(EmberMulticastTableEntry.class);
+        Mockito.verify(ncp, Mockito.timeout(TIMEOUT).times(2)).setMulticastTableEntry(ArgumentMatchers.anyInt(),
+                entryCaptor.capture());
+        assertEquals(0x1234, entryCaptor.getAllValues().get(0).getMulticastId());
+        assertEquals(1, entryCaptor.getAllValues().get(0).getEndpoint());
+        assertEquals(0x5678, entryCaptor.getAllValues().get(1).getMulticastId());
+
+        configuration = new TransportConfig();
+        configuration.addOption(TransportConfigOption.MULTICAST_GROUPS, Integer.valueOf(0));
+        dongle.updateTransportConfig(configuration);
+        assertEquals(ZigBeeStatus.INVALID_ARGUMENTS, configuration.getResult(TransportConfigOption.MULTICAST_GROUPS));
+
+        executorService.shutdownNow();
+    }
+
     @Test
     public void testEzspStackStatusHandler() throws Exception {
         ZigBeeTransportReceive transport = Mockito.mock(ZigBeeTransportReceive.class);
@@ -182,21 +248,52 @@ public class ZigBeeDongleEzspTest {
         ZigBeeDongleEzsp dongle = new ZigBeeDongleEzsp(null);
         dongle.setZigBeeTransportReceive(transport);
 
+        EzspProtocolHandler handler = Mockito.mock(EzspProtocolHandler.class);
+        Mockito.when(handler.sendEzspRequestAsync(ArgumentMatchers.any(EzspTransaction.class)))
+                .thenReturn(new CompletableFuture<EzspTransaction>());
+        TestUtilities.setField(ZigBeeDongleEzsp.class, dongle, "frameHandler", handler);
+        ScheduledExecutorService executorService = Executors.newScheduledThreadPool(1);
+        TestUtilities.setField(ZigBeeDongleEzsp.class, dongle, "executorService", executorService);
         TestUtilities.setField(ZigBeeDongleEzsp.class, dongle, "initialised", true);
 
+        // Send two frames with the same APS counter - they must be given different message tags
+        ZigBeeApsFrame apsFrame = new ZigBeeApsFrame();
+        apsFrame.setCluster(0);
+        apsFrame.setProfile(ZigBeeProfileType.ZIGBEE_HOME_AUTOMATION.getKey());
+        apsFrame.setAddressMode(ZigBeeNwkAddressMode.DEVICE);
+        apsFrame.setDestinationAddress(1234);
+        apsFrame.setApsCounter(231);
+        apsFrame.setRadius(30);
+        apsFrame.setPayload(new int[] {});
+        dongle.sendCommand(apsFrame);
+        dongle.sendCommand(apsFrame);
+
+        ArgumentCaptor<EzspTransaction> transactionCaptor = ArgumentCaptor.forClass(EzspTransaction.class);
+        Mockito.verify(handler, Mockito.times(2)).sendEzspRequestAsync(transactionCaptor.capture());
+        int tag1 = ((EzspSendUnicastRequest) transactionCaptor.getAllValues().get(0).getRequest()).getMessageTag();
+        int tag2 = ((EzspSendUnicastRequest) transactionCaptor.getAllValues().get(1).getRequest()).getMessageTag();
+        assertNotEquals(tag1, tag2);
+
         EzspMessageSentHandler response = Mockito.mock(EzspMessageSentHandler.class);
-        Mockito.when(response.getMessageTag()).thenReturn(231);
+        Mockito.when(response.getMessageTag()).thenReturn(tag1);
         Mockito.when(response.getStatus()).thenReturn(EmberStatus.EMBER_SUCCESS);
         dongle.handlePacket(response);
         Mockito.verify(transport, Mockito.timeout(TIMEOUT)).receiveCommandStatus(231,
                 ZigBeeTransportProgressState.TX_ACK);
 
         response = Mockito.mock(EzspMessageSentHandler.class);
-        Mockito.when(response.getMessageTag()).thenReturn(231);
+        Mockito.when(response.getMessageTag()).thenReturn(tag2);
         Mockito.when(response.getStatus()).thenReturn(EmberStatus.EMBER_NETWORK_DOWN);
         dongle.handlePacket(response);
         Mockito.verify(transport, Mockito.timeout(TIMEOUT)).receiveCommandStatus(231,
                 ZigBeeTransportProgressState.TX_NAK);
+
+        // The tag has been released, so a repeated status is ignored
+        dongle.handlePacket(response);
+        Mockito.verify(transport, Mockito.times(2)).receiveCommandStatus(ArgumentMatchers.anyInt(),
+                ArgumentMatchers.any(ZigBeeTransportProgressState.class));
+
+        executorService.shutdownNow();
     }
 
     @Test
@@ -224,8 +321,9 @@ public class ZigBeeDongleEzspTest {
         ZigBeeDongleEzsp dongle = new ZigBeeDongleEzsp(null);
 
         EzspProtocolHandler handler = Mockito.mock(EzspProtocolHandler.class);
+        Mockito.when(handler.sendEzspRequestAsync(ArgumentMatchers.any(EzspTransaction.class)))
+                .thenReturn(new CompletableFuture<EzspTransaction>());
         TestUtilities.setField(ZigBeeDongleEzsp.class, dongle, "frameHandler", handler);
-
         ScheduledExecutorService executorService = Executors.newScheduledThreadPool(1);
         TestUtilities.setField(ZigBeeDongleEzsp.class, dongle, "executorService", executorService);
 
@@ -239,8 +337,9 @@ public class ZigBeeDongleEzspTest {
         apsFrame.setPayload(new int[] {});
 
         dongle.sendCommand(apsFrame);
-        Mockito.verify(handler, Mockito.timeout(TIMEOUT).times(1))
-                .sendEzspTransaction(ArgumentMatchers.any(EzspTransaction.class));
+        Mockito.verify(handler, Mockito.times(1)).sendEzspRequestAsync(ArgumentMatchers.any(EzspTransaction.class));
+
+        executorService.shutdownNow();
     }
 
     @Test
@@ -248,8 +347,9 @@ public class ZigBeeDongleEzspTest {
         ZigBeeDongleEzsp dongle = new ZigBeeDongleEzsp(null);
 
         EzspProtocolHandler handler = Mockito.mock(EzspProtocolHandler.class);
+        Mockito.when(handler.sendEzspRequestAsync(ArgumentMatchers.any(EzspTransaction.class)))
+                .thenReturn(new CompletableFuture<EzspTransaction>());
         TestUtilities.setField(ZigBeeDongleEzsp.class, dongle, "frameHandler", handler);
-
         ScheduledExecutorService executorService = Executors.newScheduledThreadPool(1);
         TestUtilities.setField(ZigBeeDongleEzsp.class, dongle, "executorService", executorService);
 
@@ -263,8 +363,150 @@ public class ZigBeeDongleEzspTest {
         apsFrame.setPayload(new int[] {});
 
         dongle.sendCommand(apsFrame);
-        Mockito.verify(handler, Mockito.timeout(TIMEOUT).times(1))
-                .sendEzspTransaction(ArgumentMatchers.any(EzspTransaction.class));
+        Mockito.verify(handler, Mockito.times(1)).sendEzspRequestAsync(ArgumentMatchers.any(EzspTransaction.class));
+
+        executorService.shutdownNow();
+    }
+
+    @Test
+    public void sendCommandFailed() throws Exception {
+        ZigBeeTransportReceive transport = Mockito.mock(ZigBeeTransportReceive.class);
+        final Thread[] statusThread = new Thread[1];
+        Mockito.doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) {
+                statusThread[0] = Thread.currentThread();
+                return null;
+            }
+        }).when(transport).receiveCommandStatus(ArgumentMatchers.anyInt(),
+                ArgumentMatchers.any(ZigBeeTransportProgressState.class));
+        ZigBeeDongleEzsp dongle = new ZigBeeDongleEzsp(null);
+        dongle.setZigBeeTransportReceive(transport);
+
+        CompletableFuture<EzspTransaction> future = new CompletableFuture<>();
+        EzspProtocolHandler handler = Mockito.mock(EzspProtocolHandler.class);
+        Mockito.when(handler.sendEzspRequestAsync(ArgumentMatchers.any(EzspTransaction.class))).thenReturn(future);
+        TestUtilities.setField(ZigBeeDongleEzsp.class, dongle, "frameHandler", handler);
+        ScheduledExecutorService executorService = Executors.newScheduledThreadPool(1);
+        TestUtilities.setField(ZigBeeDongleEzsp.class, dongle, "executorService", executorService);
+
+        ZigBeeApsFrame apsFrame = new ZigBeeApsFrame();
+        apsFrame.setCluster(0);
+        apsFrame.setProfile(ZigBeeProfileType.ZIGBEE_HOME_AUTOMATION.getKey());
+        apsFrame.setAddressMode(ZigBeeNwkAddressMode.DEVICE);
+        apsFrame.setDestinationAddress(1234);
+        apsFrame.setApsCounter(1);
+        apsFrame.setRadius(30);
+        apsFrame.setPayload(new int[] {});
+
+        dongle.sendCommand(apsFrame);
+        ArgumentCaptor<EzspTransaction> transactionCaptor = ArgumentCaptor.forClass(EzspTransaction.class);
+        Mockito.verify(handler, Mockito.times(1)).sendEzspRequestAsync(transactionCaptor.capture());
+        Mockito.verify(transport, Mockito.never()).receiveCommandStatus(ArgumentMatchers.anyInt(),
+                ArgumentMatchers.any(ZigBeeTransportProgressState.class));
+
+        // Complete the transaction with a failed status from the NCP
+        EzspTransaction transaction = transactionCaptor.getValue();
+        EzspSendUnicastResponse response = new EzspSendUnicastResponse(new int[] { 1, 0x80, 0x34, 0x66, 0x00 });
+        assertTrue(transaction.isMatch(response));
+        future.complete(transaction);
+
+        Mockito.verify(transport, Mockito.timeout(TIMEOUT).times(1)).receiveCommandStatus(1,
+                ZigBeeTransportProgressState.TX_NAK);
+
+        // The status is not passed to the framework from the thread that completed the transaction
+        assertNotEquals(Thread.currentThread(), statusThread[0]);
+
+        executorService.shutdownNow();
+    }
+
+    @Test
+    public void sendCommandNoResponse() throws Exception {
+        ZigBeeTransportReceive transport = Mockito.mock(ZigBeeTransportReceive.class);
+        ZigBeeDongleEzsp dongle = new ZigBeeDongleEzsp(null);
+        dongle.setZigBeeTransportReceive(transport);
+
+        CompletableFuture<EzspTransaction> future = new CompletableFuture<>();
+        EzspProtocolHandler handler = Mockito.mock(EzspProtocolHandler.class);
+        Mockito.when(handler.sendEzspRequestAsync(ArgumentMatchers.any(EzspTransaction.class))).thenReturn(future,
+                new CompletableFuture<EzspTransaction>());
+        TestUtilities.setField(ZigBeeDongleEzsp.class, dongle, "frameHandler", handler);
+        ScheduledExecutorService executorService = Executors.newScheduledThreadPool(1);
+        TestUtilities.setField(ZigBeeDongleEzsp.class, dongle, "executorService", executorService);
+
+        ZigBeeApsFrame apsFrame = new ZigBeeApsFrame();
+        apsFrame.setCluster(0);
+        apsFrame.setProfile(ZigBeeProfileType.ZIGBEE_HOME_AUTOMATION.getKey());
+        apsFrame.setAddressMode(ZigBeeNwkAddressMode.DEVICE);
+        apsFrame.setDestinationAddress(1234);
+        apsFrame.setApsCounter(1);
+        apsFrame.setRadius(30);
+        apsFrame.setPayload(new int[] {});
+        dongle.sendCommand(apsFrame);
+
+        // The transaction completes without a response
+        ArgumentCaptor<EzspTransaction> transactionCaptor = ArgumentCaptor.forClass(EzspTransaction.class);
+        Mockito.verify(handler, Mockito.times(1)).sendEzspRequestAsync(transactionCaptor.capture());
+        int tag = ((EzspSendUnicastRequest) transactionCaptor.getValue().getRequest()).getMessageTag();
+        future.complete(transactionCaptor.getValue());
+        Mockito.verify(transport, Mockito.timeout(TIMEOUT)).receiveCommandStatus(1,
+                ZigBeeTransportProgressState.TX_NAK);
+
+        // The tag is still held, so it is not used for the next frame
+        apsFrame.setApsCounter(2);
+        dongle.sendCommand(apsFrame);
+        Mockito.verify(handler, Mockito.times(2)).sendEzspRequestAsync(transactionCaptor.capture());
+        assertNotEquals(tag, ((EzspSendUnicastRequest) transactionCaptor.getValue().getRequest()).getMessageTag());
+
+        EzspMessageSentHandler response = Mockito.mock(EzspMessageSentHandler.class);
+        Mockito.when(response.getMessageTag()).thenReturn(tag);
+        Mockito.when(response.getStatus()).thenReturn(EmberStatus.EMBER_SUCCESS);
+        dongle.handlePacket(response);
+        Mockito.verify(transport, Mockito.times(1)).receiveCommandStatus(1, ZigBeeTransportProgressState.TX_ACK);
+
+        executorService.shutdownNow();
+    }
+
+    @Test
+    public void messageTagsReleasedOnLinkDown() throws Exception {
+        ZigBeeTransportReceive transport = Mockito.mock(ZigBeeTransportReceive.class);
+        ZigBeeDongleEzsp dongle = new ZigBeeDongleEzsp(null);
+        dongle.setZigBeeTransportReceive(transport);
+
+        EzspProtocolHandler handler = Mockito.mock(EzspProtocolHandler.class);
+        Mockito.when(handler.sendEzspRequestAsync(ArgumentMatchers.any(EzspTransaction.class)))
+                .thenReturn(new CompletableFuture<EzspTransaction>());
+        TestUtilities.setField(ZigBeeDongleEzsp.class, dongle, "frameHandler", handler);
+        ScheduledExecutorService executorService = Executors.newScheduledThreadPool(1);
+        TestUtilities.setField(ZigBeeDongleEzsp.class, dongle, "executorService", executorService);
+
+        ZigBeeApsFrame apsFrame = new ZigBeeApsFrame();
+        apsFrame.setCluster(0);
+        apsFrame.setProfile(ZigBeeProfileType.ZIGBEE_HOME_AUTOMATION.getKey());
+        apsFrame.setAddressMode(ZigBeeNwkAddressMode.DEVICE);
+        apsFrame.setDestinationAddress(1234);
+        apsFrame.setApsCounter(1);
+        apsFrame.setRadius(30);
+        apsFrame.setPayload(new int[] {});
+        dongle.sendCommand(apsFrame);
+
+        ArgumentCaptor<EzspTransaction> transactionCaptor = ArgumentCaptor.forClass(EzspTransaction.class);
+        Mockito.verify(handler, Mockito.times(1)).sendEzspRequestAsync(transactionCaptor.capture());
+        int tag = ((EzspSendUnicastRequest) transactionCaptor.getValue().getRequest()).getMessageTag();
+
+        // The NCP is reset, so the frame will not be completed
+        dongle.handleLinkStateChange(false);
+        Mockito.verify(transport, Mockito.times(1)).receiveCommandStatus(1, ZigBeeTransportProgressState.TX_NAK);
+
+        // The tag has been released, so a late status is ignored
+        EzspMessageSentHandler response = Mockito.mock(EzspMessageSentHandler.class);
+        Mockito.when(response.getMessageTag()).thenReturn(tag);
+        Mockito.when(response.getStatus()).thenReturn(EmberStatus.EMBER_SUCCESS);
+        dongle.handlePacket(response);
+        Mockito.verify(transport, Mockito.times(1)).receiveCommandStatus(ArgumentMatchers.anyInt(),
+                ArgumentMatchers.any(ZigBeeTransportProgressState.class));
+
+        executorService.shutdownNow();
     }
 
     @Test
@@ -277,24 +519,134 @@ public class ZigBeeDongleEzspTest {
     }
 
     @Test
-    public void scheduleNetworkStatePolling() throws Exception {
+    public void scheduleKeepalive() throws Exception {
         ZigBeeDongleEzsp dongle = new ZigBeeDongleEzsp(null);
 
         ScheduledExecutorService executorService = Executors.newScheduledThreadPool(1);
 
         EzspProtocolHandler frameHandler = Mockito.mock(EzspProtocolHandler.class);
 
-        TestUtilities.setField(ZigBeeDongleEzsp.class, dongle, "pollRate", 1);
+        TestUtilities.setField(ZigBeeDongleEzsp.class, dongle, "keepaliveInterval", 1);
         TestUtilities.setField(ZigBeeDongleEzsp.class, dongle, "frameHandler", frameHandler);
         TestUtilities.setField(ZigBeeDongleEzsp.class, dongle, "executorService", executorService);
 
-        TestUtilities.invokeMethod(ZigBeeDongleEzsp.class, dongle, "scheduleNetworkStatePolling");
+        TestUtilities.invokeMethod(ZigBeeDongleEzsp.class, dongle, "scheduleKeepalive", long.class, 1L);
         Mockito.verify(frameHandler, Mockito.timeout(TIMEOUT).times(0))
                 .queueFrame(ArgumentMatchers.any(EzspFrameRequest.class));
 
         TestUtilities.setField(ZigBeeDongleEzsp.class, dongle, "networkStateUp", true);
-        TestUtilities.invokeMethod(ZigBeeDongleEzsp.class, dongle, "scheduleNetworkStatePolling");
         Mockito.verify(frameHandler, Mockito.timeout(TIMEOUT).atLeast(1))
-                .queueFrame(ArgumentMatchers.any(EzspFrameRequest.class));
+                .queueFrame(ArgumentMatchers.any(EzspNetworkStateRequest.class));
+
+        executorService.shutdownNow();
+    }
+
+    @Test
+    public void keepaliveNotSentWhenActive() throws Exception {
+        ZigBeeDongleEzsp dongle = new ZigBeeDongleEzsp(null);
+        dongle.setZigBeeTransportReceive(Mockito.mock(ZigBeeTransportReceive.class));
+
+        ScheduledExecutorService executorService = Executors.newScheduledThreadPool(1);
+
+        EzspProtocolHandler frameHandler = Mockito.mock(EzspProtocolHandler.class);
+
+        dongle.setKeepaliveInterval(200);
+        TestUtilities.setField(ZigBeeDongleEzsp.class, dongle, "frameHandler", frameHandler);
+        TestUtilities.setField(ZigBeeDongleEzsp.class, dongle, "executorService", executorService);
+        TestUtilities.setField(ZigBeeDongleEzsp.class, dongle, "networkStateUp", true);
+        TestUtilities.invokeMethod(ZigBeeDongleEzsp.class, dongle, "scheduleKeepalive", long.class, 200L);
+
+        // Frames received from the NCP within the keepalive interval prevent the keepalive
+        EzspNetworkStateResponse response = Mockito.mock(EzspNetworkStateResponse.class);
+        Mockito.when(response.getStatus()).thenReturn(EmberNetworkStatus.EMBER_JOINED_NETWORK);
+        for (int cnt = 0; cnt < 10; cnt++) {
+            dongle.handlePacket(response);
+            Thread.sleep(50);
+        }
+        Mockito.verify(frameHandler, Mockito.never()).queueFrame(ArgumentMatchers.any(EzspFrameRequest.class));
+
+        // Once the link is idle, the keepalive is sent
+        Mockito.verify(frameHandler, Mockito.timeout(TIMEOUT).atLeast(1))
+                .queueFrame(ArgumentMatchers.any(EzspNetworkStateRequest.class));
+
+        executorService.shutdownNow();
+    }
+
+    @Test
+    public void networkStateResponseNoNetwork() throws Exception {
+        ZigBeeTransportReceive transport = Mockito.mock(ZigBeeTransportReceive.class);
+        ZigBeeDongleEzsp dongle = new ZigBeeDongleEzsp(null);
+        dongle.setZigBeeTransportReceive(transport);
+        TestUtilities.setField(ZigBeeDongleEzsp.class, dongle, "initialised", true);
+        TestUtilities.setField(ZigBeeDongleEzsp.class, dongle, "networkStateUp", true);
+
+        EzspNetworkStateResponse response = Mockito.mock(EzspNetworkStateResponse.class);
+        Mockito.when(response.getStatus()).thenReturn(EmberNetworkStatus.EMBER_JOINED_NETWORK);
+        dongle.handlePacket(response);
+
+        Mockito.when(response.getStatus()).thenReturn(EmberNetworkStatus.EMBER_NO_NETWORK);
+        dongle.handlePacket(response);
+        Mockito.verify(transport, Mockito.timeout(TIMEOUT).times(1)).setNetworkState(ZigBeeTransportState.OFFLINE);
+        Mockito.verify(transport, Mockito.never()).setNetworkState(ZigBeeTransportState.ONLINE);
+    }
+
+    @Test
+    public void sendCommandSourceRoute() throws Exception {
+        ZigBeeDongleEzsp dongle = new ZigBeeDongleEzsp(null);
+        dongle.setZigBeeTransportReceive(Mockito.mock(ZigBeeTransportReceive.class));
+
+        CompletableFuture<EzspTransaction> sourceRouteFuture = new CompletableFuture<>();
+        EzspProtocolHandler handler = Mockito.mock(EzspProtocolHandler.class);
+        Mockito.when(handler.sendEzspRequestAsync(ArgumentMatchers.any(EzspTransaction.class)))
+                .thenReturn(sourceRouteFuture, new CompletableFuture<EzspTransaction>());
+        TestUtilities.setField(ZigBeeDongleEzsp.class, dongle, "frameHandler", handler);
+        ScheduledExecutorService executorService = Executors.newScheduledThreadPool(1);
+        TestUtilities.setField(ZigBeeDongleEzsp.class, dongle, "executorService", executorService);
+        TestUtilities.setField(ZigBeeDongleEzsp.class, dongle, "sourceRouting", true);
+
+        EzspIncomingRouteRecordHandler routeRecord = Mockito.mock(EzspIncomingRouteRecordHandler.class);
+        Mockito.when(routeRecord.getSource()).thenReturn(1234);
+        Mockito.when(routeRecord.getRelayList()).thenReturn(new int[] { 0x1111, 0x2222 });
+        dongle.handlePacket(routeRecord);
+
+        ZigBeeApsFrame apsFrame = new ZigBeeApsFrame();
+        apsFrame.setCluster(0);
+        apsFrame.setProfile(ZigBeeProfileType.ZIGBEE_HOME_AUTOMATION.getKey());
+        apsFrame.setAddressMode(ZigBeeNwkAddressMode.DEVICE);
+        apsFrame.setDestinationAddress(1234);
+        apsFrame.setApsCounter(1);
+        apsFrame.setPayload(new int[] {});
+        dongle.sendCommand(apsFrame);
+
+        // The source route is sent before the unicast
+        ArgumentCaptor<EzspTransaction> transactionCaptor = ArgumentCaptor.forClass(EzspTransaction.class);
+        Mockito.verify(handler, Mockito.times(2)).sendEzspRequestAsync(transactionCaptor.capture());
+        EzspTransaction sourceRouteTransaction = transactionCaptor.getAllValues().get(0);
+        EzspSetSourceRouteRequest sourceRoute = (EzspSetSourceRouteRequest) sourceRouteTransaction.getRequest();
+        assertEquals(1234, sourceRoute.getDestination());
+        assertArrayEquals(new int[] { 0x1111, 0x2222 }, sourceRoute.getRelayList());
+        assertTrue(transactionCaptor.getAllValues().get(1).getRequest() instanceof EzspSendUnicastRequest);
+
+        // No route is set for other destinations
+        apsFrame.setDestinationAddress(4321);
+        dongle.sendCommand(apsFrame);
+        Mockito.verify(handler, Mockito.times(3)).sendEzspRequestAsync(ArgumentMatchers.any(EzspTransaction.class));
+
+        // The NCP has no buffers to hold the route, so the route is removed and no longer sent
+        EzspSetSourceRouteResponse response = new EzspSetSourceRouteResponse(
+                new int[] { sourceRoute.getSequenceNumber(), 0x80, 0x5A, 0x18 });
+        assertTrue(sourceRouteTransaction.isMatch(response));
+        sourceRouteFuture.complete(sourceRouteTransaction);
+        Mockito.verify(handler, Mockito.never()).queueFrame(ArgumentMatchers.any(EzspFrameRequest.class));
+
+        executorService.shutdown();
+        assertTrue(executorService.awaitTermination(TIMEOUT, TimeUnit.MILLISECONDS));
+
+        apsFrame.setDestinationAddress(1234);
+        dongle.sendCommand(apsFrame);
+        Mockito.verify(handler, Mockito.times(4)).sendEzspRequestAsync(transactionCaptor.capture());
+        assertTrue(transactionCaptor.getValue().getRequest() instanceof EzspSendUnicastRequest);
+
+        executorService.shutdownNow();
     }
 }
@@ -0,0 +1,35 @@
+/**
+ * Copyright (c) 2016-2019 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.dongle.ember.ezsp;
+
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspSendUnicastResponse;
+import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspVersionResponse;
+
+/**
+ *
+ * @author Chris Jackson
+ *
+ */
+public class EzspFrameCreateHandlerTest extends EzspFrameTest {
+    @Test
+    public void createHandler() {
+        assertTrue(EzspFrame.createHandler(getPacketData("03 80 00 04 02 00 58")) instanceof EzspVersionResponse);
+        assertTrue(EzspFrame.createHandler(getPacketData("05 80 34 00 42")) instanceof EzspSendUnicastResponse);
+
+        // Unknown frame ID
+        assertNull(EzspFrame.createHandler(getPacketData("05 80 FE 00")));
+
+        // Truncated frame
+        assertNull(EzspFrame.createHandler(getPacketData("05 80 34")));
+    }
+}
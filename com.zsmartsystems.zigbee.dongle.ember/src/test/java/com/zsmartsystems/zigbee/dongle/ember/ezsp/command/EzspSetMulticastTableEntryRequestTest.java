@@ -0,0 +1,42 @@
+/**
+ * Copyright (c) 2016-2019 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.dongle.ember.ezsp.command;
+
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import com.zsmartsystems.zigbee.dongle.ember.ezsp.EzspFrame;
+import com.zsmartsystems.zigbee.dongle.ember.ezsp.EzspFrameTest;
+import com.zsmartsystems.zigbee.dongle.ember.ezsp.structure.EmberMulticastTableEntry;
+
+/**
+ *
+ * @author Chris Jackson
+ *
+ */
+public class EzspSetMulticastTableEntryRequestTest extends EzspFrameTest {
+    @Test
+    public void testRequest() {
+        EzspFrame.setEzspVersion(4);
+        EmberMulticastTableEntry entry = new EmberMulticastTableEntry();
+        entry.setMulticastId(0x1234);
+        entry.setEndpoint(1);
+        entry.setNetworkIndex(0);
+
+        EzspSetMulticastTableEntryRequest request = new EzspSetMulticastTableEntryRequest();
+        request.setIndex(3);
+        request.setValue(entry);
+        request.setSequenceNumber(2);
+        System.out.println(request);
+
+        assertTrue(Arrays.equals(getPacketData("02 00 64 03 34 12 01 00"), request.serialize()));
+    }
+}
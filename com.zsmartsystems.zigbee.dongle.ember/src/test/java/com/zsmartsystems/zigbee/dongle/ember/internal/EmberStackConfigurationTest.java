@@ -0,0 +1,101 @@
+/**
+ * Copyright (c) 2016-2019 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.dongle.ember.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+
+import com.zsmartsystems.zigbee.dongle.ember.EmberNcp;
+import com.zsmartsystems.zigbee.dongle.ember.ezsp.structure.EzspConfigId;
+import com.zsmartsystems.zigbee.dongle.ember.ezsp.structure.EzspDecisionId;
+import com.zsmartsystems.zigbee.dongle.ember.ezsp.structure.EzspPolicyId;
+import com.zsmartsystems.zigbee.dongle.ember.ezsp.structure.EzspStatus;
+
+/**
+ *
+ * @author Chris Jackson
+ *
+ */
+public class EmberStackConfigurationTest {
+    @SuppressWarnings("unchecked")
+    @Test
+    public void updateConfiguration() {
+        EmberNcp ncp = Mockito.mock(EmberNcp.class);
+        EmberStackConfiguration stackConfiguration = new EmberStackConfiguration(ncp);
+
+        Map<EzspConfigId, Integer> configuration = new LinkedHashMap<>();
+        configuration.put(EzspConfigId.EZSP_CONFIG_STACK_PROFILE, 2);
+        configuration.put(EzspConfigId.EZSP_CONFIG_MAX_HOPS, 30);
+        configuration.put(EzspConfigId.EZSP_CONFIG_SECURITY_LEVEL, 5);
+
+        Map<EzspConfigId, Integer> current = new HashMap<>();
+        current.put(EzspConfigId.EZSP_CONFIG_STACK_PROFILE, 2);
+        current.put(EzspConfigId.EZSP_CONFIG_MAX_HOPS, 15);
+        current.put(EzspConfigId.EZSP_CONFIG_SECURITY_LEVEL, null);
+        Mockito.when(ncp.getConfiguration(configuration.keySet())).thenReturn(current);
+
+        Map<EzspConfigId, EzspStatus> status = new HashMap<>();
+        status.put(EzspConfigId.EZSP_CONFIG_MAX_HOPS, EzspStatus.EZSP_SUCCESS);
+        status.put(EzspConfigId.EZSP_CONFIG_SECURITY_LEVEL, EzspStatus.EZSP_SUCCESS);
+        Mockito.when(ncp.setConfiguration(ArgumentMatchers.anyMap())).thenReturn(status);
+
+        assertTrue(stackConfiguration.updateConfiguration(configuration));
+
+        // Only the values that differ from the NCP are set
+        ArgumentCaptor<Map<EzspConfigId, Integer>> captor = ArgumentCaptor.forClass(Map.class);
+        Mockito.verify(ncp, Mockito.times(1)).setConfiguration(captor.capture());
+        assertEquals(2, captor.getValue().size());
+        assertEquals(Integer.valueOf(30), captor.getValue().get(EzspConfigId.EZSP_CONFIG_MAX_HOPS));
+        assertEquals(Integer.valueOf(5), captor.getValue().get(EzspConfigId.EZSP_CONFIG_SECURITY_LEVEL));
+
+        // Nothing is set if the configuration is unchanged
+        current.put(EzspConfigId.EZSP_CONFIG_MAX_HOPS, 30);
+        current.put(EzspConfigId.EZSP_CONFIG_SECURITY_LEVEL, 5);
+        assertTrue(stackConfiguration.updateConfiguration(configuration));
+        Mockito.verify(ncp, Mockito.times(1)).setConfiguration(ArgumentMatchers.anyMap());
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void updatePolicy() {
+        EmberNcp ncp = Mockito.mock(EmberNcp.class);
+        EmberStackConfiguration stackConfiguration = new EmberStackConfiguration(ncp);
+
+        Map<EzspPolicyId, EzspDecisionId> policies = new LinkedHashMap<>();
+        policies.put(EzspPolicyId.EZSP_TRUST_CENTER_POLICY, EzspDecisionId.EZSP_ALLOW_PRECONFIGURED_KEY_JOINS);
+        policies.put(EzspPolicyId.EZSP_TC_KEY_REQUEST_POLICY, EzspDecisionId.EZSP_GENERATE_NEW_TC_LINK_KEY);
+
+        Map<EzspPolicyId, EzspDecisionId> current = new HashMap<>();
+        current.put(EzspPolicyId.EZSP_TRUST_CENTER_POLICY, EzspDecisionId.EZSP_ALLOW_PRECONFIGURED_KEY_JOINS);
+        current.put(EzspPolicyId.EZSP_TC_KEY_REQUEST_POLICY, EzspDecisionId.EZSP_DENY_TC_KEY_REQUESTS);
+        Mockito.when(ncp.getPolicy(policies.keySet())).thenReturn(current);
+
+        Map<EzspPolicyId, EzspStatus> status = new HashMap<>();
+        status.put(EzspPolicyId.EZSP_TC_KEY_REQUEST_POLICY, null);
+        Mockito.when(ncp.setPolicy(ArgumentMatchers.anyMap())).thenReturn(status);
+
+        // The set fails as no response is received
+        assertFalse(stackConfiguration.updatePolicy(policies));
+
+        ArgumentCaptor<Map<EzspPolicyId, EzspDecisionId>> captor = ArgumentCaptor.forClass(Map.class);
+        Mockito.verify(ncp, Mockito.times(1)).setPolicy(captor.capture());
+        assertEquals(1, captor.getValue().size());
+        assertEquals(EzspDecisionId.EZSP_GENERATE_NEW_TC_LINK_KEY,
+                captor.getValue().get(EzspPolicyId.EZSP_TC_KEY_REQUEST_POLICY));
+    }
+}
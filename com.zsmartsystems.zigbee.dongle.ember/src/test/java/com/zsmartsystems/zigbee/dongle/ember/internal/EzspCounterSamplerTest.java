@@ -0,0 +1,119 @@
+/**
+ * Copyright (c) 2016-2019 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.dongle.ember.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+
+import com.zsmartsystems.zigbee.dongle.ember.EmberCounterListener;
+import com.zsmartsystems.zigbee.dongle.ember.EmberNcp;
+import com.zsmartsystems.zigbee.dongle.ember.ezsp.structure.EmberCounterType;
+import com.zsmartsystems.zigbee.metrics.ZigBeeMetricRegistry;
+
+/**
+ *
+ * @author Chris Jackson
+ *
+ */
+public class EzspCounterSamplerTest {
+    private int[] getCounters(EmberCounterType type, int value) {
+        int[] counters = new int[EmberCounterType.EMBER_COUNTER_TYPE_COUNT.getKey()];
+        counters[type.getKey()] = value;
+        return counters;
+    }
+
+    @Test
+    public void getMetricName() {
+        assertEquals("transport.ncp.phy_cca_fail_count",
+                EzspCounterSampler.getMetricName(EmberCounterType.EMBER_COUNTER_PHY_CCA_FAIL_COUNT));
+        assertEquals("transport.ncp.nwk_retry_overflow",
+                EzspCounterSampler.getMetricName(EmberCounterType.EMBER_COUNTER_TYPE_NWK_RETRY_OVERFLOW));
+    }
+
+    @Test
+    public void update() {
+        ZigBeeMetricRegistry registry = new ZigBeeMetricRegistry();
+        EzspCounterSampler sampler = new EzspCounterSampler();
+        sampler.registerMetrics(registry);
+
+        // The first sample is counted, but does not provide a rate
+        sampler.update(getCounters(EmberCounterType.EMBER_COUNTER_MAC_TX_UNICAST_RETRY, 100), 0);
+        assertTrue(sampler.getRates().isEmpty());
+
+        sampler.update(getCounters(EmberCounterType.EMBER_COUNTER_MAC_TX_UNICAST_RETRY, 20),
+                TimeUnit.SECONDS.toNanos(10));
+        assertEquals(2.0, sampler.getRates().get(EmberCounterType.EMBER_COUNTER_MAC_TX_UNICAST_RETRY), 0.001);
+        assertEquals(0.0, sampler.getRates().get(EmberCounterType.EMBER_COUNTER_PHY_CCA_FAIL_COUNT), 0.001);
+        assertEquals(120L, registry.getSnapshot().get("transport.ncp.mac_tx_unicast_retry.count"));
+        assertEquals(0L, registry.getSnapshot().get("transport.ncp.phy_cca_fail_count.count"));
+
+        sampler.reset();
+        assertTrue(sampler.getRates().isEmpty());
+    }
+
+    @Test
+    public void threshold() {
+        EzspCounterSampler sampler = new EzspCounterSampler();
+        EmberCounterListener listener = Mockito.mock(EmberCounterListener.class);
+        sampler.addListener(listener);
+        sampler.setThreshold(EmberCounterType.EMBER_COUNTER_PHY_CCA_FAIL_COUNT, 1.0);
+
+        sampler.update(getCounters(EmberCounterType.EMBER_COUNTER_PHY_CCA_FAIL_COUNT, 500), 0);
+        sampler.update(getCounters(EmberCounterType.EMBER_COUNTER_PHY_CCA_FAIL_COUNT, 5),
+                TimeUnit.SECONDS.toNanos(10));
+        Mockito.verify(listener, Mockito.never()).emberCounterThresholdExceeded(
+                ArgumentMatchers.any(EmberCounterType.class), ArgumentMatchers.anyDouble(),
+                ArgumentMatchers.anyDouble());
+
+        sampler.update(getCounters(EmberCounterType.EMBER_COUNTER_PHY_CCA_FAIL_COUNT, 30),
+                TimeUnit.SECONDS.toNanos(20));
+        Mockito.verify(listener, Mockito.times(1))
+                .emberCounterThresholdExceeded(EmberCounterType.EMBER_COUNTER_PHY_CCA_FAIL_COUNT, 3.0, 1.0);
+
+        // The listener is only notified again once the rate has fallen below the threshold
+        sampler.update(getCounters(EmberCounterType.EMBER_COUNTER_PHY_CCA_FAIL_COUNT, 40),
+                TimeUnit.SECONDS.toNanos(30));
+        sampler.update(getCounters(EmberCounterType.EMBER_COUNTER_PHY_CCA_FAIL_COUNT, 0),
+                TimeUnit.SECONDS.toNanos(40));
+        sampler.update(getCounters(EmberCounterType.EMBER_COUNTER_PHY_CCA_FAIL_COUNT, 20),
+                TimeUnit.SECONDS.toNanos(50));
+        Mockito.verify(listener, Mockito.times(2)).emberCounterThresholdExceeded(
+                ArgumentMatchers.eq(EmberCounterType.EMBER_COUNTER_PHY_CCA_FAIL_COUNT), ArgumentMatchers.anyDouble(),
+                ArgumentMatchers.eq(1.0));
+
+        sampler.removeListener(listener);
+        sampler.setThreshold(EmberCounterType.EMBER_COUNTER_PHY_CCA_FAIL_COUNT, 0);
+        sampler.update(getCounters(EmberCounterType.EMBER_COUNTER_PHY_CCA_FAIL_COUNT, 100),
+                TimeUnit.SECONDS.toNanos(60));
+        Mockito.verify(listener, Mockito.times(2)).emberCounterThresholdExceeded(
+                ArgumentMatchers.any(EmberCounterType.class), ArgumentMatchers.anyDouble(),
+                ArgumentMatchers.anyDouble());
+    }
+
+    @Test
+    public void sample() {
+        EmberNcp ncp = Mockito.mock(EmberNcp.class);
+        EzspCounterSampler sampler = new EzspCounterSampler();
+
+        // Nothing is updated if the counters are not read
+        sampler.sample(ncp);
+        Mockito.verify(ncp, Mockito.times(1)).readAndClearCounters();
+
+        Mockito.when(ncp.readAndClearCounters())
+                .thenReturn(getCounters(EmberCounterType.EMBER_COUNTER_MAC_RX_BROADCAST, 1));
+        sampler.sample(ncp);
+        sampler.sample(ncp);
+        assertTrue(sampler.getRates().get(EmberCounterType.EMBER_COUNTER_MAC_RX_BROADCAST) > 0);
+    }
+}
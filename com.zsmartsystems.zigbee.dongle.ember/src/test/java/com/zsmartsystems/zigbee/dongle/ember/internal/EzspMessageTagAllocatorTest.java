@@ -0,0 +1,76 @@
+/**
+ * Copyright (c) 2016-2019 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.dongle.ember.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+/**
+ *
+ * @author Chris Jackson
+ *
+ */
+public class EzspMessageTagAllocatorTest {
+    @Test
+    public void testAllocate() {
+        EzspMessageTagAllocator allocator = new EzspMessageTagAllocator();
+
+        assertEquals(Integer.valueOf(0), allocator.allocate(55));
+        assertEquals(Integer.valueOf(1), allocator.allocate(55));
+        assertEquals(2, allocator.size());
+
+        assertEquals(Integer.valueOf(55), allocator.release(0));
+        assertNull(allocator.release(0));
+        assertNull(allocator.release(2));
+        assertNull(allocator.release(300));
+        assertEquals(1, allocator.size());
+
+        // Released tags are not reused immediately
+        assertEquals(Integer.valueOf(2), allocator.allocate(66));
+
+        assertEquals(Arrays.asList(55, 66), allocator.clear());
+        assertEquals(0, allocator.size());
+        assertNull(allocator.release(1));
+    }
+
+    @Test
+    public void testExhausted() {
+        EzspMessageTagAllocator allocator = new EzspMessageTagAllocator();
+
+        for (int handle = 0; handle < EzspMessageTagAllocator.TAG_COUNT; handle++) {
+            assertNotNull(allocator.allocate(handle));
+        }
+        assertNull(allocator.allocate(1000));
+
+        // A tag can only be reused once it has been released
+        assertEquals(Integer.valueOf(100), allocator.release(100));
+        assertEquals(Integer.valueOf(100), allocator.allocate(1000));
+        assertEquals(Integer.valueOf(1000), allocator.release(100));
+    }
+
+    @Test
+    public void testExpiry() {
+        EzspMessageTagAllocator allocator = new EzspMessageTagAllocator(0);
+
+        assertEquals(Integer.valueOf(0), allocator.allocate(0));
+        for (int handle = 1; handle < EzspMessageTagAllocator.TAG_COUNT; handle++) {
+            assertNotNull(allocator.allocate(handle));
+        }
+
+        // Expired tags are only reclaimed once all tags are in use
+        assertEquals(Integer.valueOf(0), allocator.allocate(1000));
+        assertEquals(1, allocator.size());
+        assertEquals(Integer.valueOf(1000), allocator.release(0));
+        assertNull(allocator.release(1));
+    }
+}
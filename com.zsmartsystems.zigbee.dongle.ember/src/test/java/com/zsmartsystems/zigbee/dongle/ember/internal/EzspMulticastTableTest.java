@@ -0,0 +1,185 @@
+/**
+ * Copyright (c) 2016-2019 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.dongle.ember.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+
+import org.junit.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import com.zsmartsystems.zigbee.dongle.ember.EmberNcp;
+import com.zsmartsystems.zigbee.dongle.ember.ezsp.structure.EmberMulticastTableEntry;
+import com.zsmartsystems.zigbee.dongle.ember.ezsp.structure.EmberStatus;
+import com.zsmartsystems.zigbee.dongle.ember.ezsp.structure.EzspConfigId;
+
+/**
+ *
+ * @author Chris Jackson
+ *
+ */
+public class EzspMulticastTableTest {
+    private Map<Integer, EmberMulticastTableEntry> ncpTable = new HashMap<>();
+
+    private EmberNcp getEmberNcp(int tableSize) {
+        EmberNcp ncp = Mockito.mock(EmberNcp.class);
+        Mockito.when(ncp.getConfiguration(EzspConfigId.EZSP_CONFIG_MULTICAST_TABLE_SIZE)).thenReturn(tableSize);
+        Mockito.when(ncp.setMulticastTableEntry(ArgumentMatchers.anyInt(),
+                ArgumentMatchers.any(EmberMulticastTableEntry.class))).thenAnswer(new Answer<EmberStatus>() {
+                    @Override
+                    public EmberStatus answer(InvocationOnMock invocation) {
+                        ncpTable.put((Integer) invocation.getArgument(0),
+                                (EmberMulticastTableEntry) invocation.getArgument(1));
+                        return EmberStatus.EMBER_SUCCESS;
+                    }
+                });
+        return ncp;
+    }
+
+    private Integer getNcpGroup(int index) {
+        EmberMulticastTableEntry entry = ncpTable.get(index);
+        if (entry == null || entry.getEndpoint() == 0) {
+            return null;
+        }
+        return entry.getMulticastId();
+    }
+
+    @Test
+    public void synchronize() {
+        EmberNcp ncp = getEmberNcp(4);
+        EzspMulticastTable table = new EzspMulticastTable(1);
+
+        table.setGroups(Arrays.asList(0x1001, 0x1002));
+        table.synchronize(ncp);
+        assertEquals(new HashSet<>(Arrays.asList(0x1001, 0x1002)), table.getTableGroups());
+        assertEquals(Integer.valueOf(0x1001), getNcpGroup(0));
+        assertEquals(Integer.valueOf(0x1002), getNcpGroup(1));
+        assertEquals(1, ncpTable.get(0).getEndpoint());
+
+        // Nothing is written if the table is unchanged
+        table.synchronize(ncp);
+        Mockito.verify(ncp, Mockito.times(2)).setMulticastTableEntry(ArgumentMatchers.anyInt(),
+                ArgumentMatchers.any(EmberMulticastTableEntry.class));
+
+        // Removed groups are cleared from the table, and the entry is reused
+        table.setGroups(Arrays.asList(0x1002, 0x1003));
+        table.synchronize(ncp);
+        assertEquals(new HashSet<>(Arrays.asList(0x1002, 0x1003)), table.getTableGroups());
+        assertEquals(Integer.valueOf(0x1003), getNcpGroup(0));
+        assertEquals(Integer.valueOf(0x1002), getNcpGroup(1));
+
+        table.setGroups(Collections.<Integer> emptySet());
+        table.synchronize(ncp);
+        assertTrue(table.getTableGroups().isEmpty());
+        assertEquals(null, getNcpGroup(0));
+        assertEquals(null, getNcpGroup(1));
+
+        // The table size is only read once
+        Mockito.verify(ncp, Mockito.times(1)).getConfiguration(EzspConfigId.EZSP_CONFIG_MULTICAST_TABLE_SIZE);
+    }
+
+    @Test
+    public void leastRecentlyUsed() {
+        EmberNcp ncp = getEmberNcp(2);
+        EzspMulticastTable table = new EzspMulticastTable(1);
+
+        table.setGroups(Arrays.asList(0x1001, 0x1002));
+        table.synchronize(ncp);
+        assertEquals(new HashSet<>(Arrays.asList(0x1001, 0x1002)), table.getTableGroups());
+
+        // Using a group in the table does not need the table to be updated
+        assertFalse(table.groupUsed(0x1001));
+        assertFalse(table.groupUsed(0x2000));
+
+        // A new group replaces the least recently used group
+        table.setGroups(Arrays.asList(0x1001, 0x1002, 0x1003));
+        table.synchronize(ncp);
+        assertEquals(new HashSet<>(Arrays.asList(0x1001, 0x1003)), table.getTableGroups());
+        assertEquals(Integer.valueOf(0x1001), getNcpGroup(0));
+        assertEquals(Integer.valueOf(0x1003), getNcpGroup(1));
+        assertEquals(3, table.getGroups().size());
+
+        // A group that is not in the table is returned to the table when it is used
+        assertTrue(table.groupUsed(0x1002));
+        table.synchronize(ncp);
+        assertEquals(new HashSet<>(Arrays.asList(0x1002, 0x1003)), table.getTableGroups());
+        assertEquals(Integer.valueOf(0x1002), getNcpGroup(0));
+
+        // Removing a group allows the remaining member to be added
+        table.setGroups(Arrays.asList(0x1001, 0x1002));
+        table.synchronize(ncp);
+        assertEquals(new HashSet<>(Arrays.asList(0x1001, 0x1002)), table.getTableGroups());
+        assertEquals(Integer.valueOf(0x1001), getNcpGroup(1));
+    }
+
+    @Test
+    public void clear() {
+        EmberNcp ncp = getEmberNcp(2);
+        EzspMulticastTable table = new EzspMulticastTable(1);
+
+        table.setGroups(Arrays.asList(0x1001));
+        table.synchronize(ncp);
+        assertEquals(Collections.singleton(0x1001), table.getTableGroups());
+
+        // The groups are written again after the NCP is reset
+        table.clear();
+        assertTrue(table.getTableGroups().isEmpty());
+        table.synchronize(ncp);
+        assertEquals(Collections.singleton(0x1001), table.getTableGroups());
+        Mockito.verify(ncp, Mockito.times(2)).setMulticastTableEntry(ArgumentMatchers.eq(0),
+                ArgumentMatchers.any(EmberMulticastTableEntry.class));
+        Mockito.verify(ncp, Mockito.times(2)).getConfiguration(EzspConfigId.EZSP_CONFIG_MULTICAST_TABLE_SIZE);
+    }
+
+    @Test
+    public void writeFailure() {
+        EmberNcp ncp = Mockito.mock(EmberNcp.class);
+        Mockito.when(ncp.getConfiguration(EzspConfigId.EZSP_CONFIG_MULTICAST_TABLE_SIZE)).thenReturn(2);
+        Mockito.when(ncp.setMulticastTableEntry(ArgumentMatchers.anyInt(),
+                ArgumentMatchers.any(EmberMulticastTableEntry.class))).thenReturn(EmberStatus.EMBER_ERR_FATAL);
+        EzspMulticastTable table = new EzspMulticastTable(1);
+
+        table.setGroups(Arrays.asList(0x1001));
+        table.synchronize(ncp);
+        assertTrue(table.getTableGroups().isEmpty());
+
+        // The table is not available if the size can not be read
+        EmberNcp failedNcp = Mockito.mock(EmberNcp.class);
+        table.clear();
+        table.synchronize(failedNcp);
+        Mockito.verify(failedNcp, Mockito.never()).setMulticastTableEntry(ArgumentMatchers.anyInt(),
+                ArgumentMatchers.any(EmberMulticastTableEntry.class));
+    }
+
+    @Test
+    public void sizeReadRetried() {
+        EzspMulticastTable table = new EzspMulticastTable(1);
+        table.setGroups(Arrays.asList(0x1001));
+
+        // A failed size read is not cached, so the next synchronization reads it again
+        EmberNcp failedNcp = Mockito.mock(EmberNcp.class);
+        table.synchronize(failedNcp);
+        assertTrue(table.getTableGroups().isEmpty());
+
+        EmberNcp ncp = getEmberNcp(2);
+        table.synchronize(ncp);
+        Mockito.verify(ncp, Mockito.times(1)).getConfiguration(EzspConfigId.EZSP_CONFIG_MULTICAST_TABLE_SIZE);
+        assertEquals(new HashSet<>(Arrays.asList(0x1001)), table.getTableGroups());
+        assertEquals(Integer.valueOf(0x1001), getNcpGroup(0));
+    }
+}
@@ -0,0 +1,273 @@
+/**
+ * Copyright (c) 2016-2019 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.dongle.ember.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import com.zsmartsystems.zigbee.IeeeAddress;
+import com.zsmartsystems.zigbee.dongle.ember.EmberNcp;
+import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspChildJoinHandler;
+import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspGetChildDataResponse;
+import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspGetParentChildParametersResponse;
+import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspIdConflictHandler;
+import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspIncomingRouteRecordHandler;
+import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspNetworkStateResponse;
+import com.zsmartsystems.zigbee.dongle.ember.ezsp.structure.EmberNeighborTableEntry;
+import com.zsmartsystems.zigbee.dongle.ember.ezsp.structure.EmberNodeType;
+import com.zsmartsystems.zigbee.dongle.ember.ezsp.structure.EmberRouteTableEntry;
+import com.zsmartsystems.zigbee.dongle.ember.ezsp.structure.EzspConfigId;
+import com.zsmartsystems.zigbee.zdo.field.NeighborTable;
+import com.zsmartsystems.zigbee.zdo.field.NeighborTable.NeighborTableRelationship;
+import com.zsmartsystems.zigbee.zdo.field.NeighborTable.NeighborTableRxState;
+import com.zsmartsystems.zigbee.zdo.field.NodeDescriptor.LogicalType;
+import com.zsmartsystems.zigbee.zdo.field.RoutingTable;
+
+/**
+ *
+ * @author Chris Jackson
+ *
+ */
+public class EzspNeighborTableTest {
+    private EzspChildJoinHandler getChildJoin(int childId, String eui64, EmberNodeType type, boolean joining) {
+        EzspChildJoinHandler joinHandler = Mockito.mock(EzspChildJoinHandler.class);
+        Mockito.when(joinHandler.getChildId()).thenReturn(childId);
+        Mockito.when(joinHandler.getChildEui64()).thenReturn(new IeeeAddress(eui64));
+        Mockito.when(joinHandler.getChildType()).thenReturn(type);
+        Mockito.when(joinHandler.getJoining()).thenReturn(joining);
+        return joinHandler;
+    }
+
+    private EzspIncomingRouteRecordHandler getRouteRecord(int source, String eui64, int lqi, int[] relays) {
+        EzspIncomingRouteRecordHandler routeRecord = Mockito.mock(EzspIncomingRouteRecordHandler.class);
+        Mockito.when(routeRecord.getSource()).thenReturn(source);
+        Mockito.when(routeRecord.getSourceEui()).thenReturn(new IeeeAddress(eui64));
+        Mockito.when(routeRecord.getLastHopLqi()).thenReturn(lqi);
+        Mockito.when(routeRecord.getRelayList()).thenReturn(relays);
+        return routeRecord;
+    }
+
+    private Map<Integer, NeighborTable> getNeighborMap(EzspNeighborTable table) {
+        Map<Integer, NeighborTable> neighbors = new HashMap<>();
+        for (NeighborTable neighbor : table.getNeighbors()) {
+            neighbors.put(neighbor.getNetworkAddress(), neighbor);
+        }
+        return neighbors;
+    }
+
+    private Map<Integer, RoutingTable> getRouteMap(EzspNeighborTable table) {
+        Map<Integer, RoutingTable> routes = new HashMap<>();
+        for (RoutingTable route : table.getRoutes()) {
+            routes.put(route.getDestinationAddress(), route);
+        }
+        return routes;
+    }
+
+    @Test
+    public void testChildJoin() {
+        EzspNeighborTable table = new EzspNeighborTable();
+
+        assertTrue(table.handleCallback(
+                getChildJoin(0x1234, "1111111111111111", EmberNodeType.EMBER_SLEEPY_END_DEVICE, true)));
+        assertTrue(
+                table.handleCallback(getChildJoin(0x2345, "2222222222222222", EmberNodeType.EMBER_END_DEVICE, true)));
+
+        Map<Integer, NeighborTable> neighbors = getNeighborMap(table);
+        assertEquals(2, neighbors.size());
+        NeighborTable child = neighbors.get(0x1234);
+        assertEquals(new IeeeAddress("1111111111111111"), child.getExtendedAddress());
+        assertEquals(NeighborTableRelationship.CHILD, child.getRelationship());
+        assertEquals(LogicalType.END_DEVICE, child.getDeviceType());
+        assertEquals(NeighborTableRxState.RX_OFF, child.getRxOnWhenIdle());
+        assertEquals(NeighborTableRxState.RX_ON, neighbors.get(0x2345).getRxOnWhenIdle());
+
+        table.handleCallback(getChildJoin(0x1234, "1111111111111111", EmberNodeType.EMBER_SLEEPY_END_DEVICE, false));
+        neighbors = getNeighborMap(table);
+        assertEquals(1, neighbors.size());
+        assertTrue(neighbors.containsKey(0x2345));
+
+        assertFalse(table.handleCallback(Mockito.mock(EzspNetworkStateResponse.class)));
+    }
+
+    @Test
+    public void testRouteRecord() {
+        EzspNeighborTable table = new EzspNeighborTable();
+        table.handleCallback(getChildJoin(0x1234, "1111111111111111", EmberNodeType.EMBER_ROUTER, true));
+        Set<NeighborTable> previous = table.getNeighbors();
+
+        table.handleCallback(getRouteRecord(0x5678, "5555555555555555", 200, new int[] { 0x4444, 0x1234 }));
+        table.handleCallback(getRouteRecord(0x1234, "1111111111111111", 210, new int[] {}));
+        table.handleCallback(getRouteRecord(0x3333, "3333333333333333", 150, new int[] {}));
+
+        Map<Integer, RoutingTable> routes = getRouteMap(table);
+        assertEquals(3, routes.size());
+        assertEquals(Integer.valueOf(0x1234), routes.get(0x5678).getNextHopAddress());
+        assertEquals(Integer.valueOf(0x1234), routes.get(0x1234).getNextHopAddress());
+        assertEquals(Integer.valueOf(0x3333), routes.get(0x3333).getNextHopAddress());
+
+        Map<Integer, NeighborTable> neighbors = getNeighborMap(table);
+        assertEquals(2, neighbors.size());
+        assertEquals(Integer.valueOf(210), neighbors.get(0x1234).getLqi());
+        assertEquals(NeighborTableRelationship.CHILD, neighbors.get(0x1234).getRelationship());
+        assertEquals(Integer.valueOf(150), neighbors.get(0x3333).getLqi());
+        assertEquals(new IeeeAddress("3333333333333333"), neighbors.get(0x3333).getExtendedAddress());
+
+        // Previously returned tables are not changed
+        assertEquals(Integer.valueOf(0), previous.iterator().next().getLqi());
+    }
+
+    @Test
+    public void testIdConflict() {
+        EzspNeighborTable table = new EzspNeighborTable();
+        table.handleCallback(getChildJoin(0x1234, "1111111111111111", EmberNodeType.EMBER_ROUTER, true));
+        table.handleCallback(getRouteRecord(0x5678, "5555555555555555", 200, new int[] { 0x1234 }));
+        table.handleCallback(getRouteRecord(0x3333, "3333333333333333", 150, new int[] {}));
+
+        EzspIdConflictHandler conflict = Mockito.mock(EzspIdConflictHandler.class);
+        Mockito.when(conflict.getId()).thenReturn(0x1234);
+        assertTrue(table.handleCallback(conflict));
+
+        assertEquals(1, table.getNeighbors().size());
+        Map<Integer, RoutingTable> routes = getRouteMap(table);
+        assertEquals(1, routes.size());
+        assertTrue(routes.containsKey(0x3333));
+
+        table.clear();
+        assertEquals(0, table.getNeighbors().size());
+        assertEquals(0, table.getRoutes().size());
+    }
+
+    @Test
+    public void testReconcile() {
+        EzspNeighborTable table = new EzspNeighborTable();
+        table.handleCallback(getChildJoin(0x1234, "1111111111111111", EmberNodeType.EMBER_END_DEVICE, true));
+        table.handleCallback(getRouteRecord(0x1234, "1111111111111111", 180, new int[] {}));
+        table.handleCallback(getChildJoin(0x9999, "9999999999999999", EmberNodeType.EMBER_END_DEVICE, true));
+        table.handleCallback(getRouteRecord(0x5678, "5555555555555555", 200, new int[] { 0x4444 }));
+
+        EmberNcp ncp = Mockito.mock(EmberNcp.class);
+        EmberNeighborTableEntry neighbor = Mockito.mock(EmberNeighborTableEntry.class);
+        Mockito.when(neighbor.getShortId()).thenReturn(0x4444);
+        Mockito.when(neighbor.getLongId()).thenReturn(new IeeeAddress("4444444444444444"));
+        Mockito.when(neighbor.getAverageLqi()).thenReturn(190);
+        Mockito.when(ncp.getNeighborCount()).thenReturn(1);
+        Mockito.when(ncp.getNeighbor(0)).thenReturn(neighbor);
+
+        EzspGetParentChildParametersResponse childParameters = Mockito
+                .mock(EzspGetParentChildParametersResponse.class);
+        Mockito.when(childParameters.getChildCount()).thenReturn(1);
+        Mockito.when(ncp.getChildParameters()).thenReturn(childParameters);
+        EzspGetChildDataResponse child = Mockito.mock(EzspGetChildDataResponse.class);
+        Mockito.when(child.getChildId()).thenReturn(0x1234);
+        Mockito.when(child.getChildEui64()).thenReturn(new IeeeAddress("1111111111111111"));
+        Mockito.when(child.getChildType()).thenReturn(EmberNodeType.EMBER_END_DEVICE);
+        Mockito.when(ncp.getChildInformation(0)).thenReturn(child);
+
+        Mockito.when(ncp.getConfiguration(EzspConfigId.EZSP_CONFIG_ROUTE_TABLE_SIZE)).thenReturn(3);
+        EmberRouteTableEntry route = Mockito.mock(EmberRouteTableEntry.class);
+        Mockito.when(route.getDestination()).thenReturn(0x6666);
+        Mockito.when(route.getNextHop()).thenReturn(0x4444);
+        Mockito.when(route.getStatus()).thenReturn(0);
+        EmberRouteTableEntry unused = Mockito.mock(EmberRouteTableEntry.class);
+        Mockito.when(unused.getDestination()).thenReturn(0xFFFF);
+        Mockito.when(ncp.getRouteTableEntry(ArgumentMatchers.anyInt())).thenReturn(route, unused, null);
+
+        table.reconcile(ncp);
+
+        Map<Integer, NeighborTable> neighbors = getNeighborMap(table);
+        assertEquals(2, neighbors.size());
+        assertEquals(NeighborTableRelationship.SIBLING, neighbors.get(0x4444).getRelationship());
+        assertEquals(LogicalType.ROUTER, neighbors.get(0x4444).getDeviceType());
+        assertEquals(Integer.valueOf(190), neighbors.get(0x4444).getLqi());
+        assertEquals(NeighborTableRelationship.CHILD, neighbors.get(0x1234).getRelationship());
+        assertEquals(Integer.valueOf(180), neighbors.get(0x1234).getLqi());
+
+        Map<Integer, RoutingTable> routes = getRouteMap(table);
+        assertEquals(3, routes.size());
+        assertEquals(Integer.valueOf(0x4444), routes.get(0x6666).getNextHopAddress());
+        assertEquals(Integer.valueOf(0x4444), routes.get(0x5678).getNextHopAddress());
+
+        // The route table size is only read once
+        table.reconcile(ncp);
+        Mockito.verify(ncp, Mockito.times(1)).getConfiguration(EzspConfigId.EZSP_CONFIG_ROUTE_TABLE_SIZE);
+    }
+
+    @Test
+    public void testReconcileConcurrentCallbacks() {
+        final EzspNeighborTable table = new EzspNeighborTable();
+        table.handleCallback(getChildJoin(0x1234, "1111111111111111", EmberNodeType.EMBER_END_DEVICE, true));
+
+        EmberNcp ncp = Mockito.mock(EmberNcp.class);
+        EmberNeighborTableEntry neighbor = Mockito.mock(EmberNeighborTableEntry.class);
+        Mockito.when(neighbor.getShortId()).thenReturn(0x4444);
+        Mockito.when(neighbor.getLongId()).thenReturn(new IeeeAddress("4444444444444444"));
+        Mockito.when(neighbor.getAverageLqi()).thenReturn(190);
+        Mockito.when(ncp.getNeighborCount()).thenReturn(1);
+        Mockito.when(ncp.getNeighbor(0)).thenReturn(neighbor);
+
+        EzspGetParentChildParametersResponse childParameters = Mockito
+                .mock(EzspGetParentChildParametersResponse.class);
+        Mockito.when(childParameters.getChildCount()).thenReturn(1);
+        Mockito.when(ncp.getChildParameters()).thenReturn(childParameters);
+        EzspGetChildDataResponse child = Mockito.mock(EzspGetChildDataResponse.class);
+        Mockito.when(child.getChildId()).thenReturn(0x1234);
+        Mockito.when(child.getChildEui64()).thenReturn(new IeeeAddress("1111111111111111"));
+        Mockito.when(child.getChildType()).thenReturn(EmberNodeType.EMBER_END_DEVICE);
+        Mockito.when(ncp.getChildInformation(0)).thenReturn(child);
+
+        EmberRouteTableEntry route = Mockito.mock(EmberRouteTableEntry.class);
+        Mockito.when(route.getDestination()).thenReturn(0x6666);
+        Mockito.when(route.getNextHop()).thenReturn(0x4444);
+        Mockito.when(route.getStatus()).thenReturn(0);
+        Mockito.when(ncp.getRouteTableEntry(0)).thenReturn(route);
+
+        // Callbacks are received after the neighbor and child tables are read, but before the tables are updated
+        Mockito.when(ncp.getConfiguration(EzspConfigId.EZSP_CONFIG_ROUTE_TABLE_SIZE)).thenAnswer(new Answer<Integer>() {
+            @Override
+            public Integer answer(InvocationOnMock invocation) {
+                table.handleCallback(
+                        getChildJoin(0x1234, "1111111111111111", EmberNodeType.EMBER_END_DEVICE, false));
+                table.handleCallback(
+                        getChildJoin(0x2222, "2222222222222222", EmberNodeType.EMBER_END_DEVICE, true));
+                table.handleCallback(getRouteRecord(0x6666, "6666666666666666", 150, new int[] { 0x2222 }));
+                return 1;
+            }
+        });
+
+        table.reconcile(ncp);
+
+        Map<Integer, NeighborTable> neighbors = getNeighborMap(table);
+        assertEquals(2, neighbors.size());
+        assertTrue(neighbors.containsKey(0x4444));
+        assertFalse(neighbors.containsKey(0x1234));
+        assertEquals(NeighborTableRelationship.CHILD, neighbors.get(0x2222).getRelationship());
+        assertEquals(Integer.valueOf(150), neighbors.get(0x2222).getLqi());
+
+        Map<Integer, RoutingTable> routes = getRouteMap(table);
+        assertEquals(1, routes.size());
+        assertEquals(Integer.valueOf(0x2222), routes.get(0x6666).getNextHopAddress());
+
+        // Callbacks after the reconciliation are not tracked, and the next reconciliation replaces the tables
+        table.reconcile(ncp);
+        neighbors = getNeighborMap(table);
+        assertEquals(2, neighbors.size());
+        assertTrue(neighbors.containsKey(0x1234));
+        assertEquals(Integer.valueOf(0x4444), getRouteMap(table).get(0x6666).getNextHopAddress());
+    }
+}
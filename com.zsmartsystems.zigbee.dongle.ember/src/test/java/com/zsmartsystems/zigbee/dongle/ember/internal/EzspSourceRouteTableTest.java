@@ -0,0 +1,97 @@
+/**
+ * Copyright (c) 2016-2019 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.dongle.ember.internal;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspIdConflictHandler;
+import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspIncomingRouteErrorHandler;
+import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspIncomingRouteRecordHandler;
+import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspNetworkStateResponse;
+import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspSetSourceRouteRequest;
+import com.zsmartsystems.zigbee.dongle.ember.ezsp.structure.EmberStatus;
+
+/**
+ *
+ * @author Chris Jackson
+ *
+ */
+public class EzspSourceRouteTableTest {
+    @Test
+    public void testRouteRecord() {
+        EzspSourceRouteTable table = new EzspSourceRouteTable();
+
+        EzspIncomingRouteRecordHandler routeRecord = Mockito.mock(EzspIncomingRouteRecordHandler.class);
+        Mockito.when(routeRecord.getSource()).thenReturn(0x1234);
+        Mockito.when(routeRecord.getRelayList()).thenReturn(new int[] { 0x1111, 0x2222 });
+        assertTrue(table.handleCallback(routeRecord));
+        assertFalse(table.handleCallback(Mockito.mock(EzspNetworkStateResponse.class)));
+
+        EzspSetSourceRouteRequest request = table.getSourceRouteRequest(0x1234);
+        assertNotNull(request);
+        assertEquals(0x1234, request.getDestination());
+        assertArrayEquals(new int[] { 0x1111, 0x2222 }, request.getRelayList());
+        assertNull(table.getSourceRouteRequest(0x4321));
+
+        // A neighbor doesn't need a source route
+        table.setRoute(0x1234, new int[] {});
+        assertNull(table.getSourceRouteRequest(0x1234));
+        assertEquals(0, table.size());
+    }
+
+    @Test
+    public void testRemove() {
+        EzspSourceRouteTable table = new EzspSourceRouteTable();
+        table.setRoute(0x1234, new int[] { 0x1111 });
+        table.setRoute(0x2345, new int[] { 0x1111 });
+        table.setRoute(0x3456, new int[] { 0x1111 });
+
+        EzspIncomingRouteErrorHandler routeError = Mockito.mock(EzspIncomingRouteErrorHandler.class);
+        Mockito.when(routeError.getStatus()).thenReturn(EmberStatus.EMBER_MANY_TO_ONE_ROUTE_FAILURE);
+        Mockito.when(routeError.getTarget()).thenReturn(0x1234);
+        assertFalse(table.handleCallback(routeError));
+        assertEquals(3, table.size());
+
+        Mockito.when(routeError.getStatus()).thenReturn(EmberStatus.EMBER_SOURCE_ROUTE_FAILURE);
+        assertTrue(table.handleCallback(routeError));
+        assertNull(table.getSourceRouteRequest(0x1234));
+
+        EzspIdConflictHandler conflict = Mockito.mock(EzspIdConflictHandler.class);
+        Mockito.when(conflict.getId()).thenReturn(0x2345);
+        assertTrue(table.handleCallback(conflict));
+        assertNull(table.getSourceRouteRequest(0x2345));
+        assertEquals(1, table.size());
+
+        table.clear();
+        assertEquals(0, table.size());
+    }
+
+    @Test
+    public void testLeastRecentlyUsed() {
+        EzspSourceRouteTable table = new EzspSourceRouteTable(2);
+        table.setRoute(1, new int[] { 0x1111 });
+        table.setRoute(2, new int[] { 0x1111 });
+
+        // Using route 1 means route 2 is the least recently used
+        assertNotNull(table.getSourceRouteRequest(1));
+        table.setRoute(3, new int[] { 0x1111 });
+
+        assertEquals(2, table.size());
+        assertNotNull(table.getSourceRouteRequest(1));
+        assertNull(table.getSourceRouteRequest(2));
+        assertNotNull(table.getSourceRouteRequest(3));
+    }
+}
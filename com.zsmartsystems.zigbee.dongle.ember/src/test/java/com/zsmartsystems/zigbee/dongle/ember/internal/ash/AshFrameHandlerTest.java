@@ -21,8 +21,14 @@ import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.Test;
 import org.mockito.ArgumentCaptor;
@@ -36,6 +42,7 @@ import com.zsmartsystems.zigbee.dongle.ember.internal.EzspFrameHandler;
 import com.zsmartsystems.zigbee.dongle.ember.internal.transaction.EzspSingleResponseTransaction;
 import com.zsmartsystems.zigbee.dongle.ember.internal.transaction.EzspTransaction;
 import com.zsmartsystems.zigbee.transport.ZigBeePort;
+import com.zsmartsystems.zigbee.transport.ZigBeePortReader;
 
 /**
  *
@@ -60,6 +67,9 @@ public class AshFrameHandlerTest {
             Field field = frameHandler.getClass().getDeclaredField("port");
             field.setAccessible(true);
             field.set(frameHandler, port);
+            field = frameHandler.getClass().getDeclaredField("portReader");
+            field.setAccessible(true);
+            field.set(frameHandler, new ZigBeePortReader(port, 256));
 
             privateMethod = AshFrameHandler.class.getDeclaredMethod("getPacket");
             privateMethod.setAccessible(true);
@@ -303,4 +313,285 @@ public class AshFrameHandlerTest {
 
         Mockito.verify(ezspHandler, Mockito.timeout(TIMEOUT)).handleLinkStateChange(stateCapture.capture());
     }
+
+    /**
+     * A simulated NCP port that records the ASH frames written by the host, and optionally ACKs each DATA frame after
+     * a fixed latency to simulate the round trip time of the serial link.
+     */
+    class SimulatedNcpPort extends TestPort {
+        private final BlockingQueue<Integer> input = new LinkedBlockingQueue<>();
+        private final List<Integer> frameData = new ArrayList<>();
+        private final List<AshFrame> hostFrames = Collections.synchronizedList(new ArrayList<AshFrame>());
+        private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        private final int ackLatency;
+        private int ncpAckNum = 0;
+        private int outstanding = 0;
+        private int maxOutstanding = 0;
+        private int framesReceived = 0;
+
+        SimulatedNcpPort(int ackLatency) {
+            super(null, null);
+            this.ackLatency = ackLatency;
+        }
+
+        @Override
+        public void write(int value) {
+            if (value != 0x7E) {
+                frameData.add(value);
+                return;
+            }
+            int[] buffer = new int[frameData.size()];
+            for (int cnt = 0; cnt < buffer.length; cnt++) {
+                buffer[cnt] = frameData.get(cnt);
+            }
+            frameData.clear();
+
+            AshFrame frame = AshFrame.createFromInput(buffer);
+            if (frame == null) {
+                return;
+            }
+            hostFrames.add(frame);
+            if (ackLatency >= 0 && frame.getFrameType() == AshFrame.FrameType.DATA) {
+                handleData(frame);
+            }
+        }
+
+        private synchronized void handleData(AshFrame frame) {
+            if (frame.getFrmNum() != ncpAckNum) {
+                return;
+            }
+            ncpAckNum = (ncpAckNum + 1) & 0x07;
+            framesReceived++;
+            outstanding++;
+            maxOutstanding = Math.max(maxOutstanding, outstanding);
+
+            final int ackNum = ncpAckNum;
+            scheduler.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    synchronized (SimulatedNcpPort.this) {
+                        outstanding--;
+                    }
+                    inject(new AshFrameAck(ackNum));
+                }
+            }, ackLatency, TimeUnit.MILLISECONDS);
+        }
+
+        void inject(AshFrame frame) {
+            for (int value : frame.getOutputBuffer()) {
+                input.add(value);
+            }
+        }
+
+        @Override
+        public int read() {
+            return read(100);
+        }
+
+        @Override
+        public int read(int timeout) {
+            try {
+                Integer value = input.poll(timeout, TimeUnit.MILLISECONDS);
+                return value == null ? -1 : value;
+            } catch (InterruptedException e) {
+                return -1;
+            }
+        }
+
+        @Override
+        public void close() {
+            scheduler.shutdownNow();
+        }
+
+        List<AshFrameData> getDataFrames() {
+            List<AshFrameData> dataFrames = new ArrayList<>();
+            synchronized (hostFrames) {
+                for (AshFrame frame : hostFrames) {
+                    if (frame instanceof AshFrameData) {
+                        dataFrames.add((AshFrameData) frame);
+                    }
+                }
+            }
+            return dataFrames;
+        }
+
+        List<AshFrame> getHostFrames(AshFrame.FrameType frameType) {
+            List<AshFrame> frames = new ArrayList<>();
+            synchronized (hostFrames) {
+                for (AshFrame frame : hostFrames) {
+                    if (frame.getFrameType() == frameType) {
+                        frames.add(frame);
+                    }
+                }
+            }
+            return frames;
+        }
+
+        synchronized int getFramesReceived() {
+            return framesReceived;
+        }
+
+        synchronized int getMaxOutstanding() {
+            return maxOutstanding;
+        }
+    }
+
+    private AshFrameHandler startConnectedHandler(ZigBeePort port, int txWindow) throws Exception {
+        AshFrameHandler frameHandler = new AshFrameHandler(Mockito.mock(EzspFrameHandler.class));
+        frameHandler.setTxWindow(txWindow);
+        TestUtilities.setField(AshFrameHandler.class, frameHandler, "stateConnected", true);
+        frameHandler.start(port);
+        return frameHandler;
+    }
+
+    private EzspFrameRequest getRequest(int sequence) {
+        EzspFrameRequest request = Mockito.mock(EzspFrameRequest.class);
+        Mockito.when(request.serialize()).thenReturn(new int[] { sequence, 0x00, 0x00, 0x04 });
+        return request;
+    }
+
+    private AshFrame getNcpDataFrame(int frmNum, int ackNum) {
+        AshFrameData frame = new AshFrameData(getRequest(0));
+        frame.setFrmNum(frmNum);
+        frame.setAckNum(ackNum);
+        return frame;
+    }
+
+    private void waitForFrames(SimulatedNcpPort port, int frames) throws InterruptedException {
+        long end = System.currentTimeMillis() + TIMEOUT;
+        while (port.getFramesReceived() < frames && System.currentTimeMillis() < end) {
+            Thread.sleep(1);
+        }
+        assertEquals(frames, port.getFramesReceived());
+    }
+
+    private long measureThroughput(int txWindow, int frames, int latency) throws Exception {
+        SimulatedNcpPort port = new SimulatedNcpPort(latency);
+        AshFrameHandler frameHandler = startConnectedHandler(port, txWindow);
+
+        long start = System.nanoTime();
+        for (int cnt = 0; cnt < frames; cnt++) {
+            frameHandler.queueFrame(getRequest(cnt));
+        }
+        waitForFrames(port, frames);
+        long time = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertEquals(txWindow, port.getMaxOutstanding());
+        frameHandler.close();
+        port.close();
+        return time;
+    }
+
+    @Test
+    public void testTxWindowThroughput() throws Exception {
+        // With a window of 1, every frame after the first waits a full round trip for the previous ACK
+        assertTrue(measureThroughput(1, 21, 50) >= 20 * 50);
+
+        // With a full window, the same frames are sent faster than is possible with one frame per round trip
+        assertTrue(measureThroughput(AshFrameHandler.TX_WINDOW_MAX, 21, 50) < 20 * 50);
+    }
+
+    @Test
+    public void testTxWindowFrameNumbers() throws Exception {
+        SimulatedNcpPort port = new SimulatedNcpPort(-1);
+        AshFrameHandler frameHandler = startConnectedHandler(port, 3);
+        assertEquals(3, frameHandler.getTxWindow());
+
+        for (int cnt = 0; cnt < 5; cnt++) {
+            frameHandler.queueFrame(getRequest(cnt));
+        }
+
+        // Only the window is sent before an ACK is received
+        List<AshFrameData> dataFrames = port.getDataFrames();
+        assertEquals(3, dataFrames.size());
+        for (int cnt = 0; cnt < 3; cnt++) {
+            assertEquals(cnt, dataFrames.get(cnt).getFrmNum());
+            assertFalse(dataFrames.get(cnt).getReTx());
+        }
+
+        // ACK the first two frames and the next two are sent
+        port.inject(new AshFrameAck(2));
+        Thread.sleep(200);
+        dataFrames = port.getDataFrames();
+        assertEquals(5, dataFrames.size());
+        assertEquals(3, dataFrames.get(3).getFrmNum());
+        assertEquals(4, dataFrames.get(4).getFrmNum());
+
+        // An ackNum outside the window is ignored
+        port.inject(new AshFrameAck(7));
+        port.inject(new AshFrameNak(2));
+        Thread.sleep(200);
+
+        // The NAK causes all outstanding frames to be resent in order
+        dataFrames = port.getDataFrames();
+        assertEquals(8, dataFrames.size());
+        for (int cnt = 0; cnt < 3; cnt++) {
+            assertEquals(cnt + 2, dataFrames.get(cnt + 5).getFrmNum());
+            assertTrue(dataFrames.get(cnt + 5).getReTx());
+        }
+
+        frameHandler.close();
+        port.close();
+    }
+
+    @Test
+    public void testRetryTimerGoBackN() throws Exception {
+        SimulatedNcpPort port = new SimulatedNcpPort(-1);
+        AshFrameHandler frameHandler = new AshFrameHandler(Mockito.mock(EzspFrameHandler.class));
+        frameHandler.setTxWindow(4);
+        TestUtilities.setField(AshFrameHandler.class, frameHandler, "receiveTimeout", 200);
+        TestUtilities.setField(AshFrameHandler.class, frameHandler, "stateConnected", true);
+        frameHandler.start(port);
+
+        for (int cnt = 0; cnt < 3; cnt++) {
+            frameHandler.queueFrame(getRequest(cnt));
+        }
+        assertEquals(3, port.getDataFrames().size());
+
+        // All outstanding frames are resent when the timer expires
+        long end = System.currentTimeMillis() + TIMEOUT;
+        while (port.getDataFrames().size() < 6 && System.currentTimeMillis() < end) {
+            Thread.sleep(10);
+        }
+        List<AshFrameData> dataFrames = port.getDataFrames();
+        for (int cnt = 0; cnt < 3; cnt++) {
+            assertEquals(cnt, dataFrames.get(cnt + 3).getFrmNum());
+            assertTrue(dataFrames.get(cnt + 3).getReTx());
+        }
+
+        frameHandler.close();
+        port.close();
+    }
+
+    @Test
+    public void testRejectCondition() throws Exception {
+        SimulatedNcpPort port = new SimulatedNcpPort(-1);
+        AshFrameHandler frameHandler = startConnectedHandler(port, 1);
+
+        // Two out of sequence frames only generate a single NAK
+        port.inject(getNcpDataFrame(1, 0));
+        port.inject(getNcpDataFrame(2, 0));
+        Thread.sleep(200);
+        assertEquals(1, port.getHostFrames(AshFrame.FrameType.NAK).size());
+        assertEquals(0, port.getHostFrames(AshFrame.FrameType.ACK).size());
+
+        // The expected frame clears the reject condition
+        port.inject(getNcpDataFrame(0, 0));
+        Thread.sleep(200);
+        List<AshFrame> acks = port.getHostFrames(AshFrame.FrameType.ACK);
+        assertEquals(1, acks.size());
+        assertEquals(1, acks.get(0).getAckNum());
+
+        port.inject(getNcpDataFrame(3, 0));
+        Thread.sleep(200);
+        assertEquals(2, port.getHostFrames(AshFrame.FrameType.NAK).size());
+
+        frameHandler.close();
+        port.close();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTxWindowLimits() {
+        new AshFrameHandler(null).setTxWindow(AshFrameHandler.TX_WINDOW_MAX + 1);
+    }
 }
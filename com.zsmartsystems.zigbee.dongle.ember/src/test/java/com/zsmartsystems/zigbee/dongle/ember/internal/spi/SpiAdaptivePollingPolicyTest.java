@@ -0,0 +1,70 @@
+/**
+ * Copyright (c) 2016-2019 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.dongle.ember.internal.spi;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ *
+ * @author Chris Jackson
+ *
+ */
+public class SpiAdaptivePollingPolicyTest {
+    @Test
+    public void testBackoff() {
+        SpiAdaptivePollingPolicy policy = new SpiAdaptivePollingPolicy(10, 100);
+        assertEquals(10, policy.getPeriod());
+
+        policy.frameReceived(false);
+        assertEquals(20, policy.getPeriod());
+        policy.frameReceived(false);
+        assertEquals(40, policy.getPeriod());
+        policy.frameReceived(false);
+        policy.frameReceived(false);
+        assertEquals(100, policy.getPeriod());
+
+        policy.frameReceived(true);
+        assertEquals(10, policy.getPeriod());
+
+        policy.frameReceived(false);
+        policy.frameReceived(false);
+        policy.frameSent();
+        assertEquals(10, policy.getPeriod());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidPeriod() {
+        new SpiAdaptivePollingPolicy(100, 10);
+    }
+
+    @Test
+    public void testPoll() throws Exception {
+        final Semaphore polls = new Semaphore(0);
+        SpiAdaptivePollingPolicy policy = new SpiAdaptivePollingPolicy(5, 50);
+        policy.start(new Runnable() {
+            @Override
+            public void run() {
+                polls.release();
+            }
+        });
+
+        // The poll is repeated even if no response is received
+        assertTrue(polls.tryAcquire(2, 1000, TimeUnit.MILLISECONDS));
+
+        policy.stop();
+        polls.drainPermits();
+        Thread.sleep(100);
+        assertEquals(0, polls.availablePermits());
+    }
+}
@@ -24,7 +24,10 @@ import java.util.List;
 
 import org.junit.Test;
 import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
 import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 
 import com.zsmartsystems.zigbee.dongle.ember.ezsp.EzspFrame;
 import com.zsmartsystems.zigbee.dongle.ember.ezsp.EzspFrameRequest;
@@ -33,6 +36,7 @@ import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspVersionRequest;
 import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspVersionResponse;
 import com.zsmartsystems.zigbee.dongle.ember.internal.EzspFrameHandler;
 import com.zsmartsystems.zigbee.transport.ZigBeePort;
+import com.zsmartsystems.zigbee.transport.ZigBeePortReader;
 
 /**
  * Tests for the low level frame handler to manage the SPI transport layer
@@ -61,6 +65,9 @@ public class SpiFrameHandlerTest {
             Field field = frameHandler.getClass().getDeclaredField("port");
             field.setAccessible(true);
             field.set(frameHandler, port);
+            field = frameHandler.getClass().getDeclaredField("portReader");
+            field.setAccessible(true);
+            field.set(frameHandler, new ZigBeePortReader(port, 256));
 
             privateMethod = SpiFrameHandler.class.getDeclaredMethod("getPacket");
             privateMethod.setAccessible(true);
@@ -286,6 +293,75 @@ public class SpiFrameHandlerTest {
         assertEquals(Integer.valueOf(0xA7), portOutData.get(6));
     }
 
+    private void invokeMethod(SpiFrameHandler handler, String methodName, int[] data) throws Exception {
+        Method privateMethod;
+        if (data == null) {
+            privateMethod = SpiFrameHandler.class.getDeclaredMethod(methodName);
+            privateMethod.setAccessible(true);
+            privateMethod.invoke(handler);
+        } else {
+            privateMethod = SpiFrameHandler.class.getDeclaredMethod(methodName, int[].class);
+            privateMethod.setAccessible(true);
+            privateMethod.invoke(handler, data);
+        }
+    }
+
+    @Test
+    public void testPollingPolicy() throws Exception {
+        EzspFrame.setEzspVersion(4);
+        ZigBeePort port = Mockito.mock(ZigBeePort.class);
+        Mockito.when(port.read(ArgumentMatchers.any(int[].class), ArgumentMatchers.anyInt(), ArgumentMatchers.anyInt(),
+                ArgumentMatchers.anyInt())).thenAnswer(new Answer<Integer>() {
+                    @Override
+                    public Integer answer(InvocationOnMock invocation) throws Throwable {
+                        Thread.sleep(10);
+                        return -1;
+                    }
+                });
+        SpiPollingPolicy policy = Mockito.mock(SpiPollingPolicy.class);
+
+        SpiFrameHandler handler = new SpiFrameHandler(Mockito.mock(EzspFrameHandler.class));
+        handler.setPollingPolicy(policy);
+        handler.start(port);
+
+        ArgumentCaptor<Runnable> pollTaskCaptor = ArgumentCaptor.forClass(Runnable.class);
+        Mockito.verify(policy, Mockito.times(1)).start(pollTaskCaptor.capture());
+
+        // A frame sent by the host is notified to the policy
+        EzspVersionRequest command = new EzspVersionRequest();
+        command.setDesiredProtocolVersion(4);
+        sendEzspFrame(handler, command);
+        ArgumentCaptor<int[]> outputCaptor = ArgumentCaptor.forClass(int[].class);
+        Mockito.verify(port, Mockito.times(1)).write(outputCaptor.capture(), ArgumentMatchers.eq(0),
+                ArgumentMatchers.anyInt());
+        Mockito.verify(policy, Mockito.times(1)).frameSent();
+
+        // The NCP has no callbacks
+        invokeMethod(handler, "processSpiCommand", new int[] { 0xFE, 0x03, 0x01, 0x80, 0x07 });
+        Mockito.verify(policy, Mockito.times(1)).frameReceived(false);
+        invokeMethod(handler, "sendNextFrame", null);
+        Mockito.verify(port, Mockito.times(1)).write(ArgumentMatchers.any(int[].class), ArgumentMatchers.eq(0),
+                ArgumentMatchers.anyInt());
+
+        // The policy requests a poll - this is not notified as a host frame
+        pollTaskCaptor.getValue().run();
+        Mockito.verify(port, Mockito.times(2)).write(outputCaptor.capture(), ArgumentMatchers.eq(0),
+                ArgumentMatchers.anyInt());
+        assertEquals(0x06, outputCaptor.getValue()[4]);
+        Mockito.verify(policy, Mockito.times(1)).frameSent();
+
+        // A further callback is pending, so the NCP is polled again immediately
+        invokeMethod(handler, "processSpiCommand", new int[] { 0xFE, 0x03, 0x02, 0x84, 0x07 });
+        Mockito.verify(policy, Mockito.times(1)).frameReceived(true);
+        invokeMethod(handler, "sendNextFrame", null);
+        Mockito.verify(port, Mockito.times(3)).write(outputCaptor.capture(), ArgumentMatchers.eq(0),
+                ArgumentMatchers.anyInt());
+        assertEquals(0x06, outputCaptor.getValue()[4]);
+
+        handler.close();
+        Mockito.verify(policy, Mockito.times(1)).stop();
+    }
+
     class TestPort implements ZigBeePort {
         InputStream input;
         OutputStream output;
@@ -0,0 +1,117 @@
+/**
+ * Copyright (c) 2016-2019 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.dongle.ember.internal.transaction;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+
+import com.zsmartsystems.zigbee.dongle.ember.ezsp.EzspFrameResponse;
+import com.zsmartsystems.zigbee.dongle.ember.ezsp.EzspFrameTest;
+import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspVersionRequest;
+import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspVersionResponse;
+
+/**
+ *
+ * @author Chris Jackson
+ *
+ */
+public class EzspTransactionRegistryTest extends EzspFrameTest {
+    private EzspTransaction getVersionTransaction(int sequence) {
+        EzspVersionRequest version = new EzspVersionRequest();
+        version.setSequenceNumber(sequence);
+        version.setDesiredProtocolVersion(4);
+
+        return new EzspSingleResponseTransaction(version, EzspVersionResponse.class);
+    }
+
+    @Test
+    public void testIndexedResponse() throws Exception {
+        EzspTransactionRegistry registry = new EzspTransactionRegistry();
+
+        EzspTransaction transaction = getVersionTransaction(3);
+        CompletableFuture<EzspTransaction> future = registry.register(transaction);
+        assertFalse(future.isDone());
+        assertEquals(1, registry.size());
+
+        assertFalse(registry.handleResponse(new EzspVersionResponse(getPacketData("04 80 00 04 02 00 58"))));
+        assertFalse(future.isDone());
+
+        assertTrue(registry.handleResponse(new EzspVersionResponse(getPacketData("03 80 00 04 02 00 58"))));
+        assertTrue(future.isDone());
+        assertEquals(transaction, future.get());
+        assertTrue(transaction.getResponse() instanceof EzspVersionResponse);
+        assertEquals(0, registry.size());
+    }
+
+    @Test
+    public void testDuplicateKey() throws Exception {
+        EzspTransactionRegistry registry = new EzspTransactionRegistry();
+
+        CompletableFuture<EzspTransaction> future1 = registry.register(getVersionTransaction(3));
+        CompletableFuture<EzspTransaction> future2 = registry.register(getVersionTransaction(3));
+        assertEquals(2, registry.size());
+
+        assertTrue(registry.handleResponse(new EzspVersionResponse(getPacketData("03 80 00 04 02 00 58"))));
+        assertTrue(future1.isDone());
+        assertTrue(future2.isDone());
+        assertEquals(0, registry.size());
+    }
+
+    @Test
+    public void testScannedResponse() throws Exception {
+        EzspTransactionRegistry registry = new EzspTransactionRegistry();
+
+        EzspTransaction transaction = Mockito.mock(EzspTransaction.class);
+        Mockito.when(transaction.isMatch(ArgumentMatchers.any(EzspFrameResponse.class))).thenReturn(false, true);
+        CompletableFuture<EzspTransaction> future = registry.register(transaction);
+
+        EzspFrameResponse response = Mockito.mock(EzspFrameResponse.class);
+        assertFalse(registry.handleResponse(response));
+        assertFalse(future.isDone());
+
+        assertTrue(registry.handleResponse(response));
+        assertEquals(transaction, future.get());
+        assertEquals(0, registry.size());
+        Mockito.verify(transaction, Mockito.times(2)).isMatch(response);
+    }
+
+    @Test
+    public void testClear() throws Exception {
+        EzspTransactionRegistry registry = new EzspTransactionRegistry();
+
+        EzspTransaction transaction = getVersionTransaction(5);
+        CompletableFuture<EzspTransaction> future1 = registry.register(transaction);
+        CompletableFuture<EzspTransaction> future2 = registry.register(Mockito.mock(EzspTransaction.class));
+
+        registry.clear();
+        assertEquals(transaction, future1.get());
+        assertNull(transaction.getResponse());
+        assertTrue(future2.isDone());
+        assertEquals(0, registry.size());
+    }
+
+    @Test
+    public void testCancel() {
+        EzspTransactionRegistry registry = new EzspTransactionRegistry();
+
+        CompletableFuture<EzspTransaction> future = registry.register(getVersionTransaction(6));
+        assertEquals(1, registry.size());
+
+        future.cancel(true);
+        assertEquals(0, registry.size());
+        assertFalse(registry.handleResponse(new EzspVersionResponse(getPacketData("06 80 00 04 02 00 58"))));
+    }
+}
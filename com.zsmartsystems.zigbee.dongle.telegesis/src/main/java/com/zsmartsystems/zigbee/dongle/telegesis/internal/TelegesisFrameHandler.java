@@ -32,6 +32,7 @@ import com.zsmartsystems.zigbee.dongle.telegesis.internal.protocol.TelegesisEven
 import com.zsmartsystems.zigbee.dongle.telegesis.internal.protocol.TelegesisFrame;
 import com.zsmartsystems.zigbee.dongle.telegesis.internal.protocol.TelegesisStatusCode;
 import com.zsmartsystems.zigbee.transport.ZigBeePort;
+import com.zsmartsystems.zigbee.transport.ZigBeePortReader;
 
 /**
  * Frame parser for the Telegesis AT command protocol.
@@ -67,6 +68,11 @@ public class TelegesisFrameHandler {
      */
     private ZigBeePort serialPort;
 
+    /**
+     * Buffers the data received from the port
+     */
+    private ZigBeePortReader portReader;
+
     /**
      * The parser parserThread.
      */
@@ -156,6 +162,7 @@ public class TelegesisFrameHandler {
     public void start(final ZigBeePort serialPort) {
 
         this.serialPort = serialPort;
+        this.portReader = new ZigBeePortReader(serialPort, 120);
 
         timeoutScheduler = Executors.newSingleThreadScheduledExecutor();
         pollingScheduler = Executors.newSingleThreadScheduledExecutor();
@@ -235,7 +242,7 @@ public class TelegesisFrameHandler {
 
         logger.trace("TELEGESIS: Get Packet");
         while (!closeHandler) {
-            int val = serialPort.read();
+            int val = portReader.read();
             if (val == -1) {
                 // Timeout
                 continue;
@@ -367,12 +374,13 @@ public class TelegesisFrameHandler {
             sentCommand = nextFrame;
 
             // Send the data
+            int[] frameData = nextFrame.serialize();
             StringBuilder builder = new StringBuilder();
-            for (int sendByte : nextFrame.serialize()) {
+            for (int sendByte : frameData) {
                 builder.append(String.format("%c", sendByte));
-                serialPort.write(sendByte);
             }
             logger.debug("TX Telegesis Data:{}", builder.toString());
+            serialPort.write(frameData, 0, frameData.length);
 
             // Start the timeout
             startTimer();
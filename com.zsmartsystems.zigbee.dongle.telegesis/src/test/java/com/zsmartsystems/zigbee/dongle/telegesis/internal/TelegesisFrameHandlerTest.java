@@ -29,6 +29,7 @@ import com.zsmartsystems.zigbee.dongle.telegesis.internal.protocol.TelegesisEven
 import com.zsmartsystems.zigbee.dongle.telegesis.internal.protocol.TelegesisNetworkLostEvent;
 import com.zsmartsystems.zigbee.dongle.telegesis.internal.protocol.TelegesisSleepyDeviceAnnounceEvent;
 import com.zsmartsystems.zigbee.transport.ZigBeePort;
+import com.zsmartsystems.zigbee.transport.ZigBeePortReader;
 
 /**
  *
@@ -51,6 +52,9 @@ public class TelegesisFrameHandlerTest {
             Field field = frameHandler.getClass().getDeclaredField("serialPort");
             field.setAccessible(true);
             field.set(frameHandler, port);
+            field = frameHandler.getClass().getDeclaredField("portReader");
+            field.setAccessible(true);
+            field.set(frameHandler, new ZigBeePortReader(port, 256));
 
             privateMethod = TelegesisFrameHandler.class.getDeclaredMethod("getPacket");
             privateMethod.setAccessible(true);
@@ -31,6 +31,7 @@ import com.zsmartsystems.zigbee.dongle.xbee.internal.protocol.XBeeEvent;
 import com.zsmartsystems.zigbee.dongle.xbee.internal.protocol.XBeeFrame;
 import com.zsmartsystems.zigbee.dongle.xbee.internal.protocol.XBeeResponse;
 import com.zsmartsystems.zigbee.transport.ZigBeePort;
+import com.zsmartsystems.zigbee.transport.ZigBeePortReader;
 
 /**
  * Frame parser for the XBee API command protocol.
@@ -66,6 +67,11 @@ public class XBeeFrameHandler {
      */
     private ZigBeePort serialPort;
 
+    /**
+     * Buffers the data received from the port
+     */
+    private ZigBeePortReader portReader;
+
     /**
      * The parser parserThread.
      */
@@ -147,6 +153,7 @@ public class XBeeFrameHandler {
         frameId.set(1);
 
         this.serialPort = serialPort;
+        this.portReader = new ZigBeePortReader(serialPort, 180);
         this.timeoutScheduler = Executors.newSingleThreadScheduledExecutor();
 
         // Clear anything in the receive buffer before we start
@@ -212,7 +219,7 @@ public class XBeeFrameHandler {
     private void emptyRxBuffer() {
         logger.debug("XBeeFrameHandler clearing receive buffer.");
         while (true) {
-            int val = serialPort.read(100);
+            int val = portReader.read(100);
             if (val == -1) {
                 // Timeout
                 break;
@@ -237,7 +244,7 @@ public class XBeeFrameHandler {
 
         logger.trace("XBEE: Get Packet");
         while (!closeHandler) {
-            int val = serialPort.read();
+            int val = portReader.read();
             if (val == -1) {
                 // Timeout
                 continue;
@@ -356,21 +363,26 @@ public class XBeeFrameHandler {
             // Remember the command we're processing
             sentCommand = nextFrame;
 
-            serialPort.write(XBEE_FLAG);
-
-            // Send the data
+            // Escape the data into a single block - in the worst case every byte is escaped
+            int[] frameData = nextFrame.serialize();
+            int[] outputBuffer = new int[frameData.length * 2 + 1];
+            int outputLength = 0;
+            outputBuffer[outputLength++] = XBEE_FLAG;
             StringBuilder builder = new StringBuilder();
-            for (int sendByte : nextFrame.serialize()) {
+            for (int sendByte : frameData) {
                 builder.append(String.format(" %02X", sendByte));
                 if (escapeCodes.contains(sendByte)) {
-                    serialPort.write(XBEE_ESCAPE);
-                    serialPort.write(sendByte ^ XBEE_XOR);
+                    outputBuffer[outputLength++] = XBEE_ESCAPE;
+                    outputBuffer[outputLength++] = sendByte ^ XBEE_XOR;
                 } else {
-                    serialPort.write(sendByte);
+                    outputBuffer[outputLength++] = sendByte;
                 }
             }
             logger.debug("TX XBEE Data:{}", builder.toString());
 
+            // Send the data
+            serialPort.write(outputBuffer, 0, outputLength);
+
             // Start the timeout
             startTimer();
         }
@@ -22,6 +22,7 @@ import java.lang.reflect.Method;
 import org.junit.Test;
 
 import com.zsmartsystems.zigbee.transport.ZigBeePort;
+import com.zsmartsystems.zigbee.transport.ZigBeePortReader;
 
 /**
  *
@@ -48,6 +49,9 @@ public class XBeeFrameHandlerTest {
             Field field = frameHandler.getClass().getDeclaredField("serialPort");
             field.setAccessible(true);
             field.set(frameHandler, port);
+            field = frameHandler.getClass().getDeclaredField("portReader");
+            field.setAccessible(true);
+            field.set(frameHandler, new ZigBeePortReader(port, 256));
 
             privateMethod = XBeeFrameHandler.class.getDeclaredMethod("getPacket");
             privateMethod.setAccessible(true);
@@ -18,6 +18,10 @@ import jssc.SerialPortException;
 
 /**
  * The default/reference Java serial port implementation using serial events to provide a non-blocking read call.
+ * <p>
+ * Received data is passed from the serial event thread to the reading thread through a lock free
+ * {@link ZigBeeSerialRingBuffer}. If the buffer fills, newly received data is discarded and counted rather than
+ * overwriting data that has not been read - see {@link #getOverflowCount()}.
  *
  * @author Chris Jackson
  */
@@ -48,41 +52,44 @@ public class ZigBeeSerialPort implements ZigBeePort, SerialPortEventListener {
     private final FlowControl flowControl;
 
     /**
-     * The circular fifo queue for receive data
+     * The default size of the receive buffer in bytes
      */
-    private int[] buffer = new int[512];
+    public static final int DEFAULT_RECEIVE_BUFFER_SIZE = 4096;
 
     /**
-     * The receive buffer end pointer (where we put the newly received data)
+     * The receive buffer
      */
-    private int end = 0;
+    private final ZigBeeSerialRingBuffer receiveBuffer;
 
     /**
-     * The receive buffer start pointer (where we take the data to pass to the application)
+     * Buffer used for single byte reads
      */
-    private int start = 0;
+    private final int[] readValue = new int[1];
 
     /**
-     * The length of the receive buffer
-     */
-    private int maxLength = 512;
-
-    /**
-     * Synchronisation object for buffer queue manipulation
+     * Constructor setting port name and baud rate.
+     *
+     * @param portName the port name
+     * @param baudRate the baud rate
+     * @param flowControl to use flow control
      */
-    private Object bufferSynchronisationObject = new Object();
+    public ZigBeeSerialPort(String portName, int baudRate, FlowControl flowControl) {
+        this(portName, baudRate, flowControl, DEFAULT_RECEIVE_BUFFER_SIZE);
+    }
 
     /**
-     * Constructor setting port name and baud rate.
+     * Constructor setting port name, baud rate and the size of the receive buffer.
      *
      * @param portName the port name
      * @param baudRate the baud rate
      * @param flowControl to use flow control
+     * @param receiveBufferSize the size of the receive buffer in bytes. This is rounded up to a power of 2.
      */
-    public ZigBeeSerialPort(String portName, int baudRate, FlowControl flowControl) {
+    public ZigBeeSerialPort(String portName, int baudRate, FlowControl flowControl, int receiveBufferSize) {
         this.portName = portName;
         this.baudRate = baudRate;
         this.flowControl = flowControl;
+        this.receiveBuffer = new ZigBeeSerialRingBuffer(receiveBufferSize);
     }
 
     @Override
@@ -128,6 +135,7 @@ public class ZigBeeSerialPort implements ZigBeePort, SerialPortEventListener {
 
         logger.debug("Opening port {} at {} baud with {}.", portName, baudRate, flowControl);
 
+        receiveBuffer.open();
         serialPort = new jssc.SerialPort(portName);
         try {
             serialPort.openPort();
@@ -161,8 +169,8 @@ public class ZigBeeSerialPort implements ZigBeePort, SerialPortEventListener {
                     serialPort.removeEventListener();
                     serialPort.closePort();
                     serialPort = null;
-                    this.notify();
                 }
+                receiveBuffer.close();
 
                 logger.info("Serial port '" + portName + "' closed.");
             }
@@ -183,6 +191,22 @@ public class ZigBeeSerialPort implements ZigBeePort, SerialPortEventListener {
         }
     }
 
+    @Override
+    public void write(int[] data, int offset, int length) {
+        if (serialPort == null) {
+            return;
+        }
+        byte[] bytes = new byte[length];
+        for (int cnt = 0; cnt < length; cnt++) {
+            bytes[cnt] = (byte) data[offset + cnt];
+        }
+        try {
+            serialPort.writeBytes(bytes);
+        } catch (SerialPortException e) {
+            e.printStackTrace();
+        }
+    }
+
     @Override
     public int read() {
         return read(9999999);
@@ -190,54 +214,30 @@ public class ZigBeeSerialPort implements ZigBeePort, SerialPortEventListener {
 
     @Override
     public int read(int timeout) {
-        long endTime = System.currentTimeMillis() + timeout;
-
-        try {
-            while (System.currentTimeMillis() < endTime) {
-                synchronized (bufferSynchronisationObject) {
-                    if (start != end) {
-                        int value = buffer[start++];
-                        if (start >= maxLength) {
-                            start = 0;
-                        }
-                        return value;
-                    }
-                }
-
-                synchronized (this) {
-                    if (serialPort == null) {
-                        return -1;
-                    }
-
-                    wait(endTime - System.currentTimeMillis());
-                }
-            }
+        if (receiveBuffer.read(readValue, 0, 1, timeout) != 1) {
             return -1;
-        } catch (InterruptedException e) {
         }
-        return -1;
+        return readValue[0];
+    }
+
+    @Override
+    public int read(int[] data, int offset, int length, int timeout) {
+        return receiveBuffer.read(data, offset, length, timeout);
     }
 
     @Override
     public void serialEvent(SerialPortEvent event) {
         if (event.isRXCHAR() & event.getEventValue() > 0) {
             try {
-                int[] input = serialPort.readIntArray();
+                byte[] input = serialPort.readBytes();
                 if (input == null) {
                     return;
                 }
 
-                synchronized (bufferSynchronisationObject) {
-                    for (int recv : input) {
-                        buffer[end++] = recv;
-                        if (end >= maxLength) {
-                            end = 0;
-                        }
-                    }
-                }
-
-                synchronized (this) {
-                    this.notify();
+                int count = receiveBuffer.write(input, 0, input.length);
+                if (count != input.length) {
+                    logger.debug("Serial port '{}' receive buffer overflow: {} bytes discarded", portName,
+                            input.length - count);
                 }
             } catch (SerialPortException e) {
                 logger.error("Error while handling serial event.", e);
@@ -247,9 +247,16 @@ public class ZigBeeSerialPort implements ZigBeePort, SerialPortEventListener {
 
     @Override
     public void purgeRxBuffer() {
-        synchronized (bufferSynchronisationObject) {
-            start = 0;
-            end = 0;
-        }
+        receiveBuffer.clear();
+    }
+
+    /**
+     * Gets the number of received bytes that have been discarded as the receive buffer was full. If this is non-zero,
+     * the application is not reading data quickly enough, or the receive buffer is too small.
+     *
+     * @return the number of bytes lost to receive buffer overflow
+     */
+    public long getOverflowCount() {
+        return receiveBuffer.getOverflowCount();
     }
 }
\ No newline at end of file
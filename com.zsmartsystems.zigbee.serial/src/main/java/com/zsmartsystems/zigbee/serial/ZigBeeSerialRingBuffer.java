@@ -0,0 +1,203 @@
+/**
+ * Copyright (c) 2016-2019 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.serial;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A lock free single producer, single consumer ring buffer for data received from a serial port. The producer is the
+ * serial port event thread, which adds data with {@link #write(byte[], int, int)}, and the consumer is the frame
+ * handler receive thread, which takes data with {@link #read(int[], int, int, long)}.
+ * <p>
+ * A consumer waiting for data is parked and is unparked by the producer when data is added. If the producer adds data
+ * faster than the consumer removes it, the data that does not fit is discarded rather than overwriting data that has
+ * not yet been read, and the number of discarded bytes is counted in {@link #getOverflowCount()}.
+ *
+ * @author Chris Jackson
+ */
+public class ZigBeeSerialRingBuffer {
+    private final byte[] buffer;
+    private final int mask;
+
+    /**
+     * The index of the next byte to be read. Only written by the consumer.
+     */
+    private final AtomicLong head = new AtomicLong();
+
+    /**
+     * The index of the next byte to be written. Only written by the producer.
+     */
+    private final AtomicLong tail = new AtomicLong();
+
+    /**
+     * The number of bytes discarded as the buffer was full
+     */
+    private final AtomicLong overflowCount = new AtomicLong();
+
+    /**
+     * The consumer thread if it is parked waiting for data
+     */
+    private volatile Thread waiter;
+
+    private volatile boolean closed;
+
+    /**
+     * Creates the ring buffer
+     *
+     * @param capacity the minimum number of bytes the buffer can hold. This is rounded up to a power of 2.
+     */
+    public ZigBeeSerialRingBuffer(int capacity) {
+        if (capacity < 1 || capacity > (1 << 30)) {
+            throw new IllegalArgumentException("Capacity must be between 1 and 2^30");
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        buffer = new byte[size];
+        mask = size - 1;
+    }
+
+    /**
+     * Adds received data to the buffer. This must only be called from the producer thread.
+     *
+     * @param data the received data
+     * @param offset the offset of the first byte in data
+     * @param length the number of bytes to add
+     * @return the number of bytes added. If this is less than length, the remaining bytes were discarded.
+     */
+    public int write(byte[] data, int offset, int length) {
+        long currentTail = tail.get();
+        int free = buffer.length - (int) (currentTail - head.get());
+        int count = Math.min(length, free);
+        if (count < length) {
+            overflowCount.addAndGet(length - count);
+        }
+
+        for (int cnt = 0; cnt < count; cnt++) {
+            buffer[(int) (currentTail + cnt) & mask] = data[offset + cnt];
+        }
+        if (count != 0) {
+            tail.set(currentTail + count);
+        }
+
+        Thread parked = waiter;
+        if (parked != null) {
+            LockSupport.unpark(parked);
+        }
+        return count;
+    }
+
+    /**
+     * Takes data from the buffer. This will block until at least one byte is available or the timeout period is
+     * reached, and will then return all data that is available, up to the requested length. This must only be called
+     * from the consumer thread.
+     *
+     * @param data the buffer to place the data
+     * @param offset the offset in data for the first byte
+     * @param length the maximum number of bytes to read
+     * @param timeout the timeout in milliseconds to wait for the first byte
+     * @return the number of bytes read, or -1 if the timeout was reached or the buffer was closed
+     */
+    public int read(int[] data, int offset, int length, long timeout) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+        while (true) {
+            int count = drain(data, offset, length);
+            if (count != 0 || length == 0) {
+                return count;
+            }
+
+            long remaining = deadline - System.nanoTime();
+            if (closed || remaining <= 0 || Thread.currentThread().isInterrupted()) {
+                return -1;
+            }
+
+            // Register as waiting, then check again in case data arrived before the producer could see the waiter
+            waiter = Thread.currentThread();
+            if (tail.get() == head.get() && !closed) {
+                LockSupport.parkNanos(this, remaining);
+            }
+            waiter = null;
+        }
+    }
+
+    /**
+     * Takes all available data from the buffer, up to the requested length, without waiting. This must only be called
+     * from the consumer thread.
+     *
+     * @param data the buffer to place the data
+     * @param offset the offset in data for the first byte
+     * @param length the maximum number of bytes to read
+     * @return the number of bytes read
+     */
+    public int drain(int[] data, int offset, int length) {
+        long currentHead = head.get();
+        int count = Math.min(length, (int) (tail.get() - currentHead));
+        for (int cnt = 0; cnt < count; cnt++) {
+            data[offset + cnt] = buffer[(int) (currentHead + cnt) & mask] & 0xFF;
+        }
+        if (count != 0) {
+            head.set(currentHead + count);
+        }
+        return count;
+    }
+
+    /**
+     * Discards all data in the buffer. This must only be called from the consumer thread.
+     */
+    public void clear() {
+        head.set(tail.get());
+    }
+
+    /**
+     * Opens the buffer after it has been closed so that the consumer will wait for data again
+     */
+    public void open() {
+        closed = false;
+    }
+
+    /**
+     * Closes the buffer, releasing any waiting consumer
+     */
+    public void close() {
+        closed = true;
+        Thread parked = waiter;
+        if (parked != null) {
+            LockSupport.unpark(parked);
+        }
+    }
+
+    /**
+     * Gets the number of bytes currently in the buffer
+     *
+     * @return the number of bytes available to read
+     */
+    public int available() {
+        return (int) (tail.get() - head.get());
+    }
+
+    /**
+     * Gets the capacity of the buffer
+     *
+     * @return the maximum number of bytes the buffer can hold
+     */
+    public int getCapacity() {
+        return buffer.length;
+    }
+
+    /**
+     * Gets the number of bytes that have been discarded as the buffer was full when they were received
+     *
+     * @return the number of bytes lost to buffer overflow
+     */
+    public long getOverflowCount() {
+        return overflowCount.get();
+    }
+}
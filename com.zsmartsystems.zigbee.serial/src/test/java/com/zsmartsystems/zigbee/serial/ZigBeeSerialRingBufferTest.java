@@ -0,0 +1,159 @@
+/**
+ * Copyright (c) 2016-2019 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.serial;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+/**
+ *
+ * @author Chris Jackson
+ *
+ */
+public class ZigBeeSerialRingBufferTest {
+    @Test
+    public void testCapacity() {
+        assertEquals(1, new ZigBeeSerialRingBuffer(1).getCapacity());
+        assertEquals(512, new ZigBeeSerialRingBuffer(512).getCapacity());
+        assertEquals(1024, new ZigBeeSerialRingBuffer(513).getCapacity());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidCapacity() {
+        new ZigBeeSerialRingBuffer(0);
+    }
+
+    @Test
+    public void testWrapAround() {
+        ZigBeeSerialRingBuffer buffer = new ZigBeeSerialRingBuffer(8);
+        int[] data = new int[8];
+
+        for (int loop = 0; loop < 10; loop++) {
+            assertEquals(5, buffer.write(new byte[] { 1, 2, 3, (byte) 0xFE, (byte) 0xFF }, 0, 5));
+            assertEquals(5, buffer.available());
+            assertEquals(3, buffer.drain(data, 0, 3));
+            assertEquals(2, buffer.read(data, 3, 8, 100));
+            assertEquals(1, data[0]);
+            assertEquals(3, data[2]);
+            assertEquals(0xFE, data[3]);
+            assertEquals(0xFF, data[4]);
+        }
+        assertEquals(0, buffer.getOverflowCount());
+    }
+
+    @Test
+    public void testOverflow() {
+        ZigBeeSerialRingBuffer buffer = new ZigBeeSerialRingBuffer(4);
+        int[] data = new int[8];
+
+        assertEquals(3, buffer.write(new byte[] { 1, 2, 3 }, 0, 3));
+        assertEquals(1, buffer.write(new byte[] { 4, 5, 6 }, 0, 3));
+        assertEquals(2, buffer.getOverflowCount());
+
+        // Data already in the buffer is not overwritten
+        assertEquals(4, buffer.read(data, 0, 8, 100));
+        assertEquals(1, data[0]);
+        assertEquals(4, data[3]);
+
+        assertEquals(0, buffer.write(new byte[] { 7, 8, 9, 10, 11 }, 0, 0));
+        assertEquals(4, buffer.write(new byte[] { 7, 8, 9, 10, 11 }, 0, 5));
+        assertEquals(3, buffer.getOverflowCount());
+
+        buffer.clear();
+        assertEquals(0, buffer.available());
+    }
+
+    @Test
+    public void testTimeout() {
+        ZigBeeSerialRingBuffer buffer = new ZigBeeSerialRingBuffer(16);
+        long start = System.nanoTime();
+        assertEquals(-1, buffer.read(new int[1], 0, 1, 50));
+        assertTrue(System.nanoTime() - start >= 40000000L);
+    }
+
+    @Test
+    public void testClose() throws Exception {
+        final ZigBeeSerialRingBuffer buffer = new ZigBeeSerialRingBuffer(16);
+        final AtomicInteger result = new AtomicInteger(0);
+
+        Thread consumer = new Thread() {
+            @Override
+            public void run() {
+                result.set(buffer.read(new int[1], 0, 1, 60000));
+            }
+        };
+        consumer.start();
+        Thread.sleep(50);
+
+        buffer.close();
+        consumer.join(5000);
+        assertEquals(-1, result.get());
+
+        buffer.open();
+        buffer.write(new byte[] { 0x12 }, 0, 1);
+        int[] data = new int[1];
+        assertEquals(1, buffer.read(data, 0, 1, 100));
+        assertEquals(0x12, data[0]);
+    }
+
+    @Test
+    public void testStress() throws Exception {
+        // Feed the buffer in the same sized chunks as a serial port at 115200 baud
+        final int total = 1000000;
+        final int chunkSize = 64;
+        final ZigBeeSerialRingBuffer buffer = new ZigBeeSerialRingBuffer(ZigBeeSerialPort.DEFAULT_RECEIVE_BUFFER_SIZE);
+
+        Thread producer = new Thread() {
+            @Override
+            public void run() {
+                byte[] chunk = new byte[chunkSize];
+                int sequence = 0;
+                while (sequence < total) {
+                    int length = Math.min(chunkSize, total - sequence);
+                    for (int cnt = 0; cnt < length; cnt++) {
+                        chunk[cnt] = (byte) (sequence + cnt);
+                    }
+
+                    int offset = 0;
+                    while (offset < length) {
+                        // Only offer the space that is free so the test checks ordering rather than overflow
+                        int free = buffer.getCapacity() - buffer.available();
+                        if (free == 0) {
+                            Thread.yield();
+                            continue;
+                        }
+                        offset += buffer.write(chunk, offset, Math.min(free, length - offset));
+                    }
+                    sequence += length;
+                }
+            }
+        };
+
+        producer.start();
+
+        int[] data = new int[256];
+        int received = 0;
+        while (received < total) {
+            int count = buffer.read(data, 0, data.length, 5000);
+            assertTrue("Timeout after " + received + " bytes", count > 0);
+            for (int cnt = 0; cnt < count; cnt++) {
+                assertEquals((received + cnt) & 0xFF, data[cnt]);
+            }
+            received += count;
+        }
+
+        producer.join(5000);
+        assertEquals(total, received);
+        assertEquals(0, buffer.available());
+        assertEquals(0, buffer.getOverflowCount());
+    }
+}
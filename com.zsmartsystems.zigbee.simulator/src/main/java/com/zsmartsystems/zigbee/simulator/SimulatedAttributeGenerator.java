@@ -0,0 +1,27 @@
+/**
+ * Copyright (c) 2016-2019 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.simulator;
+
+import java.util.Random;
+
+/**
+ * Generates attribute values for a simulated node that is periodically reporting an attribute.
+ *
+ * @author Chris Jackson
+ */
+public interface SimulatedAttributeGenerator {
+    /**
+     * Generates the next value for the attribute. The returned value must be of the class used for the attributes
+     * {@link com.zsmartsystems.zigbee.zcl.protocol.ZclDataType ZclDataType}.
+     *
+     * @param currentValue the current attribute value. May be null if the attribute has no value.
+     * @param random the {@link Random} to use to generate random values so that simulations are repeatable
+     * @return the next value of the attribute
+     */
+    Object nextValue(Object currentValue, Random random);
+}
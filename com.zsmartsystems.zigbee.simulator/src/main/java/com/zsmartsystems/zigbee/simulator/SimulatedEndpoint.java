@@ -0,0 +1,211 @@
+/**
+ * Copyright (c) 2016-2019 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.simulator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import com.zsmartsystems.zigbee.zcl.protocol.ZclDataType;
+
+/**
+ * An endpoint on a {@link SimulatedNode}. The endpoint holds the simple descriptor information that is returned during
+ * service discovery, and the attribute values of its input (server) clusters which are used to respond to ZCL
+ * commands.
+ *
+ * @author Chris Jackson
+ */
+public class SimulatedEndpoint {
+    private final int endpointId;
+    private final int profileId;
+    private final int deviceId;
+    private int deviceVersion;
+
+    /**
+     * Map of input cluster ID to the attributes in the cluster. Sorted so that attribute discovery returns the
+     * attributes in order.
+     */
+    private final Map<Integer, Map<Integer, SimulatedAttribute>> inputClusters = new ConcurrentSkipListMap<>();
+    private final List<Integer> outputClusters = new CopyOnWriteArrayList<Integer>();
+
+    /**
+     * The state of an attribute on the simulated endpoint
+     */
+    static class SimulatedAttribute {
+        private final ZclDataType dataType;
+        private volatile Object value;
+
+        SimulatedAttribute(ZclDataType dataType, Object value) {
+            this.dataType = dataType;
+            this.value = value;
+        }
+
+        ZclDataType getDataType() {
+            return dataType;
+        }
+
+        Object getValue() {
+            return value;
+        }
+
+        void setValue(Object value) {
+            this.value = value;
+        }
+    }
+
+    /**
+     * Constructor
+     *
+     * @param endpointId the endpoint number
+     * @param profileId the profile ID supported by the endpoint
+     * @param deviceId the device ID of the endpoint
+     */
+    public SimulatedEndpoint(int endpointId, int profileId, int deviceId) {
+        this.endpointId = endpointId;
+        this.profileId = profileId;
+        this.deviceId = deviceId;
+    }
+
+    /**
+     * Gets the endpoint number
+     *
+     * @return the endpoint number
+     */
+    public int getEndpointId() {
+        return endpointId;
+    }
+
+    /**
+     * Gets the profile ID
+     *
+     * @return the profile ID
+     */
+    public int getProfileId() {
+        return profileId;
+    }
+
+    /**
+     * Gets the device ID
+     *
+     * @return the device ID
+     */
+    public int getDeviceId() {
+        return deviceId;
+    }
+
+    /**
+     * Gets the device version
+     *
+     * @return the device version
+     */
+    public int getDeviceVersion() {
+        return deviceVersion;
+    }
+
+    /**
+     * Sets the device version
+     *
+     * @param deviceVersion the device version
+     */
+    public void setDeviceVersion(int deviceVersion) {
+        this.deviceVersion = deviceVersion;
+    }
+
+    /**
+     * Adds an input (server) cluster to the endpoint. If the cluster already exists, its attributes are not changed.
+     *
+     * @param clusterId the cluster ID
+     */
+    public void addInputCluster(int clusterId) {
+        getOrCreateCluster(clusterId);
+    }
+
+    /**
+     * Adds an output (client) cluster to the endpoint
+     *
+     * @param clusterId the cluster ID
+     */
+    public void addOutputCluster(int clusterId) {
+        if (!outputClusters.contains(clusterId)) {
+            outputClusters.add(clusterId);
+        }
+    }
+
+    /**
+     * Gets the list of input cluster IDs
+     *
+     * @return the list of input cluster IDs
+     */
+    public List<Integer> getInputClusterIds() {
+        return new ArrayList<Integer>(inputClusters.keySet());
+    }
+
+    /**
+     * Gets the list of output cluster IDs
+     *
+     * @return the list of output cluster IDs
+     */
+    public List<Integer> getOutputClusterIds() {
+        return new ArrayList<Integer>(outputClusters);
+    }
+
+    /**
+     * Sets an attribute in an input cluster. The cluster is added to the endpoint if it is not already present.
+     *
+     * @param clusterId the cluster ID
+     * @param attributeId the attribute ID
+     * @param dataType the {@link ZclDataType} of the attribute
+     * @param value the attribute value. May be null if the attribute is supported, but has no value.
+     */
+    public void setAttribute(int clusterId, int attributeId, ZclDataType dataType, Object value) {
+        getOrCreateCluster(clusterId).put(attributeId, new SimulatedAttribute(dataType, value));
+    }
+
+    /**
+     * Gets the current value of an attribute
+     *
+     * @param clusterId the cluster ID
+     * @param attributeId the attribute ID
+     * @return the attribute value, or null if the attribute is not supported or has no value
+     */
+    public Object getAttributeValue(int clusterId, int attributeId) {
+        SimulatedAttribute attribute = getAttribute(clusterId, attributeId);
+        return attribute == null ? null : attribute.getValue();
+    }
+
+    boolean hasInputCluster(int clusterId) {
+        return inputClusters.containsKey(clusterId);
+    }
+
+    boolean hasOutputCluster(int clusterId) {
+        return outputClusters.contains(clusterId);
+    }
+
+    SimulatedAttribute getAttribute(int clusterId, int attributeId) {
+        Map<Integer, SimulatedAttribute> attributes = inputClusters.get(clusterId);
+        if (attributes == null) {
+            return null;
+        }
+        return attributes.get(attributeId);
+    }
+
+    Map<Integer, SimulatedAttribute> getAttributes(int clusterId) {
+        return inputClusters.get(clusterId);
+    }
+
+    private Map<Integer, SimulatedAttribute> getOrCreateCluster(int clusterId) {
+        Map<Integer, SimulatedAttribute> attributes = inputClusters.get(clusterId);
+        if (attributes == null) {
+            attributes = new ConcurrentSkipListMap<Integer, SimulatedAttribute>();
+            inputClusters.put(clusterId, attributes);
+        }
+        return attributes;
+    }
+}
@@ -0,0 +1,97 @@
+/**
+ * Copyright (c) 2016-2019 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.simulator;
+
+import java.util.Random;
+
+/**
+ * Defines the distribution of the latency of a single hop in the simulated network. Latencies are in milliseconds, and
+ * are never negative.
+ *
+ * @author Chris Jackson
+ */
+public final class SimulatedLatency {
+    private enum Distribution {
+        FIXED,
+        UNIFORM,
+        NORMAL
+    }
+
+    private final Distribution distribution;
+    private final double value1;
+    private final double value2;
+
+    private SimulatedLatency(Distribution distribution, double value1, double value2) {
+        this.distribution = distribution;
+        this.value1 = value1;
+        this.value2 = value2;
+    }
+
+    /**
+     * Creates a latency that is always the same
+     *
+     * @param latency the latency in milliseconds
+     * @return the {@link SimulatedLatency}
+     */
+    public static SimulatedLatency fixed(long latency) {
+        return new SimulatedLatency(Distribution.FIXED, latency, 0);
+    }
+
+    /**
+     * Creates a latency that is uniformly distributed between the minimum and maximum
+     *
+     * @param minimum the minimum latency in milliseconds
+     * @param maximum the maximum latency in milliseconds
+     * @return the {@link SimulatedLatency}
+     */
+    public static SimulatedLatency uniform(long minimum, long maximum) {
+        if (maximum < minimum) {
+            throw new IllegalArgumentException("Maximum latency must not be less than the minimum latency");
+        }
+        return new SimulatedLatency(Distribution.UNIFORM, minimum, maximum);
+    }
+
+    /**
+     * Creates a latency that is normally distributed. Samples below zero are returned as zero.
+     *
+     * @param mean the mean latency in milliseconds
+     * @param standardDeviation the standard deviation in milliseconds
+     * @return the {@link SimulatedLatency}
+     */
+    public static SimulatedLatency normal(long mean, long standardDeviation) {
+        return new SimulatedLatency(Distribution.NORMAL, mean, standardDeviation);
+    }
+
+    /**
+     * Gets the next latency sample
+     *
+     * @param random the {@link Random} used to generate the sample
+     * @return the latency in milliseconds
+     */
+    public long nextLatency(Random random) {
+        double latency;
+        switch (distribution) {
+            case UNIFORM:
+                latency = value1 + random.nextDouble() * (value2 - value1);
+                break;
+            case NORMAL:
+                latency = value1 + random.nextGaussian() * value2;
+                break;
+            case FIXED:
+            default:
+                latency = value1;
+                break;
+        }
+        return Math.max(0, Math.round(latency));
+    }
+
+    @Override
+    public String toString() {
+        return "SimulatedLatency [distribution=" + distribution + ", value1=" + value1 + ", value2=" + value2 + "]";
+    }
+}
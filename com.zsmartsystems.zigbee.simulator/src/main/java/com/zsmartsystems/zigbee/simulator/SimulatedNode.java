@@ -0,0 +1,299 @@
+/**
+ * Copyright (c) 2016-2019 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.simulator;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import com.zsmartsystems.zigbee.IeeeAddress;
+import com.zsmartsystems.zigbee.ZigBeeApsFrame;
+import com.zsmartsystems.zigbee.zdo.field.NodeDescriptor.LogicalType;
+
+/**
+ * A node in the simulated network.
+ * <p>
+ * The node is positioned in the mesh by the number of hops between the node and the coordinator - each frame sent to
+ * or from the node incurs the hop latency, and may be lost, once for every hop. A node with a poll period is a sleepy
+ * end device - frames sent to the node are held by its parent until the node next polls, and are discarded if the
+ * node doesn't poll before the indirect transmission timeout.
+ *
+ * @author Chris Jackson
+ */
+public class SimulatedNode {
+    private final IeeeAddress ieeeAddress;
+    private final int networkAddress;
+    private final LogicalType logicalType;
+    private int manufacturerCode;
+    private int hops;
+    private long pollPeriod;
+
+    private final Map<Integer, SimulatedEndpoint> endpoints = new ConcurrentSkipListMap<>();
+    private final List<SimulatedReport> reports = new CopyOnWriteArrayList<>();
+
+    /**
+     * Frames waiting for a sleepy node to poll
+     */
+    private final Queue<PendingFrame> pendingFrames = new ConcurrentLinkedQueue<>();
+
+    /**
+     * A periodic attribute report generated by the node
+     */
+    static class SimulatedReport {
+        private final int endpointId;
+        private final int clusterId;
+        private final int attributeId;
+        private final long period;
+        private final SimulatedAttributeGenerator generator;
+
+        SimulatedReport(int endpointId, int clusterId, int attributeId, long period,
+                SimulatedAttributeGenerator generator) {
+            this.endpointId = endpointId;
+            this.clusterId = clusterId;
+            this.attributeId = attributeId;
+            this.period = period;
+            this.generator = generator;
+        }
+
+        int getEndpointId() {
+            return endpointId;
+        }
+
+        int getClusterId() {
+            return clusterId;
+        }
+
+        int getAttributeId() {
+            return attributeId;
+        }
+
+        long getPeriod() {
+            return period;
+        }
+
+        SimulatedAttributeGenerator getGenerator() {
+            return generator;
+        }
+    }
+
+    /**
+     * A frame held by the parent of a sleepy node
+     */
+    static class PendingFrame {
+        private final ZigBeeApsFrame apsFrame;
+        private final long queueTime;
+
+        PendingFrame(ZigBeeApsFrame apsFrame, long queueTime) {
+            this.apsFrame = apsFrame;
+            this.queueTime = queueTime;
+        }
+
+        ZigBeeApsFrame getApsFrame() {
+            return apsFrame;
+        }
+
+        long getQueueTime() {
+            return queueTime;
+        }
+    }
+
+    /**
+     * Constructor
+     *
+     * @param ieeeAddress the {@link IeeeAddress} of the node
+     * @param networkAddress the network address of the node
+     * @param logicalType the {@link LogicalType} of the node
+     */
+    public SimulatedNode(IeeeAddress ieeeAddress, int networkAddress, LogicalType logicalType) {
+        if (ieeeAddress == null) {
+            throw new IllegalArgumentException("IeeeAddress can't be null when creating SimulatedNode");
+        }
+        this.ieeeAddress = ieeeAddress;
+        this.networkAddress = networkAddress;
+        this.logicalType = logicalType;
+        hops = logicalType == LogicalType.COORDINATOR ? 0 : 1;
+    }
+
+    /**
+     * Gets the {@link IeeeAddress} of the node
+     *
+     * @return the {@link IeeeAddress} of the node
+     */
+    public IeeeAddress getIeeeAddress() {
+        return ieeeAddress;
+    }
+
+    /**
+     * Gets the network address of the node
+     *
+     * @return the network address of the node
+     */
+    public int getNetworkAddress() {
+        return networkAddress;
+    }
+
+    /**
+     * Gets the {@link LogicalType} of the node
+     *
+     * @return the {@link LogicalType} of the node
+     */
+    public LogicalType getLogicalType() {
+        return logicalType;
+    }
+
+    /**
+     * Gets the manufacturer code returned in the node descriptor
+     *
+     * @return the manufacturer code
+     */
+    public int getManufacturerCode() {
+        return manufacturerCode;
+    }
+
+    /**
+     * Sets the manufacturer code returned in the node descriptor
+     *
+     * @param manufacturerCode the manufacturer code
+     */
+    public void setManufacturerCode(int manufacturerCode) {
+        this.manufacturerCode = manufacturerCode;
+    }
+
+    /**
+     * Gets the number of hops between the coordinator and the node
+     *
+     * @return the number of hops
+     */
+    public int getHops() {
+        return hops;
+    }
+
+    /**
+     * Sets the number of hops between the coordinator and the node. Defaults to 1.
+     *
+     * @param hops the number of hops
+     */
+    public void setHops(int hops) {
+        if (hops < 1) {
+            throw new IllegalArgumentException("A node must be at least 1 hop from the coordinator");
+        }
+        this.hops = hops;
+    }
+
+    /**
+     * Gets the poll period of a sleepy end device
+     *
+     * @return the poll period in milliseconds, or 0 if the node is not sleepy
+     */
+    public long getPollPeriod() {
+        return pollPeriod;
+    }
+
+    /**
+     * Sets the poll period. Setting a poll period greater than zero makes this node a sleepy end device.
+     *
+     * @param pollPeriod the poll period in milliseconds, or 0 if the node is not sleepy
+     */
+    public void setPollPeriod(long pollPeriod) {
+        if (pollPeriod != 0 && logicalType != LogicalType.END_DEVICE) {
+            throw new IllegalArgumentException("Only end devices can be sleepy");
+        }
+        this.pollPeriod = pollPeriod;
+    }
+
+    /**
+     * Returns true if this node is a sleepy end device
+     *
+     * @return true if the node only receives frames when it polls its parent
+     */
+    public boolean isSleepy() {
+        return pollPeriod > 0;
+    }
+
+    /**
+     * Adds an endpoint to the node
+     *
+     * @param endpoint the {@link SimulatedEndpoint} to add
+     */
+    public void addEndpoint(SimulatedEndpoint endpoint) {
+        endpoints.put(endpoint.getEndpointId(), endpoint);
+    }
+
+    /**
+     * Gets an endpoint
+     *
+     * @param endpointId the endpoint number
+     * @return the {@link SimulatedEndpoint}, or null if the endpoint doesn't exist
+     */
+    public SimulatedEndpoint getEndpoint(int endpointId) {
+        return endpoints.get(endpointId);
+    }
+
+    /**
+     * Gets all endpoints on the node
+     *
+     * @return the {@link Collection} of {@link SimulatedEndpoint}s
+     */
+    public Collection<SimulatedEndpoint> getEndpoints() {
+        return new ArrayList<SimulatedEndpoint>(endpoints.values());
+    }
+
+    /**
+     * Adds a periodic attribute report. Once the simulation is started, the node generates a new attribute value with
+     * the {@link SimulatedAttributeGenerator} and reports it to the coordinator each period. The first report is sent
+     * at a random time within the first period so that reports from different nodes are spread out.
+     *
+     * @param endpointId the endpoint number
+     * @param clusterId the input cluster containing the attribute
+     * @param attributeId the attribute to report. The attribute must have been set on the endpoint with
+     *            {@link SimulatedEndpoint#setAttribute}.
+     * @param period the reporting period in milliseconds
+     * @param generator the {@link SimulatedAttributeGenerator} used to generate each new value
+     */
+    public void addAttributeReport(int endpointId, int clusterId, int attributeId, long period,
+            SimulatedAttributeGenerator generator) {
+        if (period <= 0) {
+            throw new IllegalArgumentException("Report period must be greater than 0");
+        }
+        SimulatedEndpoint endpoint = endpoints.get(endpointId);
+        if (endpoint == null || endpoint.getAttribute(clusterId, attributeId) == null) {
+            throw new IllegalArgumentException(String.format("Attribute %d/%04X/%04X is not defined on node %s",
+                    endpointId, clusterId, attributeId, ieeeAddress));
+        }
+        reports.add(new SimulatedReport(endpointId, clusterId, attributeId, period, generator));
+    }
+
+    List<SimulatedReport> getReports() {
+        return reports;
+    }
+
+    void queuePendingFrame(ZigBeeApsFrame apsFrame, long time) {
+        pendingFrames.add(new PendingFrame(apsFrame, time));
+    }
+
+    List<PendingFrame> pollPendingFrames() {
+        List<PendingFrame> frames = new ArrayList<PendingFrame>();
+        PendingFrame frame;
+        while ((frame = pendingFrames.poll()) != null) {
+            frames.add(frame);
+        }
+        return frames;
+    }
+
+    @Override
+    public String toString() {
+        return "SimulatedNode [ieeeAddress=" + ieeeAddress + ", networkAddress="
+                + String.format("%04X", networkAddress) + ", logicalType=" + logicalType + ", hops=" + hops
+                + ", pollPeriod=" + pollPeriod + ", endpoints=" + endpoints.keySet() + "]";
+    }
+}
@@ -0,0 +1,550 @@
+/**
+ * Copyright (c) 2016-2019 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.simulator;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.zsmartsystems.zigbee.IeeeAddress;
+import com.zsmartsystems.zigbee.ZigBeeApsFrame;
+import com.zsmartsystems.zigbee.ZigBeeNwkAddressMode;
+import com.zsmartsystems.zigbee.serialization.DefaultDeserializer;
+import com.zsmartsystems.zigbee.serialization.DefaultSerializer;
+import com.zsmartsystems.zigbee.simulator.SimulatedEndpoint.SimulatedAttribute;
+import com.zsmartsystems.zigbee.zcl.ZclStatus;
+import com.zsmartsystems.zigbee.zcl.protocol.ZclDataType;
+import com.zsmartsystems.zigbee.zdo.ZdoStatus;
+import com.zsmartsystems.zigbee.zdo.field.NodeDescriptor.LogicalType;
+
+/**
+ * Processes the frames received by a {@link SimulatedNode}, and creates the frames the node sends in response.
+ * <p>
+ * Frames are decoded and encoded at the byte level, as they would be by a real device, so that the frames passed to
+ * the stack exercise the full deserialisation path. The processor supports the ZDO requests used during discovery, and
+ * the ZCL general commands to read, write and discover attributes. Cluster specific commands are acknowledged with a
+ * default response.
+ *
+ * @author Chris Jackson
+ */
+class SimulatedNodeProcessor {
+    /**
+     * The logger.
+     */
+    private final Logger logger = LoggerFactory.getLogger(SimulatedNodeProcessor.class);
+
+    private static final int ZDO_NETWORK_ADDRESS_REQUEST = 0x0000;
+    private static final int ZDO_IEEE_ADDRESS_REQUEST = 0x0001;
+    private static final int ZDO_NODE_DESCRIPTOR_REQUEST = 0x0002;
+    private static final int ZDO_POWER_DESCRIPTOR_REQUEST = 0x0003;
+    private static final int ZDO_SIMPLE_DESCRIPTOR_REQUEST = 0x0004;
+    private static final int ZDO_ACTIVE_ENDPOINTS_REQUEST = 0x0005;
+    private static final int ZDO_DEVICE_ANNOUNCE = 0x0013;
+    private static final int ZDO_BIND_REQUEST = 0x0021;
+    private static final int ZDO_UNBIND_REQUEST = 0x0022;
+    private static final int ZDO_MANAGEMENT_LQI_REQUEST = 0x0031;
+    private static final int ZDO_MANAGEMENT_ROUTING_REQUEST = 0x0032;
+    private static final int ZDO_MANAGEMENT_LEAVE_REQUEST = 0x0034;
+    private static final int ZDO_MANAGEMENT_PERMIT_JOINING_REQUEST = 0x0036;
+    private static final int ZDO_RESPONSE = 0x8000;
+
+    private static final int ZCL_FRAME_TYPE_MASK = 0x03;
+    private static final int ZCL_FRAME_TYPE_CLUSTER_SPECIFIC = 0x01;
+    private static final int ZCL_MANUFACTURER_SPECIFIC = 0x04;
+    private static final int ZCL_SERVER_TO_CLIENT = 0x08;
+    private static final int ZCL_DISABLE_DEFAULT_RESPONSE = 0x10;
+
+    private static final int ZCL_READ_ATTRIBUTES = 0x00;
+    private static final int ZCL_READ_ATTRIBUTES_RESPONSE = 0x01;
+    private static final int ZCL_WRITE_ATTRIBUTES = 0x02;
+    private static final int ZCL_WRITE_ATTRIBUTES_UNDIVIDED = 0x03;
+    private static final int ZCL_WRITE_ATTRIBUTES_RESPONSE = 0x04;
+    private static final int ZCL_WRITE_ATTRIBUTES_NO_RESPONSE = 0x05;
+    private static final int ZCL_CONFIGURE_REPORTING = 0x06;
+    private static final int ZCL_CONFIGURE_REPORTING_RESPONSE = 0x07;
+    private static final int ZCL_REPORT_ATTRIBUTES = 0x0A;
+    private static final int ZCL_DEFAULT_RESPONSE = 0x0B;
+    private static final int ZCL_DISCOVER_ATTRIBUTES = 0x0C;
+    private static final int ZCL_DISCOVER_ATTRIBUTES_RESPONSE = 0x0D;
+
+    private static final int ONOFF_CLUSTER = 0x0006;
+    private static final int ONOFF_ATTRIBUTE = 0x0000;
+
+    private static final int BROADCAST_ADDRESS_MIN = 0xFFF8;
+    private static final int BROADCAST_ENDPOINT = 0xFF;
+
+    /**
+     * The maximum number of bytes of attribute data to include in a single ZCL response
+     */
+    private static final int MAX_ZCL_PAYLOAD = 80;
+
+    private int zclSequence;
+    private int zdoSequence;
+
+    /**
+     * Processes a frame received by a node
+     *
+     * @param node the {@link SimulatedNode} receiving the frame
+     * @param apsFrame the received {@link ZigBeeApsFrame}
+     * @return the list of {@link ZigBeeApsFrame} sent by the node in response. May be empty, but not null.
+     */
+    List<ZigBeeApsFrame> processFrame(SimulatedNode node, ZigBeeApsFrame apsFrame) {
+        try {
+            if (apsFrame.getProfile() == 0) {
+                return processZdoFrame(node, apsFrame);
+            }
+            return processZclFrame(node, apsFrame);
+        } catch (RuntimeException e) {
+            logger.debug("{}: Simulated node error processing frame {}", node.getIeeeAddress(), apsFrame, e);
+            return Collections.emptyList();
+        }
+    }
+
+    /**
+     * Creates an attribute report frame sent by a node
+     *
+     * @param node the reporting {@link SimulatedNode}
+     * @param endpointId the endpoint containing the attribute
+     * @param clusterId the cluster containing the attribute
+     * @param attributeId the attribute ID
+     * @return the {@link ZigBeeApsFrame} or null if the attribute isn't defined or has no value
+     */
+    ZigBeeApsFrame createAttributeReport(SimulatedNode node, int endpointId, int clusterId, int attributeId) {
+        SimulatedEndpoint endpoint = node.getEndpoint(endpointId);
+        if (endpoint == null) {
+            return null;
+        }
+        SimulatedAttribute attribute = endpoint.getAttribute(clusterId, attributeId);
+        if (attribute == null || attribute.getValue() == null) {
+            return null;
+        }
+
+        DefaultSerializer serializer = new DefaultSerializer();
+        serializer.appendZigBeeType(ZCL_SERVER_TO_CLIENT | ZCL_DISABLE_DEFAULT_RESPONSE,
+                ZclDataType.UNSIGNED_8_BIT_INTEGER);
+        serializer.appendZigBeeType(nextZclSequence(), ZclDataType.UNSIGNED_8_BIT_INTEGER);
+        serializer.appendZigBeeType(ZCL_REPORT_ATTRIBUTES, ZclDataType.UNSIGNED_8_BIT_INTEGER);
+        serializer.appendZigBeeType(attributeId, ZclDataType.UNSIGNED_16_BIT_INTEGER);
+        serializer.appendZigBeeType(attribute.getDataType().getId(), ZclDataType.UNSIGNED_8_BIT_INTEGER);
+        serializer.appendZigBeeType(attribute.getValue(), attribute.getDataType());
+
+        return createFrame(node, endpointId, 1, endpoint.getProfileId(), clusterId, serializer.getPayload());
+    }
+
+    /**
+     * Creates the device announce frame broadcast by a node when it joins the network
+     *
+     * @param node the joining {@link SimulatedNode}
+     * @return the device announce {@link ZigBeeApsFrame}
+     */
+    ZigBeeApsFrame createDeviceAnnounce(SimulatedNode node) {
+        DefaultSerializer serializer = new DefaultSerializer();
+        serializer.appendZigBeeType(nextZdoSequence(), ZclDataType.UNSIGNED_8_BIT_INTEGER);
+        serializer.appendZigBeeType(node.getNetworkAddress(), ZclDataType.NWK_ADDRESS);
+        serializer.appendZigBeeType(node.getIeeeAddress(), ZclDataType.IEEE_ADDRESS);
+        serializer.appendZigBeeType(getMacCapabilities(node), ZclDataType.BITMAP_8_BIT);
+
+        ZigBeeApsFrame apsFrame = createFrame(node, 0, 0, 0, ZDO_DEVICE_ANNOUNCE, serializer.getPayload());
+        apsFrame.setDestinationAddress(0xFFFD);
+        apsFrame.setAddressMode(ZigBeeNwkAddressMode.DEVICE);
+        return apsFrame;
+    }
+
+    private List<ZigBeeApsFrame> processZdoFrame(SimulatedNode node, ZigBeeApsFrame apsFrame) {
+        int clusterId = apsFrame.getCluster();
+        if ((clusterId & ZDO_RESPONSE) != 0 || clusterId == ZDO_DEVICE_ANNOUNCE) {
+            return Collections.emptyList();
+        }
+
+        boolean broadcast = apsFrame.getDestinationAddress() >= BROADCAST_ADDRESS_MIN;
+        DefaultDeserializer deserializer = new DefaultDeserializer(apsFrame.getPayload());
+        int sequence = (int) deserializer.readZigBeeType(ZclDataType.UNSIGNED_8_BIT_INTEGER);
+
+        DefaultSerializer serializer = new DefaultSerializer();
+        serializer.appendZigBeeType(sequence, ZclDataType.UNSIGNED_8_BIT_INTEGER);
+
+        switch (clusterId) {
+            case ZDO_NETWORK_ADDRESS_REQUEST:
+                IeeeAddress ieeeAddress = (IeeeAddress) deserializer.readZigBeeType(ZclDataType.IEEE_ADDRESS);
+                if (!node.getIeeeAddress().equals(ieeeAddress)) {
+                    return Collections.emptyList();
+                }
+                serializeAddressResponse(serializer, node,
+                        (int) deserializer.readZigBeeType(ZclDataType.UNSIGNED_8_BIT_INTEGER));
+                break;
+            case ZDO_IEEE_ADDRESS_REQUEST:
+                if ((int) deserializer.readZigBeeType(ZclDataType.NWK_ADDRESS) != node.getNetworkAddress()) {
+                    return Collections.emptyList();
+                }
+                serializeAddressResponse(serializer, node,
+                        (int) deserializer.readZigBeeType(ZclDataType.UNSIGNED_8_BIT_INTEGER));
+                break;
+            case ZDO_NODE_DESCRIPTOR_REQUEST:
+                serializer.appendZigBeeType(ZdoStatus.SUCCESS, ZclDataType.ZDO_STATUS);
+                serializer.appendZigBeeType(node.getNetworkAddress(), ZclDataType.NWK_ADDRESS);
+                serializeNodeDescriptor(serializer, node);
+                break;
+            case ZDO_POWER_DESCRIPTOR_REQUEST:
+                serializer.appendZigBeeType(ZdoStatus.SUCCESS, ZclDataType.ZDO_STATUS);
+                serializer.appendZigBeeType(node.getNetworkAddress(), ZclDataType.NWK_ADDRESS);
+                serializePowerDescriptor(serializer, node);
+                break;
+            case ZDO_ACTIVE_ENDPOINTS_REQUEST:
+                List<Integer> endpointIds = new ArrayList<Integer>();
+                for (SimulatedEndpoint endpoint : node.getEndpoints()) {
+                    endpointIds.add(endpoint.getEndpointId());
+                }
+                serializer.appendZigBeeType(ZdoStatus.SUCCESS, ZclDataType.ZDO_STATUS);
+                serializer.appendZigBeeType(node.getNetworkAddress(), ZclDataType.NWK_ADDRESS);
+                serializer.appendZigBeeType(endpointIds, ZclDataType.N_X_UNSIGNED_8_BIT_INTEGER);
+                break;
+            case ZDO_SIMPLE_DESCRIPTOR_REQUEST:
+                deserializer.readZigBeeType(ZclDataType.NWK_ADDRESS);
+                int endpointId = (int) deserializer.readZigBeeType(ZclDataType.UNSIGNED_8_BIT_INTEGER);
+                SimulatedEndpoint endpoint = node.getEndpoint(endpointId);
+                if (endpoint == null) {
+                    serializer.appendZigBeeType(ZdoStatus.NOT_ACTIVE, ZclDataType.ZDO_STATUS);
+                    break;
+                }
+                serializer.appendZigBeeType(ZdoStatus.SUCCESS, ZclDataType.ZDO_STATUS);
+                serializer.appendZigBeeType(node.getNetworkAddress(), ZclDataType.NWK_ADDRESS);
+                List<Integer> inputClusters = endpoint.getInputClusterIds();
+                List<Integer> outputClusters = endpoint.getOutputClusterIds();
+                serializer.appendZigBeeType(8 + (inputClusters.size() + outputClusters.size()) * 2,
+                        ZclDataType.UNSIGNED_8_BIT_INTEGER);
+                serializer.appendZigBeeType(endpoint.getEndpointId(), ZclDataType.UNSIGNED_8_BIT_INTEGER);
+                serializer.appendZigBeeType(endpoint.getProfileId(), ZclDataType.UNSIGNED_16_BIT_INTEGER);
+                serializer.appendZigBeeType(endpoint.getDeviceId(), ZclDataType.UNSIGNED_16_BIT_INTEGER);
+                serializer.appendZigBeeType(endpoint.getDeviceVersion(), ZclDataType.UNSIGNED_8_BIT_INTEGER);
+                serializer.appendZigBeeType(inputClusters, ZclDataType.N_X_UNSIGNED_16_BIT_INTEGER);
+                serializer.appendZigBeeType(outputClusters, ZclDataType.N_X_UNSIGNED_16_BIT_INTEGER);
+                break;
+            case ZDO_MANAGEMENT_LQI_REQUEST:
+            case ZDO_MANAGEMENT_ROUTING_REQUEST:
+                // The mesh is simulated by hop count only, so the neighbor and routing tables are empty
+                int startIndex = (int) deserializer.readZigBeeType(ZclDataType.UNSIGNED_8_BIT_INTEGER);
+                serializer.appendZigBeeType(ZdoStatus.SUCCESS, ZclDataType.ZDO_STATUS);
+                serializer.appendZigBeeType(0, ZclDataType.UNSIGNED_8_BIT_INTEGER);
+                serializer.appendZigBeeType(startIndex, ZclDataType.UNSIGNED_8_BIT_INTEGER);
+                serializer.appendZigBeeType(0, ZclDataType.UNSIGNED_8_BIT_INTEGER);
+                break;
+            case ZDO_BIND_REQUEST:
+            case ZDO_UNBIND_REQUEST:
+            case ZDO_MANAGEMENT_LEAVE_REQUEST:
+            case ZDO_MANAGEMENT_PERMIT_JOINING_REQUEST:
+                if (broadcast) {
+                    return Collections.emptyList();
+                }
+                serializer.appendZigBeeType(ZdoStatus.SUCCESS, ZclDataType.ZDO_STATUS);
+                break;
+            default:
+                if (broadcast) {
+                    return Collections.emptyList();
+                }
+                serializer.appendZigBeeType(ZdoStatus.NOT_SUPPORTED, ZclDataType.ZDO_STATUS);
+                break;
+        }
+
+        return Collections.singletonList(
+                createFrame(node, 0, 0, 0, clusterId | ZDO_RESPONSE, serializer.getPayload()));
+    }
+
+    private void serializeAddressResponse(DefaultSerializer serializer, SimulatedNode node, int requestType) {
+        serializer.appendZigBeeType(ZdoStatus.SUCCESS, ZclDataType.ZDO_STATUS);
+        serializer.appendZigBeeType(node.getIeeeAddress(), ZclDataType.IEEE_ADDRESS);
+        serializer.appendZigBeeType(node.getNetworkAddress(), ZclDataType.NWK_ADDRESS);
+        if (requestType == 1) {
+            // Extended response - no associated devices are simulated
+            serializer.appendZigBeeType(0, ZclDataType.UNSIGNED_8_BIT_INTEGER);
+            serializer.appendZigBeeType(0, ZclDataType.UNSIGNED_8_BIT_INTEGER);
+        }
+    }
+
+    private void serializeNodeDescriptor(DefaultSerializer serializer, SimulatedNode node) {
+        int logicalType;
+        switch (node.getLogicalType()) {
+            case COORDINATOR:
+                logicalType = 0;
+                break;
+            case ROUTER:
+                logicalType = 1;
+                break;
+            default:
+                logicalType = 2;
+                break;
+        }
+        serializer.appendZigBeeType(logicalType, ZclDataType.DATA_8_BIT);
+        // APS flags and the 2.4GHz frequency band
+        serializer.appendZigBeeType(0x40, ZclDataType.DATA_8_BIT);
+        serializer.appendZigBeeType(getMacCapabilities(node), ZclDataType.DATA_8_BIT);
+        serializer.appendZigBeeType(node.getManufacturerCode(), ZclDataType.UNSIGNED_16_BIT_INTEGER);
+        // Maximum buffer size
+        serializer.appendZigBeeType(0x52, ZclDataType.UNSIGNED_8_BIT_INTEGER);
+        // Maximum incoming transfer size
+        serializer.appendZigBeeType(0x52, ZclDataType.UNSIGNED_16_BIT_INTEGER);
+        // Server mask
+        serializer.appendZigBeeType(node.getLogicalType() == LogicalType.COORDINATOR ? 0x41 : 0,
+                ZclDataType.UNSIGNED_16_BIT_INTEGER);
+        // Maximum outgoing transfer size
+        serializer.appendZigBeeType(0x52, ZclDataType.UNSIGNED_16_BIT_INTEGER);
+        // Descriptor capabilities
+        serializer.appendZigBeeType(0, ZclDataType.UNSIGNED_8_BIT_INTEGER);
+    }
+
+    private void serializePowerDescriptor(DefaultSerializer serializer, SimulatedNode node) {
+        if (node.getLogicalType() == LogicalType.END_DEVICE) {
+            // Receiver on periodically (if sleepy), disposable battery available and in use at 100%
+            serializer.appendZigBeeType((node.isSleepy() ? 0x01 : 0x00) | 0x40, ZclDataType.UNSIGNED_8_BIT_INTEGER);
+            serializer.appendZigBeeType(0xC4, ZclDataType.UNSIGNED_8_BIT_INTEGER);
+        } else {
+            // Receiver always on, mains power available and in use at 100%
+            serializer.appendZigBeeType(0x10, ZclDataType.UNSIGNED_8_BIT_INTEGER);
+            serializer.appendZigBeeType(0xC1, ZclDataType.UNSIGNED_8_BIT_INTEGER);
+        }
+    }
+
+    private int getMacCapabilities(SimulatedNode node) {
+        switch (node.getLogicalType()) {
+            case COORDINATOR:
+                return 0x8F;
+            case ROUTER:
+                return 0x8E;
+            default:
+                return node.isSleepy() ? 0x80 : 0x8C;
+        }
+    }
+
+    private List<ZigBeeApsFrame> processZclFrame(SimulatedNode node, ZigBeeApsFrame apsFrame) {
+        List<SimulatedEndpoint> endpoints = new ArrayList<SimulatedEndpoint>();
+        if (apsFrame.getDestinationEndpoint() == BROADCAST_ENDPOINT) {
+            endpoints.addAll(node.getEndpoints());
+        } else {
+            SimulatedEndpoint endpoint = node.getEndpoint(apsFrame.getDestinationEndpoint());
+            if (endpoint == null) {
+                return Collections.emptyList();
+            }
+            endpoints.add(endpoint);
+        }
+
+        List<ZigBeeApsFrame> responses = new ArrayList<ZigBeeApsFrame>();
+        for (SimulatedEndpoint endpoint : endpoints) {
+            if (endpoint.getProfileId() != apsFrame.getProfile() && apsFrame.getProfile() != 0xC05E) {
+                continue;
+            }
+            ZigBeeApsFrame response = processZclCommand(node, endpoint, apsFrame);
+            if (response != null) {
+                responses.add(response);
+            }
+        }
+        return responses;
+    }
+
+    private ZigBeeApsFrame processZclCommand(SimulatedNode node, SimulatedEndpoint endpoint,
+            ZigBeeApsFrame apsFrame) {
+        DefaultDeserializer deserializer = new DefaultDeserializer(apsFrame.getPayload());
+        int frameControl = (int) deserializer.readZigBeeType(ZclDataType.UNSIGNED_8_BIT_INTEGER);
+        Integer manufacturerCode = null;
+        if ((frameControl & ZCL_MANUFACTURER_SPECIFIC) != 0) {
+            manufacturerCode = (int) deserializer.readZigBeeType(ZclDataType.UNSIGNED_16_BIT_INTEGER);
+        }
+        int sequence = (int) deserializer.readZigBeeType(ZclDataType.UNSIGNED_8_BIT_INTEGER);
+        int commandId = (int) deserializer.readZigBeeType(ZclDataType.UNSIGNED_8_BIT_INTEGER);
+        boolean disableDefaultResponse = (frameControl & ZCL_DISABLE_DEFAULT_RESPONSE) != 0;
+
+        // The node only acts as a server for its input clusters
+        if ((frameControl & ZCL_SERVER_TO_CLIENT) != 0) {
+            return null;
+        }
+
+        int clusterId = apsFrame.getCluster();
+        DefaultSerializer serializer = new DefaultSerializer();
+        if (!endpoint.hasInputCluster(clusterId)) {
+            return createDefaultResponse(node, endpoint, apsFrame, manufacturerCode, sequence, commandId,
+                    ZclStatus.UNSUP_CLUSTER_COMMAND);
+        }
+
+        if ((frameControl & ZCL_FRAME_TYPE_MASK) == ZCL_FRAME_TYPE_CLUSTER_SPECIFIC) {
+            processClusterCommand(endpoint, clusterId, commandId);
+            if (disableDefaultResponse) {
+                return null;
+            }
+            return createDefaultResponse(node, endpoint, apsFrame, manufacturerCode, sequence, commandId,
+                    ZclStatus.SUCCESS);
+        }
+
+        int responseId;
+        switch (commandId) {
+            case ZCL_READ_ATTRIBUTES:
+                responseId = ZCL_READ_ATTRIBUTES_RESPONSE;
+                int length = 0;
+                while (!deserializer.isEndOfStream() && length < MAX_ZCL_PAYLOAD) {
+                    int attributeId = (int) deserializer.readZigBeeType(ZclDataType.UNSIGNED_16_BIT_INTEGER);
+                    SimulatedAttribute attribute = endpoint.getAttribute(clusterId, attributeId);
+                    serializer.appendZigBeeType(attributeId, ZclDataType.UNSIGNED_16_BIT_INTEGER);
+                    if (attribute == null || attribute.getValue() == null) {
+                        serializer.appendZigBeeType(ZclStatus.UNSUPPORTED_ATTRIBUTE, ZclDataType.ZCL_STATUS);
+                        length += 3;
+                        continue;
+                    }
+                    serializer.appendZigBeeType(ZclStatus.SUCCESS, ZclDataType.ZCL_STATUS);
+                    serializer.appendZigBeeType(attribute.getDataType().getId(), ZclDataType.UNSIGNED_8_BIT_INTEGER);
+                    serializer.appendZigBeeType(attribute.getValue(), attribute.getDataType());
+                    length = serializer.getPayload().length;
+                }
+                break;
+            case ZCL_WRITE_ATTRIBUTES:
+            case ZCL_WRITE_ATTRIBUTES_UNDIVIDED:
+            case ZCL_WRITE_ATTRIBUTES_NO_RESPONSE:
+                responseId = ZCL_WRITE_ATTRIBUTES_RESPONSE;
+                while (!deserializer.isEndOfStream()) {
+                    int attributeId = (int) deserializer.readZigBeeType(ZclDataType.UNSIGNED_16_BIT_INTEGER);
+                    ZclDataType dataType = ZclDataType
+                            .getType((int) deserializer.readZigBeeType(ZclDataType.UNSIGNED_8_BIT_INTEGER));
+                    Object value = deserializer.readZigBeeType(dataType);
+                    SimulatedAttribute attribute = endpoint.getAttribute(clusterId, attributeId);
+                    ZclStatus status;
+                    if (attribute == null) {
+                        status = ZclStatus.UNSUPPORTED_ATTRIBUTE;
+                    } else if (attribute.getDataType() != dataType) {
+                        status = ZclStatus.INVALID_DATA_TYPE;
+                    } else {
+                        attribute.setValue(value);
+                        continue;
+                    }
+                    serializer.appendZigBeeType(status, ZclDataType.ZCL_STATUS);
+                    serializer.appendZigBeeType(attributeId, ZclDataType.UNSIGNED_16_BIT_INTEGER);
+                }
+                if (commandId == ZCL_WRITE_ATTRIBUTES_NO_RESPONSE) {
+                    return null;
+                }
+                if (serializer.getPayload().length == 0) {
+                    serializer.appendZigBeeType(ZclStatus.SUCCESS, ZclDataType.ZCL_STATUS);
+                }
+                break;
+            case ZCL_CONFIGURE_REPORTING:
+                responseId = ZCL_CONFIGURE_REPORTING_RESPONSE;
+                serializer.appendZigBeeType(ZclStatus.SUCCESS, ZclDataType.ZCL_STATUS);
+                break;
+            case ZCL_DISCOVER_ATTRIBUTES:
+                responseId = ZCL_DISCOVER_ATTRIBUTES_RESPONSE;
+                int startId = (int) deserializer.readZigBeeType(ZclDataType.UNSIGNED_16_BIT_INTEGER);
+                int maximum = (int) deserializer.readZigBeeType(ZclDataType.UNSIGNED_8_BIT_INTEGER);
+                List<Integer> discovered = new ArrayList<Integer>();
+                boolean complete = true;
+                for (Map.Entry<Integer, SimulatedAttribute> entry : endpoint.getAttributes(clusterId).entrySet()) {
+                    if (entry.getKey() < startId) {
+                        continue;
+                    }
+                    if (discovered.size() >= maximum) {
+                        complete = false;
+                        break;
+                    }
+                    discovered.add(entry.getKey());
+                }
+                serializer.appendZigBeeType(complete, ZclDataType.BOOLEAN);
+                for (Integer attributeId : discovered) {
+                    serializer.appendZigBeeType(attributeId, ZclDataType.UNSIGNED_16_BIT_INTEGER);
+                    serializer.appendZigBeeType(endpoint.getAttribute(clusterId, attributeId).getDataType().getId(),
+                            ZclDataType.UNSIGNED_8_BIT_INTEGER);
+                }
+                break;
+            default:
+                return createDefaultResponse(node, endpoint, apsFrame, manufacturerCode, sequence, commandId,
+                        ZclStatus.UNSUP_GENERAL_COMMAND);
+        }
+
+        return createZclResponse(node, endpoint, apsFrame, manufacturerCode, sequence, false, responseId,
+                serializer.getPayload());
+    }
+
+    private void processClusterCommand(SimulatedEndpoint endpoint, int clusterId, int commandId) {
+        if (clusterId != ONOFF_CLUSTER) {
+            return;
+        }
+        SimulatedAttribute attribute = endpoint.getAttribute(ONOFF_CLUSTER, ONOFF_ATTRIBUTE);
+        if (attribute == null) {
+            return;
+        }
+        switch (commandId) {
+            case 0x00:
+                attribute.setValue(Boolean.FALSE);
+                break;
+            case 0x01:
+                attribute.setValue(Boolean.TRUE);
+                break;
+            case 0x02:
+                attribute.setValue(!Boolean.TRUE.equals(attribute.getValue()));
+                break;
+            default:
+                break;
+        }
+    }
+
+    private ZigBeeApsFrame createDefaultResponse(SimulatedNode node, SimulatedEndpoint endpoint,
+            ZigBeeApsFrame request, Integer manufacturerCode, int sequence, int commandId, ZclStatus status) {
+        DefaultSerializer serializer = new DefaultSerializer();
+        serializer.appendZigBeeType(commandId, ZclDataType.UNSIGNED_8_BIT_INTEGER);
+        serializer.appendZigBeeType(status, ZclDataType.ZCL_STATUS);
+        return createZclResponse(node, endpoint, request, manufacturerCode, sequence, false, ZCL_DEFAULT_RESPONSE,
+                serializer.getPayload());
+    }
+
+    private ZigBeeApsFrame createZclResponse(SimulatedNode node, SimulatedEndpoint endpoint, ZigBeeApsFrame request,
+            Integer manufacturerCode, int sequence, boolean clusterSpecific, int commandId, int[] payload) {
+        DefaultSerializer serializer = new DefaultSerializer();
+        int frameControl = ZCL_SERVER_TO_CLIENT | ZCL_DISABLE_DEFAULT_RESPONSE;
+        if (clusterSpecific) {
+            frameControl |= ZCL_FRAME_TYPE_CLUSTER_SPECIFIC;
+        }
+        if (manufacturerCode != null) {
+            frameControl |= ZCL_MANUFACTURER_SPECIFIC;
+        }
+        serializer.appendZigBeeType(frameControl, ZclDataType.UNSIGNED_8_BIT_INTEGER);
+        if (manufacturerCode != null) {
+            serializer.appendZigBeeType(manufacturerCode, ZclDataType.UNSIGNED_16_BIT_INTEGER);
+        }
+        serializer.appendZigBeeType(sequence, ZclDataType.UNSIGNED_8_BIT_INTEGER);
+        serializer.appendZigBeeType(commandId, ZclDataType.UNSIGNED_8_BIT_INTEGER);
+        int[] header = serializer.getPayload();
+
+        int[] frame = new int[header.length + payload.length];
+        System.arraycopy(header, 0, frame, 0, header.length);
+        System.arraycopy(payload, 0, frame, header.length, payload.length);
+
+        return createFrame(node, endpoint.getEndpointId(), request.getSourceEndpoint(), request.getProfile(),
+                request.getCluster(), frame);
+    }
+
+    private ZigBeeApsFrame createFrame(SimulatedNode node, int sourceEndpoint, int destinationEndpoint, int profile,
+            int clusterId, int[] payload) {
+        ZigBeeApsFrame apsFrame = new ZigBeeApsFrame();
+        apsFrame.setAddressMode(ZigBeeNwkAddressMode.DEVICE);
+        apsFrame.setSourceAddress(node.getNetworkAddress());
+        apsFrame.setSourceEndpoint(sourceEndpoint);
+        apsFrame.setDestinationAddress(0);
+        apsFrame.setDestinationEndpoint(destinationEndpoint);
+        apsFrame.setProfile(profile);
+        apsFrame.setCluster(clusterId);
+        apsFrame.setPayload(payload);
+        return apsFrame;
+    }
+
+    private int nextZclSequence() {
+        zclSequence = (zclSequence + 1) & 0xFF;
+        return zclSequence;
+    }
+
+    private int nextZdoSequence() {
+        zdoSequence = (zdoSequence + 1) & 0xFF;
+        return zdoSequence;
+    }
+}
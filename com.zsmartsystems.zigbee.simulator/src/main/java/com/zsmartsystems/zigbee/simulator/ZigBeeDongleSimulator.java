@@ -0,0 +1,608 @@
+/**
+ * Copyright (c) 2016-2019 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.simulator;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.zsmartsystems.zigbee.ExtendedPanId;
+import com.zsmartsystems.zigbee.IeeeAddress;
+import com.zsmartsystems.zigbee.ZigBeeApsFrame;
+import com.zsmartsystems.zigbee.ZigBeeChannel;
+import com.zsmartsystems.zigbee.ZigBeeNodeStatus;
+import com.zsmartsystems.zigbee.ZigBeeNwkAddressMode;
+import com.zsmartsystems.zigbee.ZigBeeStatus;
+import com.zsmartsystems.zigbee.security.ZigBeeKey;
+import com.zsmartsystems.zigbee.simulator.SimulatedEndpoint.SimulatedAttribute;
+import com.zsmartsystems.zigbee.simulator.SimulatedNode.PendingFrame;
+import com.zsmartsystems.zigbee.simulator.SimulatedNode.SimulatedReport;
+import com.zsmartsystems.zigbee.transport.TransportConfig;
+import com.zsmartsystems.zigbee.transport.TransportConfigOption;
+import com.zsmartsystems.zigbee.transport.ZigBeeTransportProgressState;
+import com.zsmartsystems.zigbee.transport.ZigBeeTransportReceive;
+import com.zsmartsystems.zigbee.transport.ZigBeeTransportTransmit;
+import com.zsmartsystems.zigbee.zdo.field.NodeDescriptor.LogicalType;
+
+/**
+ * Implementation of a simulated ZigBee coordinator and network. This allows the framework to be load and soak tested
+ * with networks of thousands of nodes without any hardware.
+ * <p>
+ * Nodes are added to the simulation with {@link #addNode(SimulatedNode)}. Frames sent by the framework are delivered
+ * to the simulated nodes after the NCP latency, plus the hop latency for each hop between the coordinator and the
+ * node, and may be lost at each hop with the configured probability. Responses from the nodes are returned to the
+ * framework through the same route. Frames for sleepy end devices are held by the parent until the node next polls.
+ * <p>
+ * Transmission progress is reported with {@link ZigBeeTransportReceive#receiveCommandStatus} using the APS counter of
+ * the frame, as with the hardware dongles - {@link ZigBeeTransportProgressState#TX_ACK} once the frame is accepted
+ * by the simulated NCP, then {@link ZigBeeTransportProgressState#RX_ACK} when the frame is delivered, or
+ * {@link ZigBeeTransportProgressState#RX_NAK} if the frame is lost.
+ * <p>
+ * All simulated events run on a single scheduler thread, and all random values are taken from a single seeded
+ * {@link Random}, so that the behaviour of a simulation is repeatable as far as the framework allows.
+ *
+ * @author Chris Jackson
+ */
+public class ZigBeeDongleSimulator implements ZigBeeTransportTransmit {
+    /**
+     * The logger.
+     */
+    private final Logger logger = LoggerFactory.getLogger(ZigBeeDongleSimulator.class);
+
+    /**
+     * The time after which the NCP reports that a unicast wasn't acknowledged by the destination
+     */
+    private static final long APS_ACK_TIMEOUT = 1000;
+
+    /**
+     * The time a parent holds a frame for a sleepy child before it is discarded
+     */
+    private static final long INDIRECT_TRANSMISSION_TIMEOUT = 7680;
+
+    private static final int BROADCAST_ALL_DEVICES = 0xFFFF;
+    private static final int BROADCAST_RX_ON = 0xFFFD;
+    private static final int BROADCAST_ADDRESS_MIN = 0xFFF8;
+
+    private ZigBeeTransportReceive zigbeeTransportReceive;
+
+    private final ScheduledExecutorService executorService = Executors.newSingleThreadScheduledExecutor();
+    private final Random random;
+    private final SimulatedNodeProcessor processor = new SimulatedNodeProcessor();
+
+    /**
+     * Map of network address to the simulated nodes, including the coordinator
+     */
+    private final Map<Integer, SimulatedNode> nodes = new ConcurrentHashMap<>();
+
+    /**
+     * Map of network address to the periodic tasks (polling and reporting) of each node
+     */
+    private final Map<Integer, List<ScheduledFuture<?>>> nodeTasks = new ConcurrentHashMap<>();
+
+    private final SimulatedNode coordinator;
+
+    private volatile boolean started;
+
+    private SimulatedLatency ncpLatency = SimulatedLatency.fixed(2);
+    private SimulatedLatency hopLatency = SimulatedLatency.uniform(5, 20);
+    private double hopLossProbability;
+
+    private ZigBeeChannel channel = ZigBeeChannel.CHANNEL_11;
+    private int panId = 0x1234;
+    private ExtendedPanId extendedPanId = new ExtendedPanId("0000000000001234");
+    private ZigBeeKey networkKey = new ZigBeeKey();
+    private ZigBeeKey linkKey = new ZigBeeKey();
+
+    private final AtomicLong framesTransmitted = new AtomicLong();
+    private final AtomicLong framesDelivered = new AtomicLong();
+    private final AtomicLong framesLost = new AtomicLong();
+    private final AtomicLong framesReceived = new AtomicLong();
+
+    /**
+     * Creates a simulator with a random seed
+     */
+    public ZigBeeDongleSimulator() {
+        this(new IeeeAddress("0000000000000001"), System.nanoTime());
+    }
+
+    /**
+     * Creates a simulator with a given seed so that the simulation is repeatable
+     *
+     * @param ieeeAddress the {@link IeeeAddress} of the simulated coordinator
+     * @param seed the seed for the random number generator
+     */
+    public ZigBeeDongleSimulator(IeeeAddress ieeeAddress, long seed) {
+        random = new Random(seed);
+
+        coordinator = new SimulatedNode(ieeeAddress, 0, LogicalType.COORDINATOR);
+        coordinator.addEndpoint(new SimulatedEndpoint(1, 0x104, 0x0007));
+        nodes.put(0, coordinator);
+    }
+
+    /**
+     * Gets the simulated coordinator node. Endpoints may be added to the coordinator to simulate the local node.
+     *
+     * @return the coordinator {@link SimulatedNode}
+     */
+    public SimulatedNode getCoordinator() {
+        return coordinator;
+    }
+
+    /**
+     * Adds a node to the simulated network. If the simulation is already running, the node starts polling and
+     * reporting immediately.
+     *
+     * @param node the {@link SimulatedNode} to add
+     */
+    public void addNode(SimulatedNode node) {
+        if (nodes.containsKey(node.getNetworkAddress())) {
+            throw new IllegalArgumentException(
+                    String.format("Network address %04X is already in use", node.getNetworkAddress()));
+        }
+        nodes.put(node.getNetworkAddress(), node);
+        if (started) {
+            startNode(node);
+        }
+    }
+
+    /**
+     * Removes a node from the simulated network
+     *
+     * @param networkAddress the network address of the node to remove
+     * @return the removed {@link SimulatedNode}, or null if the node was not found
+     */
+    public SimulatedNode removeNode(int networkAddress) {
+        if (networkAddress == coordinator.getNetworkAddress()) {
+            return null;
+        }
+        stopNode(networkAddress);
+        return nodes.remove(networkAddress);
+    }
+
+    /**
+     * Gets a node from the simulated network
+     *
+     * @param networkAddress the network address of the node
+     * @return the {@link SimulatedNode}, or null if the node was not found
+     */
+    public SimulatedNode getNode(int networkAddress) {
+        return nodes.get(networkAddress);
+    }
+
+    /**
+     * Gets all nodes in the simulated network, excluding the coordinator
+     *
+     * @return the {@link Collection} of {@link SimulatedNode}s
+     */
+    public Collection<SimulatedNode> getNodes() {
+        List<SimulatedNode> nodeList = new ArrayList<SimulatedNode>(nodes.values());
+        nodeList.remove(coordinator);
+        return nodeList;
+    }
+
+    /**
+     * Sets the latency of the NCP - the time between a frame being sent by the framework and the frame being
+     * transmitted. Defaults to 2ms.
+     *
+     * @param ncpLatency the {@link SimulatedLatency} of the NCP
+     */
+    public void setNcpLatency(SimulatedLatency ncpLatency) {
+        this.ncpLatency = ncpLatency;
+    }
+
+    /**
+     * Sets the latency of each hop through the mesh. Defaults to between 5ms and 20ms.
+     *
+     * @param hopLatency the {@link SimulatedLatency} of each hop
+     */
+    public void setHopLatency(SimulatedLatency hopLatency) {
+        this.hopLatency = hopLatency;
+    }
+
+    /**
+     * Sets the probability of a frame being lost at each hop through the mesh. Defaults to 0.
+     *
+     * @param hopLossProbability the probability between 0 and 1
+     */
+    public void setHopLossProbability(double hopLossProbability) {
+        if (hopLossProbability < 0 || hopLossProbability > 1) {
+            throw new IllegalArgumentException("Loss probability must be between 0 and 1");
+        }
+        this.hopLossProbability = hopLossProbability;
+    }
+
+    /**
+     * Simulates all nodes joining the network. Each node sends a device announcement, and the join is notified to the
+     * framework through {@link ZigBeeTransportReceive#nodeStatusUpdate}. The joins are spread randomly across the
+     * period so that the framework sees a realistic rate of joins.
+     *
+     * @param period the period in milliseconds over which the nodes join
+     */
+    public void announceNodes(long period) {
+        for (final SimulatedNode node : getNodes()) {
+            schedule(new Runnable() {
+                @Override
+                public void run() {
+                    zigbeeTransportReceive.nodeStatusUpdate(ZigBeeNodeStatus.UNSECURED_JOIN,
+                            node.getNetworkAddress(), node.getIeeeAddress());
+                    sendToCoordinator(node, processor.createDeviceAnnounce(node));
+                }
+            }, period > 0 ? (long) (random.nextDouble() * period) : 0);
+        }
+    }
+
+    /**
+     * Gets the number of frames sent by the framework
+     *
+     * @return the number of frames sent by the framework
+     */
+    public long getFramesTransmitted() {
+        return framesTransmitted.get();
+    }
+
+    /**
+     * Gets the number of frames delivered to simulated nodes. A broadcast frame is counted once for each node.
+     *
+     * @return the number of frames delivered to simulated nodes
+     */
+    public long getFramesDelivered() {
+        return framesDelivered.get();
+    }
+
+    /**
+     * Gets the number of frames lost in the simulated mesh in either direction
+     *
+     * @return the number of frames lost in the simulated mesh
+     */
+    public long getFramesLost() {
+        return framesLost.get();
+    }
+
+    /**
+     * Gets the number of frames passed to the framework from the simulated nodes
+     *
+     * @return the number of frames received by the framework
+     */
+    public long getFramesReceived() {
+        return framesReceived.get();
+    }
+
+    @Override
+    public ZigBeeStatus initialize() {
+        logger.debug("Simulator: initialize with {} nodes", nodes.size() - 1);
+        return ZigBeeStatus.SUCCESS;
+    }
+
+    @Override
+    public ZigBeeStatus startup(boolean reinitialize) {
+        logger.debug("Simulator: startup");
+        if (started) {
+            return ZigBeeStatus.SUCCESS;
+        }
+        started = true;
+        for (SimulatedNode node : nodes.values()) {
+            startNode(node);
+        }
+        return ZigBeeStatus.SUCCESS;
+    }
+
+    @Override
+    public void shutdown() {
+        logger.debug("Simulator: shutdown");
+        started = false;
+        executorService.shutdownNow();
+    }
+
+    @Override
+    public String getVersionString() {
+        return "Simulator " + (nodes.size() - 1) + " nodes";
+    }
+
+    @Override
+    public IeeeAddress getIeeeAddress() {
+        return coordinator.getIeeeAddress();
+    }
+
+    @Override
+    public Integer getNwkAddress() {
+        return coordinator.getNetworkAddress();
+    }
+
+    @Override
+    public void sendCommand(final ZigBeeApsFrame apsFrame) {
+        framesTransmitted.incrementAndGet();
+        schedule(new Runnable() {
+            @Override
+            public void run() {
+                transmitFrame(apsFrame);
+            }
+        }, ncpLatency.nextLatency(random));
+    }
+
+    @Override
+    public void setZigBeeTransportReceive(ZigBeeTransportReceive zigbeeTransportReceive) {
+        this.zigbeeTransportReceive = zigbeeTransportReceive;
+    }
+
+    @Override
+    public ZigBeeChannel getZigBeeChannel() {
+        return channel;
+    }
+
+    @Override
+    public ZigBeeStatus setZigBeeChannel(ZigBeeChannel channel) {
+        this.channel = channel;
+        return ZigBeeStatus.SUCCESS;
+    }
+
+    @Override
+    public int getZigBeePanId() {
+        return panId;
+    }
+
+    @Override
+    public ZigBeeStatus setZigBeePanId(int panId) {
+        this.panId = panId;
+        return ZigBeeStatus.SUCCESS;
+    }
+
+    @Override
+    public ExtendedPanId getZigBeeExtendedPanId() {
+        return extendedPanId;
+    }
+
+    @Override
+    public ZigBeeStatus setZigBeeExtendedPanId(ExtendedPanId panId) {
+        this.extendedPanId = panId;
+        return ZigBeeStatus.SUCCESS;
+    }
+
+    @Override
+    public ZigBeeStatus setZigBeeNetworkKey(ZigBeeKey key) {
+        this.networkKey = key;
+        return ZigBeeStatus.SUCCESS;
+    }
+
+    @Override
+    public ZigBeeKey getZigBeeNetworkKey() {
+        return networkKey;
+    }
+
+    @Override
+    public ZigBeeStatus setTcLinkKey(ZigBeeKey key) {
+        this.linkKey = key;
+        return ZigBeeStatus.SUCCESS;
+    }
+
+    @Override
+    public ZigBeeKey getTcLinkKey() {
+        return linkKey;
+    }
+
+    @Override
+    public void updateTransportConfig(TransportConfig configuration) {
+        for (TransportConfigOption option : configuration.getOptions()) {
+            configuration.setResult(option, ZigBeeStatus.SUCCESS);
+        }
+    }
+
+    private void transmitFrame(final ZigBeeApsFrame apsFrame) {
+        zigbeeTransportReceive.receiveCommandStatus(apsFrame.getApsCounter(), ZigBeeTransportProgressState.TX_ACK);
+
+        if (apsFrame.getAddressMode() == ZigBeeNwkAddressMode.GROUP) {
+            logger.debug("Simulator: group frames are not simulated {}", apsFrame);
+            return;
+        }
+
+        int destination = apsFrame.getDestinationAddress();
+        if (destination >= BROADCAST_ADDRESS_MIN) {
+            for (SimulatedNode node : nodes.values()) {
+                if (destination == BROADCAST_ALL_DEVICES
+                        || (destination == BROADCAST_RX_ON && !node.isSleepy())
+                        || node.getLogicalType() != LogicalType.END_DEVICE) {
+                    sendToNode(node, apsFrame, false);
+                }
+            }
+            return;
+        }
+
+        SimulatedNode node = nodes.get(destination);
+        if (node == null) {
+            logger.debug("Simulator: no node at address {}", String.format("%04X", destination));
+            frameLost(apsFrame);
+            return;
+        }
+        sendToNode(node, apsFrame, true);
+    }
+
+    private void sendToNode(final SimulatedNode node, final ZigBeeApsFrame apsFrame, final boolean unicast) {
+        // The frame to a sleepy node is routed to its parent, and held until the node polls
+        long delay = getRouteDelay(node.isSleepy() ? node.getHops() - 1 : node.getHops());
+        if (delay < 0) {
+            if (unicast) {
+                frameLost(apsFrame);
+            } else {
+                framesLost.incrementAndGet();
+            }
+            return;
+        }
+
+        schedule(new Runnable() {
+            @Override
+            public void run() {
+                if (node.isSleepy()) {
+                    node.queuePendingFrame(apsFrame, System.currentTimeMillis());
+                    return;
+                }
+                deliverFrame(node, apsFrame, unicast);
+            }
+        }, delay);
+    }
+
+    private void deliverFrame(SimulatedNode node, ZigBeeApsFrame apsFrame, boolean unicast) {
+        framesDelivered.incrementAndGet();
+        if (unicast) {
+            zigbeeTransportReceive.receiveCommandStatus(apsFrame.getApsCounter(),
+                    ZigBeeTransportProgressState.RX_ACK);
+        }
+        for (ZigBeeApsFrame response : processor.processFrame(node, apsFrame)) {
+            sendToCoordinator(node, response);
+        }
+    }
+
+    private void sendToCoordinator(SimulatedNode node, final ZigBeeApsFrame apsFrame) {
+        long delay = getRouteDelay(node.getHops());
+        if (delay < 0) {
+            framesLost.incrementAndGet();
+            return;
+        }
+
+        schedule(new Runnable() {
+            @Override
+            public void run() {
+                framesReceived.incrementAndGet();
+                zigbeeTransportReceive.receiveCommand(apsFrame);
+            }
+        }, delay);
+    }
+
+    private void frameLost(final ZigBeeApsFrame apsFrame) {
+        framesLost.incrementAndGet();
+        schedule(new Runnable() {
+            @Override
+            public void run() {
+                zigbeeTransportReceive.receiveCommandStatus(apsFrame.getApsCounter(),
+                        ZigBeeTransportProgressState.RX_NAK);
+            }
+        }, APS_ACK_TIMEOUT);
+    }
+
+    /**
+     * Gets the time taken to route a frame across a number of hops
+     *
+     * @param hops the number of hops
+     * @return the time in milliseconds, or -1 if the frame is lost
+     */
+    private long getRouteDelay(int hops) {
+        long delay = 0;
+        for (int hop = 0; hop < hops; hop++) {
+            if (hopLossProbability > 0 && random.nextDouble() < hopLossProbability) {
+                return -1;
+            }
+            delay += hopLatency.nextLatency(random);
+        }
+        return delay;
+    }
+
+    private void startNode(final SimulatedNode node) {
+        List<ScheduledFuture<?>> tasks = new ArrayList<ScheduledFuture<?>>();
+        try {
+            if (node.isSleepy()) {
+                tasks.add(executorService.scheduleAtFixedRate(new Runnable() {
+                    @Override
+                    public void run() {
+                        pollNode(node);
+                    }
+                }, (long) (random.nextDouble() * node.getPollPeriod()), node.getPollPeriod(),
+                        TimeUnit.MILLISECONDS));
+            }
+
+            for (final SimulatedReport report : node.getReports()) {
+                tasks.add(executorService.scheduleAtFixedRate(new Runnable() {
+                    @Override
+                    public void run() {
+                        sendReport(node, report);
+                    }
+                }, (long) (random.nextDouble() * report.getPeriod()), report.getPeriod(), TimeUnit.MILLISECONDS));
+            }
+        } catch (RejectedExecutionException e) {
+            logger.debug("Simulator: unable to start node {} after shutdown", node.getIeeeAddress());
+        }
+        nodeTasks.put(node.getNetworkAddress(), tasks);
+    }
+
+    private void stopNode(int networkAddress) {
+        List<ScheduledFuture<?>> tasks = nodeTasks.remove(networkAddress);
+        if (tasks == null) {
+            return;
+        }
+        for (ScheduledFuture<?> task : tasks) {
+            task.cancel(false);
+        }
+    }
+
+    private void pollNode(SimulatedNode node) {
+        long now = System.currentTimeMillis();
+        for (PendingFrame pendingFrame : node.pollPendingFrames()) {
+            ZigBeeApsFrame apsFrame = pendingFrame.getApsFrame();
+            boolean unicast = apsFrame.getDestinationAddress() < BROADCAST_ADDRESS_MIN;
+            if (now - pendingFrame.getQueueTime() > INDIRECT_TRANSMISSION_TIMEOUT) {
+                logger.debug("Simulator: frame for {} expired before poll", node.getIeeeAddress());
+                if (unicast) {
+                    frameLost(apsFrame);
+                } else {
+                    framesLost.incrementAndGet();
+                }
+                continue;
+            }
+
+            // The final hop from the parent to the sleepy node
+            if (getRouteDelay(1) < 0) {
+                if (unicast) {
+                    frameLost(apsFrame);
+                } else {
+                    framesLost.incrementAndGet();
+                }
+                continue;
+            }
+            deliverFrame(node, apsFrame, unicast);
+        }
+    }
+
+    private void sendReport(SimulatedNode node, SimulatedReport report) {
+        SimulatedEndpoint endpoint = node.getEndpoint(report.getEndpointId());
+        if (endpoint == null) {
+            return;
+        }
+        SimulatedAttribute attribute = endpoint.getAttribute(report.getClusterId(), report.getAttributeId());
+        if (attribute == null) {
+            return;
+        }
+        try {
+            attribute.setValue(report.getGenerator().nextValue(attribute.getValue(), random));
+        } catch (RuntimeException e) {
+            logger.debug("Simulator: exception generating report for {}", node.getIeeeAddress(), e);
+            return;
+        }
+        ZigBeeApsFrame apsFrame = processor.createAttributeReport(node, report.getEndpointId(),
+                report.getClusterId(), report.getAttributeId());
+        if (apsFrame != null) {
+            sendToCoordinator(node, apsFrame);
+        }
+    }
+
+    private void schedule(Runnable runnable, long delay) {
+        try {
+            executorService.schedule(runnable, delay, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            logger.debug("Simulator: event rejected after shutdown");
+        }
+    }
+}
@@ -0,0 +1,230 @@
+/**
+ * Copyright (c) 2016-2019 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.simulator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+
+import com.zsmartsystems.zigbee.IeeeAddress;
+import com.zsmartsystems.zigbee.ZigBeeApsFrame;
+import com.zsmartsystems.zigbee.ZigBeeNodeStatus;
+import com.zsmartsystems.zigbee.ZigBeeNwkAddressMode;
+import com.zsmartsystems.zigbee.serialization.DefaultDeserializer;
+import com.zsmartsystems.zigbee.transport.ZigBeeTransportProgressState;
+import com.zsmartsystems.zigbee.transport.ZigBeeTransportReceive;
+import com.zsmartsystems.zigbee.zcl.ZclFieldDeserializer;
+import com.zsmartsystems.zigbee.zcl.protocol.ZclDataType;
+import com.zsmartsystems.zigbee.zdo.ZdoStatus;
+import com.zsmartsystems.zigbee.zdo.command.NodeDescriptorResponse;
+import com.zsmartsystems.zigbee.zdo.command.SimpleDescriptorResponse;
+import com.zsmartsystems.zigbee.zdo.field.NodeDescriptor.LogicalType;
+
+/**
+ * Tests for {@link ZigBeeDongleSimulator}
+ *
+ * @author Chris Jackson
+ *
+ */
+public class ZigBeeDongleSimulatorTest {
+    private static int TIMEOUT = 5000;
+
+    private ZigBeeDongleSimulator createSimulator(ZigBeeTransportReceive receiver) {
+        ZigBeeDongleSimulator simulator = new ZigBeeDongleSimulator(new IeeeAddress("1234567890ABCDEF"), 1);
+        simulator.setHopLatency(SimulatedLatency.fixed(1));
+        simulator.setNcpLatency(SimulatedLatency.fixed(0));
+        simulator.setZigBeeTransportReceive(receiver);
+        return simulator;
+    }
+
+    private SimulatedNode createNode(int networkAddress, LogicalType logicalType) {
+        SimulatedNode node = new SimulatedNode(new IeeeAddress(String.format("%016X", networkAddress)),
+                networkAddress, logicalType);
+        SimulatedEndpoint endpoint = new SimulatedEndpoint(1, 0x104, 0x0100);
+        endpoint.addInputCluster(0x0000);
+        endpoint.addInputCluster(0x0006);
+        endpoint.addOutputCluster(0x0019);
+        endpoint.setAttribute(0x0006, 0x0000, ZclDataType.BOOLEAN, Boolean.TRUE);
+        node.addEndpoint(endpoint);
+        return node;
+    }
+
+    private ZigBeeApsFrame createFrame(int destination, int profile, int cluster, int[] payload) {
+        ZigBeeApsFrame apsFrame = new ZigBeeApsFrame();
+        apsFrame.setAddressMode(ZigBeeNwkAddressMode.DEVICE);
+        apsFrame.setDestinationAddress(destination);
+        apsFrame.setDestinationEndpoint(profile == 0 ? 0 : 1);
+        apsFrame.setSourceEndpoint(profile == 0 ? 0 : 1);
+        apsFrame.setProfile(profile);
+        apsFrame.setCluster(cluster);
+        apsFrame.setApsCounter(destination & 0xFF);
+        apsFrame.setPayload(payload);
+        return apsFrame;
+    }
+
+    @Test
+    public void readAttribute() {
+        ZigBeeTransportReceive receiver = Mockito.mock(ZigBeeTransportReceive.class);
+        ZigBeeDongleSimulator simulator = createSimulator(receiver);
+        SimulatedNode node = createNode(0x1234, LogicalType.ROUTER);
+        node.setHops(3);
+        simulator.addNode(node);
+        simulator.startup(false);
+
+        simulator.sendCommand(createFrame(0x1234, 0x104, 0x0006, new int[] { 0x00, 0x2A, 0x00, 0x00, 0x00, 0x01,
+                0x00 }));
+
+        ArgumentCaptor<ZigBeeApsFrame> frameCaptor = ArgumentCaptor.forClass(ZigBeeApsFrame.class);
+        Mockito.verify(receiver, Mockito.timeout(TIMEOUT)).receiveCommand(frameCaptor.capture());
+        Mockito.verify(receiver, Mockito.timeout(TIMEOUT)).receiveCommandStatus(0x34,
+                ZigBeeTransportProgressState.TX_ACK);
+        Mockito.verify(receiver, Mockito.timeout(TIMEOUT)).receiveCommandStatus(0x34,
+                ZigBeeTransportProgressState.RX_ACK);
+
+        ZigBeeApsFrame response = frameCaptor.getValue();
+        assertEquals(0x1234, response.getSourceAddress());
+        assertEquals(0x0006, response.getCluster());
+        assertEquals(1, response.getSourceEndpoint());
+        assertTrue(Arrays.equals(new int[] { 0x18, 0x2A, 0x01, 0x00, 0x00, 0x00, 0x10, 0x01, 0x01, 0x00, 0x86 },
+                response.getPayload()));
+
+        assertEquals(1, simulator.getFramesTransmitted());
+        assertEquals(1, simulator.getFramesDelivered());
+        assertEquals(1, simulator.getFramesReceived());
+        simulator.shutdown();
+    }
+
+    @Test
+    public void zdoDescriptors() {
+        ZigBeeTransportReceive receiver = Mockito.mock(ZigBeeTransportReceive.class);
+        ZigBeeDongleSimulator simulator = createSimulator(receiver);
+        SimulatedNode node = createNode(0x1234, LogicalType.END_DEVICE);
+        node.setManufacturerCode(0x1037);
+        simulator.addNode(node);
+        simulator.startup(false);
+
+        simulator.sendCommand(createFrame(0x1234, 0, 0x0002, new int[] { 0x11, 0x34, 0x12 }));
+        simulator.sendCommand(createFrame(0x1234, 0, 0x0004, new int[] { 0x12, 0x34, 0x12, 0x01 }));
+
+        ArgumentCaptor<ZigBeeApsFrame> frameCaptor = ArgumentCaptor.forClass(ZigBeeApsFrame.class);
+        Mockito.verify(receiver, Mockito.timeout(TIMEOUT).times(2)).receiveCommand(frameCaptor.capture());
+
+        ZigBeeApsFrame nodeFrame = frameCaptor.getAllValues().get(0);
+        assertEquals(0x8002, nodeFrame.getCluster());
+        assertEquals(0x11, nodeFrame.getPayload()[0]);
+        NodeDescriptorResponse nodeResponse = new NodeDescriptorResponse();
+        nodeResponse.deserialize(new ZclFieldDeserializer(new DefaultDeserializer(nodeFrame.getPayload())));
+        assertEquals(ZdoStatus.SUCCESS, nodeResponse.getStatus());
+        assertEquals(Integer.valueOf(0x1234), nodeResponse.getNwkAddrOfInterest());
+        assertEquals(LogicalType.END_DEVICE, nodeResponse.getNodeDescriptor().getLogicalType());
+        assertEquals(0x1037, nodeResponse.getNodeDescriptor().getManufacturerCode());
+
+        ZigBeeApsFrame simpleFrame = frameCaptor.getAllValues().get(1);
+        assertEquals(0x8004, simpleFrame.getCluster());
+        SimpleDescriptorResponse simpleResponse = new SimpleDescriptorResponse();
+        simpleResponse.deserialize(new ZclFieldDeserializer(new DefaultDeserializer(simpleFrame.getPayload())));
+        assertEquals(ZdoStatus.SUCCESS, simpleResponse.getStatus());
+        assertEquals(0x104, simpleResponse.getSimpleDescriptor().getProfileId());
+        assertEquals(Arrays.asList(0x0000, 0x0006), simpleResponse.getSimpleDescriptor().getInputClusterList());
+        assertEquals(Arrays.asList(0x0019), simpleResponse.getSimpleDescriptor().getOutputClusterList());
+        simulator.shutdown();
+    }
+
+    @Test
+    public void sleepyNode() {
+        ZigBeeTransportReceive receiver = Mockito.mock(ZigBeeTransportReceive.class);
+        ZigBeeDongleSimulator simulator = createSimulator(receiver);
+        SimulatedNode node = createNode(0x1234, LogicalType.END_DEVICE);
+        node.setPollPeriod(200);
+        assertTrue(node.isSleepy());
+        simulator.addNode(node);
+        simulator.startup(false);
+
+        // On/Off toggle - the frame is held by the parent until the node polls
+        simulator.sendCommand(createFrame(0x1234, 0x104, 0x0006, new int[] { 0x01, 0x2B, 0x02 }));
+
+        Mockito.verify(receiver, Mockito.timeout(TIMEOUT)).receiveCommandStatus(0x34,
+                ZigBeeTransportProgressState.RX_ACK);
+        Mockito.verify(receiver, Mockito.timeout(TIMEOUT)).receiveCommand(ArgumentMatchers.any(ZigBeeApsFrame.class));
+        assertEquals(Boolean.FALSE, node.getEndpoint(1).getAttributeValue(0x0006, 0x0000));
+        simulator.shutdown();
+    }
+
+    @Test
+    public void frameLost() {
+        ZigBeeTransportReceive receiver = Mockito.mock(ZigBeeTransportReceive.class);
+        ZigBeeDongleSimulator simulator = createSimulator(receiver);
+        simulator.setHopLossProbability(1.0);
+        simulator.addNode(createNode(0x1234, LogicalType.ROUTER));
+        simulator.startup(false);
+
+        simulator.sendCommand(createFrame(0x1234, 0x104, 0x0006, new int[] { 0x00, 0x2A, 0x00, 0x00, 0x00 }));
+        simulator.sendCommand(createFrame(0x4321, 0x104, 0x0006, new int[] { 0x00, 0x2B, 0x00, 0x00, 0x00 }));
+
+        Mockito.verify(receiver, Mockito.timeout(TIMEOUT)).receiveCommandStatus(0x34,
+                ZigBeeTransportProgressState.RX_NAK);
+        Mockito.verify(receiver, Mockito.timeout(TIMEOUT)).receiveCommandStatus(0x21,
+                ZigBeeTransportProgressState.RX_NAK);
+        Mockito.verify(receiver, Mockito.never()).receiveCommand(ArgumentMatchers.any(ZigBeeApsFrame.class));
+        assertEquals(2, simulator.getFramesLost());
+        simulator.shutdown();
+    }
+
+    @Test
+    public void attributeReports() {
+        ZigBeeTransportReceive receiver = Mockito.mock(ZigBeeTransportReceive.class);
+        ZigBeeDongleSimulator simulator = createSimulator(receiver);
+        for (int address = 1; address <= 100; address++) {
+            SimulatedNode node = createNode(address, LogicalType.ROUTER);
+            node.addAttributeReport(1, 0x0006, 0x0000, 100, new SimulatedAttributeGenerator() {
+                @Override
+                public Object nextValue(Object currentValue, Random random) {
+                    return !Boolean.TRUE.equals(currentValue);
+                }
+            });
+            simulator.addNode(node);
+        }
+        simulator.startup(false);
+
+        ArgumentCaptor<ZigBeeApsFrame> frameCaptor = ArgumentCaptor.forClass(ZigBeeApsFrame.class);
+        Mockito.verify(receiver, Mockito.timeout(TIMEOUT).atLeast(200)).receiveCommand(frameCaptor.capture());
+        simulator.shutdown();
+
+        ZigBeeApsFrame report = frameCaptor.getAllValues().get(0);
+        assertEquals(0x0006, report.getCluster());
+        assertEquals(0x18, report.getPayload()[0]);
+        assertEquals(0x0A, report.getPayload()[2]);
+        assertEquals(0x10, report.getPayload()[5]);
+    }
+
+    @Test
+    public void announceNodes() {
+        ZigBeeTransportReceive receiver = Mockito.mock(ZigBeeTransportReceive.class);
+        ZigBeeDongleSimulator simulator = createSimulator(receiver);
+        for (int address = 1; address <= 50; address++) {
+            simulator.addNode(createNode(address, LogicalType.ROUTER));
+        }
+        assertEquals(50, simulator.getNodes().size());
+        simulator.startup(false);
+        simulator.announceNodes(100);
+
+        Mockito.verify(receiver, Mockito.timeout(TIMEOUT).times(50)).nodeStatusUpdate(
+                ArgumentMatchers.eq(ZigBeeNodeStatus.UNSECURED_JOIN), ArgumentMatchers.anyInt(),
+                ArgumentMatchers.any(IeeeAddress.class));
+        Mockito.verify(receiver, Mockito.timeout(TIMEOUT).times(50))
+                .receiveCommand(ArgumentMatchers.any(ZigBeeApsFrame.class));
+        simulator.shutdown();
+    }
+}
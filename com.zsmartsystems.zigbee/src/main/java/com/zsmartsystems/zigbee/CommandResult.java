@@ -7,6 +7,7 @@
  */
 package com.zsmartsystems.zigbee;
 
+import com.zsmartsystems.zigbee.transaction.ZigBeeTransactionTrace;
 import com.zsmartsystems.zigbee.zcl.ZclStatus;
 import com.zsmartsystems.zigbee.zcl.clusters.general.DefaultResponse;
 import com.zsmartsystems.zigbee.zdo.ZdoResponse;
@@ -24,20 +25,37 @@ public class CommandResult {
      */
     private final ZigBeeCommand response;
 
+    /**
+     * The trace of the transaction lifecycle, or null if not available.
+     */
+    private final ZigBeeTransactionTrace trace;
+
     /**
      * Constructor which sets the received response command or null if timeout occurs.
      *
      * @param response the response command.
      */
     public CommandResult(final ZigBeeCommand response) {
+        this(response, null);
+    }
+
+    /**
+     * Constructor which sets the received response command or null if timeout occurs, and the trace of the
+     * transaction.
+     *
+     * @param response the response command.
+     * @param trace the {@link ZigBeeTransactionTrace} of the transaction
+     */
+    public CommandResult(final ZigBeeCommand response, final ZigBeeTransactionTrace trace) {
         this.response = response;
+        this.trace = trace;
     }
 
     /**
      * Constructor for timeout situations.
      */
     public CommandResult() {
-        response = null;
+        this(null, null);
     }
 
     /**
@@ -110,6 +128,15 @@ public class CommandResult {
         return (ZigBeeCommand) response;
     }
 
+    /**
+     * Gets the trace of the transaction, providing the time at which each stage of the transaction was reached.
+     *
+     * @return the {@link ZigBeeTransactionTrace} or null if the trace is not available
+     */
+    public ZigBeeTransactionTrace getTrace() {
+        return trace;
+    }
+
     @Override
     public String toString() {
         StringBuilder builder = new StringBuilder(60);
@@ -11,6 +11,7 @@ import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
@@ -23,6 +24,7 @@ import com.zsmartsystems.zigbee.app.ZigBeeApplication;
 import com.zsmartsystems.zigbee.dao.ZclClusterDao;
 import com.zsmartsystems.zigbee.dao.ZigBeeEndpointDao;
 import com.zsmartsystems.zigbee.transaction.ZigBeeTransactionMatcher;
+import com.zsmartsystems.zigbee.zcl.ZclAttributeListener;
 import com.zsmartsystems.zigbee.zcl.ZclCluster;
 import com.zsmartsystems.zigbee.zcl.ZclCommand;
 import com.zsmartsystems.zigbee.zcl.clusters.general.ReadAttributesResponse;
@@ -79,6 +81,19 @@ public class ZigBeeEndpoint {
      */
     private final Map<Integer, ZclCluster> outputClusters = new ConcurrentHashMap<Integer, ZclCluster>();
 
+    /**
+     * Input clusters restored from a {@link ZigBeeEndpointDao} that have not yet been used. The {@link ZclCluster} is
+     * only created from the {@link ZclClusterDao} when the cluster is first requested, or a command for the cluster is
+     * received, so that clusters that are never used after the network is restored don't pay for creating all their
+     * attributes.
+     */
+    private final Map<Integer, DormantCluster> dormantInputClusters = new ConcurrentHashMap<Integer, DormantCluster>();
+
+    /**
+     * Output clusters restored from a {@link ZigBeeEndpointDao} that have not yet been used
+     */
+    private final Map<Integer, DormantCluster> dormantOutputClusters = new ConcurrentHashMap<Integer, DormantCluster>();
+
     /**
      * Map of {@link ZigBeeApplication}s that are available to this endpoint. Applications are added
      * with the {@link #addApplication(ZigBeeApplication application)} method and can be retrieved with the
@@ -149,7 +164,7 @@ public class ZigBeeEndpoint {
      * @return the {@link Collection} of input cluster IDs
      */
     public Collection<Integer> getInputClusterIds() {
-        return inputClusters.keySet();
+        return getClusterIds(inputClusters, dormantInputClusters);
     }
 
     /**
@@ -160,7 +175,8 @@ public class ZigBeeEndpoint {
      *         endpoint)
      */
     public boolean addInputCluster(ZclCluster cluster) {
-        if (inputClusters.containsKey(cluster.getClusterId())) {
+        if (inputClusters.containsKey(cluster.getClusterId())
+                || dormantInputClusters.containsKey(cluster.getClusterId())) {
             return false;
         }
 
@@ -188,7 +204,11 @@ public class ZigBeeEndpoint {
      * @return the {@link ZclCluster} or null if cluster is not found
      */
     public ZclCluster getInputCluster(int clusterId) {
-        return inputClusters.get(clusterId);
+        ZclCluster cluster = inputClusters.get(clusterId);
+        if (cluster == null && !dormantInputClusters.isEmpty()) {
+            cluster = activateCluster(inputClusters, dormantInputClusters, clusterId);
+        }
+        return cluster;
     }
 
     /**
@@ -198,7 +218,86 @@ public class ZigBeeEndpoint {
      * @return the {@link ZclCluster} or null if cluster is not found
      */
     public ZclCluster getOutputCluster(int clusterId) {
-        return outputClusters.get(clusterId);
+        ZclCluster cluster = outputClusters.get(clusterId);
+        if (cluster == null && !dormantOutputClusters.isEmpty()) {
+            cluster = activateCluster(outputClusters, dormantOutputClusters, clusterId);
+        }
+        return cluster;
+    }
+
+    /**
+     * Adds a {@link ZclAttributeListener} to an input or output cluster. If the cluster has been restored from a
+     * {@link ZigBeeEndpointDao} and has not yet been used, the listener is held and added when the cluster is created,
+     * so registering a listener doesn't force the cluster to be created.
+     *
+     * @param clusterId the cluster ID
+     * @param input true to add the listener to the input cluster, false for the output cluster
+     * @param listener the {@link ZclAttributeListener} to add
+     * @return true if the listener was added, false if the cluster is not found
+     */
+    public boolean addAttributeListener(int clusterId, boolean input, ZclAttributeListener listener) {
+        Map<Integer, ZclCluster> clusters = input ? inputClusters : outputClusters;
+        Map<Integer, DormantCluster> dormantClusters = input ? dormantInputClusters : dormantOutputClusters;
+
+        synchronized (dormantClusters) {
+            DormantCluster dormantCluster = dormantClusters.get(clusterId);
+            if (dormantCluster != null) {
+                if (!dormantCluster.listeners.contains(listener)) {
+                    dormantCluster.listeners.add(listener);
+                }
+                return true;
+            }
+        }
+
+        ZclCluster cluster = clusters.get(clusterId);
+        if (cluster == null) {
+            return false;
+        }
+        cluster.addAttributeListener(listener);
+        return true;
+    }
+
+    private Collection<Integer> getClusterIds(Map<Integer, ZclCluster> clusters,
+            Map<Integer, DormantCluster> dormantClusters) {
+        if (dormantClusters.isEmpty()) {
+            return clusters.keySet();
+        }
+        Collection<Integer> clusterIds = new HashSet<Integer>(clusters.keySet());
+        clusterIds.addAll(dormantClusters.keySet());
+        return clusterIds;
+    }
+
+    /**
+     * Creates the {@link ZclCluster} for a dormant cluster and moves it into the active cluster map
+     *
+     * @param clusters the active clusters
+     * @param dormantClusters the dormant clusters
+     * @param clusterId the cluster ID
+     * @return the {@link ZclCluster} or null if the cluster is not found
+     */
+    private ZclCluster activateCluster(Map<Integer, ZclCluster> clusters, Map<Integer, DormantCluster> dormantClusters,
+            int clusterId) {
+        synchronized (dormantClusters) {
+            DormantCluster dormantCluster = dormantClusters.get(clusterId);
+            if (dormantCluster == null) {
+                // Another thread may have created the cluster while we were waiting
+                return clusters.get(clusterId);
+            }
+
+            ZclCluster cluster = getClusterClass(clusterId);
+            if (cluster != null) {
+                cluster.setDao(dormantCluster.dao);
+                for (ZclAttributeListener listener : dormantCluster.listeners) {
+                    cluster.addAttributeListener(listener);
+                }
+                clusters.put(clusterId, cluster);
+            }
+            dormantClusters.remove(clusterId);
+
+            logger.trace("{}: Cluster {} created from stored state", getEndpointAddress(),
+                    String.format("%04X", clusterId));
+            return cluster;
+        }
     }
 
     /**
@@ -209,6 +308,7 @@ public class ZigBeeEndpoint {
      */
     public void setInputClusterIds(List<Integer> inputClusterIds) {
         inputClusters.clear();
+        dormantInputClusters.clear();
 
         logger.debug("{}: Setting input clusters {}", getEndpointAddress(), inputClusterIds);
 
@@ -240,7 +340,7 @@ public class ZigBeeEndpoint {
      * @return the {@link Collection} of output cluster IDs
      */
     public Collection<Integer> getOutputClusterIds() {
-        return outputClusters.keySet();
+        return getClusterIds(outputClusters, dormantOutputClusters);
     }
 
     /**
@@ -251,6 +351,7 @@ public class ZigBeeEndpoint {
      */
     public void setOutputClusterIds(List<Integer> outputClusterIds) {
         outputClusters.clear();
+        dormantOutputClusters.clear();
 
         logger.debug("{}: Setting output clusters {}", getEndpointAddress(), outputClusterIds);
 
@@ -265,7 +366,8 @@ public class ZigBeeEndpoint {
      *         endpoint)
      */
     public boolean addOutputCluster(ZclCluster cluster) {
-        if (outputClusters.containsKey(cluster.getClusterId())) {
+        if (outputClusters.containsKey(cluster.getClusterId())
+                || dormantOutputClusters.containsKey(cluster.getClusterId())) {
             return false;
         }
 
@@ -398,9 +500,9 @@ public class ZigBeeEndpoint {
      */
     public void addApplication(ZigBeeApplication application) {
         applications.put(application.getClusterId(), application);
-        ZclCluster cluster = outputClusters.get(application.getClusterId());
+        ZclCluster cluster = getOutputCluster(application.getClusterId());
         if (cluster == null) {
-            cluster = inputClusters.get(application.getClusterId());
+            cluster = getInputCluster(application.getClusterId());
         }
         application.appStartup(cluster);
     }
@@ -482,17 +584,29 @@ public class ZigBeeEndpoint {
         for (ZclCluster cluster : inputClusters.values()) {
             clusters.add(cluster.getDao());
         }
+        for (DormantCluster cluster : dormantInputClusters.values()) {
+            clusters.add(cluster.dao);
+        }
         dao.setInputClusters(clusters);
 
         clusters = new ArrayList<ZclClusterDao>();
         for (ZclCluster cluster : outputClusters.values()) {
             clusters.add(cluster.getDao());
         }
+        for (DormantCluster cluster : dormantOutputClusters.values()) {
+            clusters.add(cluster.dao);
+        }
         dao.setOutputClusters(clusters);
 
         return dao;
     }
 
+    /**
+     * Restores the endpoint from a {@link ZigBeeEndpointDao}. The clusters are not created at this point - the
+     * {@link ZclClusterDao} for each cluster is held until the cluster is first used.
+     *
+     * @param dao the {@link ZigBeeEndpointDao}
+     */
     public void setDao(ZigBeeEndpointDao dao) {
         endpointId = dao.getEndpointId();
         if (dao.getProfileId() != null) {
@@ -500,17 +614,23 @@ public class ZigBeeEndpoint {
         }
 
         if (dao.getInputClusterIds() != null) {
-            for (ZclClusterDao clusterDao : dao.getInputClusters()) {
-                ZclCluster cluster = getClusterClass(clusterDao.getClusterId());
-                cluster.setDao(clusterDao);
-                inputClusters.put(clusterDao.getClusterId(), cluster);
-            }
+            restoreClusters(dao.getInputClusters(), inputClusters, dormantInputClusters);
         }
         if (dao.getOutputClusterIds() != null) {
-            for (ZclClusterDao clusterDao : dao.getOutputClusters()) {
-                ZclCluster cluster = getClusterClass(clusterDao.getClusterId());
-                cluster.setDao(clusterDao);
-                outputClusters.put(clusterDao.getClusterId(), cluster);
+            restoreClusters(dao.getOutputClusters(), outputClusters, dormantOutputClusters);
+        }
+    }
+
+    private void restoreClusters(List<ZclClusterDao> clusterDaos, Map<Integer, ZclCluster> clusters,
+            Map<Integer, DormantCluster> dormantClusters) {
+        synchronized (dormantClusters) {
+            for (ZclClusterDao clusterDao : clusterDaos) {
+                if (ZclClusterType.getValueById(clusterDao.getClusterId()) == null) {
+                    logger.debug("{}: Unsupported cluster {}", getEndpointAddress(), clusterDao.getClusterId());
+                    continue;
+                }
+                clusters.remove(clusterDao.getClusterId());
+                dormantClusters.put(clusterDao.getClusterId(), new DormantCluster(clusterDao));
             }
         }
     }
@@ -536,6 +656,18 @@ public class ZigBeeEndpoint {
         return node.sendTransaction(command, responseMatcher);
     }
 
+    /**
+     * Holds the stored state of a cluster that has not yet been created
+     */
+    private static class DormantCluster {
+        private final ZclClusterDao dao;
+        private final List<ZclAttributeListener> listeners = new ArrayList<ZclAttributeListener>();
+
+        DormantCluster(ZclClusterDao dao) {
+            this.dao = dao;
+        }
+    }
+
     @Override
     public String toString() {
         return "ZigBeeEndpoint [networkAddress=" + getEndpointAddress().toString() + ", profileId="
@@ -18,6 +18,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.TreeSet;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutionException;
@@ -34,18 +35,25 @@ import org.slf4j.LoggerFactory;
 import com.zsmartsystems.zigbee.ZigBeeNode.ZigBeeNodeState;
 import com.zsmartsystems.zigbee.app.ZigBeeNetworkExtension;
 import com.zsmartsystems.zigbee.app.discovery.ZigBeeDiscoveryExtension;
+import com.zsmartsystems.zigbee.capture.ZigBeeApsCapture;
 import com.zsmartsystems.zigbee.internal.ClusterMatcher;
 import com.zsmartsystems.zigbee.internal.NotificationService;
 import com.zsmartsystems.zigbee.internal.ZigBeeCommandNotifier;
+import com.zsmartsystems.zigbee.metrics.ZigBeeCounter;
+import com.zsmartsystems.zigbee.metrics.ZigBeeGauge;
+import com.zsmartsystems.zigbee.metrics.ZigBeeMetricProvider;
+import com.zsmartsystems.zigbee.metrics.ZigBeeMetricRegistry;
 import com.zsmartsystems.zigbee.security.ZigBeeKey;
 import com.zsmartsystems.zigbee.serialization.ZigBeeDeserializer;
 import com.zsmartsystems.zigbee.serialization.ZigBeeSerializer;
 import com.zsmartsystems.zigbee.transaction.ZigBeeTransactionFuture;
 import com.zsmartsystems.zigbee.transaction.ZigBeeTransactionManager;
 import com.zsmartsystems.zigbee.transaction.ZigBeeTransactionMatcher;
+import com.zsmartsystems.zigbee.transaction.ZigBeeTransactionTraceSink;
 import com.zsmartsystems.zigbee.transport.TransportConfig;
 import com.zsmartsystems.zigbee.transport.TransportConfigOption;
 import com.zsmartsystems.zigbee.transport.ZigBeeTransportProgressState;
+import com.zsmartsystems.zigbee.transport.ZigBeeTransportMetrics;
 import com.zsmartsystems.zigbee.transport.ZigBeeTransportReceive;
 import com.zsmartsystems.zigbee.transport.ZigBeeTransportState;
 import com.zsmartsystems.zigbee.transport.ZigBeeTransportTransmit;
@@ -114,11 +122,52 @@ import com.zsmartsystems.zigbee.zdo.command.NetworkAddressRequest;
  * @author Chris Jackson
  */
 public class ZigBeeNetworkManager implements ZigBeeNetwork, ZigBeeTransportReceive {
+    /**
+     * Counter of APS frames sent to the transport
+     */
+    public static final String METRIC_TX_FRAMES = "network.tx.frames";
+
+    /**
+     * Counter of APS frames received from the transport
+     */
+    public static final String METRIC_RX_FRAMES = "network.rx.frames";
+
+    /**
+     * Counter of frames the transport reported as not transmitted ({@link ZigBeeTransportProgressState#TX_NAK})
+     */
+    public static final String METRIC_TX_NAK = "network.tx.nak";
+
+    /**
+     * Counter of frames the transport reported as not acknowledged by the remote device
+     * ({@link ZigBeeTransportProgressState#RX_NAK})
+     */
+    public static final String METRIC_RX_NAK = "network.rx.nak";
+
+    /**
+     * Gauge of the number of notifications waiting to be delivered to listeners
+     */
+    public static final String METRIC_NOTIFICATIONS_PENDING = "notification.pending";
+
+    /**
+     * Prefix for the per node metrics. Each node provides node.<i>ieeeAddress</i>.rx with the number of commands
+     * received from the node, and node.<i>ieeeAddress</i>.lastseen with the time the node was last heard.
+     */
+    public static final String METRIC_NODE_PREFIX = "node.";
+
     /**
      * The logger.
      */
     private final Logger logger = LoggerFactory.getLogger(ZigBeeNetworkManager.class);
 
+    /**
+     * The {@link ZigBeeMetricRegistry} holding the metrics for this network
+     */
+    private final ZigBeeMetricRegistry metrics = new ZigBeeMetricRegistry();
+    private final ZigBeeCounter txFrameCounter = metrics.getCounter(METRIC_TX_FRAMES);
+    private final ZigBeeCounter rxFrameCounter = metrics.getCounter(METRIC_RX_FRAMES);
+    private final ZigBeeCounter txNakCounter = metrics.getCounter(METRIC_TX_NAK);
+    private final ZigBeeCounter rxNakCounter = metrics.getCounter(METRIC_RX_NAK);
+
     /**
      * The nodes in the ZigBee network - maps {@link IeeeAddress} to {@link ZigBeeNode}
      */
@@ -178,6 +227,11 @@ public class ZigBeeNetworkManager implements ZigBeeNetwork, ZigBeeTransportRecei
      */
     private ZigBeeTransactionManager transactionManager;
 
+    /**
+     * The {@link ZigBeeApsCapture} used to capture APS frames, or null if capture is disabled
+     */
+    private volatile ZigBeeApsCapture apsCapture;
+
     /**
      * The {@link ZigBeeCommandNotifier}. This is used for sending notifications asynchronously to listeners.
      */
@@ -273,6 +327,37 @@ public class ZigBeeNetworkManager implements ZigBeeNetwork, ZigBeeTransportRecei
         transport.setZigBeeTransportReceive(this);
 
         transactionManager = new ZigBeeTransactionManager(this);
+
+        metrics.addGauge(METRIC_NOTIFICATIONS_PENDING, new ZigBeeGauge() {
+            @Override
+            public long getValue() {
+                return NotificationService.getPendingCount();
+            }
+        });
+        metrics.addProvider(new ZigBeeMetricProvider() {
+            @Override
+            public void getMetrics(Map<String, Number> snapshot) {
+                for (ZigBeeNode node : networkNodes.values()) {
+                    String prefix = METRIC_NODE_PREFIX + node.getIeeeAddress() + ".";
+                    snapshot.put(prefix + "rx", node.getReceiveCount());
+                    snapshot.put(prefix + "lastseen", node.getLastSeenTime());
+                }
+            }
+        });
+        if (transport instanceof ZigBeeTransportMetrics) {
+            ((ZigBeeTransportMetrics) transport).registerMetrics(metrics);
+        }
+    }
+
+    /**
+     * Gets the {@link ZigBeeMetricRegistry} containing the metrics for the network manager, the transaction manager
+     * and the transport (if the transport implements {@link ZigBeeTransportMetrics}). Applications may also add their
+     * own metrics to the registry.
+     *
+     * @return the {@link ZigBeeMetricRegistry} for this network
+     */
+    public ZigBeeMetricRegistry getMetrics() {
+        return metrics;
     }
 
     /**
@@ -608,10 +693,13 @@ public class ZigBeeNetworkManager implements ZigBeeNetwork, ZigBeeTransportRecei
     }
 
     /**
-     * Sends a command directly to the ZigBeeTransportTransmit} interface
+     * Sends a command directly to the {@link ZigBeeTransportTransmit} interface.
+     * <p>
+     * The APS counter of the frame is returned, and is used by the transport to identify the frame when it reports
+     * the progress of the transmission through {@link #receiveCommandStatus(int, ZigBeeTransportProgressState)}.
      *
      * @param command the {@link ZigBeeCommand} to send
-     * @return
+     * @return the APS counter of the frame sent to the transport, or -1 if the command could not be sent
      */
     public int sendCommand(ZigBeeCommand command) {
         // Create the application frame
@@ -660,7 +748,7 @@ public class ZigBeeNetworkManager implements ZigBeeNetwork, ZigBeeTransportRecei
         } catch (NoSuchMethodException | SecurityException | InstantiationException | IllegalAccessException
                 | IllegalArgumentException | InvocationTargetException e) {
             logger.debug("Error serializing ZigBee frame {}", e);
-            return 0;
+            return -1;
         }
 
         if (command instanceof ZdoCommand) {
@@ -703,9 +791,14 @@ public class ZigBeeNetworkManager implements ZigBeeNetwork, ZigBeeTransportRecei
         }
         logger.debug("TX APS: {}", apsFrame);
 
+        txFrameCounter.increment();
+        ZigBeeApsCapture capture = apsCapture;
+        if (capture != null) {
+            capture.capture(apsFrame, false);
+        }
         transport.sendCommand(apsFrame);
 
-        return command.getTransactionId();
+        return apsFrame.getApsCounter();
     }
 
     @Override
@@ -721,6 +814,11 @@ public class ZigBeeNetworkManager implements ZigBeeNetwork, ZigBeeTransportRecei
     @Override
     public void receiveCommand(final ZigBeeApsFrame apsFrame) {
         logger.debug("RX APS: {}", apsFrame);
+        rxFrameCounter.increment();
+        ZigBeeApsCapture capture = apsCapture;
+        if (capture != null) {
+            capture.capture(apsFrame, true);
+        }
 
         // Create the deserialiser
         Constructor<? extends ZigBeeDeserializer> constructor;
@@ -1132,14 +1230,20 @@ public class ZigBeeNetworkManager implements ZigBeeNetwork, ZigBeeTransportRecei
 
     public void addGroup(final ZigBeeGroupAddress group) {
         synchronized (networkGroups) {
-            networkGroups.put(group.getGroupId(), group);
+            if (networkGroups.put(group.getGroupId(), group) != null) {
+                return;
+            }
         }
+        updateTransportGroups();
     }
 
     public void updateGroup(ZigBeeGroupAddress group) {
         synchronized (networkGroups) {
-            networkGroups.put(group.getGroupId(), group);
+            if (networkGroups.put(group.getGroupId(), group) != null) {
+                return;
+            }
         }
+        updateTransportGroups();
     }
 
     public ZigBeeGroupAddress getGroup(final int groupId) {
@@ -1150,8 +1254,11 @@ public class ZigBeeNetworkManager implements ZigBeeNetwork, ZigBeeTransportRecei
 
     public void removeGroup(final int groupId) {
         synchronized (networkGroups) {
-            networkGroups.remove(groupId);
+            if (networkGroups.remove(groupId) == null) {
+                return;
+            }
         }
+        updateTransportGroups();
     }
 
     public List<ZigBeeGroupAddress> getGroups() {
@@ -1160,6 +1267,17 @@ public class ZigBeeNetworkManager implements ZigBeeNetwork, ZigBeeTransportRecei
         }
     }
 
+    /**
+     * Passes the group IDs to the transport so that it can receive messages addressed to the groups
+     */
+    private void updateTransportGroups() {
+        Set<Integer> groupIds;
+        synchronized (networkGroups) {
+            groupIds = new TreeSet<>(networkGroups.keySet());
+        }
+        transport.updateTransportConfig(new TransportConfig(TransportConfigOption.MULTICAST_GROUPS, groupIds));
+    }
+
     /**
      * Adds a {@link ZigBeeNetworkNodeListener} that will be notified when node information changes
      *
@@ -1453,6 +1571,27 @@ public class ZigBeeNetworkManager implements ZigBeeNetwork, ZigBeeTransportRecei
         return localNwkAddress;
     }
 
+    /**
+     * Sets the {@link ZigBeeApsCapture} to capture all APS frames sent and received by the network manager. The capture
+     * must be started and stopped by the caller.
+     *
+     * @param capture the {@link ZigBeeApsCapture} or null to disable capture
+     */
+    public void setApsCapture(ZigBeeApsCapture capture) {
+        apsCapture = capture;
+    }
+
+    /**
+     * Sets a {@link ZigBeeTransactionTraceSink} to receive the timing of each stage of sampled transactions. This can
+     * be used to separate delays in the NCP from delays in the mesh and in the remote device.
+     *
+     * @param sink the {@link ZigBeeTransactionTraceSink} or null to disable tracing
+     * @param interval the sampling interval - the sink receives one in every interval transactions
+     */
+    public void setTransactionTraceSink(ZigBeeTransactionTraceSink sink, int interval) {
+        transactionManager.setTraceSink(sink, interval);
+    }
+
     @Override
     public void sendTransaction(ZigBeeCommand command) {
         transactionManager.sendTransaction(command);
@@ -1465,6 +1604,11 @@ public class ZigBeeNetworkManager implements ZigBeeNetwork, ZigBeeTransportRecei
 
     @Override
     public void receiveCommandStatus(int transactionId, ZigBeeTransportProgressState status) {
+        if (status == ZigBeeTransportProgressState.TX_NAK) {
+            txNakCounter.increment();
+        } else if (status == ZigBeeTransportProgressState.RX_NAK) {
+            rxNakCounter.increment();
+        }
         transactionManager.receiveCommandStatus(transactionId, status);
     }
 }
@@ -20,6 +20,7 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Future;
 import java.util.concurrent.FutureTask;
 import java.util.concurrent.RunnableFuture;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -83,6 +84,16 @@ public class ZigBeeNode implements ZigBeeCommandListener {
      */
     private Date lastUpdateTime = null;
 
+    /**
+     * The number of commands received from the node
+     */
+    private final AtomicLong receiveCount = new AtomicLong();
+
+    /**
+     * The time in milliseconds that a command was last received from the node, or 0 if none has been received
+     */
+    private volatile long lastSeenTime;
+
     /**
      * List of associated devices for the node, specified in a {@link List} {@link Integer}.
      */
@@ -638,6 +649,24 @@ public class ZigBeeNode implements ZigBeeCommandListener {
         return lastUpdateTime;
     }
 
+    /**
+     * Gets the number of commands received from this node since the node was created
+     *
+     * @return the number of commands received from the node
+     */
+    public long getReceiveCount() {
+        return receiveCount.get();
+    }
+
+    /**
+     * Gets the time a command was last received from this node
+     *
+     * @return the time in milliseconds since the epoch, or 0 if nothing has been received from the node
+     */
+    public long getLastSeenTime() {
+        return lastSeenTime;
+    }
+
     @Override
     public void commandReceived(ZigBeeCommand command) {
         // This gets called for all received commands
@@ -646,6 +675,9 @@ public class ZigBeeNode implements ZigBeeCommandListener {
             return;
         }
 
+        receiveCount.incrementAndGet();
+        lastSeenTime = System.currentTimeMillis();
+
         if (!(command instanceof ZclCommand)) {
             return;
         }
@@ -0,0 +1,425 @@
+/**
+ * Copyright (c) 2016-2019 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.capture;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.zsmartsystems.zigbee.ZigBeeApsFrame;
+import com.zsmartsystems.zigbee.ZigBeeNetworkManager;
+import com.zsmartsystems.zigbee.ZigBeeNwkAddressMode;
+
+/**
+ * Captures APS frames sent and received by the {@link ZigBeeNetworkManager} and writes them to pcapng files that can
+ * be opened in Wireshark.
+ * <p>
+ * Frames are encoded into a preallocated ring buffer on the calling thread without taking any locks or allocating
+ * memory, and a background thread drains the ring to the capture file. If the ring fills up, new frames are dropped
+ * and counted rather than blocking the caller. When capture is not registered with the network manager, the only cost
+ * is a null check.
+ * <p>
+ * As the library only sees the APS layer, each frame is wrapped in a synthesised IEEE 802.15.4 MAC header and an
+ * unsecured ZigBee NWK header so that Wireshark can decode the APS, ZDO and ZCL layers. The MAC and NWK fields other
+ * than the addresses are not those used over the air.
+ * <p>
+ * Files are named <i>prefix</i>-<i>n</i>.pcapng. When a file reaches the maximum size, a new file is started, and the
+ * oldest file is deleted once the maximum number of files is reached.
+ *
+ * @author Chris Jackson
+ */
+public class ZigBeeApsCapture {
+    /**
+     * The logger.
+     */
+    private final Logger logger = LoggerFactory.getLogger(ZigBeeApsCapture.class);
+
+    /**
+     * The maximum length of a captured frame. Longer frames are truncated.
+     */
+    private static final int SNAP_LENGTH = 256;
+
+    /**
+     * The period in milliseconds between draining the ring buffer to the file
+     */
+    private static final int DRAIN_PERIOD = 100;
+
+    private final File directory;
+    private final String prefix;
+
+    private final int capacity;
+    private final int mask;
+    private final byte[][] slotData;
+    private final int[] slotLength;
+    private final int[] slotOriginalLength;
+    private final long[] slotTimestamp;
+    private final boolean[] slotInbound;
+    private final AtomicLongArray slotSequence;
+    private final AtomicLong tail = new AtomicLong();
+    private long head;
+
+    private final AtomicLong droppedFrames = new AtomicLong();
+    private final AtomicLong capturedFrames = new AtomicLong();
+
+    private final long baseTimeMicros = System.currentTimeMillis() * 1000;
+    private final long baseNanoTime = System.nanoTime();
+
+    private volatile Set<Integer> nodeFilter;
+    private volatile Set<Integer> clusterFilter;
+    private volatile int panId = 0xFFFF;
+    private volatile boolean running;
+
+    private long maxFileSize = 10 * 1024 * 1024;
+    private int maxFiles = 5;
+    private int fileIndex;
+    private final Deque<File> files = new ArrayDeque<>();
+    private ZigBeePcapNgWriter writer;
+    private final Object writerLock = new Object();
+
+    private ScheduledExecutorService executorService;
+
+    /**
+     * Creates the capture with the default ring size of 1024 frames
+     *
+     * @param directory the directory in which to write the capture files
+     * @param prefix the prefix for the capture file names
+     */
+    public ZigBeeApsCapture(File directory, String prefix) {
+        this(directory, prefix, 1024);
+    }
+
+    /**
+     * Creates the capture
+     *
+     * @param directory the directory in which to write the capture files
+     * @param prefix the prefix for the capture file names
+     * @param ringSize the number of frames that can be held in the ring buffer. This is rounded up to a power of 2.
+     */
+    public ZigBeeApsCapture(File directory, String prefix, int ringSize) {
+        this.directory = directory;
+        this.prefix = prefix;
+
+        capacity = Integer.highestOneBit(Math.max(1, ringSize - 1)) << 1;
+        mask = capacity - 1;
+        slotData = new byte[capacity][SNAP_LENGTH];
+        slotLength = new int[capacity];
+        slotOriginalLength = new int[capacity];
+        slotTimestamp = new long[capacity];
+        slotInbound = new boolean[capacity];
+        slotSequence = new AtomicLongArray(capacity);
+        for (int slot = 0; slot < capacity; slot++) {
+            slotSequence.set(slot, slot);
+        }
+    }
+
+    /**
+     * Sets the nodes to capture. Frames are captured if either the source or destination network address is in the
+     * set.
+     *
+     * @param nodes the network addresses of the nodes to capture, or null to capture all nodes
+     */
+    public void setNodeFilter(Collection<Integer> nodes) {
+        nodeFilter = nodes == null ? null : Collections.unmodifiableSet(new HashSet<>(nodes));
+    }
+
+    /**
+     * Sets the clusters to capture
+     *
+     * @param clusters the cluster IDs to capture, or null to capture all clusters
+     */
+    public void setClusterFilter(Collection<Integer> clusters) {
+        clusterFilter = clusters == null ? null : Collections.unmodifiableSet(new HashSet<>(clusters));
+    }
+
+    /**
+     * Sets the PAN ID used in the synthesised MAC header
+     *
+     * @param panId the PAN ID of the network
+     */
+    public void setPanId(int panId) {
+        this.panId = panId;
+    }
+
+    /**
+     * Sets the maximum size of each capture file. This must be set before the capture is started.
+     *
+     * @param maxFileSize the maximum file size in bytes
+     */
+    public void setMaxFileSize(long maxFileSize) {
+        this.maxFileSize = maxFileSize;
+    }
+
+    /**
+     * Sets the maximum number of capture files to keep. This must be set before the capture is started.
+     *
+     * @param maxFiles the maximum number of files
+     */
+    public void setMaxFiles(int maxFiles) {
+        this.maxFiles = maxFiles;
+    }
+
+    /**
+     * Gets the number of frames that were dropped as the ring buffer was full
+     *
+     * @return the number of dropped frames
+     */
+    public long getDroppedFrames() {
+        return droppedFrames.get();
+    }
+
+    /**
+     * Gets the number of frames written to the capture files
+     *
+     * @return the number of captured frames
+     */
+    public long getCapturedFrames() {
+        return capturedFrames.get();
+    }
+
+    /**
+     * Starts the capture
+     */
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        executorService = Executors.newScheduledThreadPool(1);
+        executorService.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                drain();
+            }
+        }, DRAIN_PERIOD, DRAIN_PERIOD, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the capture, writing any frames remaining in the ring buffer and closing the capture file
+     */
+    public synchronized void shutdown() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        executorService.shutdown();
+        try {
+            executorService.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (writerLock) {
+            drain();
+            closeFile();
+        }
+    }
+
+    /**
+     * Captures an APS frame. This is called from the network manager for each frame sent and received.
+     *
+     * @param apsFrame the {@link ZigBeeApsFrame} to capture
+     * @param inbound true if the frame was received, false if it is being sent
+     */
+    public void capture(ZigBeeApsFrame apsFrame, boolean inbound) {
+        if (!running || !isFiltered(apsFrame)) {
+            return;
+        }
+
+        long position;
+        int slot;
+        while (true) {
+            position = tail.get();
+            slot = (int) position & mask;
+            long difference = slotSequence.get(slot) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    break;
+                }
+            } else if (difference < 0) {
+                // The ring is full
+                droppedFrames.incrementAndGet();
+                return;
+            }
+        }
+
+        slotTimestamp[slot] = baseTimeMicros + (System.nanoTime() - baseNanoTime) / 1000;
+        slotInbound[slot] = inbound;
+        slotOriginalLength[slot] = encodeFrame(apsFrame, (int) position, panId, slotData[slot]);
+        slotLength[slot] = Math.min(slotOriginalLength[slot], SNAP_LENGTH);
+        slotSequence.lazySet(slot, position + 1);
+    }
+
+    private boolean isFiltered(ZigBeeApsFrame apsFrame) {
+        Set<Integer> nodes = nodeFilter;
+        if (nodes != null && !nodes.contains(apsFrame.getSourceAddress())
+                && !nodes.contains(apsFrame.getDestinationAddress())) {
+            return false;
+        }
+        Set<Integer> clusters = clusterFilter;
+        if (clusters != null && !clusters.contains(apsFrame.getCluster())) {
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Writes all frames in the ring buffer to the capture file. This is only called from the drain thread, or once the
+     * drain thread has stopped.
+     */
+    private void drain() {
+        synchronized (writerLock) {
+            drainRing();
+        }
+    }
+
+    private void drainRing() {
+        boolean written = false;
+        while (true) {
+            int slot = (int) head & mask;
+            if (slotSequence.get(slot) != head + 1) {
+                break;
+            }
+
+            try {
+                if (writer == null) {
+                    openFile();
+                }
+                writer.writePacket(slotTimestamp[slot], slotData[slot], slotLength[slot], slotOriginalLength[slot],
+                        slotInbound[slot]);
+                capturedFrames.incrementAndGet();
+                written = true;
+            } catch (IOException e) {
+                logger.warn("Error writing APS capture file", e);
+                closeFile();
+            }
+
+            slotSequence.lazySet(slot, head + capacity);
+            head++;
+
+            if (writer != null && writer.getBytesWritten() >= maxFileSize) {
+                closeFile();
+            }
+        }
+
+        if (written && writer != null) {
+            try {
+                writer.flush();
+            } catch (IOException e) {
+                logger.warn("Error writing APS capture file", e);
+                closeFile();
+            }
+        }
+    }
+
+    private void openFile() throws IOException {
+        File file = new File(directory, String.format("%s-%d.pcapng", prefix, fileIndex++));
+        logger.debug("Opening APS capture file {}", file);
+        writer = new ZigBeePcapNgWriter(new BufferedOutputStream(new FileOutputStream(file)), SNAP_LENGTH);
+        writer.writeHeader();
+
+        files.add(file);
+        while (files.size() > maxFiles) {
+            File oldest = files.removeFirst();
+            if (!oldest.delete()) {
+                logger.debug("Unable to delete APS capture file {}", oldest);
+            }
+        }
+    }
+
+    private void closeFile() {
+        if (writer == null) {
+            return;
+        }
+        try {
+            writer.close();
+        } catch (IOException e) {
+            logger.debug("Error closing APS capture file", e);
+        }
+        writer = null;
+    }
+
+    /**
+     * Encodes the APS frame as an IEEE 802.15.4 frame with a ZigBee NWK header
+     *
+     * @param apsFrame the {@link ZigBeeApsFrame} to encode
+     * @param sequence the sequence number to use in the MAC and NWK headers
+     * @param panId the PAN ID to use in the MAC header
+     * @param buffer the buffer to write the frame into. If the frame is longer than the buffer it is truncated.
+     * @return the length of the frame before truncation
+     */
+    static int encodeFrame(ZigBeeApsFrame apsFrame, int sequence, int panId, byte[] buffer) {
+        boolean group = apsFrame.getAddressMode() == ZigBeeNwkAddressMode.GROUP;
+        int destination = group ? 0xFFFD : apsFrame.getDestinationAddress();
+        int macDestination = destination >= 0xFFF8 ? 0xFFFF : destination;
+        int pos = 0;
+
+        // MAC data frame with PAN ID compression and short addresses
+        pos = putShort(buffer, pos, 0x8841);
+        buffer[pos++] = (byte) sequence;
+        pos = putShort(buffer, pos, panId);
+        pos = putShort(buffer, pos, macDestination);
+        pos = putShort(buffer, pos, apsFrame.getSourceAddress());
+
+        // NWK data frame, protocol version 2, no security
+        pos = putShort(buffer, pos, 0x0008);
+        pos = putShort(buffer, pos, destination);
+        pos = putShort(buffer, pos, apsFrame.getSourceAddress());
+        buffer[pos++] = (byte) apsFrame.getRadius();
+        buffer[pos++] = (byte) sequence;
+
+        // APS data frame
+        int apsControl;
+        if (group) {
+            apsControl = 0x0C;
+        } else if (destination >= 0xFFF8) {
+            apsControl = 0x08;
+        } else {
+            apsControl = 0x00;
+        }
+        buffer[pos++] = (byte) apsControl;
+        if (group) {
+            pos = putShort(buffer, pos, apsFrame.getGroupAddress());
+        } else {
+            buffer[pos++] = (byte) apsFrame.getDestinationEndpoint();
+        }
+        pos = putShort(buffer, pos, apsFrame.getCluster());
+        pos = putShort(buffer, pos, apsFrame.getProfile());
+        buffer[pos++] = (byte) apsFrame.getSourceEndpoint();
+        buffer[pos++] = (byte) apsFrame.getApsCounter();
+
+        int[] payload = apsFrame.getPayload();
+        if (payload == null) {
+            return pos;
+        }
+        int length = Math.min(payload.length, buffer.length - pos);
+        for (int cnt = 0; cnt < length; cnt++) {
+            buffer[pos + cnt] = (byte) payload[cnt];
+        }
+        return pos + payload.length;
+    }
+
+    private static int putShort(byte[] buffer, int pos, int value) {
+        buffer[pos] = (byte) value;
+        buffer[pos + 1] = (byte) (value >> 8);
+        return pos + 2;
+    }
+}
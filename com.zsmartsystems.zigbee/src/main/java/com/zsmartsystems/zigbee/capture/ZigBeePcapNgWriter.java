@@ -0,0 +1,178 @@
+/**
+ * Copyright (c) 2016-2019 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.capture;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes packets to an {@link OutputStream} in the pcapng format. A single interface is written using the
+ * LINKTYPE_IEEE802_15_4_NOFCS link type, so packets must be IEEE 802.15.4 frames without the FCS. Wireshark will then
+ * decode the ZigBee NWK, APS, ZDO and ZCL layers.
+ * <p>
+ * All blocks are written in little endian byte order. The writer is not thread safe.
+ *
+ * @author Chris Jackson
+ */
+public class ZigBeePcapNgWriter {
+    /**
+     * IEEE 802.15.4 frames without the FCS
+     */
+    public static final int LINKTYPE_IEEE802_15_4_NOFCS = 230;
+
+    private static final int BLOCK_SECTION_HEADER = 0x0A0D0D0A;
+    private static final int BLOCK_INTERFACE_DESCRIPTION = 0x00000001;
+    private static final int BLOCK_ENHANCED_PACKET = 0x00000006;
+    private static final int BYTE_ORDER_MAGIC = 0x1A2B3C4D;
+
+    private static final int OPTION_END = 0;
+    private static final int OPTION_EPB_FLAGS = 2;
+    private static final int OPTION_IF_TSRESOL = 9;
+
+    private static final int EPB_FLAGS_INBOUND = 1;
+    private static final int EPB_FLAGS_OUTBOUND = 2;
+
+    private final OutputStream outputStream;
+    private final int snapLength;
+    private final byte[] buffer;
+    private long bytesWritten;
+
+    /**
+     * Creates the writer
+     *
+     * @param outputStream the {@link OutputStream} to write to
+     * @param snapLength the maximum length of a packet that will be written
+     */
+    public ZigBeePcapNgWriter(OutputStream outputStream, int snapLength) {
+        this.outputStream = outputStream;
+        this.snapLength = snapLength;
+        // Enough for the largest enhanced packet block including padding and options
+        buffer = new byte[snapLength + 48];
+    }
+
+    /**
+     * Writes the section header block and the interface description block. This must be called once before any
+     * packets are written.
+     *
+     * @throws IOException if the stream can't be written
+     */
+    public void writeHeader() throws IOException {
+        int pos = 0;
+        pos = putInt(buffer, pos, BLOCK_SECTION_HEADER);
+        pos = putInt(buffer, pos, 28);
+        pos = putInt(buffer, pos, BYTE_ORDER_MAGIC);
+        pos = putShort(buffer, pos, 1);
+        pos = putShort(buffer, pos, 0);
+        // Section length is not specified
+        pos = putInt(buffer, pos, -1);
+        pos = putInt(buffer, pos, -1);
+        pos = putInt(buffer, pos, 28);
+        write(pos);
+
+        // Timestamps are in the default resolution of microseconds, but we add the option explicitly for clarity
+        pos = 0;
+        pos = putInt(buffer, pos, BLOCK_INTERFACE_DESCRIPTION);
+        pos = putInt(buffer, pos, 32);
+        pos = putShort(buffer, pos, LINKTYPE_IEEE802_15_4_NOFCS);
+        pos = putShort(buffer, pos, 0);
+        pos = putInt(buffer, pos, snapLength);
+        pos = putShort(buffer, pos, OPTION_IF_TSRESOL);
+        pos = putShort(buffer, pos, 1);
+        buffer[pos++] = 6;
+        buffer[pos++] = 0;
+        buffer[pos++] = 0;
+        buffer[pos++] = 0;
+        pos = putShort(buffer, pos, OPTION_END);
+        pos = putShort(buffer, pos, 0);
+        pos = putInt(buffer, pos, 32);
+        write(pos);
+    }
+
+    /**
+     * Writes a packet in an enhanced packet block
+     *
+     * @param timestamp the time the packet was captured in microseconds since the epoch
+     * @param data the packet data
+     * @param length the number of bytes of data to write
+     * @param originalLength the length of the packet before it was truncated
+     * @param inbound true if the packet was received, false if it was sent
+     * @throws IOException if the stream can't be written
+     */
+    public void writePacket(long timestamp, byte[] data, int length, int originalLength, boolean inbound)
+            throws IOException {
+        int padding = (4 - (length & 3)) & 3;
+        int blockLength = 32 + length + padding + 12;
+
+        int pos = 0;
+        pos = putInt(buffer, pos, BLOCK_ENHANCED_PACKET);
+        pos = putInt(buffer, pos, blockLength);
+        pos = putInt(buffer, pos, 0);
+        pos = putInt(buffer, pos, (int) (timestamp >>> 32));
+        pos = putInt(buffer, pos, (int) timestamp);
+        pos = putInt(buffer, pos, length);
+        pos = putInt(buffer, pos, originalLength);
+        System.arraycopy(data, 0, buffer, pos, length);
+        pos += length;
+        for (int cnt = 0; cnt < padding; cnt++) {
+            buffer[pos++] = 0;
+        }
+        pos = putShort(buffer, pos, OPTION_EPB_FLAGS);
+        pos = putShort(buffer, pos, 4);
+        pos = putInt(buffer, pos, inbound ? EPB_FLAGS_INBOUND : EPB_FLAGS_OUTBOUND);
+        pos = putShort(buffer, pos, OPTION_END);
+        pos = putShort(buffer, pos, 0);
+        pos = putInt(buffer, pos, blockLength);
+        write(pos);
+    }
+
+    /**
+     * Gets the number of bytes written to the stream
+     *
+     * @return the number of bytes written
+     */
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    /**
+     * Flushes the stream
+     *
+     * @throws IOException if the stream can't be flushed
+     */
+    public void flush() throws IOException {
+        outputStream.flush();
+    }
+
+    /**
+     * Closes the stream
+     *
+     * @throws IOException if the stream can't be closed
+     */
+    public void close() throws IOException {
+        outputStream.close();
+    }
+
+    private void write(int length) throws IOException {
+        outputStream.write(buffer, 0, length);
+        bytesWritten += length;
+    }
+
+    private static int putShort(byte[] buffer, int pos, int value) {
+        buffer[pos] = (byte) value;
+        buffer[pos + 1] = (byte) (value >> 8);
+        return pos + 2;
+    }
+
+    private static int putInt(byte[] buffer, int pos, int value) {
+        buffer[pos] = (byte) value;
+        buffer[pos + 1] = (byte) (value >> 8);
+        buffer[pos + 2] = (byte) (value >> 16);
+        buffer[pos + 3] = (byte) (value >> 24);
+        return pos + 4;
+    }
+}
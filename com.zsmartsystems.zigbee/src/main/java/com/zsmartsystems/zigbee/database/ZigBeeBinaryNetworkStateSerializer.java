@@ -0,0 +1,101 @@
+/**
+ * Copyright (c) 2016-2019 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.database;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.zsmartsystems.zigbee.IeeeAddress;
+import com.zsmartsystems.zigbee.ZigBeeNetworkManager;
+import com.zsmartsystems.zigbee.ZigBeeNetworkStateSerializer;
+import com.zsmartsystems.zigbee.ZigBeeNode;
+import com.zsmartsystems.zigbee.dao.ZigBeeNodeDao;
+
+/**
+ * Serializes and deserializes the ZigBee network state using the compact binary {@link ZigBeeNetworkStateSnapshot}
+ * format.
+ *
+ * @author Chris Jackson
+ */
+public class ZigBeeBinaryNetworkStateSerializer implements ZigBeeNetworkStateSerializer {
+    /**
+     * The logger.
+     */
+    private final Logger logger = LoggerFactory.getLogger(ZigBeeBinaryNetworkStateSerializer.class);
+
+    /**
+     * The snapshot file
+     */
+    private final File file;
+
+    /**
+     * Constructor
+     *
+     * @param file the {@link File} used to store the network state
+     */
+    public ZigBeeBinaryNetworkStateSerializer(File file) {
+        this.file = file;
+    }
+
+    /**
+     * Gets the {@link File} used to store the network state
+     *
+     * @return the snapshot {@link File}
+     */
+    public File getFile() {
+        return file;
+    }
+
+    @Override
+    public synchronized void serialize(final ZigBeeNetworkManager networkManager) {
+        List<ZigBeeNodeDao> nodes = new ArrayList<ZigBeeNodeDao>();
+        for (ZigBeeNode node : networkManager.getNodes()) {
+            nodes.add(node.getDao());
+        }
+
+        try {
+            ZigBeeNetworkStateSnapshot.write(file, nodes);
+        } catch (IOException e) {
+            logger.error("Error writing network state", e);
+            return;
+        }
+
+        logger.debug("ZigBee saving network state complete.");
+    }
+
+    @Override
+    public synchronized void deserialize(final ZigBeeNetworkManager networkManager) {
+        if (!file.exists()) {
+            return;
+        }
+
+        logger.debug("Loading network state...");
+
+        ZigBeeNetworkStateSnapshot snapshot;
+        try {
+            snapshot = ZigBeeNetworkStateSnapshot.open(file);
+        } catch (IOException e) {
+            logger.error("Error reading network state", e);
+            return;
+        }
+
+        for (IeeeAddress address : snapshot.getNodeAddresses()) {
+            ZigBeeNodeDao nodeDao = snapshot.getNode(address);
+            ZigBeeNode node = new ZigBeeNode(networkManager, address);
+            node.setDao(nodeDao);
+            networkManager.addNode(node);
+        }
+
+        logger.debug("Loading network state complete - {} nodes.", snapshot.getNodeCount());
+    }
+}
@@ -0,0 +1,360 @@
+/**
+ * Copyright (c) 2016-2019 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.database;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledFuture;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.zsmartsystems.zigbee.IeeeAddress;
+import com.zsmartsystems.zigbee.ZigBeeEndpoint;
+import com.zsmartsystems.zigbee.ZigBeeNetworkManager;
+import com.zsmartsystems.zigbee.ZigBeeNetworkNodeListener;
+import com.zsmartsystems.zigbee.ZigBeeNetworkStateSerializer;
+import com.zsmartsystems.zigbee.ZigBeeNode;
+import com.zsmartsystems.zigbee.dao.ZigBeeNodeDao;
+import com.zsmartsystems.zigbee.zcl.ZclAttribute;
+import com.zsmartsystems.zigbee.zcl.ZclAttributeListener;
+import com.zsmartsystems.zigbee.zcl.ZclCluster;
+
+/**
+ * A {@link ZigBeeNetworkStateSerializer} that records changes to the network in an append only journal rather than
+ * rewriting the full network state on every change.
+ * <p>
+ * The persisted state consists of a {@link ZigBeeNetworkStateSnapshot} and a journal file alongside it (the snapshot
+ * file name with a <i>.journal</i> suffix). Node additions, updates and removals are written to the journal as full
+ * node records, and attribute updates received by any {@link ZclCluster} are written as single attribute records, so
+ * the cost of each change is proportional to the change and not to the size of the network.
+ * <p>
+ * Records are committed as a group - the journal is written at most once per commit interval, and
+ * {@link #serialize(ZigBeeNetworkManager)} also commits any pending records. The {@link ZigBeeJournalSyncPolicy}
+ * defines whether commits are forced to the storage device.
+ * <p>
+ * When the journal grows beyond the compaction threshold, the current state of all nodes is written to a new
+ * snapshot and the journal is restarted. The old journal is kept with a <i>.compacting</i> suffix until the new
+ * snapshot is in place, so a failure during compaction never loses records. On startup the snapshot is loaded and the
+ * journal (including any journal left over from an interrupted compaction) is replayed on top of it.
+ *
+ * @author Chris Jackson
+ */
+public class ZigBeeJournalNetworkStateSerializer implements ZigBeeNetworkStateSerializer, ZigBeeNetworkNodeListener {
+    /**
+     * The logger.
+     */
+    private final Logger logger = LoggerFactory.getLogger(ZigBeeJournalNetworkStateSerializer.class);
+
+    /**
+     * Default period in milliseconds between group commits
+     */
+    private static final long DEFAULT_COMMIT_INTERVAL = 1000;
+
+    /**
+     * Default journal length in bytes above which the journal is compacted into the snapshot
+     */
+    private static final long DEFAULT_COMPACTION_THRESHOLD = 1024 * 1024;
+
+    private final File snapshotFile;
+    private final File journalFile;
+    private final File compactingFile;
+
+    private ZigBeeJournalSyncPolicy syncPolicy = ZigBeeJournalSyncPolicy.GROUP;
+    private long commitInterval = DEFAULT_COMMIT_INTERVAL;
+    private long compactionThreshold = DEFAULT_COMPACTION_THRESHOLD;
+
+    private ZigBeeNetworkManager networkManager;
+    private ZigBeeNetworkStateJournal journal;
+    private ScheduledFuture<?> commitTask;
+
+    /**
+     * Constructor
+     *
+     * @param file the {@link File} used to store the network state snapshot
+     */
+    public ZigBeeJournalNetworkStateSerializer(File file) {
+        this.snapshotFile = file;
+        this.journalFile = new File(file.getPath() + ".journal");
+        this.compactingFile = new File(file.getPath() + ".journal.compacting");
+    }
+
+    /**
+     * Sets the {@link ZigBeeJournalSyncPolicy} used when committing the journal. This must be called before
+     * {@link #deserialize(ZigBeeNetworkManager)}. Defaults to {@link ZigBeeJournalSyncPolicy#GROUP}.
+     *
+     * @param syncPolicy the {@link ZigBeeJournalSyncPolicy}
+     */
+    public void setSyncPolicy(ZigBeeJournalSyncPolicy syncPolicy) {
+        this.syncPolicy = syncPolicy;
+    }
+
+    /**
+     * Sets the period between group commits. This must be called before {@link #deserialize(ZigBeeNetworkManager)}.
+     * Defaults to 1000 milliseconds.
+     *
+     * @param commitInterval the commit interval in milliseconds
+     */
+    public void setCommitInterval(long commitInterval) {
+        this.commitInterval = commitInterval;
+    }
+
+    /**
+     * Sets the journal length above which the journal is compacted into a new snapshot. Defaults to 1MB.
+     *
+     * @param compactionThreshold the compaction threshold in bytes
+     */
+    public void setCompactionThreshold(long compactionThreshold) {
+        this.compactionThreshold = compactionThreshold;
+    }
+
+    /**
+     * Gets the journal {@link File}
+     *
+     * @return the journal {@link File}
+     */
+    public File getJournalFile() {
+        return journalFile;
+    }
+
+    @Override
+    public synchronized void deserialize(final ZigBeeNetworkManager networkManager) {
+        this.networkManager = networkManager;
+
+        logger.debug("Loading network state...");
+
+        Map<IeeeAddress, ZigBeeNodeDao> nodes = new LinkedHashMap<IeeeAddress, ZigBeeNodeDao>();
+        if (snapshotFile.exists()) {
+            try {
+                ZigBeeNetworkStateSnapshot snapshot = ZigBeeNetworkStateSnapshot.open(snapshotFile);
+                for (IeeeAddress address : snapshot.getNodeAddresses()) {
+                    nodes.put(address, snapshot.getNode(address));
+                }
+            } catch (IOException e) {
+                logger.error("Error reading network state snapshot", e);
+            }
+        }
+
+        int records = 0;
+        for (File file : new File[] { compactingFile, journalFile }) {
+            if (!file.exists()) {
+                continue;
+            }
+            try {
+                records += ZigBeeNetworkStateJournal.replay(file, nodes);
+            } catch (IOException e) {
+                logger.error("Error reading network state journal {}", file, e);
+            }
+        }
+
+        for (ZigBeeNodeDao nodeDao : nodes.values()) {
+            ZigBeeNode node = new ZigBeeNode(networkManager, new IeeeAddress(nodeDao.getIeeeAddress()));
+            node.setDao(nodeDao);
+            networkManager.addNode(node);
+            addAttributeListeners(node);
+        }
+
+        logger.debug("Loading network state complete - {} nodes, {} journal records.", nodes.size(), records);
+
+        // Fold the replayed journals into a new snapshot so that every run starts with an empty journal. The journals
+        // are only removed once the snapshot has been written.
+        try {
+            writeSnapshot();
+            Files.deleteIfExists(compactingFile.toPath());
+            journal = new ZigBeeNetworkStateJournal(journalFile, syncPolicy);
+        } catch (IOException e) {
+            logger.error("Error opening network state journal", e);
+        }
+
+        networkManager.addNetworkNodeListener(this);
+        commitTask = networkManager.scheduleTask(new Runnable() {
+            @Override
+            public void run() {
+                commit();
+            }
+        }, commitInterval, commitInterval);
+    }
+
+    @Override
+    public void serialize(final ZigBeeNetworkManager networkManager) {
+        // The journal records each change as it happens, so the full state never needs to be written here
+        commit();
+    }
+
+    /**
+     * Commits any pending journal records, compacting the journal if it has exceeded the compaction threshold
+     */
+    public synchronized void commit() {
+        if (journal == null) {
+            return;
+        }
+        try {
+            journal.commit();
+            if (journal.getLength() > compactionThreshold) {
+                compact();
+            }
+        } catch (IOException e) {
+            logger.error("Error writing network state journal", e);
+        }
+    }
+
+    /**
+     * Commits and compacts the journal and stops the periodic commit. No further changes are recorded after this is
+     * called.
+     */
+    public synchronized void shutdown() {
+        if (networkManager != null) {
+            networkManager.removeNetworkNodeListener(this);
+        }
+        if (commitTask != null) {
+            commitTask.cancel(false);
+            commitTask = null;
+        }
+        if (journal == null) {
+            return;
+        }
+        try {
+            compact();
+            journal.close();
+        } catch (IOException e) {
+            logger.error("Error closing network state journal", e);
+        }
+        journal = null;
+    }
+
+    /**
+     * Writes the current state of all nodes to a new snapshot and restarts the journal.
+     *
+     * @throws IOException if the snapshot or journal can't be written
+     */
+    private void compact() throws IOException {
+        journal.close();
+        Files.move(journalFile.toPath(), compactingFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        journal = new ZigBeeNetworkStateJournal(journalFile, syncPolicy);
+
+        int nodes = writeSnapshot();
+        if (!compactingFile.delete()) {
+            logger.debug("Unable to delete compacted network state journal {}", compactingFile);
+        }
+        logger.debug("Network state journal compacted - {} nodes.", nodes);
+    }
+
+    private int writeSnapshot() throws IOException {
+        List<ZigBeeNodeDao> nodes = new ArrayList<ZigBeeNodeDao>();
+        for (ZigBeeNode node : networkManager.getNodes()) {
+            nodes.add(node.getDao());
+        }
+        ZigBeeNetworkStateSnapshot.write(snapshotFile, nodes);
+        return nodes.size();
+    }
+
+    private void addAttributeListeners(ZigBeeNode node) {
+        // Listeners are added through the endpoint so that clusters which haven't been used yet aren't created
+        for (ZigBeeEndpoint endpoint : node.getEndpoints()) {
+            for (Integer clusterId : endpoint.getInputClusterIds()) {
+                endpoint.addAttributeListener(clusterId, true,
+                        new JournalAttributeListener(node.getIeeeAddress(), endpoint.getEndpointId(), clusterId, true));
+            }
+            for (Integer clusterId : endpoint.getOutputClusterIds()) {
+                endpoint.addAttributeListener(clusterId, false, new JournalAttributeListener(node.getIeeeAddress(),
+                        endpoint.getEndpointId(), clusterId, false));
+            }
+        }
+    }
+
+    private synchronized void appendNode(ZigBeeNode node) {
+        if (journal == null) {
+            return;
+        }
+        try {
+            journal.appendNode(node.getDao());
+        } catch (IOException e) {
+            logger.error("{}: Error writing node to network state journal", node.getIeeeAddress(), e);
+        }
+    }
+
+    @Override
+    public void nodeAdded(ZigBeeNode node) {
+        appendNode(node);
+        addAttributeListeners(node);
+    }
+
+    @Override
+    public void nodeUpdated(ZigBeeNode node) {
+        appendNode(node);
+        addAttributeListeners(node);
+    }
+
+    @Override
+    public synchronized void nodeRemoved(ZigBeeNode node) {
+        if (journal == null) {
+            return;
+        }
+        try {
+            journal.appendNodeRemove(node.getIeeeAddress());
+        } catch (IOException e) {
+            logger.error("{}: Error writing node removal to network state journal", node.getIeeeAddress(), e);
+        }
+    }
+
+    /**
+     * Records attribute updates from a single cluster. Listeners are equal if they refer to the same cluster so that
+     * the cluster doesn't register the same listener more than once when a node is updated.
+     */
+    private class JournalAttributeListener implements ZclAttributeListener {
+        private final IeeeAddress address;
+        private final int endpointId;
+        private final int clusterId;
+        private final boolean input;
+
+        JournalAttributeListener(IeeeAddress address, int endpointId, int clusterId, boolean input) {
+            this.address = address;
+            this.endpointId = endpointId;
+            this.clusterId = clusterId;
+            this.input = input;
+        }
+
+        @Override
+        public void attributeUpdated(ZclAttribute attribute) {
+            synchronized (ZigBeeJournalNetworkStateSerializer.this) {
+                if (journal == null) {
+                    return;
+                }
+                try {
+                    journal.appendAttribute(address, endpointId, clusterId, input, attribute);
+                } catch (IOException e) {
+                    logger.error("{}: Error writing attribute to network state journal", address, e);
+                }
+            }
+        }
+
+        @Override
+        public int hashCode() {
+            return ((address.hashCode() * 31 + endpointId) * 31 + clusterId) * 31 + (input ? 1 : 0);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof JournalAttributeListener)) {
+                return false;
+            }
+            JournalAttributeListener other = (JournalAttributeListener) obj;
+            return address.equals(other.address) && endpointId == other.endpointId && clusterId == other.clusterId
+                    && input == other.input;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+/**
+ * Copyright (c) 2016-2019 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.database;
+
+/**
+ * Defines when the network state journal is forced to the storage device.
+ *
+ * @author Chris Jackson
+ */
+public enum ZigBeeJournalSyncPolicy {
+    /**
+     * Records are written to the journal file when a group of records is committed, but the file is never explicitly
+     * synchronised - the operating system decides when the data reaches the disk.
+     */
+    NONE,
+
+    /**
+     * Records are written and the journal file is synchronised once per group commit
+     */
+    GROUP,
+
+    /**
+     * Every record is written and synchronised as soon as it is appended
+     */
+    IMMEDIATE
+}
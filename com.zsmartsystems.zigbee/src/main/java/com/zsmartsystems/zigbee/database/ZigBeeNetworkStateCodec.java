@@ -0,0 +1,750 @@
+/**
+ * Copyright (c) 2016-2019 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.database;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.zsmartsystems.zigbee.ExtendedPanId;
+import com.zsmartsystems.zigbee.IeeeAddress;
+import com.zsmartsystems.zigbee.dao.ZclClusterDao;
+import com.zsmartsystems.zigbee.dao.ZigBeeEndpointDao;
+import com.zsmartsystems.zigbee.dao.ZigBeeNodeDao;
+import com.zsmartsystems.zigbee.serialization.DefaultDeserializer;
+import com.zsmartsystems.zigbee.serialization.DefaultSerializer;
+import com.zsmartsystems.zigbee.zcl.ZclAttribute;
+import com.zsmartsystems.zigbee.zcl.ZclAttributeDefinition;
+import com.zsmartsystems.zigbee.zcl.field.ByteArray;
+import com.zsmartsystems.zigbee.zcl.protocol.ZclClusterType;
+import com.zsmartsystems.zigbee.zcl.protocol.ZclDataType;
+import com.zsmartsystems.zigbee.zdo.field.BindingTable;
+import com.zsmartsystems.zigbee.zdo.field.NodeDescriptor;
+import com.zsmartsystems.zigbee.zdo.field.NodeDescriptor.FrequencyBandType;
+import com.zsmartsystems.zigbee.zdo.field.NodeDescriptor.MacCapabilitiesType;
+import com.zsmartsystems.zigbee.zdo.field.NodeDescriptor.ServerCapabilitiesType;
+import com.zsmartsystems.zigbee.zdo.field.PowerDescriptor;
+import com.zsmartsystems.zigbee.zdo.field.PowerDescriptor.PowerSourceType;
+
+/**
+ * Encodes and decodes the network state DAOs ({@link ZigBeeNodeDao}, {@link ZigBeeEndpointDao},
+ * {@link ZclClusterDao} and {@link ZclAttribute}) in a compact binary form.
+ * <p>
+ * Counts and string references are written as unsigned variable length integers. Strings (cluster labels, attribute
+ * names and data type names) are not written inline - they are interned into a string table that is shared by all
+ * records encoded with the same codec, and records only hold the index into the table. The string table must be
+ * persisted by the caller and provided to the codec when decoding.
+ * <p>
+ * Node and power descriptors are stored using their ZDO over-the-air encoding and are restored through the standard
+ * {@link NodeDescriptor#deserialize} and {@link PowerDescriptor#deserialize} methods.
+ *
+ * @author Chris Jackson
+ */
+class ZigBeeNetworkStateCodec {
+    /**
+     * The logger.
+     */
+    private final Logger logger = LoggerFactory.getLogger(ZigBeeNetworkStateCodec.class);
+
+    private static final int NODE_FLAG_NETWORK_ADDRESS = 0x01;
+    private static final int NODE_FLAG_NODE_DESCRIPTOR = 0x02;
+    private static final int NODE_FLAG_POWER_DESCRIPTOR = 0x04;
+
+    private static final int ENDPOINT_FLAG_PROFILE_ID = 0x01;
+
+    private static final int CLUSTER_FLAG_CLIENT = 0x01;
+
+    private static final int ATTRIBUTE_FLAG_MANDATORY = 0x01;
+    private static final int ATTRIBUTE_FLAG_READABLE = 0x02;
+    private static final int ATTRIBUTE_FLAG_WRITABLE = 0x04;
+    private static final int ATTRIBUTE_FLAG_REPORTABLE = 0x08;
+    private static final int ATTRIBUTE_FLAG_REPORT_TIME = 0x10;
+
+    private static final int VALUE_NULL = 0;
+    private static final int VALUE_BOOLEAN = 1;
+    private static final int VALUE_INTEGER = 2;
+    private static final int VALUE_LONG = 3;
+    private static final int VALUE_STRING = 4;
+    private static final int VALUE_BYTE_ARRAY = 5;
+    private static final int VALUE_IEEE_ADDRESS = 6;
+    private static final int VALUE_EXTENDED_PANID = 7;
+    private static final int VALUE_CALENDAR = 8;
+    private static final int VALUE_DOUBLE = 9;
+    private static final int VALUE_FLOAT = 10;
+    private static final int VALUE_INT_ARRAY = 11;
+
+    /**
+     * Length of the ZDO encoded {@link NodeDescriptor}
+     */
+    private static final int NODE_DESCRIPTOR_LENGTH = 13;
+
+    /**
+     * Length of the ZDO encoded {@link PowerDescriptor}
+     */
+    private static final int POWER_DESCRIPTOR_LENGTH = 2;
+
+    /**
+     * The string table. Index 0 is reserved for null.
+     */
+    private final List<String> strings = new ArrayList<String>();
+
+    /**
+     * Reverse lookup of the string table used when encoding
+     */
+    private final Map<String, Integer> stringIndex = new HashMap<String, Integer>();
+
+    /**
+     * The {@link ZclAttributeDefinition}s created while decoding, so that all decoded attributes with the same
+     * definition share a single instance
+     */
+    private final ConcurrentMap<ZclAttributeDefinition, ZclAttributeDefinition> definitions =
+            new ConcurrentHashMap<ZclAttributeDefinition, ZclAttributeDefinition>();
+
+    /**
+     * Creates a codec with an empty string table
+     */
+    ZigBeeNetworkStateCodec() {
+        strings.add(null);
+    }
+
+    /**
+     * Creates a codec using a previously persisted string table
+     *
+     * @param strings the string table as returned by {@link #getStrings()}
+     */
+    ZigBeeNetworkStateCodec(List<String> strings) {
+        this();
+        for (String string : strings) {
+            intern(string);
+        }
+    }
+
+    /**
+     * Gets the strings that have been interned by this codec, in index order. The returned list does not include the
+     * reserved null entry.
+     *
+     * @return the {@link List} of interned strings
+     */
+    List<String> getStrings() {
+        return strings.subList(1, strings.size());
+    }
+
+    /**
+     * Adds a string to the end of the string table. This is used when the string table is being rebuilt incrementally
+     * while reading a stream that interleaves string definitions with records.
+     *
+     * @param string the string to add
+     */
+    void addString(String string) {
+        intern(string);
+    }
+
+    private int intern(String string) {
+        if (string == null) {
+            return 0;
+        }
+        Integer index = stringIndex.get(string);
+        if (index == null) {
+            index = strings.size();
+            strings.add(string);
+            stringIndex.put(string, index);
+        }
+        return index;
+    }
+
+    /**
+     * Encodes a {@link ZigBeeNodeDao}
+     *
+     * @param out the {@link DataOutputStream} to write to
+     * @param node the {@link ZigBeeNodeDao} to encode
+     * @throws IOException if the stream can't be written
+     */
+    void encodeNode(DataOutputStream out, ZigBeeNodeDao node) throws IOException {
+        writeIeeeAddress(out, new IeeeAddress(node.getIeeeAddress()));
+
+        int flags = 0;
+        if (node.getNetworkAddress() != null) {
+            flags |= NODE_FLAG_NETWORK_ADDRESS;
+        }
+        if (node.getNodeDescriptor() != null) {
+            flags |= NODE_FLAG_NODE_DESCRIPTOR;
+        }
+        if (node.getPowerDescriptor() != null) {
+            flags |= NODE_FLAG_POWER_DESCRIPTOR;
+        }
+        out.writeByte(flags);
+
+        if (node.getNetworkAddress() != null) {
+            out.writeShort(node.getNetworkAddress());
+        }
+        if (node.getNodeDescriptor() != null) {
+            writeNodeDescriptor(out, node.getNodeDescriptor());
+        }
+        if (node.getPowerDescriptor() != null) {
+            writePowerDescriptor(out, node.getPowerDescriptor());
+        }
+
+        Set<BindingTable> bindingTable = node.getBindingTable();
+        if (bindingTable == null) {
+            writeVarInt(out, 0);
+        } else {
+            writeVarInt(out, bindingTable.size());
+            for (BindingTable binding : bindingTable) {
+                DefaultSerializer serializer = new DefaultSerializer();
+                binding.serialize(serializer);
+                int[] payload = serializer.getPayload();
+                out.writeByte(payload.length);
+                for (int value : payload) {
+                    out.writeByte(value);
+                }
+            }
+        }
+
+        List<ZigBeeEndpointDao> endpoints = node.getEndpoints();
+        if (endpoints == null) {
+            writeVarInt(out, 0);
+        } else {
+            writeVarInt(out, endpoints.size());
+            for (ZigBeeEndpointDao endpoint : endpoints) {
+                encodeEndpoint(out, endpoint);
+            }
+        }
+    }
+
+    /**
+     * Decodes a {@link ZigBeeNodeDao} from the current position of the buffer
+     *
+     * @param buffer the {@link ByteBuffer} to read from
+     * @return the {@link ZigBeeNodeDao}
+     */
+    ZigBeeNodeDao decodeNode(ByteBuffer buffer) {
+        ZigBeeNodeDao node = new ZigBeeNodeDao();
+        node.setIeeeAddress(readIeeeAddress(buffer).toString());
+
+        int flags = buffer.get() & 0xFF;
+        if ((flags & NODE_FLAG_NETWORK_ADDRESS) != 0) {
+            node.setNetworkAddress(buffer.getShort() & 0xFFFF);
+        }
+        if ((flags & NODE_FLAG_NODE_DESCRIPTOR) != 0) {
+            NodeDescriptor nodeDescriptor = new NodeDescriptor();
+            nodeDescriptor.deserialize(new DefaultDeserializer(readBytes(buffer, NODE_DESCRIPTOR_LENGTH)));
+            node.setNodeDescriptor(nodeDescriptor);
+        }
+        if ((flags & NODE_FLAG_POWER_DESCRIPTOR) != 0) {
+            PowerDescriptor powerDescriptor = new PowerDescriptor();
+            powerDescriptor.deserialize(new DefaultDeserializer(readBytes(buffer, POWER_DESCRIPTOR_LENGTH)));
+            node.setPowerDescriptor(powerDescriptor);
+        }
+
+        int bindingCount = readVarInt(buffer);
+        Set<BindingTable> bindingTable = new HashSet<BindingTable>(bindingCount);
+        for (int cnt = 0; cnt < bindingCount; cnt++) {
+            BindingTable binding = new BindingTable();
+            binding.deserialize(new DefaultDeserializer(readBytes(buffer, buffer.get() & 0xFF)));
+            bindingTable.add(binding);
+        }
+        node.setBindingTable(bindingTable);
+
+        int endpointCount = readVarInt(buffer);
+        List<ZigBeeEndpointDao> endpoints = new ArrayList<ZigBeeEndpointDao>(endpointCount);
+        for (int cnt = 0; cnt < endpointCount; cnt++) {
+            endpoints.add(decodeEndpoint(buffer));
+        }
+        node.setEndpoints(endpoints);
+
+        return node;
+    }
+
+    private void encodeEndpoint(DataOutputStream out, ZigBeeEndpointDao endpoint) throws IOException {
+        out.writeByte(endpoint.getEndpointId());
+        out.writeByte(endpoint.getProfileId() == null ? 0 : ENDPOINT_FLAG_PROFILE_ID);
+        if (endpoint.getProfileId() != null) {
+            out.writeShort(endpoint.getProfileId());
+        }
+
+        writeShortCollection(out, endpoint.getInputClusterIds());
+        writeShortCollection(out, endpoint.getOutputClusterIds());
+
+        writeVarInt(out, endpoint.getInputClusters().size());
+        for (ZclClusterDao cluster : endpoint.getInputClusters()) {
+            encodeCluster(out, cluster);
+        }
+        writeVarInt(out, endpoint.getOutputClusters().size());
+        for (ZclClusterDao cluster : endpoint.getOutputClusters()) {
+            encodeCluster(out, cluster);
+        }
+    }
+
+    private ZigBeeEndpointDao decodeEndpoint(ByteBuffer buffer) {
+        ZigBeeEndpointDao endpoint = new ZigBeeEndpointDao();
+        endpoint.setEndpointId(buffer.get() & 0xFF);
+        if ((buffer.get() & ENDPOINT_FLAG_PROFILE_ID) != 0) {
+            endpoint.setProfileId(buffer.getShort() & 0xFFFF);
+        }
+
+        endpoint.setInputClusterIds(readShortCollection(buffer, new ArrayList<Integer>()));
+        endpoint.setOutputClusterIds(readShortCollection(buffer, new ArrayList<Integer>()));
+
+        int inputCount = readVarInt(buffer);
+        List<ZclClusterDao> inputClusters = new ArrayList<ZclClusterDao>(inputCount);
+        for (int cnt = 0; cnt < inputCount; cnt++) {
+            inputClusters.add(decodeCluster(buffer));
+        }
+        endpoint.setInputClusters(inputClusters);
+
+        int outputCount = readVarInt(buffer);
+        List<ZclClusterDao> outputClusters = new ArrayList<ZclClusterDao>(outputCount);
+        for (int cnt = 0; cnt < outputCount; cnt++) {
+            outputClusters.add(decodeCluster(buffer));
+        }
+        endpoint.setOutputClusters(outputClusters);
+
+        return endpoint;
+    }
+
+    private void encodeCluster(DataOutputStream out, ZclClusterDao cluster) throws IOException {
+        out.writeShort(cluster.getClusterId());
+        out.writeByte(cluster.getClient() ? CLUSTER_FLAG_CLIENT : 0);
+        writeVarInt(out, intern(cluster.getLabel()));
+
+        writeShortCollection(out, cluster.getSupportedAttributes());
+        writeShortCollection(out, cluster.getSupportedCommandsReceived());
+        writeShortCollection(out, cluster.getSupportedCommandsGenerated());
+
+        Map<Integer, ZclAttribute> attributes = cluster.getAttributes();
+        if (attributes == null) {
+            writeVarInt(out, 0);
+            return;
+        }
+        writeVarInt(out, attributes.size());
+        for (ZclAttribute attribute : attributes.values()) {
+            encodeAttribute(out, attribute);
+        }
+    }
+
+    private ZclClusterDao decodeCluster(ByteBuffer buffer) {
+        ZclClusterDao cluster = new ZclClusterDao();
+        cluster.setClusterId(buffer.getShort() & 0xFFFF);
+        cluster.setClient((buffer.get() & CLUSTER_FLAG_CLIENT) != 0);
+        cluster.setLabel(strings.get(readVarInt(buffer)));
+
+        cluster.setSupportedAttributes(readShortCollection(buffer, new TreeSet<Integer>()));
+        cluster.setSupportedCommandsReceived(readShortCollection(buffer, new HashSet<Integer>()));
+        cluster.setSupportedCommandsGenerated(readShortCollection(buffer, new HashSet<Integer>()));
+
+        ZclClusterType clusterType = ZclClusterType.getValueById(cluster.getClusterId());
+        int attributeCount = readVarInt(buffer);
+        Map<Integer, ZclAttribute> attributes = new HashMap<Integer, ZclAttribute>(attributeCount * 2);
+        for (int cnt = 0; cnt < attributeCount; cnt++) {
+            ZclAttribute attribute = decodeAttribute(buffer, clusterType);
+            attributes.put(attribute.getId(), attribute);
+        }
+        cluster.setAttributes(attributes);
+
+        return cluster;
+    }
+
+    /**
+     * Encodes a {@link ZclAttribute}, including its last value and report time
+     *
+     * @param out the {@link DataOutputStream} to write to
+     * @param attribute the {@link ZclAttribute} to encode
+     * @throws IOException if the stream can't be written
+     */
+    void encodeAttribute(DataOutputStream out, ZclAttribute attribute) throws IOException {
+        out.writeShort(attribute.getId());
+        writeVarInt(out, intern(attribute.getName()));
+        writeVarInt(out, intern(attribute.getDataType() == null ? null : attribute.getDataType().name()));
+
+        int flags = 0;
+        if (attribute.isMandatory()) {
+            flags |= ATTRIBUTE_FLAG_MANDATORY;
+        }
+        if (attribute.isReadable()) {
+            flags |= ATTRIBUTE_FLAG_READABLE;
+        }
+        if (attribute.isWritable()) {
+            flags |= ATTRIBUTE_FLAG_WRITABLE;
+        }
+        if (attribute.isReportable()) {
+            flags |= ATTRIBUTE_FLAG_REPORTABLE;
+        }
+        if (attribute.getLastReportTime() != null) {
+            flags |= ATTRIBUTE_FLAG_REPORT_TIME;
+        }
+        out.writeByte(flags);
+
+        if (attribute.getLastReportTime() != null) {
+            out.writeLong(attribute.getLastReportTime().getTimeInMillis());
+        }
+        writeValue(out, attribute.getLastValue());
+    }
+
+    /**
+     * Decodes a {@link ZclAttribute} from the current position of the buffer
+     *
+     * @param buffer the {@link ByteBuffer} to read from
+     * @param clusterType the {@link ZclClusterType} the attribute belongs to
+     * @return the {@link ZclAttribute}
+     */
+    ZclAttribute decodeAttribute(ByteBuffer buffer, ZclClusterType clusterType) {
+        int id = buffer.getShort() & 0xFFFF;
+        String name = strings.get(readVarInt(buffer));
+        String dataTypeName = strings.get(readVarInt(buffer));
+        int flags = buffer.get() & 0xFF;
+
+        ZclAttributeDefinition definition = new ZclAttributeDefinition(clusterType, id, name,
+                dataTypeName == null ? null : ZclDataType.valueOf(dataTypeName),
+                (flags & ATTRIBUTE_FLAG_MANDATORY) != 0, (flags & ATTRIBUTE_FLAG_READABLE) != 0,
+                (flags & ATTRIBUTE_FLAG_WRITABLE) != 0, (flags & ATTRIBUTE_FLAG_REPORTABLE) != 0);
+        ZclAttributeDefinition sharedDefinition = definitions.putIfAbsent(definition, definition);
+        if (sharedDefinition != null) {
+            definition = sharedDefinition;
+        }
+        ZclAttribute attribute = new ZclAttribute(definition);
+
+        Calendar reportTime = null;
+        if ((flags & ATTRIBUTE_FLAG_REPORT_TIME) != 0) {
+            reportTime = Calendar.getInstance();
+            reportTime.setTimeInMillis(buffer.getLong());
+        }
+        attribute.restoreValue(readValue(buffer), reportTime);
+
+        return attribute;
+    }
+
+    private void writeValue(DataOutputStream out, Object value) throws IOException {
+        if (value instanceof Boolean) {
+            out.writeByte(VALUE_BOOLEAN);
+            out.writeBoolean((Boolean) value);
+        } else if (value instanceof Integer) {
+            out.writeByte(VALUE_INTEGER);
+            out.writeInt((Integer) value);
+        } else if (value instanceof Long) {
+            out.writeByte(VALUE_LONG);
+            out.writeLong((Long) value);
+        } else if (value instanceof String) {
+            out.writeByte(VALUE_STRING);
+            byte[] bytes = ((String) value).getBytes(StandardCharsets.UTF_8);
+            writeVarInt(out, bytes.length);
+            out.write(bytes);
+        } else if (value instanceof ByteArray) {
+            out.writeByte(VALUE_BYTE_ARRAY);
+            byte[] bytes = ((ByteArray) value).get();
+            writeVarInt(out, bytes.length);
+            out.write(bytes);
+        } else if (value instanceof IeeeAddress) {
+            out.writeByte(VALUE_IEEE_ADDRESS);
+            writeIeeeAddress(out, (IeeeAddress) value);
+        } else if (value instanceof ExtendedPanId) {
+            out.writeByte(VALUE_EXTENDED_PANID);
+            for (int octet : ((ExtendedPanId) value).getValue()) {
+                out.writeByte(octet);
+            }
+        } else if (value instanceof Calendar) {
+            out.writeByte(VALUE_CALENDAR);
+            out.writeLong(((Calendar) value).getTimeInMillis());
+        } else if (value instanceof Double) {
+            out.writeByte(VALUE_DOUBLE);
+            out.writeDouble((Double) value);
+        } else if (value instanceof Float) {
+            out.writeByte(VALUE_FLOAT);
+            out.writeFloat((Float) value);
+        } else if (value instanceof int[]) {
+            out.writeByte(VALUE_INT_ARRAY);
+            int[] values = (int[]) value;
+            writeVarInt(out, values.length);
+            for (int element : values) {
+                out.writeInt(element);
+            }
+        } else {
+            if (value != null) {
+                logger.debug("Unable to persist attribute value of type {}", value.getClass().getSimpleName());
+            }
+            out.writeByte(VALUE_NULL);
+        }
+    }
+
+    private Object readValue(ByteBuffer buffer) {
+        int type = buffer.get() & 0xFF;
+        switch (type) {
+            case VALUE_NULL:
+                return null;
+            case VALUE_BOOLEAN:
+                return buffer.get() != 0;
+            case VALUE_INTEGER:
+                return buffer.getInt();
+            case VALUE_LONG:
+                return buffer.getLong();
+            case VALUE_STRING:
+                byte[] stringBytes = new byte[readVarInt(buffer)];
+                buffer.get(stringBytes);
+                return new String(stringBytes, StandardCharsets.UTF_8);
+            case VALUE_BYTE_ARRAY:
+                byte[] bytes = new byte[readVarInt(buffer)];
+                buffer.get(bytes);
+                return new ByteArray(bytes);
+            case VALUE_IEEE_ADDRESS:
+                return readIeeeAddress(buffer);
+            case VALUE_EXTENDED_PANID:
+                return new ExtendedPanId(readBytes(buffer, 8));
+            case VALUE_CALENDAR:
+                Calendar calendar = Calendar.getInstance();
+                calendar.setTimeInMillis(buffer.getLong());
+                return calendar;
+            case VALUE_DOUBLE:
+                return buffer.getDouble();
+            case VALUE_FLOAT:
+                return buffer.getFloat();
+            case VALUE_INT_ARRAY:
+                int[] values = new int[readVarInt(buffer)];
+                for (int cnt = 0; cnt < values.length; cnt++) {
+                    values[cnt] = buffer.getInt();
+                }
+                return values;
+            default:
+                throw new IllegalArgumentException("Unknown attribute value type " + type);
+        }
+    }
+
+    private void writeNodeDescriptor(DataOutputStream out, NodeDescriptor descriptor) throws IOException {
+        int logicalType;
+        switch (descriptor.getLogicalType()) {
+            case COORDINATOR:
+                logicalType = 0;
+                break;
+            case ROUTER:
+                logicalType = 1;
+                break;
+            case END_DEVICE:
+                logicalType = 2;
+                break;
+            default:
+                logicalType = 7;
+                break;
+        }
+        out.writeByte(logicalType | (descriptor.isComplexDescriptorAvailable() ? 0x08 : 0)
+                | (descriptor.isUserDescriptorAvailable() ? 0x10 : 0));
+
+        int frequencyBands = 0;
+        Set<FrequencyBandType> bands = descriptor.getFrequencyBands();
+        if (bands.contains(FrequencyBandType.FREQ_868_MHZ)) {
+            frequencyBands |= 0x01;
+        }
+        if (bands.contains(FrequencyBandType.FREQ_902_MHZ)) {
+            frequencyBands |= 0x04;
+        }
+        if (bands.contains(FrequencyBandType.FREQ_2400_MHZ)) {
+            frequencyBands |= 0x08;
+        }
+        out.writeByte((descriptor.getApsFlags() & 0x07) | (frequencyBands << 3));
+
+        int macCapabilities = 0;
+        Set<MacCapabilitiesType> capabilities = descriptor.getMacCapabilities();
+        if (capabilities.contains(MacCapabilitiesType.ALTERNATIVE_PAN)) {
+            macCapabilities |= 0x01;
+        }
+        if (capabilities.contains(MacCapabilitiesType.FULL_FUNCTION_DEVICE)) {
+            macCapabilities |= 0x02;
+        }
+        if (capabilities.contains(MacCapabilitiesType.MAINS_POWER)) {
+            macCapabilities |= 0x04;
+        }
+        if (capabilities.contains(MacCapabilitiesType.RECEIVER_ON_WHEN_IDLE)) {
+            macCapabilities |= 0x08;
+        }
+        if (capabilities.contains(MacCapabilitiesType.SECURITY_CAPABLE)) {
+            macCapabilities |= 0x40;
+        }
+        if (capabilities.contains(MacCapabilitiesType.ADDRESS_ALLOCATION)) {
+            macCapabilities |= 0x80;
+        }
+        out.writeByte(macCapabilities);
+
+        writeLittleEndianShort(out, descriptor.getManufacturerCode());
+        out.writeByte(descriptor.getBufferSize());
+        writeLittleEndianShort(out, descriptor.getIncomingTransferSize());
+
+        int serverMask = descriptor.getStackCompliance() << 9;
+        int bit = 0x01;
+        for (ServerCapabilitiesType capability : ServerCapabilitiesType.values()) {
+            if (descriptor.getServerCapabilities().contains(capability)) {
+                serverMask |= bit;
+            }
+            bit <<= 1;
+        }
+        writeLittleEndianShort(out, serverMask);
+        writeLittleEndianShort(out, descriptor.getOutGoingTransferSize());
+
+        out.writeByte((descriptor.isExtendedEndpointListAvailable() ? 0x01 : 0)
+                | (descriptor.isExtendedSimpleDescriptorListAvailable() ? 0x02 : 0));
+    }
+
+    private void writePowerDescriptor(DataOutputStream out, PowerDescriptor descriptor) throws IOException {
+        int currentPowerMode;
+        switch (descriptor.getCurrentPowerMode()) {
+            case RECEIVER_ON_IDLE:
+                currentPowerMode = 0x00;
+                break;
+            case RECEIVER_ON_PERIODICALLY:
+                currentPowerMode = 0x01;
+                break;
+            case RECEIVER_ON_STIMULATED:
+                currentPowerMode = 0x02;
+                break;
+            default:
+                currentPowerMode = 0x0F;
+                break;
+        }
+
+        int availablePowerSources = 0;
+        if (descriptor.getAvailablePowerSources() != null) {
+            for (PowerSourceType source : descriptor.getAvailablePowerSources()) {
+                availablePowerSources |= getPowerSource(source);
+            }
+        }
+
+        int powerLevel;
+        switch (descriptor.getPowerLevel()) {
+            case CRITICAL:
+                powerLevel = 0x00;
+                break;
+            case LOW:
+                powerLevel = 0x04;
+                break;
+            case MEDIUM:
+                powerLevel = 0x08;
+                break;
+            case FULL:
+                powerLevel = 0x0C;
+                break;
+            default:
+                powerLevel = 0x0F;
+                break;
+        }
+
+        out.writeByte(currentPowerMode | (availablePowerSources << 4));
+        out.writeByte(getPowerSource(descriptor.getCurrentPowerSource()) | (powerLevel << 4));
+    }
+
+    private int getPowerSource(PowerSourceType source) {
+        switch (source) {
+            case MAINS:
+                return 0x01;
+            case RECHARGABLE_BATTERY:
+                return 0x02;
+            case DISPOSABLE_BATTERY:
+                return 0x04;
+            default:
+                return 0x00;
+        }
+    }
+
+    private void writeShortCollection(DataOutputStream out, Collection<Integer> values) throws IOException {
+        if (values == null) {
+            writeVarInt(out, 0);
+            return;
+        }
+        writeVarInt(out, values.size());
+        for (int value : values) {
+            out.writeShort(value);
+        }
+    }
+
+    private <T extends Collection<Integer>> T readShortCollection(ByteBuffer buffer, T values) {
+        int count = readVarInt(buffer);
+        for (int cnt = 0; cnt < count; cnt++) {
+            values.add(buffer.getShort() & 0xFFFF);
+        }
+        return values;
+    }
+
+    private void writeLittleEndianShort(DataOutputStream out, int value) throws IOException {
+        out.writeByte(value & 0xFF);
+        out.writeByte((value >> 8) & 0xFF);
+    }
+
+    /**
+     * Writes an {@link IeeeAddress} as 8 bytes, least significant byte first
+     *
+     * @param out the {@link DataOutputStream} to write to
+     * @param address the {@link IeeeAddress} to write
+     * @throws IOException if the stream can't be written
+     */
+    static void writeIeeeAddress(DataOutputStream out, IeeeAddress address) throws IOException {
+        for (int octet : address.getValue()) {
+            out.writeByte(octet);
+        }
+    }
+
+    /**
+     * Reads an {@link IeeeAddress} written with {@link #writeIeeeAddress}
+     *
+     * @param buffer the {@link ByteBuffer} to read from
+     * @return the {@link IeeeAddress}
+     */
+    static IeeeAddress readIeeeAddress(ByteBuffer buffer) {
+        return new IeeeAddress(readBytes(buffer, 8));
+    }
+
+    private static int[] readBytes(ByteBuffer buffer, int length) {
+        int[] values = new int[length];
+        for (int cnt = 0; cnt < length; cnt++) {
+            values[cnt] = buffer.get() & 0xFF;
+        }
+        return values;
+    }
+
+    /**
+     * Writes an unsigned integer using a variable length encoding of 7 bits per byte
+     *
+     * @param out the {@link DataOutputStream} to write to
+     * @param value the value to write - must not be negative
+     * @throws IOException if the stream can't be written
+     */
+    static void writeVarInt(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    /**
+     * Reads an unsigned integer written with {@link #writeVarInt}
+     *
+     * @param buffer the {@link ByteBuffer} to read from
+     * @return the value
+     */
+    static int readVarInt(ByteBuffer buffer) {
+        int value = 0;
+        int shift = 0;
+        int current;
+        do {
+            current = buffer.get() & 0xFF;
+            value |= (current & 0x7F) << shift;
+            shift += 7;
+        } while ((current & 0x80) != 0);
+        return value;
+    }
+}
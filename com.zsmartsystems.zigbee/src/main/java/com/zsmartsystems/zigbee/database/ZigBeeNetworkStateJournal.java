@@ -0,0 +1,350 @@
+/**
+ * Copyright (c) 2016-2019 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.database;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.zsmartsystems.zigbee.IeeeAddress;
+import com.zsmartsystems.zigbee.dao.ZclClusterDao;
+import com.zsmartsystems.zigbee.dao.ZigBeeEndpointDao;
+import com.zsmartsystems.zigbee.dao.ZigBeeNodeDao;
+import com.zsmartsystems.zigbee.zcl.ZclAttribute;
+import com.zsmartsystems.zigbee.zcl.protocol.ZclClusterType;
+
+/**
+ * An append only journal of network state changes.
+ * <p>
+ * Each record in the journal is framed as a 4 byte length, a 1 byte record type, the record payload and a 4 byte
+ * CRC32 computed over the type and payload. The length covers the type and payload. Records are encoded with a
+ * {@link ZigBeeNetworkStateCodec}, and any string the codec adds to its string table is written as a
+ * {@link #RECORD_STRING} record ahead of the record that first uses it, so the journal can be replayed without any
+ * other state.
+ * <p>
+ * Appended records are held in memory until {@link #commit()} is called, at which point all pending records are
+ * written with a single write and, depending on the {@link ZigBeeJournalSyncPolicy}, forced to the storage device.
+ * If the process stops part way through a write, the torn record at the end of the journal fails the length or CRC
+ * check and replay stops at the last complete record.
+ *
+ * @author Chris Jackson
+ */
+class ZigBeeNetworkStateJournal {
+    /**
+     * The logger.
+     */
+    private static final Logger logger = LoggerFactory.getLogger(ZigBeeNetworkStateJournal.class);
+
+    static final int RECORD_STRING = 1;
+    static final int RECORD_NODE = 2;
+    static final int RECORD_NODE_REMOVE = 3;
+    static final int RECORD_ATTRIBUTE = 4;
+
+    private static final int ATTRIBUTE_FLAG_INPUT = 0x01;
+
+    /**
+     * Length of the record framing - length, type and CRC
+     */
+    private static final int FRAME_OVERHEAD = 9;
+
+    /**
+     * The largest record that will be accepted when replaying. Anything larger is treated as corruption.
+     */
+    private static final int MAX_RECORD_LENGTH = 0x100000;
+
+    private final File file;
+    private final FileChannel channel;
+    private final ZigBeeJournalSyncPolicy syncPolicy;
+    private final ZigBeeNetworkStateCodec codec = new ZigBeeNetworkStateCodec();
+
+    /**
+     * Records that have been appended but not yet committed
+     */
+    private final ByteArrayOutputStream pending = new ByteArrayOutputStream(4096);
+
+    /**
+     * Buffer used to encode a single record payload
+     */
+    private final ByteArrayOutputStream payload = new ByteArrayOutputStream(512);
+    private final DataOutputStream payloadStream = new DataOutputStream(payload);
+
+    private final CRC32 crc = new CRC32();
+
+    private long committedLength;
+
+    /**
+     * Creates a new, empty journal. Any existing file is truncated.
+     *
+     * @param file the journal {@link File}
+     * @param syncPolicy the {@link ZigBeeJournalSyncPolicy}
+     * @throws IOException if the journal can't be created
+     */
+    ZigBeeNetworkStateJournal(File file, ZigBeeJournalSyncPolicy syncPolicy) throws IOException {
+        this.file = file;
+        this.syncPolicy = syncPolicy;
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    /**
+     * Gets the journal {@link File}
+     *
+     * @return the journal {@link File}
+     */
+    File getFile() {
+        return file;
+    }
+
+    /**
+     * Gets the length of the journal, including records that are not yet committed
+     *
+     * @return the journal length in bytes
+     */
+    synchronized long getLength() {
+        return committedLength + pending.size();
+    }
+
+    /**
+     * Appends a record with the full state of a node
+     *
+     * @param node the {@link ZigBeeNodeDao}
+     * @throws IOException if the record can't be written
+     */
+    synchronized void appendNode(ZigBeeNodeDao node) throws IOException {
+        int stringCount = codec.getStrings().size();
+        payload.reset();
+        codec.encodeNode(payloadStream, node);
+        append(RECORD_NODE, stringCount);
+    }
+
+    /**
+     * Appends a record removing a node
+     *
+     * @param address the {@link IeeeAddress} of the removed node
+     * @throws IOException if the record can't be written
+     */
+    synchronized void appendNodeRemove(IeeeAddress address) throws IOException {
+        int stringCount = codec.getStrings().size();
+        payload.reset();
+        ZigBeeNetworkStateCodec.writeIeeeAddress(payloadStream, address);
+        append(RECORD_NODE_REMOVE, stringCount);
+    }
+
+    /**
+     * Appends a record with the state of a single attribute
+     *
+     * @param address the {@link IeeeAddress} of the node
+     * @param endpointId the endpoint containing the cluster
+     * @param clusterId the cluster containing the attribute
+     * @param input true if the cluster is an input (server) cluster
+     * @param attribute the updated {@link ZclAttribute}
+     * @throws IOException if the record can't be written
+     */
+    synchronized void appendAttribute(IeeeAddress address, int endpointId, int clusterId, boolean input,
+            ZclAttribute attribute) throws IOException {
+        int stringCount = codec.getStrings().size();
+        payload.reset();
+        ZigBeeNetworkStateCodec.writeIeeeAddress(payloadStream, address);
+        payloadStream.writeByte(endpointId);
+        payloadStream.writeShort(clusterId);
+        payloadStream.writeByte(input ? ATTRIBUTE_FLAG_INPUT : 0);
+        codec.encodeAttribute(payloadStream, attribute);
+        append(RECORD_ATTRIBUTE, stringCount);
+    }
+
+    private void append(int type, int stringCount) throws IOException {
+        payloadStream.flush();
+        byte[] record = payload.toByteArray();
+
+        List<String> strings = codec.getStrings();
+        for (int cnt = stringCount; cnt < strings.size(); cnt++) {
+            writeRecord(RECORD_STRING, strings.get(cnt).getBytes(StandardCharsets.UTF_8));
+        }
+        writeRecord(type, record);
+
+        if (syncPolicy == ZigBeeJournalSyncPolicy.IMMEDIATE) {
+            commit();
+        }
+    }
+
+    private void writeRecord(int type, byte[] data) {
+        crc.reset();
+        crc.update(type);
+        crc.update(data, 0, data.length);
+
+        int length = data.length + 1;
+        pending.write(length >> 24);
+        pending.write(length >> 16);
+        pending.write(length >> 8);
+        pending.write(length);
+        pending.write(type);
+        pending.write(data, 0, data.length);
+        int value = (int) crc.getValue();
+        pending.write(value >> 24);
+        pending.write(value >> 16);
+        pending.write(value >> 8);
+        pending.write(value);
+    }
+
+    /**
+     * Writes all pending records to the journal file as a single group, and forces them to the storage device if
+     * required by the {@link ZigBeeJournalSyncPolicy}.
+     *
+     * @throws IOException if the journal can't be written
+     */
+    synchronized void commit() throws IOException {
+        if (pending.size() == 0) {
+            return;
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(pending.toByteArray());
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        committedLength += buffer.limit();
+        pending.reset();
+
+        if (syncPolicy != ZigBeeJournalSyncPolicy.NONE) {
+            channel.force(false);
+        }
+    }
+
+    /**
+     * Commits any pending records and closes the journal
+     *
+     * @throws IOException if the journal can't be written
+     */
+    synchronized void close() throws IOException {
+        try {
+            commit();
+            channel.force(false);
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Replays a journal file, applying each record to the map of nodes. Replay stops at the end of the file, or at the
+     * first record that is incomplete or fails the CRC check.
+     *
+     * @param file the journal {@link File} to replay
+     * @param nodes the {@link Map} of node {@link IeeeAddress} to {@link ZigBeeNodeDao} to update
+     * @return the number of records that were applied
+     * @throws IOException if the file can't be read
+     */
+    static int replay(File file, Map<IeeeAddress, ZigBeeNodeDao> nodes) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file.toPath()));
+        ZigBeeNetworkStateCodec codec = new ZigBeeNetworkStateCodec();
+        CRC32 crc = new CRC32();
+        int records = 0;
+
+        while (buffer.remaining() >= FRAME_OVERHEAD) {
+            int start = buffer.position();
+            int length = buffer.getInt();
+            if (length < 1 || length > MAX_RECORD_LENGTH || buffer.remaining() < length + 4) {
+                logger.debug("Network state journal {} truncated at offset {}", file, start);
+                break;
+            }
+
+            crc.reset();
+            crc.update(buffer.array(), buffer.position(), length);
+            if ((int) crc.getValue() != buffer.getInt(buffer.position() + length)) {
+                logger.debug("Network state journal {} CRC error at offset {}", file, start);
+                break;
+            }
+
+            ByteBuffer record = buffer.slice();
+            record.limit(length);
+            buffer.position(buffer.position() + length + 4);
+
+            int type = record.get() & 0xFF;
+            try {
+                apply(codec, type, record, nodes);
+            } catch (RuntimeException e) {
+                logger.debug("Network state journal {} invalid record at offset {}", file, start, e);
+                break;
+            }
+            records++;
+        }
+
+        return records;
+    }
+
+    private static void apply(ZigBeeNetworkStateCodec codec, int type, ByteBuffer record,
+            Map<IeeeAddress, ZigBeeNodeDao> nodes) {
+        switch (type) {
+            case RECORD_STRING:
+                byte[] bytes = new byte[record.remaining()];
+                record.get(bytes);
+                codec.addString(new String(bytes, StandardCharsets.UTF_8));
+                break;
+            case RECORD_NODE:
+                ZigBeeNodeDao node = codec.decodeNode(record);
+                nodes.put(new IeeeAddress(node.getIeeeAddress()), node);
+                break;
+            case RECORD_NODE_REMOVE:
+                nodes.remove(ZigBeeNetworkStateCodec.readIeeeAddress(record));
+                break;
+            case RECORD_ATTRIBUTE:
+                IeeeAddress address = ZigBeeNetworkStateCodec.readIeeeAddress(record);
+                int endpointId = record.get() & 0xFF;
+                int clusterId = record.getShort() & 0xFFFF;
+                boolean input = (record.get() & ATTRIBUTE_FLAG_INPUT) != 0;
+                ZclAttribute attribute = codec.decodeAttribute(record, ZclClusterType.getValueById(clusterId));
+
+                ZclClusterDao cluster = findCluster(nodes.get(address), endpointId, clusterId, input);
+                if (cluster == null) {
+                    logger.debug("{}: Network state journal attribute update for unknown cluster {}/{}", address,
+                            endpointId, String.format("%04X", clusterId));
+                    break;
+                }
+                if (cluster.getAttributes() == null) {
+                    cluster.setAttributes(new HashMap<Integer, ZclAttribute>());
+                }
+                cluster.getAttributes().put(attribute.getId(), attribute);
+                break;
+            default:
+                logger.debug("Network state journal unknown record type {}", type);
+                break;
+        }
+    }
+
+    private static ZclClusterDao findCluster(ZigBeeNodeDao node, int endpointId, int clusterId, boolean input) {
+        if (node == null || node.getEndpoints() == null) {
+            return null;
+        }
+        for (ZigBeeEndpointDao endpoint : node.getEndpoints()) {
+            if (endpoint.getEndpointId() != endpointId) {
+                continue;
+            }
+            List<ZclClusterDao> clusters = input ? endpoint.getInputClusters() : endpoint.getOutputClusters();
+            if (clusters == null) {
+                return null;
+            }
+            for (ZclClusterDao cluster : clusters) {
+                if (cluster.getClusterId() == clusterId) {
+                    return cluster;
+                }
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,281 @@
+/**
+ * Copyright (c) 2016-2019 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.database;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.zsmartsystems.zigbee.IeeeAddress;
+import com.zsmartsystems.zigbee.dao.ZigBeeNodeDao;
+
+/**
+ * A versioned binary snapshot of the network state.
+ * <p>
+ * The snapshot file has the following layout. All multi-byte values are big endian unless noted.
+ * <ul>
+ * <li>Header - magic number (4 bytes), format version (2 bytes), reserved (2 bytes), node count (4 bytes) and string
+ * table entry count (4 bytes)
+ * <li>String table - each string is a 2 byte length followed by the UTF-8 bytes
+ * <li>Node index - for each node, the {@link IeeeAddress} (8 bytes), the offset of the node record from the start of
+ * the file (4 bytes) and the length of the record (4 bytes)
+ * <li>Node records - one length prefixed record per node as encoded by {@link ZigBeeNetworkStateCodec}
+ * </ul>
+ * When a snapshot is opened, the file is read into memory and only the header, string table and node index are parsed.
+ * The file is not held open, so it can be replaced while the snapshot is in use. Node records are only decoded when they are requested with {@link #getNode(IeeeAddress)}, so a caller that only needs a
+ * subset of the nodes doesn't pay for decoding the rest of the network.
+ *
+ * @author Chris Jackson
+ */
+public class ZigBeeNetworkStateSnapshot {
+    /**
+     * Magic number at the start of every snapshot - "ZBNS"
+     */
+    static final int MAGIC = 0x5A424E53;
+
+    /**
+     * The current format version. This must be incremented if the record format changes in an incompatible way.
+     */
+    static final int VERSION = 1;
+
+    private static final int HEADER_LENGTH = 16;
+    private static final int INDEX_ENTRY_LENGTH = 16;
+
+    /**
+     * The snapshot data
+     */
+    private final ByteBuffer buffer;
+
+    /**
+     * The {@link ZigBeeNetworkStateCodec} initialised with the snapshot string table
+     */
+    private final ZigBeeNetworkStateCodec codec;
+
+    /**
+     * Map of node address to the node position in the index
+     */
+    private final Map<IeeeAddress, Integer> index;
+
+    /**
+     * The list of node addresses in the order they appear in the snapshot
+     */
+    private final List<IeeeAddress> addresses;
+
+    private final int[] recordOffsets;
+    private final int[] recordLengths;
+
+    private ZigBeeNetworkStateSnapshot(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+
+        if (buffer.remaining() < HEADER_LENGTH || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a network state snapshot");
+        }
+        int version = buffer.getShort(4) & 0xFFFF;
+        if (version != VERSION) {
+            throw new IOException("Unsupported network state snapshot version " + version);
+        }
+        int nodeCount = buffer.getInt(8);
+        int stringCount = buffer.getInt(12);
+
+        ByteBuffer reader = buffer.duplicate();
+        reader.position(HEADER_LENGTH);
+        List<String> strings = new ArrayList<String>(stringCount);
+        for (int cnt = 0; cnt < stringCount; cnt++) {
+            byte[] bytes = new byte[reader.getShort() & 0xFFFF];
+            reader.get(bytes);
+            strings.add(new String(bytes, StandardCharsets.UTF_8));
+        }
+        codec = new ZigBeeNetworkStateCodec(strings);
+
+        index = new HashMap<IeeeAddress, Integer>(nodeCount * 2);
+        addresses = new ArrayList<IeeeAddress>(nodeCount);
+        recordOffsets = new int[nodeCount];
+        recordLengths = new int[nodeCount];
+        for (int cnt = 0; cnt < nodeCount; cnt++) {
+            IeeeAddress address = ZigBeeNetworkStateCodec.readIeeeAddress(reader);
+            recordOffsets[cnt] = reader.getInt();
+            recordLengths[cnt] = reader.getInt();
+            index.put(address, cnt);
+            addresses.add(address);
+        }
+    }
+
+    /**
+     * Opens a snapshot file. The file is read into memory and closed, and only the index is parsed at this point.
+     *
+     * @param file the snapshot {@link File}
+     * @return the {@link ZigBeeNetworkStateSnapshot}
+     * @throws IOException if the file can't be read or is not a valid snapshot
+     */
+    public static ZigBeeNetworkStateSnapshot open(File file) throws IOException {
+        return wrap(Files.readAllBytes(file.toPath()));
+    }
+
+    /**
+     * Creates a snapshot from a byte array holding the snapshot data
+     *
+     * @param data the snapshot data
+     * @return the {@link ZigBeeNetworkStateSnapshot}
+     * @throws IOException if the data is not a valid snapshot
+     */
+    public static ZigBeeNetworkStateSnapshot wrap(byte[] data) throws IOException {
+        return new ZigBeeNetworkStateSnapshot(ByteBuffer.wrap(data));
+    }
+
+    /**
+     * Writes a snapshot of the nodes to a file. The snapshot is first written to a temporary file which then replaces
+     * the destination file so that a failure part way through writing never leaves a truncated snapshot behind.
+     *
+     * @param file the destination {@link File}
+     * @param nodes the {@link Collection} of {@link ZigBeeNodeDao}s to write
+     * @throws IOException if the file can't be written
+     */
+    public static void write(File file, Collection<ZigBeeNodeDao> nodes) throws IOException {
+        File tempFile = new File(file.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(tempFile), 65536))) {
+            write(out, nodes);
+        }
+
+        try {
+            Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Writes a snapshot of the nodes to a byte array
+     *
+     * @param nodes the {@link Collection} of {@link ZigBeeNodeDao}s to write
+     * @return the snapshot data
+     * @throws IOException if the snapshot can't be encoded
+     */
+    public static byte[] toByteArray(Collection<ZigBeeNodeDao> nodes) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            write(out, nodes);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void write(DataOutputStream out, Collection<ZigBeeNodeDao> nodes) throws IOException {
+        ZigBeeNetworkStateCodec codec = new ZigBeeNetworkStateCodec();
+
+        // Encode the records first so that the string table is complete before the header is written
+        ByteArrayOutputStream records = new ByteArrayOutputStream(nodes.size() * 256);
+        DataOutputStream recordStream = new DataOutputStream(records);
+        List<IeeeAddress> addresses = new ArrayList<IeeeAddress>(nodes.size());
+        int[] lengths = new int[nodes.size()];
+        int cnt = 0;
+        for (ZigBeeNodeDao node : nodes) {
+            int start = recordStream.size();
+            codec.encodeNode(recordStream, node);
+            addresses.add(new IeeeAddress(node.getIeeeAddress()));
+            lengths[cnt++] = recordStream.size() - start;
+        }
+        recordStream.flush();
+
+        List<byte[]> strings = new ArrayList<byte[]>();
+        int stringTableLength = 0;
+        for (String string : codec.getStrings()) {
+            byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+            if (bytes.length > 0xFFFF) {
+                throw new IOException("String too long for network state snapshot");
+            }
+            strings.add(bytes);
+            stringTableLength += 2 + bytes.length;
+        }
+
+        out.writeInt(MAGIC);
+        out.writeShort(VERSION);
+        out.writeShort(0);
+        out.writeInt(addresses.size());
+        out.writeInt(strings.size());
+
+        for (byte[] bytes : strings) {
+            out.writeShort(bytes.length);
+            out.write(bytes);
+        }
+
+        int offset = HEADER_LENGTH + stringTableLength + addresses.size() * INDEX_ENTRY_LENGTH;
+        for (cnt = 0; cnt < addresses.size(); cnt++) {
+            ZigBeeNetworkStateCodec.writeIeeeAddress(out, addresses.get(cnt));
+            out.writeInt(offset);
+            out.writeInt(lengths[cnt]);
+            offset += lengths[cnt];
+        }
+
+        records.writeTo(out);
+    }
+
+    /**
+     * Gets the number of nodes in the snapshot
+     *
+     * @return the number of nodes
+     */
+    public int getNodeCount() {
+        return addresses.size();
+    }
+
+    /**
+     * Gets the addresses of all nodes in the snapshot. This does not decode any node records.
+     *
+     * @return the {@link List} of node {@link IeeeAddress}es
+     */
+    public List<IeeeAddress> getNodeAddresses() {
+        return Collections.unmodifiableList(addresses);
+    }
+
+    /**
+     * Decodes a single node from the snapshot. Each call decodes the record again and returns a new
+     * {@link ZigBeeNodeDao}.
+     *
+     * @param address the {@link IeeeAddress} of the node
+     * @return the {@link ZigBeeNodeDao} or null if the node is not in the snapshot
+     */
+    public ZigBeeNodeDao getNode(IeeeAddress address) {
+        Integer position = index.get(address);
+        if (position == null) {
+            return null;
+        }
+
+        ByteBuffer record = buffer.duplicate();
+        record.position(recordOffsets[position]);
+        record.limit(recordOffsets[position] + recordLengths[position]);
+        return codec.decodeNode(record);
+    }
+
+    /**
+     * Decodes all nodes in the snapshot
+     *
+     * @return the {@link List} of {@link ZigBeeNodeDao}s
+     */
+    public List<ZigBeeNodeDao> getNodes() {
+        List<ZigBeeNodeDao> nodes = new ArrayList<ZigBeeNodeDao>(addresses.size());
+        for (IeeeAddress address : addresses) {
+            nodes.add(getNode(address));
+        }
+        return nodes;
+    }
+}
@@ -9,6 +9,7 @@ package com.zsmartsystems.zigbee.internal;
 
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -29,12 +30,37 @@ public class NotificationService {
 
     private static ExecutorService executorService = Executors.newCachedThreadPool();
 
-    public static void execute(Runnable command) {
+    /**
+     * The number of notifications that have been submitted but not yet completed
+     */
+    private static final AtomicInteger pendingNotifications = new AtomicInteger();
+
+    public static void execute(final Runnable command) {
+        pendingNotifications.incrementAndGet();
         try {
-            executorService.execute(command);
+            executorService.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        command.run();
+                    } finally {
+                        pendingNotifications.decrementAndGet();
+                    }
+                }
+            });
         } catch (Exception e) {
+            pendingNotifications.decrementAndGet();
             logger.error("Error ", e);
         }
     }
 
+    /**
+     * Gets the number of notifications that have been submitted but have not yet completed
+     *
+     * @return the number of pending notifications
+     */
+    public static int getPendingCount() {
+        return pendingNotifications.get();
+    }
+
 }
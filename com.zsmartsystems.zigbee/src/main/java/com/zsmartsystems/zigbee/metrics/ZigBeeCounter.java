@@ -0,0 +1,123 @@
+/**
+ * Copyright (c) 2016-2019 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A counter of events, which also provides the rate of the events.
+ * <p>
+ * The rate is an exponentially weighted moving average over the last minute, updated every 5 seconds. The average is
+ * updated by whichever thread first uses the counter after each interval, so no background task is required. Updates
+ * are lock free so the counter can be used on the hot paths of the stack.
+ *
+ * @author Chris Jackson
+ */
+public class ZigBeeCounter {
+    private static final long TICK_INTERVAL = TimeUnit.SECONDS.toNanos(5);
+    private static final double TICK_SECONDS = 5.0;
+    private static final double ALPHA = 1 - Math.exp(-TICK_SECONDS / 60.0);
+
+    private final LongAdder count = new LongAdder();
+    private final LongAdder uncounted = new LongAdder();
+    private final long startTime;
+    private final AtomicLong lastTick;
+
+    /**
+     * The rate in events per second. Only updated by the thread that wins the tick.
+     */
+    private volatile double rate;
+    private volatile boolean rateInitialised;
+
+    /**
+     * Creates a new counter
+     */
+    public ZigBeeCounter() {
+        startTime = System.nanoTime();
+        lastTick = new AtomicLong(startTime);
+    }
+
+    /**
+     * Increments the counter by one
+     */
+    public void increment() {
+        add(1);
+    }
+
+    /**
+     * Adds to the counter
+     *
+     * @param events the number of events to add
+     */
+    public void add(long events) {
+        tickIfNecessary();
+        count.add(events);
+        uncounted.add(events);
+    }
+
+    /**
+     * Gets the total number of events since the counter was created
+     *
+     * @return the number of events
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * Gets the rate of events over the last minute
+     *
+     * @return the one minute moving average rate in events per second
+     */
+    public double getRate() {
+        tickIfNecessary();
+        return rate;
+    }
+
+    /**
+     * Gets the mean rate of events since the counter was created
+     *
+     * @return the mean rate in events per second
+     */
+    public double getMeanRate() {
+        long elapsed = System.nanoTime() - startTime;
+        if (elapsed <= 0) {
+            return 0;
+        }
+        return (double) getCount() / elapsed * TimeUnit.SECONDS.toNanos(1);
+    }
+
+    private void tickIfNecessary() {
+        long oldTick = lastTick.get();
+        long age = System.nanoTime() - oldTick;
+        if (age <= TICK_INTERVAL) {
+            return;
+        }
+        long newTick = oldTick + age - age % TICK_INTERVAL;
+        if (!lastTick.compareAndSet(oldTick, newTick)) {
+            return;
+        }
+        long ticks = age / TICK_INTERVAL;
+        for (long tick = 0; tick < ticks; tick++) {
+            double instantRate = uncounted.sumThenReset() / TICK_SECONDS;
+            if (rateInitialised) {
+                rate += ALPHA * (instantRate - rate);
+            } else {
+                rate = instantRate;
+                rateInitialised = true;
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ZigBeeCounter [count=" + getCount() + ", rate=" + String.format("%.2f", getRate()) + "]";
+    }
+}
@@ -0,0 +1,23 @@
+/**
+ * Copyright (c) 2016-2019 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.metrics;
+
+/**
+ * A gauge provides the instantaneous value of a metric, such as the length of a queue. The value is only read when the
+ * metrics are requested, so the gauge should be inexpensive to read but does not need to be on any hot path.
+ *
+ * @author Chris Jackson
+ */
+public interface ZigBeeGauge {
+    /**
+     * Gets the current value of the gauge
+     *
+     * @return the current value
+     */
+    long getValue();
+}
@@ -0,0 +1,145 @@
+/**
+ * Copyright (c) 2016-2019 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A histogram of values, used to provide latency percentiles.
+ * <p>
+ * Values are recorded into a fixed set of buckets so that recording is lock free and uses no memory. Values below 16
+ * are recorded exactly, and larger values are recorded into 16 buckets for each power of two, so percentiles are
+ * accurate to within about 6%. Values are normally milliseconds.
+ *
+ * @author Chris Jackson
+ */
+public class ZigBeeHistogram {
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_EXPONENT = 40;
+    private static final int BUCKETS = SUB_BUCKETS + (MAX_EXPONENT - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong maximum = new AtomicLong();
+
+    /**
+     * Records a value into the histogram. Negative values are recorded as 0.
+     *
+     * @param value the value to record
+     */
+    public void update(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+        buckets.incrementAndGet(getBucket(value));
+        count.increment();
+        sum.add(value);
+
+        long currentMaximum;
+        while (value > (currentMaximum = maximum.get())) {
+            if (maximum.compareAndSet(currentMaximum, value)) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Gets the number of values recorded
+     *
+     * @return the number of values recorded
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * Gets the mean of the values recorded
+     *
+     * @return the mean value, or 0 if no values are recorded
+     */
+    public double getMean() {
+        long total = count.sum();
+        if (total == 0) {
+            return 0;
+        }
+        return (double) sum.sum() / total;
+    }
+
+    /**
+     * Gets the maximum value recorded
+     *
+     * @return the maximum value
+     */
+    public long getMaximum() {
+        return maximum.get();
+    }
+
+    /**
+     * Gets the value below which the given percentage of values fall
+     *
+     * @param percentile the percentile between 0 and 100
+     * @return the value at the percentile, or 0 if no values are recorded
+     */
+    public long getPercentile(double percentile) {
+        long[] counts = new long[BUCKETS];
+        long total = 0;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            counts[bucket] = buckets.get(bucket);
+            total += counts[bucket];
+        }
+        if (total == 0) {
+            return 0;
+        }
+
+        long target = (long) Math.ceil(total * Math.min(Math.max(percentile, 0), 100) / 100.0);
+        if (target == 0) {
+            target = 1;
+        }
+        long accumulated = 0;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            accumulated += counts[bucket];
+            if (accumulated >= target) {
+                return Math.min(getBucketUpperBound(bucket), maximum.get());
+            }
+        }
+        return maximum.get();
+    }
+
+    private static int getBucket(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        if (exponent > MAX_EXPONENT) {
+            return BUCKETS - 1;
+        }
+        int shift = exponent - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift) & (SUB_BUCKETS - 1);
+        return SUB_BUCKETS + shift * SUB_BUCKETS + subBucket;
+    }
+
+    private static long getBucketUpperBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = (bucket - SUB_BUCKETS) / SUB_BUCKETS;
+        int subBucket = (bucket - SUB_BUCKETS) % SUB_BUCKETS;
+        return ((long) (SUB_BUCKETS + subBucket + 1) << shift) - 1;
+    }
+
+    @Override
+    public String toString() {
+        return "ZigBeeHistogram [count=" + getCount() + ", mean=" + String.format("%.1f", getMean()) + ", p50="
+                + getPercentile(50) + ", p95=" + getPercentile(95) + ", p99=" + getPercentile(99) + ", max="
+                + getMaximum() + "]";
+    }
+}
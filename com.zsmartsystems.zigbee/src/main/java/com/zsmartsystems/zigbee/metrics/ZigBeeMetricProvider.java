@@ -0,0 +1,26 @@
+/**
+ * Copyright (c) 2016-2019 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.metrics;
+
+import java.util.Map;
+
+/**
+ * A provider of a set of metrics that can't be registered individually, for example because the set of metrics
+ * changes over time, or the values are already held elsewhere. The provider is called each time a snapshot of the
+ * metrics is taken.
+ *
+ * @author Chris Jackson
+ */
+public interface ZigBeeMetricProvider {
+    /**
+     * Adds the current metrics from this provider to the snapshot
+     *
+     * @param metrics the snapshot map of metric name to value to which the metrics are added
+     */
+    void getMetrics(Map<String, Number> metrics);
+}
@@ -0,0 +1,156 @@
+/**
+ * Copyright (c) 2016-2019 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.metrics;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The registry of metrics for a network. The registry holds named {@link ZigBeeCounter}s, {@link ZigBeeHistogram}s
+ * and {@link ZigBeeGauge}s, along with any {@link ZigBeeMetricProvider}s, and provides a snapshot of all metrics.
+ * <p>
+ * Metrics are created the first time they are requested, and the same instance is returned for all later requests
+ * with the same name. Users on a hot path should request the metric once and keep the reference, although the lookup
+ * is also lock free.
+ * <p>
+ * In the snapshot, counters are reported as <i>name</i>.count and <i>name</i>.rate (in events per second) and
+ * histograms are reported as <i>name</i>.count, <i>name</i>.mean, <i>name</i>.p50, <i>name</i>.p95,
+ * <i>name</i>.p99 and <i>name</i>.max.
+ *
+ * @author Chris Jackson
+ */
+public class ZigBeeMetricRegistry {
+    /**
+     * The logger.
+     */
+    private final Logger logger = LoggerFactory.getLogger(ZigBeeMetricRegistry.class);
+
+    private final ConcurrentMap<String, ZigBeeCounter> counters = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, ZigBeeHistogram> histograms = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, ZigBeeGauge> gauges = new ConcurrentHashMap<>();
+    private final List<ZigBeeMetricProvider> providers = new CopyOnWriteArrayList<>();
+
+    /**
+     * Gets the {@link ZigBeeCounter} with the given name, creating it if it doesn't exist
+     *
+     * @param name the name of the counter
+     * @return the {@link ZigBeeCounter}
+     */
+    public ZigBeeCounter getCounter(String name) {
+        ZigBeeCounter counter = counters.get(name);
+        if (counter == null) {
+            counter = new ZigBeeCounter();
+            ZigBeeCounter existing = counters.putIfAbsent(name, counter);
+            if (existing != null) {
+                counter = existing;
+            }
+        }
+        return counter;
+    }
+
+    /**
+     * Gets the {@link ZigBeeHistogram} with the given name, creating it if it doesn't exist
+     *
+     * @param name the name of the histogram
+     * @return the {@link ZigBeeHistogram}
+     */
+    public ZigBeeHistogram getHistogram(String name) {
+        ZigBeeHistogram histogram = histograms.get(name);
+        if (histogram == null) {
+            histogram = new ZigBeeHistogram();
+            ZigBeeHistogram existing = histograms.putIfAbsent(name, histogram);
+            if (existing != null) {
+                histogram = existing;
+            }
+        }
+        return histogram;
+    }
+
+    /**
+     * Adds a {@link ZigBeeGauge}. Any existing gauge with the same name is replaced.
+     *
+     * @param name the name of the gauge
+     * @param gauge the {@link ZigBeeGauge}
+     */
+    public void addGauge(String name, ZigBeeGauge gauge) {
+        gauges.put(name, gauge);
+    }
+
+    /**
+     * Removes a {@link ZigBeeGauge}
+     *
+     * @param name the name of the gauge to remove
+     */
+    public void removeGauge(String name) {
+        gauges.remove(name);
+    }
+
+    /**
+     * Adds a {@link ZigBeeMetricProvider}
+     *
+     * @param provider the {@link ZigBeeMetricProvider} to add
+     */
+    public void addProvider(ZigBeeMetricProvider provider) {
+        providers.add(provider);
+    }
+
+    /**
+     * Removes a {@link ZigBeeMetricProvider}
+     *
+     * @param provider the {@link ZigBeeMetricProvider} to remove
+     */
+    public void removeProvider(ZigBeeMetricProvider provider) {
+        providers.remove(provider);
+    }
+
+    /**
+     * Gets a snapshot of all metrics in the registry
+     *
+     * @return a sorted {@link Map} of metric name to value
+     */
+    public Map<String, Number> getSnapshot() {
+        Map<String, Number> snapshot = new TreeMap<>();
+
+        for (Map.Entry<String, ZigBeeCounter> entry : counters.entrySet()) {
+            snapshot.put(entry.getKey() + ".count", entry.getValue().getCount());
+            snapshot.put(entry.getKey() + ".rate", entry.getValue().getRate());
+        }
+        for (Map.Entry<String, ZigBeeHistogram> entry : histograms.entrySet()) {
+            ZigBeeHistogram histogram = entry.getValue();
+            snapshot.put(entry.getKey() + ".count", histogram.getCount());
+            snapshot.put(entry.getKey() + ".mean", histogram.getMean());
+            snapshot.put(entry.getKey() + ".p50", histogram.getPercentile(50));
+            snapshot.put(entry.getKey() + ".p95", histogram.getPercentile(95));
+            snapshot.put(entry.getKey() + ".p99", histogram.getPercentile(99));
+            snapshot.put(entry.getKey() + ".max", histogram.getMaximum());
+        }
+        for (Map.Entry<String, ZigBeeGauge> entry : gauges.entrySet()) {
+            try {
+                snapshot.put(entry.getKey(), entry.getValue().getValue());
+            } catch (RuntimeException e) {
+                logger.debug("Exception reading gauge {}", entry.getKey(), e);
+            }
+        }
+        for (ZigBeeMetricProvider provider : providers) {
+            try {
+                provider.getMetrics(snapshot);
+            } catch (RuntimeException e) {
+                logger.debug("Exception reading metric provider {}", provider, e);
+            }
+        }
+
+        return snapshot;
+    }
+}
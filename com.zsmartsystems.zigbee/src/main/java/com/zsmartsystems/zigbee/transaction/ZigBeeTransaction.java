@@ -69,6 +69,12 @@ public class ZigBeeTransaction {
 
     private TransactionState state = TransactionState.WAITING;
 
+    /**
+     * The APS counter of the frame sent to the transport. This is used to match the progress reported by the
+     * transport, and is independent of the ZCL or ZDO transaction ID of the command.
+     */
+    private Integer apsCounter;
+
     /**
      * The amount of time (in milliseconds) from when the command is sent to the transport, until when the transport
      * acknowledges it has been transmitted.
@@ -91,6 +97,11 @@ public class ZigBeeTransaction {
 
     private int timeout = TRANSACTION_TIMER;
 
+    /**
+     * The trace of the time at which each stage of the transaction was reached
+     */
+    private final ZigBeeTransactionTrace trace = new ZigBeeTransactionTrace();
+
     /**
      * Transaction constructor
      *
@@ -104,6 +115,7 @@ public class ZigBeeTransaction {
         this.transactionManager = transactionManager;
         this.command = command;
         this.responseMatcher = responseMatcher;
+        trace.record(ZigBeeTransactionTrace.Stage.QUEUED);
     }
 
     /**
@@ -126,7 +138,9 @@ public class ZigBeeTransaction {
                 startTimer(TRANSACTION_TIMER_BEFORE_TX);
             }
 
-            transactionManager.send(command);
+            state = TransactionState.DISPATCHED;
+            trace.record(ZigBeeTransactionTrace.Stage.DISPATCHED);
+            apsCounter = transactionManager.send(command);
         }
     }
 
@@ -144,8 +158,18 @@ public class ZigBeeTransaction {
         this.timeout = timeout;
     }
 
+    /**
+     * Gets the {@link ZigBeeTransactionTrace} recording the time at which each stage of the transaction was reached
+     *
+     * @return the {@link ZigBeeTransactionTrace} for this transaction
+     */
+    public ZigBeeTransactionTrace getTrace() {
+        return trace;
+    }
+
     protected void setFuture(ZigBeeTransactionFuture transactionFuture) {
         this.transactionFuture = transactionFuture;
+        transactionFuture.setTrace(trace);
     }
 
     protected ZigBeeTransactionFuture getFuture() {
@@ -177,7 +201,7 @@ public class ZigBeeTransaction {
         timeoutTask = transactionManager.scheduleTask(new Runnable() {
             @Override
             public void run() {
-                cancelTransaction();
+                cancelTransaction(true);
             }
         }, timeout);
     }
@@ -186,10 +210,15 @@ public class ZigBeeTransaction {
         if (timeoutTask != null) {
             timeoutTask.cancel(false);
         }
-        logger.debug("Transaction complete: {}", command);
+        trace.record(ZigBeeTransactionTrace.Stage.COMPLETED);
+        logger.debug("Transaction complete: {} {}", command, trace);
+        CommandResult result = new CommandResult(receivedCommand, trace);
+        if (state != TransactionState.COMPLETE && state != TransactionState.FAILED) {
+            transactionManager.transactionCompleted(command, result);
+        }
         if (transactionFuture != null) {
             synchronized (transactionFuture) {
-                transactionFuture.set(new CommandResult(receivedCommand));
+                transactionFuture.set(result);
                 transactionFuture.notify();
             }
         }
@@ -199,11 +228,14 @@ public class ZigBeeTransaction {
         state = TransactionState.COMPLETE;
     }
 
-    private void cancelTransaction() {
+    private void cancelTransaction(boolean timeout) {
         if (timeoutTask != null) {
             timeoutTask.cancel(false);
         }
-        logger.debug("Transaction cancelled: {}", command);
+        logger.debug("Transaction cancelled: {} {}", command, trace);
+        if (state != TransactionState.COMPLETE && state != TransactionState.FAILED) {
+            transactionManager.transactionFailed(command, new CommandResult(null, trace), timeout);
+        }
         if (transactionFuture != null) {
             synchronized (transactionFuture) {
                 transactionFuture.cancel(false);
@@ -217,24 +249,37 @@ public class ZigBeeTransaction {
     }
 
     /**
+     * Processes the progress of the frame reported by the transport layer. The update is ignored unless it is for the
+     * frame sent by this transaction.
      *
-     * @param state
-     * @param transactionId
+     * @param progress the {@link ZigBeeTransportProgressState} reported by the transport
+     * @param apsCounter the APS counter of the frame whose progress is reported
      */
-    public void commandStatusReceived(ZigBeeTransportProgressState progress, int transactionId) {
+    public void commandStatusReceived(ZigBeeTransportProgressState progress, int apsCounter) {
         synchronized (command) {
-            if (command.getTransactionId() != transactionId) {
+            if (this.apsCounter == null || this.apsCounter != apsCounter) {
                 return;
             }
 
-            logger.debug("Transaction state update : TID {} -> {} == {}", transactionId, progress, state);
+            // Progress reported after the transaction has finished must not restart it, since the response may be
+            // received before the transport reports that the command was sent
+            if (state == TransactionState.COMPLETE || state == TransactionState.FAILED) {
+                logger.debug("Transaction state update ignored: TID {} APS {} -> {} == {}",
+                        command.getTransactionId(), apsCounter, progress, state);
+                return;
+            }
+
+            logger.debug("Transaction state update : TID {} APS {} -> {} == {}", command.getTransactionId(),
+                    apsCounter, progress, state);
 
             switch (progress) {
                 case TX_NAK:
                     // The transport layer failed to send the command
-                    cancelTransaction();
+                    cancelTransaction(false);
                     break;
                 case TX_ACK:
+                    trace.record(ZigBeeTransactionTrace.Stage.TRANSMITTED);
+
                     // If we aren't waiting for a response, then we're done
                     if (responseMatcher == null) {
                         completeTransaction(null);
@@ -249,16 +294,18 @@ public class ZigBeeTransaction {
                     break;
                 case RX_NAK:
                     // The transport layer failed to get an ack from the remote device
-                    cancelTransaction();
+                    cancelTransaction(false);
                     break;
                 case RX_ACK:
                     // The remote device confirmed receipt of the command
+                    trace.record(ZigBeeTransactionTrace.Stage.ACKED);
                     state = TransactionState.ACKED;
                     break;
                 default:
                     break;
             }
         }
-        logger.debug("Transaction state updated: TID {} -> {} == {}", transactionId, progress, state);
+        logger.debug("Transaction state updated: TID {} APS {} -> {} == {}", command.getTransactionId(), apsCounter,
+                progress, state);
     }
 }
@@ -26,6 +26,11 @@ public class ZigBeeTransactionFuture implements Future<CommandResult> {
 
     private boolean cancelled = false;
 
+    /**
+     * The {@link ZigBeeTransactionTrace} to include in the result if the transaction is cancelled
+     */
+    private ZigBeeTransactionTrace trace;
+
     // Not final for tests
     private static long TIMEOUT_MILLISECONDS = 12000;
 
@@ -39,6 +44,15 @@ public class ZigBeeTransactionFuture implements Future<CommandResult> {
         notify();
     }
 
+    /**
+     * Sets the {@link ZigBeeTransactionTrace} that is returned in the {@link CommandResult} if the transaction fails.
+     *
+     * @param trace the {@link ZigBeeTransactionTrace}
+     */
+    synchronized void setTrace(final ZigBeeTransactionTrace trace) {
+        this.trace = trace;
+    }
+
     @Override
     public synchronized boolean cancel(boolean mayInterruptIfRunning) {
         if (result != null || cancelled) {
@@ -64,7 +78,7 @@ public class ZigBeeTransactionFuture implements Future<CommandResult> {
         try {
             return get(TIMEOUT_MILLISECONDS, TimeUnit.MILLISECONDS);
         } catch (InterruptedException e) {
-            set(new CommandResult());
+            set(new CommandResult(null, trace));
             return result;
         }
     }
@@ -77,7 +91,7 @@ public class ZigBeeTransactionFuture implements Future<CommandResult> {
             }
             unit.timedWait(this, timeout);
             if (result == null) {
-                set(new CommandResult());
+                set(new CommandResult(null, trace));
             }
             return result;
         }
@@ -14,11 +14,18 @@ import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import com.zsmartsystems.zigbee.CommandResult;
 import com.zsmartsystems.zigbee.ZigBeeCommand;
 import com.zsmartsystems.zigbee.ZigBeeNetworkManager;
 import com.zsmartsystems.zigbee.internal.NotificationService;
+import com.zsmartsystems.zigbee.metrics.ZigBeeCounter;
+import com.zsmartsystems.zigbee.metrics.ZigBeeGauge;
+import com.zsmartsystems.zigbee.metrics.ZigBeeMetricRegistry;
 import com.zsmartsystems.zigbee.transport.ZigBeeTransportProgressState;
 
 /**
@@ -28,6 +35,55 @@ import com.zsmartsystems.zigbee.transport.ZigBeeTransportProgressState;
  *
  */
 public class ZigBeeTransactionManager {
+    /**
+     * The logger.
+     */
+    private final Logger logger = LoggerFactory.getLogger(ZigBeeTransactionManager.class);
+
+    /**
+     * Histogram of the transaction completion latency in milliseconds. A histogram is also provided for each command
+     * type, named with the command class appended (eg transaction.latency.ReadAttributesCommand).
+     */
+    public static final String METRIC_TRANSACTION_LATENCY = "transaction.latency";
+
+    /**
+     * Histogram of the time in milliseconds from handing the command to the transport until the transport confirms it
+     * has been transmitted
+     */
+    public static final String METRIC_TRANSACTION_STAGE_TRANSPORT = "transaction.stage.transport";
+
+    /**
+     * Histogram of the time in milliseconds from the transport transmitting the command until the remote device
+     * acknowledges it
+     */
+    public static final String METRIC_TRANSACTION_STAGE_MESH = "transaction.stage.mesh";
+
+    /**
+     * Histogram of the time in milliseconds from the remote device acknowledging the command until the response is
+     * received
+     */
+    public static final String METRIC_TRANSACTION_STAGE_RESPONSE = "transaction.stage.response";
+
+    /**
+     * Counter of transactions completed successfully
+     */
+    public static final String METRIC_TRANSACTION_COMPLETE = "transaction.complete";
+
+    /**
+     * Counter of transactions failed by the transport
+     */
+    public static final String METRIC_TRANSACTION_FAILED = "transaction.failed";
+
+    /**
+     * Counter of transactions that timed out
+     */
+    public static final String METRIC_TRANSACTION_TIMEOUT = "transaction.timeout";
+
+    /**
+     * Gauge of the number of transactions in flight
+     */
+    public static final String METRIC_TRANSACTION_INFLIGHT = "transaction.inflight";
+
     /**
      * The {@link ZigBeeNetworkManager} to which this manager belongs
      */
@@ -45,8 +101,52 @@ public class ZigBeeTransactionManager {
      */
     private final ScheduledExecutorService executorService = Executors.newScheduledThreadPool(6);
 
+    private final ZigBeeMetricRegistry metrics;
+    private final ZigBeeCounter completeCounter;
+    private final ZigBeeCounter failedCounter;
+    private final ZigBeeCounter timeoutCounter;
+    private final AtomicInteger transactionsInFlight = new AtomicInteger();
+
+    /**
+     * The {@link ZigBeeTransactionTraceSink} receiving sampled transaction traces, or null if tracing is disabled
+     */
+    private volatile ZigBeeTransactionTraceSink traceSink;
+
+    /**
+     * The sink is called for one in every traceInterval transactions
+     */
+    private volatile int traceInterval = 1;
+    private final AtomicInteger traceCounter = new AtomicInteger();
+
     public ZigBeeTransactionManager(ZigBeeNetworkManager manager) {
         this.networkManager = manager;
+
+        metrics = manager.getMetrics() == null ? new ZigBeeMetricRegistry() : manager.getMetrics();
+        completeCounter = metrics.getCounter(METRIC_TRANSACTION_COMPLETE);
+        failedCounter = metrics.getCounter(METRIC_TRANSACTION_FAILED);
+        timeoutCounter = metrics.getCounter(METRIC_TRANSACTION_TIMEOUT);
+        metrics.addGauge(METRIC_TRANSACTION_INFLIGHT, new ZigBeeGauge() {
+            @Override
+            public long getValue() {
+                return transactionsInFlight.get();
+            }
+        });
+    }
+
+    /**
+     * Sets the {@link ZigBeeTransactionTraceSink} to receive the {@link ZigBeeTransactionTrace} of completed
+     * transactions. Only one in every interval transactions is passed to the sink to limit the overhead on busy
+     * networks.
+     *
+     * @param sink the {@link ZigBeeTransactionTraceSink} or null to disable tracing
+     * @param interval the sampling interval - 1 will trace all transactions
+     */
+    public void setTraceSink(ZigBeeTransactionTraceSink sink, int interval) {
+        if (interval < 1) {
+            throw new IllegalArgumentException("Trace interval must be at least 1");
+        }
+        traceInterval = interval;
+        traceSink = sink;
     }
 
     /**
@@ -71,6 +171,7 @@ public class ZigBeeTransactionManager {
         ZigBeeTransactionFuture transactionFuture = new ZigBeeTransactionFuture();
         ZigBeeTransaction transaction = new ZigBeeTransaction(this, command, responseMatcher);
         transaction.setFuture(transactionFuture);
+        transactionsInFlight.incrementAndGet();
         transaction.send();
 
         return transactionFuture;
@@ -80,9 +181,10 @@ public class ZigBeeTransactionManager {
      * Sends the command to the transport layer
      *
      * @param command the {@link ZigBeeCommand} to send
+     * @return the APS counter used by the transport to report the progress of the command
      */
-    protected void send(ZigBeeCommand command) {
-        networkManager.sendCommand(command);
+    protected int send(ZigBeeCommand command) {
+        return networkManager.sendCommand(command);
     }
 
     /**
@@ -101,7 +203,7 @@ public class ZigBeeTransactionManager {
     /**
      * Callback from the transport layer when it has progressed the state of the transaction.
      *
-     * @param transactionId the transaction ID whose state is updated
+     * @param transactionId the APS counter of the frame whose state is updated
      * @param status the updated {@link ZigBeeTransportProgressState} for the transaction
      */
     public void receiveCommandStatus(int transactionId, ZigBeeTransportProgressState status) {
@@ -131,6 +233,85 @@ public class ZigBeeTransactionManager {
         }
     }
 
+    /**
+     * Called by a transaction when it completes successfully
+     *
+     * @param command the {@link ZigBeeCommand} sent by the transaction
+     * @param result the {@link CommandResult} of the transaction
+     */
+    protected void transactionCompleted(ZigBeeCommand command, CommandResult result) {
+        transactionsInFlight.decrementAndGet();
+        completeCounter.increment();
+
+        ZigBeeTransactionTrace trace = result.getTrace();
+        if (trace != null) {
+            long latencyMs = trace.getDuration(ZigBeeTransactionTrace.Stage.DISPATCHED,
+                    ZigBeeTransactionTrace.Stage.COMPLETED, TimeUnit.MILLISECONDS);
+            if (latencyMs >= 0) {
+                metrics.getHistogram(METRIC_TRANSACTION_LATENCY).update(latencyMs);
+                metrics.getHistogram(METRIC_TRANSACTION_LATENCY + "." + command.getClass().getSimpleName())
+                        .update(latencyMs);
+            }
+            updateStageHistogram(METRIC_TRANSACTION_STAGE_TRANSPORT, trace.getTransportDelay(TimeUnit.MILLISECONDS));
+            updateStageHistogram(METRIC_TRANSACTION_STAGE_MESH, trace.getMeshDelay(TimeUnit.MILLISECONDS));
+            updateStageHistogram(METRIC_TRANSACTION_STAGE_RESPONSE, trace.getResponseDelay(TimeUnit.MILLISECONDS));
+        }
+
+        traceTransaction(command, result);
+    }
+
+    /**
+     * Called by a transaction when it fails
+     *
+     * @param command the {@link ZigBeeCommand} sent by the transaction
+     * @param result the {@link CommandResult} of the transaction
+     * @param timeout true if the transaction timed out, false if it was failed by the transport
+     */
+    protected void transactionFailed(ZigBeeCommand command, CommandResult result, boolean timeout) {
+        transactionsInFlight.decrementAndGet();
+        if (timeout) {
+            timeoutCounter.increment();
+        } else {
+            failedCounter.increment();
+        }
+
+        traceTransaction(command, result);
+    }
+
+    private void updateStageHistogram(String name, long value) {
+        if (value >= 0) {
+            metrics.getHistogram(name).update(value);
+        }
+    }
+
+    /**
+     * Passes the transaction result to the {@link ZigBeeTransactionTraceSink} if it is selected by the sampling
+     * interval
+     *
+     * @param command the {@link ZigBeeCommand} sent by the transaction
+     * @param result the {@link CommandResult} of the transaction
+     */
+    private void traceTransaction(final ZigBeeCommand command, final CommandResult result) {
+        final ZigBeeTransactionTraceSink sink = traceSink;
+        if (sink == null || result.getTrace() == null) {
+            return;
+        }
+        if (Math.floorMod(traceCounter.getAndIncrement(), traceInterval) != 0) {
+            return;
+        }
+
+        NotificationService.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    sink.transactionTraced(command, result);
+                } catch (RuntimeException e) {
+                    logger.debug("Exception in transaction trace sink", e);
+                }
+            }
+        });
+    }
+
     protected ScheduledFuture<?> scheduleTask(Runnable runnableTask, long delay) {
         return executorService.schedule(runnableTask, delay, TimeUnit.MILLISECONDS);
     }
@@ -0,0 +1,184 @@
+/**
+ * Copyright (c) 2016-2019 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.transaction;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records the time at which a transaction passed through each {@link Stage} of its lifecycle. This allows the time
+ * spent waiting in the NCP to be separated from the time spent in the mesh, and the time taken by the remote device to
+ * respond.
+ * <p>
+ * Timestamps are taken from {@link System#nanoTime()} and are therefore only meaningful relative to each other. Not
+ * all stages are reached by all transactions - for example a transaction that times out will not have a
+ * {@link Stage#COMPLETED} time, and transports that don't provide acknowledgement progress will not provide the
+ * {@link Stage#TRANSMITTED} or {@link Stage#ACKED} times.
+ *
+ * @author Chris Jackson
+ */
+public class ZigBeeTransactionTrace {
+    /**
+     * The lifecycle stages of a transaction
+     */
+    public enum Stage {
+        /**
+         * The transaction was created and queued to be sent
+         */
+        QUEUED,
+
+        /**
+         * The command was handed to the transport
+         */
+        DISPATCHED,
+
+        /**
+         * The transport confirmed the command was transmitted (TX_ACK)
+         */
+        TRANSMITTED,
+
+        /**
+         * The remote device acknowledged receipt of the command (RX_ACK)
+         */
+        ACKED,
+
+        /**
+         * The response was matched and the transaction completed
+         */
+        COMPLETED
+    }
+
+    private final long[] timestamps = new long[Stage.values().length];
+    private volatile int recorded;
+
+    /**
+     * Records the current time for the stage. If the stage has already been recorded, the original time is kept.
+     *
+     * @param stage the {@link Stage} that has been reached
+     */
+    void record(Stage stage) {
+        record(stage, System.nanoTime());
+    }
+
+    synchronized void record(Stage stage, long time) {
+        int mask = 1 << stage.ordinal();
+        if ((recorded & mask) != 0) {
+            return;
+        }
+        timestamps[stage.ordinal()] = time;
+        recorded |= mask;
+    }
+
+    /**
+     * Checks if the transaction has reached the stage
+     *
+     * @param stage the {@link Stage} to check
+     * @return true if the time has been recorded for the stage
+     */
+    public boolean hasStage(Stage stage) {
+        return (recorded & (1 << stage.ordinal())) != 0;
+    }
+
+    /**
+     * Gets the time the transaction reached the stage
+     *
+     * @param stage the {@link Stage}
+     * @return the {@link System#nanoTime()} at which the stage was reached, or null if the stage was not reached
+     */
+    public Long getTimestamp(Stage stage) {
+        if (!hasStage(stage)) {
+            return null;
+        }
+        return timestamps[stage.ordinal()];
+    }
+
+    /**
+     * Gets the time taken between two stages
+     *
+     * @param from the starting {@link Stage}
+     * @param to the ending {@link Stage}
+     * @param unit the {@link TimeUnit} for the result
+     * @return the time between the stages, or -1 if either stage was not reached
+     */
+    public long getDuration(Stage from, Stage to, TimeUnit unit) {
+        if (!hasStage(from) || !hasStage(to)) {
+            return -1;
+        }
+        return unit.convert(timestamps[to.ordinal()] - timestamps[from.ordinal()], TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Gets the time from when the command was handed to the transport until the transport confirmed it was
+     * transmitted. This is dominated by queueing within the NCP.
+     *
+     * @param unit the {@link TimeUnit} for the result
+     * @return the transport delay, or -1 if unknown
+     */
+    public long getTransportDelay(TimeUnit unit) {
+        return getDuration(Stage.DISPATCHED, Stage.TRANSMITTED, unit);
+    }
+
+    /**
+     * Gets the time from when the command was transmitted until the remote device acknowledged it. This is the mesh
+     * latency, including any retries and the polling delay for sleepy devices.
+     *
+     * @param unit the {@link TimeUnit} for the result
+     * @return the mesh delay, or -1 if unknown
+     */
+    public long getMeshDelay(TimeUnit unit) {
+        return getDuration(Stage.TRANSMITTED, Stage.ACKED, unit);
+    }
+
+    /**
+     * Gets the time from when the remote device acknowledged the command until the response was matched. This is
+     * dominated by the processing time in the remote device. If the APS acknowledgement was not received, the time is
+     * taken from when the command was transmitted.
+     *
+     * @param unit the {@link TimeUnit} for the result
+     * @return the response delay, or -1 if unknown
+     */
+    public long getResponseDelay(TimeUnit unit) {
+        if (hasStage(Stage.ACKED)) {
+            return getDuration(Stage.ACKED, Stage.COMPLETED, unit);
+        }
+        return getDuration(Stage.TRANSMITTED, Stage.COMPLETED, unit);
+    }
+
+    /**
+     * Gets the total time from when the transaction was queued until the response was matched
+     *
+     * @param unit the {@link TimeUnit} for the result
+     * @return the total transaction time, or -1 if the transaction did not complete
+     */
+    public long getTotalTime(TimeUnit unit) {
+        return getDuration(Stage.QUEUED, Stage.COMPLETED, unit);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder(80);
+        builder.append("ZigBeeTransactionTrace [");
+        Stage previous = null;
+        for (Stage stage : Stage.values()) {
+            if (!hasStage(stage)) {
+                continue;
+            }
+            if (previous == null) {
+                builder.append(stage);
+            } else {
+                builder.append(", ");
+                builder.append(stage);
+                builder.append("=+");
+                builder.append(getDuration(previous, stage, TimeUnit.MICROSECONDS));
+                builder.append("us");
+            }
+            previous = stage;
+        }
+        builder.append(']');
+        return builder.toString();
+    }
+}
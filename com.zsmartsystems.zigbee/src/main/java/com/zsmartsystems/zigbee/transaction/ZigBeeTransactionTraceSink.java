@@ -0,0 +1,30 @@
+/**
+ * Copyright (c) 2016-2019 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.transaction;
+
+import com.zsmartsystems.zigbee.CommandResult;
+import com.zsmartsystems.zigbee.ZigBeeCommand;
+
+/**
+ * Receives the {@link ZigBeeTransactionTrace} of sampled transactions once they have completed or failed. The sink
+ * is registered with {@link ZigBeeTransactionManager#setTraceSink(ZigBeeTransactionTraceSink, int)}.
+ * <p>
+ * The sink is called from the notification thread pool, so implementations should not block.
+ *
+ * @author Chris Jackson
+ */
+public interface ZigBeeTransactionTraceSink {
+    /**
+     * Called when a sampled transaction completes or fails. The {@link ZigBeeTransactionTrace} is available from
+     * {@link CommandResult#getTrace()}.
+     *
+     * @param command the {@link ZigBeeCommand} sent by the transaction
+     * @param result the {@link CommandResult} of the transaction
+     */
+    void transactionTraced(ZigBeeCommand command, CommandResult result);
+}
@@ -85,5 +85,14 @@ public enum TransportConfigOption {
      * <p>
      * Value must be {@link Integer}
      */
-    RADIO_TX_POWER;
+    RADIO_TX_POWER,
+
+    /**
+     * Sets the groups the local node is a member of. This allows the transport to receive group messages addressed to
+     * these groups. This is set by the {@link com.zsmartsystems.zigbee.ZigBeeNetworkManager} when the network groups
+     * are changed.
+     * <p>
+     * Value must be a {@link Collection} of Integer defining the group IDs
+     */
+    MULTICAST_GROUPS;
 }
@@ -58,6 +58,22 @@ public interface ZigBeePort {
      */
     void write(int value);
 
+    /**
+     * Write a block of data to the port. This should be non-blocking.
+     * <p>
+     * Implementations should override this to pass the data to the underlying port in a single operation. The default
+     * implementation writes each value with {@link #write(int)}.
+     *
+     * @param data the values to write
+     * @param offset the offset of the first value to write
+     * @param length the number of values to write
+     */
+    default void write(int[] data, int offset, int length) {
+        for (int cnt = offset; cnt < offset + length; cnt++) {
+            write(data[cnt]);
+        }
+    }
+
     /**
      * Read a value from the port. This should block until a byte is available.
      *
@@ -73,6 +89,31 @@ public interface ZigBeePort {
      */
     int read(int timeout);
 
+    /**
+     * Read a block of data from the port. This will block until at least one byte is available or the timeout period
+     * is reached, and will then return all data that is available, up to the requested length.
+     * <p>
+     * Implementations should override this to take all available data from the underlying port in a single operation.
+     * The default implementation reads a single value with {@link #read(int)}.
+     *
+     * @param buffer the buffer to place the received data
+     * @param offset the offset in the buffer for the first value received
+     * @param length the maximum number of values to read
+     * @param timeout the timeout in milliseconds to wait for the first value
+     * @return the number of values read, or -1 if no data was received
+     */
+    default int read(int[] buffer, int offset, int length, int timeout) {
+        if (length == 0) {
+            return 0;
+        }
+        int value = read(timeout);
+        if (value == -1) {
+            return -1;
+        }
+        buffer[offset] = value;
+        return 1;
+    }
+
     /**
      * Purge all data currently in the receive buffer
      */
@@ -0,0 +1,71 @@
+/**
+ * Copyright (c) 2016-2019 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.transport;
+
+/**
+ * Buffers data read from a {@link ZigBeePort} so that frame parsers can decode the received data a byte at a time
+ * while the port is read in blocks with {@link ZigBeePort#read(int[], int, int, int)}. This avoids a call to the port,
+ * and any synchronisation within the port, for every byte received.
+ * <p>
+ * The reader is intended to be used from a single receive thread and is not thread safe.
+ *
+ * @author Chris Jackson
+ */
+public class ZigBeePortReader {
+    private final ZigBeePort port;
+    private final int[] buffer;
+    private int position;
+    private int count;
+
+    /**
+     * Creates the reader
+     *
+     * @param port the {@link ZigBeePort} to read from
+     * @param size the maximum number of values to read from the port in one operation
+     */
+    public ZigBeePortReader(ZigBeePort port, int size) {
+        this.port = port;
+        this.buffer = new int[size];
+    }
+
+    /**
+     * Reads a value. This will block until a byte is available.
+     *
+     * @return the data byte (integer) read from the port, or -1 if the port returned no data
+     */
+    public int read() {
+        return read(Integer.MAX_VALUE);
+    }
+
+    /**
+     * Reads a value. If no data is buffered, this will block until a byte is available or the timeout period is
+     * reached.
+     *
+     * @param timeout the timeout in milliseconds to wait. If no data is received, -1 is returned.
+     * @return the data byte (integer) read from the port
+     */
+    public int read(int timeout) {
+        if (position >= count) {
+            position = 0;
+            count = port.read(buffer, 0, buffer.length, timeout);
+            if (count <= 0) {
+                count = 0;
+                return -1;
+            }
+        }
+        return buffer[position++];
+    }
+
+    /**
+     * Discards any data that has been read from the port but not yet returned by the reader
+     */
+    public void clear() {
+        position = 0;
+        count = 0;
+    }
+}
@@ -0,0 +1,60 @@
+/**
+ * Copyright (c) 2016-2019 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.transport;
+
+import com.zsmartsystems.zigbee.ZigBeeNetworkManager;
+import com.zsmartsystems.zigbee.metrics.ZigBeeMetricRegistry;
+
+/**
+ * Optional interface implemented by a {@link ZigBeeTransportTransmit} that provides transport level metrics.
+ * <p>
+ * When the transport implements this interface, the {@link ZigBeeNetworkManager} calls
+ * {@link #registerMetrics(ZigBeeMetricRegistry)} when it is created. Transports should use the standard metric names
+ * defined here where they apply, and may add further metrics prefixed with {@link #TRANSPORT_PREFIX}.
+ *
+ * @author Chris Jackson
+ */
+public interface ZigBeeTransportMetrics {
+    /**
+     * Prefix for all transport metrics
+     */
+    String TRANSPORT_PREFIX = "transport.";
+
+    /**
+     * Counter of APS frames sent to the NCP
+     */
+    String TRANSPORT_TX_FRAMES = "transport.tx.frames";
+
+    /**
+     * Counter of APS frames received from the NCP
+     */
+    String TRANSPORT_RX_FRAMES = "transport.rx.frames";
+
+    /**
+     * Counter of APS frames that the NCP failed to send
+     */
+    String TRANSPORT_TX_ERRORS = "transport.tx.errors";
+
+    /**
+     * Counter of frames on the serial link between the host and the NCP that were retransmitted or rejected
+     */
+    String TRANSPORT_LINK_ERRORS = "transport.link.errors";
+
+    /**
+     * Gauge of the number of frames waiting to be sent to the NCP
+     */
+    String TRANSPORT_QUEUE_DEPTH = "transport.queue.depth";
+
+    /**
+     * Registers the transport metrics with the registry. The transport should create its counters and histograms here
+     * and keep the references for use on its hot paths.
+     *
+     * @param registry the {@link ZigBeeMetricRegistry} of the network
+     */
+    void registerMetrics(ZigBeeMetricRegistry registry);
+}
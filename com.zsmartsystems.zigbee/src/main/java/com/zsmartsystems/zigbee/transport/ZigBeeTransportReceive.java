@@ -73,8 +73,11 @@ public interface ZigBeeTransportReceive {
     /**
      * A callback called by the {@link ZigBeeTransportTransmit} when a transaction sent using
      * {@link ZigBeeTransportTransmit#sendCommand(ZigBeeApsFrame)} is received.
+     * <p>
+     * The frame is identified by the APS counter of the {@link ZigBeeApsFrame} provided to the transport. Transports
+     * that use their own identifiers for frames within the dongle must map these back to the APS counter.
      *
-     * @param transactionId the transaction ID to which a response has been received
+     * @param transactionId the APS counter of the {@link ZigBeeApsFrame} to which a response has been received
      * @param status the acknowledge status
      */
     void receiveCommandStatus(int transactionId, ZigBeeTransportProgressState status);
@@ -14,58 +14,24 @@ import com.zsmartsystems.zigbee.zcl.protocol.ZclDataType;
 
 /**
  * Defines a Cluster Library Attribute
+ * <p>
+ * The static information about the attribute is held in a {@link ZclAttributeDefinition} that is shared between all
+ * devices. This class holds the state of the attribute on a single device.
  *
  * @author Chris Jackson
  *
  */
 public class ZclAttribute {
     /**
-     *
-     */
-    private final ZclClusterType cluster;
-
-    /**
-     * The attribute identifier field is 16-bits in length and shall contain the
-     * identifier of the attribute that the reporting configuration details
-     * apply to.
-     */
-    private final int id;
-
-    /**
-     * Stores the name of this attribute;
-     */
-    private final String name;
-
-    /**
-     * Defines the ZigBee data type.
+     * The static attribute information. This is shared by all instances of the same attribute.
      */
-    private final ZclDataType dataType;
-
-    /**
-     * Defines if this attribute is mandatory to be implemented
-     */
-    private final boolean mandatory;
+    private final ZclAttributeDefinition definition;
 
     /**
      * Defines if the attribute is implemented by the device
      */
     private boolean implemented;
 
-    /**
-     * True if this attribute is readable
-     */
-    private boolean readable;
-
-    /**
-     * True if this attribute is writeable
-     */
-    private boolean writeable;
-
-    /**
-     * True if this attribute is reportable
-     */
-    private boolean reportable;
-
     /**
      * The minimum reporting interval field is 16-bits in length and shall
      * contain the minimum interval, in seconds, between issuing reports for the
@@ -113,7 +79,8 @@ public class ZclAttribute {
     private Object lastValue;
 
     /**
-     * Constructor used to set the static information
+     * Constructor used to set the static information. This creates a new {@link ZclAttributeDefinition} for the
+     * attribute - where possible {@link #ZclAttribute(ZclAttributeDefinition)} should be used with a shared definition.
      *
      * @param cluster
      * @param id
@@ -125,14 +92,25 @@ public class ZclAttribute {
      */
     public ZclAttribute(final ZclClusterType cluster, final int id, final String name, final ZclDataType dataType,
             final boolean mandatory, final boolean readable, final boolean writeable, final boolean reportable) {
-        this.cluster = cluster;
-        this.id = id;
-        this.name = name;
-        this.dataType = dataType;
-        this.mandatory = mandatory;
-        this.readable = readable;
-        this.writeable = writeable;
-        this.reportable = reportable;
+        this(new ZclAttributeDefinition(cluster, id, name, dataType, mandatory, readable, writeable, reportable));
+    }
+
+    /**
+     * Constructor using a shared {@link ZclAttributeDefinition}
+     *
+     * @param definition the {@link ZclAttributeDefinition} for the attribute
+     */
+    public ZclAttribute(final ZclAttributeDefinition definition) {
+        this.definition = definition;
+    }
+
+    /**
+     * Gets the {@link ZclAttributeDefinition} holding the static information for this attribute
+     *
+     * @return the {@link ZclAttributeDefinition} for this attribute
+     */
+    public ZclAttributeDefinition getDefinition() {
+        return definition;
     }
 
     /**
@@ -141,7 +119,7 @@ public class ZclAttribute {
      * @return the {@link ZclClusterType} for this attribute
      */
     public ZclClusterType getCluster() {
-        return cluster;
+        return definition.getCluster();
     }
 
     /**
@@ -150,7 +128,7 @@ public class ZclAttribute {
      * @return the attribute ID
      */
     public int getId() {
-        return id;
+        return definition.getId();
     }
 
     /**
@@ -162,7 +140,7 @@ public class ZclAttribute {
      * @return true if the attribute must be implemented
      */
     public boolean isMandatory() {
-        return mandatory;
+        return definition.isMandatory();
     }
 
     /**
@@ -180,7 +158,7 @@ public class ZclAttribute {
      * @return true if the attribute is readable
      */
     public boolean isReadable() {
-        return readable;
+        return definition.isReadable();
     }
 
     /**
@@ -189,7 +167,7 @@ public class ZclAttribute {
      * @return true if the attribute is writable
      */
     public boolean isWritable() {
-        return writeable;
+        return definition.isWritable();
     }
 
     /**
@@ -198,7 +176,7 @@ public class ZclAttribute {
      * @return true if the attribute is reportable
      */
     public boolean isReportable() {
-        return reportable;
+        return definition.isReportable();
     }
 
     /**
@@ -207,7 +185,7 @@ public class ZclAttribute {
      * @return the {@link ZigBeeType} of this attribute
      */
     public ZclDataType getDataType() {
-        return dataType;
+        return definition.getDataType();
     }
 
     /**
@@ -311,7 +289,7 @@ public class ZclAttribute {
      * @return the name as {@link String}
      */
     public String getName() {
-        return name;
+        return definition.getName();
     }
 
     /**
@@ -325,18 +303,30 @@ public class ZclAttribute {
         lastReportTime = Calendar.getInstance();
     }
 
+    /**
+     * Restores a previously persisted attribute value along with the time it was received. Unlike
+     * {@link #updateValue(Object)}, the last report time is not set to the current time.
+     *
+     * @param attributeValue the attribute value to be restored {@link Object}
+     * @param reportTime the time the value was received as a {@link Calendar}, or null if unknown
+     */
+    public void restoreValue(Object attributeValue, Calendar reportTime) {
+        lastValue = attributeValue;
+        lastReportTime = reportTime;
+    }
+
     @Override
     public String toString() {
         StringBuilder builder = new StringBuilder(80);
 
         builder.append("ZclAttribute [cluster=");
-        builder.append(cluster);
+        builder.append(definition.getCluster());
         builder.append(", id=");
-        builder.append(id);
+        builder.append(definition.getId());
         builder.append(", name=");
-        builder.append(name);
+        builder.append(definition.getName());
         builder.append(", dataType=");
-        builder.append(dataType);
+        builder.append(definition.getDataType());
         builder.append(", lastValue=");
         builder.append(lastValue);
         if (lastReportTime != null) {
@@ -0,0 +1,156 @@
+/**
+ * Copyright (c) 2016-2019 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.zcl;
+
+import java.util.Objects;
+
+import com.zsmartsystems.zigbee.zcl.protocol.ZclClusterType;
+import com.zsmartsystems.zigbee.zcl.protocol.ZclDataType;
+
+/**
+ * Defines the static information of a Cluster Library Attribute.
+ * <p>
+ * The definition is immutable, and a single instance is shared by every {@link ZclAttribute} for the same attribute
+ * in every instance of the cluster. The generated cluster classes hold the definitions for all their attributes in a
+ * static table, so each {@link ZclAttribute} only needs to store the per-device state.
+ *
+ * @author Chris Jackson
+ */
+public final class ZclAttributeDefinition {
+    private final ZclClusterType cluster;
+    private final int id;
+    private final String name;
+    private final ZclDataType dataType;
+    private final boolean mandatory;
+    private final boolean readable;
+    private final boolean writeable;
+    private final boolean reportable;
+
+    /**
+     * Constructor
+     *
+     * @param cluster the {@link ZclClusterType} to which the attribute belongs
+     * @param id the attribute ID
+     * @param name the attribute name
+     * @param dataType the {@link ZclDataType} of the attribute
+     * @param mandatory true if the attribute must be implemented
+     * @param readable true if the attribute is readable
+     * @param writeable true if the attribute is writable
+     * @param reportable true if the attribute is reportable
+     */
+    public ZclAttributeDefinition(final ZclClusterType cluster, final int id, final String name,
+            final ZclDataType dataType, final boolean mandatory, final boolean readable, final boolean writeable,
+            final boolean reportable) {
+        this.cluster = cluster;
+        this.id = id;
+        this.name = name;
+        this.dataType = dataType;
+        this.mandatory = mandatory;
+        this.readable = readable;
+        this.writeable = writeable;
+        this.reportable = reportable;
+    }
+
+    /**
+     * Gets the {@link ZclClusterType} to which this attribute belongs
+     *
+     * @return the {@link ZclClusterType} for this attribute
+     */
+    public ZclClusterType getCluster() {
+        return cluster;
+    }
+
+    /**
+     * Gets the attribute ID
+     *
+     * @return the attribute ID
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Gets the name of this attribute
+     *
+     * @return the name as {@link String}
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the {@link ZclDataType} of this attribute
+     *
+     * @return the {@link ZclDataType} of this attribute
+     */
+    public ZclDataType getDataType() {
+        return dataType;
+    }
+
+    /**
+     * Returns true if the implementation of this attribute in the cluster is mandatory as required by the ZigBee
+     * standard.
+     *
+     * @return true if the attribute must be implemented
+     */
+    public boolean isMandatory() {
+        return mandatory;
+    }
+
+    /**
+     * Returns true if this attribute is readable
+     *
+     * @return true if the attribute is readable
+     */
+    public boolean isReadable() {
+        return readable;
+    }
+
+    /**
+     * Returns true if this attribute is writable
+     *
+     * @return true if the attribute is writable
+     */
+    public boolean isWritable() {
+        return writeable;
+    }
+
+    /**
+     * Returns true if this attribute is reportable
+     *
+     * @return true if the attribute is reportable
+     */
+    public boolean isReportable() {
+        return reportable;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(cluster, id, name, dataType, mandatory, readable, writeable, reportable);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof ZclAttributeDefinition)) {
+            return false;
+        }
+        ZclAttributeDefinition other = (ZclAttributeDefinition) obj;
+        return cluster == other.cluster && id == other.id && Objects.equals(name, other.name)
+                && dataType == other.dataType && mandatory == other.mandatory && readable == other.readable
+                && writeable == other.writeable && reportable == other.reportable;
+    }
+
+    @Override
+    public String toString() {
+        return "ZclAttributeDefinition [cluster=" + cluster + ", id=" + id + ", name=" + name + ", dataType="
+                + dataType + "]";
+    }
+}
@@ -14,6 +14,7 @@ import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArraySet;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
@@ -141,6 +142,21 @@ public abstract class ZclCluster {
      */
     protected abstract Map<Integer, ZclAttribute> initializeAttributes();
 
+    /**
+     * Creates the attribute map for a cluster from the shared {@link ZclAttributeDefinition}s. Each attribute holds a
+     * reference to the shared definition, so only the per-device state is allocated for each cluster instance.
+     *
+     * @param definitions the {@link ZclAttributeDefinition}s for all attributes in the cluster
+     * @return a {@link Map} of all attributes
+     */
+    protected static Map<Integer, ZclAttribute> createAttributes(ZclAttributeDefinition[] definitions) {
+        Map<Integer, ZclAttribute> attributeMap = new ConcurrentHashMap<Integer, ZclAttribute>(definitions.length);
+        for (ZclAttributeDefinition definition : definitions) {
+            attributeMap.put(definition.getId(), new ZclAttribute(definition));
+        }
+        return attributeMap;
+    }
+
     public ZclCluster(ZigBeeEndpoint zigbeeEndpoint, int clusterId, String clusterName) {
         this.zigbeeEndpoint = zigbeeEndpoint;
         this.clusterId = clusterId;
@@ -9,9 +9,9 @@ package com.zsmartsystems.zigbee.zcl.clusters;
 
 import com.zsmartsystems.zigbee.ZigBeeEndpoint;
 import com.zsmartsystems.zigbee.zcl.ZclAttribute;
+import com.zsmartsystems.zigbee.zcl.ZclAttributeDefinition;
 import com.zsmartsystems.zigbee.zcl.ZclCluster;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 import javax.annotation.Generated;
 
 /**
@@ -31,11 +31,12 @@ public class ZclAnalogInputBaCnetRegularCluster extends ZclCluster {
      */
     public static final String CLUSTER_NAME = "Analog Input (BACnet Regular)";
 
+    // Attribute definitions
+    private static final ZclAttributeDefinition[] ATTRIBUTE_DEFINITIONS = new ZclAttributeDefinition[0];
+
     // Attribute initialisation
     protected Map<Integer, ZclAttribute> initializeAttributes() {
-        Map<Integer, ZclAttribute> attributeMap = new ConcurrentHashMap<Integer, ZclAttribute>(0);
-
-        return attributeMap;
+        return createAttributes(ATTRIBUTE_DEFINITIONS);
     }
 
     /**
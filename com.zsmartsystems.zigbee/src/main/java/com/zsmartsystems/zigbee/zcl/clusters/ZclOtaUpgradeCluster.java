@@ -11,6 +11,7 @@ import com.zsmartsystems.zigbee.CommandResult;
 import com.zsmartsystems.zigbee.IeeeAddress;
 import com.zsmartsystems.zigbee.ZigBeeEndpoint;
 import com.zsmartsystems.zigbee.zcl.ZclAttribute;
+import com.zsmartsystems.zigbee.zcl.ZclAttributeDefinition;
 import com.zsmartsystems.zigbee.zcl.ZclCluster;
 import com.zsmartsystems.zigbee.zcl.ZclCommand;
 import com.zsmartsystems.zigbee.zcl.ZclStatus;
@@ -28,7 +29,6 @@ import com.zsmartsystems.zigbee.zcl.field.ByteArray;
 import com.zsmartsystems.zigbee.zcl.protocol.ZclClusterType;
 import com.zsmartsystems.zigbee.zcl.protocol.ZclDataType;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Future;
 import javax.annotation.Generated;
 
@@ -135,23 +135,24 @@ public class ZclOtaUpgradeCluster extends ZclCluster {
      */
     public static final int ATTR_IMAGESTAMP = 0x000A;
 
+    // Attribute definitions
+    private static final ZclAttributeDefinition[] ATTRIBUTE_DEFINITIONS = new ZclAttributeDefinition[] {
+            new ZclAttributeDefinition(ZclClusterType.OTA_UPGRADE, ATTR_UPGRADESERVERID, "UpgradeServerID", ZclDataType.IEEE_ADDRESS, true, true, false, false),
+            new ZclAttributeDefinition(ZclClusterType.OTA_UPGRADE, ATTR_FILEOFFSET, "FileOffset", ZclDataType.UNSIGNED_32_BIT_INTEGER, false, true, false, false),
+            new ZclAttributeDefinition(ZclClusterType.OTA_UPGRADE, ATTR_CURRENTFILEVERSION, "CurrentFileVersion", ZclDataType.UNSIGNED_32_BIT_INTEGER, false, true, false, false),
+            new ZclAttributeDefinition(ZclClusterType.OTA_UPGRADE, ATTR_CURRENTZIGBEESTACKVERSION, "CurrentZigBeeStackVersion", ZclDataType.UNSIGNED_16_BIT_INTEGER, false, true, false, false),
+            new ZclAttributeDefinition(ZclClusterType.OTA_UPGRADE, ATTR_DOWNLOADEDFILEVERSION, "DownloadedFileVersion", ZclDataType.UNSIGNED_32_BIT_INTEGER, false, true, false, false),
+            new ZclAttributeDefinition(ZclClusterType.OTA_UPGRADE, ATTR_DOWNLOADEDZIGBEESTACKVERSION, "DownloadedZigBeeStackVersion", ZclDataType.UNSIGNED_16_BIT_INTEGER, false, true, false, false),
+            new ZclAttributeDefinition(ZclClusterType.OTA_UPGRADE, ATTR_IMAGEUPGRADESTATUS, "ImageUpgradeStatus", ZclDataType.UNSIGNED_8_BIT_INTEGER, false, true, false, false),
+            new ZclAttributeDefinition(ZclClusterType.OTA_UPGRADE, ATTR_MANUFACTURERID, "ManufacturerID", ZclDataType.UNSIGNED_16_BIT_INTEGER, false, true, false, false),
+            new ZclAttributeDefinition(ZclClusterType.OTA_UPGRADE, ATTR_IMAGETYPEID, "ImageTypeID", ZclDataType.UNSIGNED_16_BIT_INTEGER, false, true, false, false),
+            new ZclAttributeDefinition(ZclClusterType.OTA_UPGRADE, ATTR_MINIMUMBLOCKREQUESTDELAY, "MinimumBlockRequestDelay", ZclDataType.UNSIGNED_16_BIT_INTEGER, false, true, false, false),
+            new ZclAttributeDefinition(ZclClusterType.OTA_UPGRADE, ATTR_IMAGESTAMP, "ImageStamp", ZclDataType.UNSIGNED_32_BIT_INTEGER, false, true, false, false),
+    };
+
     // Attribute initialisation
     protected Map<Integer, ZclAttribute> initializeAttributes() {
-        Map<Integer, ZclAttribute> attributeMap = new ConcurrentHashMap<Integer, ZclAttribute>(11);
-
-        attributeMap.put(ATTR_UPGRADESERVERID, new ZclAttribute(ZclClusterType.OTA_UPGRADE, ATTR_UPGRADESERVERID, "UpgradeServerID", ZclDataType.IEEE_ADDRESS, true, true, false, false));
-        attributeMap.put(ATTR_FILEOFFSET, new ZclAttribute(ZclClusterType.OTA_UPGRADE, ATTR_FILEOFFSET, "FileOffset", ZclDataType.UNSIGNED_32_BIT_INTEGER, false, true, false, false));
-        attributeMap.put(ATTR_CURRENTFILEVERSION, new ZclAttribute(ZclClusterType.OTA_UPGRADE, ATTR_CURRENTFILEVERSION, "CurrentFileVersion", ZclDataType.UNSIGNED_32_BIT_INTEGER, false, true, false, false));
-        attributeMap.put(ATTR_CURRENTZIGBEESTACKVERSION, new ZclAttribute(ZclClusterType.OTA_UPGRADE, ATTR_CURRENTZIGBEESTACKVERSION, "CurrentZigBeeStackVersion", ZclDataType.UNSIGNED_16_BIT_INTEGER, false, true, false, false));
-        attributeMap.put(ATTR_DOWNLOADEDFILEVERSION, new ZclAttribute(ZclClusterType.OTA_UPGRADE, ATTR_DOWNLOADEDFILEVERSION, "DownloadedFileVersion", ZclDataType.UNSIGNED_32_BIT_INTEGER, false, true, false, false));
-        attributeMap.put(ATTR_DOWNLOADEDZIGBEESTACKVERSION, new ZclAttribute(ZclClusterType.OTA_UPGRADE, ATTR_DOWNLOADEDZIGBEESTACKVERSION, "DownloadedZigBeeStackVersion", ZclDataType.UNSIGNED_16_BIT_INTEGER, false, true, false, false));
-        attributeMap.put(ATTR_IMAGEUPGRADESTATUS, new ZclAttribute(ZclClusterType.OTA_UPGRADE, ATTR_IMAGEUPGRADESTATUS, "ImageUpgradeStatus", ZclDataType.UNSIGNED_8_BIT_INTEGER, false, true, false, false));
-        attributeMap.put(ATTR_MANUFACTURERID, new ZclAttribute(ZclClusterType.OTA_UPGRADE, ATTR_MANUFACTURERID, "ManufacturerID", ZclDataType.UNSIGNED_16_BIT_INTEGER, false, true, false, false));
-        attributeMap.put(ATTR_IMAGETYPEID, new ZclAttribute(ZclClusterType.OTA_UPGRADE, ATTR_IMAGETYPEID, "ImageTypeID", ZclDataType.UNSIGNED_16_BIT_INTEGER, false, true, false, false));
-        attributeMap.put(ATTR_MINIMUMBLOCKREQUESTDELAY, new ZclAttribute(ZclClusterType.OTA_UPGRADE, ATTR_MINIMUMBLOCKREQUESTDELAY, "MinimumBlockRequestDelay", ZclDataType.UNSIGNED_16_BIT_INTEGER, false, true, false, false));
-        attributeMap.put(ATTR_IMAGESTAMP, new ZclAttribute(ZclClusterType.OTA_UPGRADE, ATTR_IMAGESTAMP, "ImageStamp", ZclDataType.UNSIGNED_32_BIT_INTEGER, false, true, false, false));
-
-        return attributeMap;
+        return createAttributes(ATTRIBUTE_DEFINITIONS);
     }
 
     /**
@@ -10,6 +10,7 @@ package com.zsmartsystems.zigbee.zcl.clusters;
 import com.zsmartsystems.zigbee.CommandResult;
 import com.zsmartsystems.zigbee.ZigBeeEndpoint;
 import com.zsmartsystems.zigbee.zcl.ZclAttribute;
+import com.zsmartsystems.zigbee.zcl.ZclAttributeDefinition;
 import com.zsmartsystems.zigbee.zcl.ZclCluster;
 import com.zsmartsystems.zigbee.zcl.ZclCommand;
 import com.zsmartsystems.zigbee.zcl.clusters.pollcontrol.CheckInCommand;
@@ -20,7 +21,6 @@ import com.zsmartsystems.zigbee.zcl.clusters.pollcontrol.SetShortPollIntervalCom
 import com.zsmartsystems.zigbee.zcl.protocol.ZclClusterType;
 import com.zsmartsystems.zigbee.zcl.protocol.ZclDataType;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Future;
 import javax.annotation.Generated;
 
@@ -109,19 +109,20 @@ public class ZclPollControlCluster extends ZclCluster {
      */
     public static final int ATTR_FASTPOLLTIMEOUTMIN = 0x0006;
 
+    // Attribute definitions
+    private static final ZclAttributeDefinition[] ATTRIBUTE_DEFINITIONS = new ZclAttributeDefinition[] {
+            new ZclAttributeDefinition(ZclClusterType.POLL_CONTROL, ATTR_CHECKININTERVAL, "CheckinInterval", ZclDataType.UNSIGNED_32_BIT_INTEGER, true, true, true, true),
+            new ZclAttributeDefinition(ZclClusterType.POLL_CONTROL, ATTR_LONGPOLLINTERVAL, "LongPollInterval", ZclDataType.UNSIGNED_32_BIT_INTEGER, true, true, false, true),
+            new ZclAttributeDefinition(ZclClusterType.POLL_CONTROL, ATTR_SHORTPOLLINTERVAL, "ShortPollInterval", ZclDataType.UNSIGNED_16_BIT_INTEGER, true, true, false, true),
+            new ZclAttributeDefinition(ZclClusterType.POLL_CONTROL, ATTR_FASTPOLLTIMEOUT, "FastPollTimeout", ZclDataType.UNSIGNED_16_BIT_INTEGER, true, true, false, true),
+            new ZclAttributeDefinition(ZclClusterType.POLL_CONTROL, ATTR_CHECKININTERVALMIN, "CheckinIntervalMin", ZclDataType.UNSIGNED_32_BIT_INTEGER, false, true, false, false),
+            new ZclAttributeDefinition(ZclClusterType.POLL_CONTROL, ATTR_LONGPOLLINTERVALMIN, "LongPollIntervalMin", ZclDataType.UNSIGNED_32_BIT_INTEGER, false, true, false, false),
+            new ZclAttributeDefinition(ZclClusterType.POLL_CONTROL, ATTR_FASTPOLLTIMEOUTMIN, "FastPollTimeoutMin", ZclDataType.UNSIGNED_32_BIT_INTEGER, false, true, false, false),
+    };
+
     // Attribute initialisation
     protected Map<Integer, ZclAttribute> initializeAttributes() {
-        Map<Integer, ZclAttribute> attributeMap = new ConcurrentHashMap<Integer, ZclAttribute>(7);
-
-        attributeMap.put(ATTR_CHECKININTERVAL, new ZclAttribute(ZclClusterType.POLL_CONTROL, ATTR_CHECKININTERVAL, "CheckinInterval", ZclDataType.UNSIGNED_32_BIT_INTEGER, true, true, true, true));
-        attributeMap.put(ATTR_LONGPOLLINTERVAL, new ZclAttribute(ZclClusterType.POLL_CONTROL, ATTR_LONGPOLLINTERVAL, "LongPollInterval", ZclDataType.UNSIGNED_32_BIT_INTEGER, true, true, false, true));
-        attributeMap.put(ATTR_SHORTPOLLINTERVAL, new ZclAttribute(ZclClusterType.POLL_CONTROL, ATTR_SHORTPOLLINTERVAL, "ShortPollInterval", ZclDataType.UNSIGNED_16_BIT_INTEGER, true, true, false, true));
-        attributeMap.put(ATTR_FASTPOLLTIMEOUT, new ZclAttribute(ZclClusterType.POLL_CONTROL, ATTR_FASTPOLLTIMEOUT, "FastPollTimeout", ZclDataType.UNSIGNED_16_BIT_INTEGER, true, true, false, true));
-        attributeMap.put(ATTR_CHECKININTERVALMIN, new ZclAttribute(ZclClusterType.POLL_CONTROL, ATTR_CHECKININTERVALMIN, "CheckinIntervalMin", ZclDataType.UNSIGNED_32_BIT_INTEGER, false, true, false, false));
-        attributeMap.put(ATTR_LONGPOLLINTERVALMIN, new ZclAttribute(ZclClusterType.POLL_CONTROL, ATTR_LONGPOLLINTERVALMIN, "LongPollIntervalMin", ZclDataType.UNSIGNED_32_BIT_INTEGER, false, true, false, false));
-        attributeMap.put(ATTR_FASTPOLLTIMEOUTMIN, new ZclAttribute(ZclClusterType.POLL_CONTROL, ATTR_FASTPOLLTIMEOUTMIN, "FastPollTimeoutMin", ZclDataType.UNSIGNED_32_BIT_INTEGER, false, true, false, false));
-
-        return attributeMap;
+        return createAttributes(ATTRIBUTE_DEFINITIONS);
     }
 
     /**
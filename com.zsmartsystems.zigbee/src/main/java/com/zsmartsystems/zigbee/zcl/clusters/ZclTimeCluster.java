@@ -10,12 +10,12 @@ package com.zsmartsystems.zigbee.zcl.clusters;
 import com.zsmartsystems.zigbee.CommandResult;
 import com.zsmartsystems.zigbee.ZigBeeEndpoint;
 import com.zsmartsystems.zigbee.zcl.ZclAttribute;
+import com.zsmartsystems.zigbee.zcl.ZclAttributeDefinition;
 import com.zsmartsystems.zigbee.zcl.ZclCluster;
 import com.zsmartsystems.zigbee.zcl.protocol.ZclClusterType;
 import com.zsmartsystems.zigbee.zcl.protocol.ZclDataType;
 import java.util.Calendar;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Future;
 import javax.annotation.Generated;
 
@@ -103,20 +103,21 @@ public class ZclTimeCluster extends ZclCluster {
      */
     public static final int ATTR_LOCALTIME = 0x0007;
 
+    // Attribute definitions
+    private static final ZclAttributeDefinition[] ATTRIBUTE_DEFINITIONS = new ZclAttributeDefinition[] {
+            new ZclAttributeDefinition(ZclClusterType.TIME, ATTR_TIME, "Time", ZclDataType.UTCTIME, true, true, true, false),
+            new ZclAttributeDefinition(ZclClusterType.TIME, ATTR_TIMESTATUS, "TimeStatus", ZclDataType.UNSIGNED_16_BIT_INTEGER, false, true, true, false),
+            new ZclAttributeDefinition(ZclClusterType.TIME, ATTR_TIMEZONE, "TimeZone", ZclDataType.SIGNED_32_BIT_INTEGER, false, true, true, false),
+            new ZclAttributeDefinition(ZclClusterType.TIME, ATTR_DSTSTART, "DstStart", ZclDataType.UNSIGNED_32_BIT_INTEGER, false, true, true, false),
+            new ZclAttributeDefinition(ZclClusterType.TIME, ATTR_DSTEND, "DstEnd", ZclDataType.UNSIGNED_32_BIT_INTEGER, false, true, true, false),
+            new ZclAttributeDefinition(ZclClusterType.TIME, ATTR_DSTSHIFT, "DstShift", ZclDataType.SIGNED_32_BIT_INTEGER, false, true, true, false),
+            new ZclAttributeDefinition(ZclClusterType.TIME, ATTR_STANDARDTIME, "StandardTime", ZclDataType.SIGNED_32_BIT_INTEGER, false, true, false, false),
+            new ZclAttributeDefinition(ZclClusterType.TIME, ATTR_LOCALTIME, "LocalTime", ZclDataType.SIGNED_32_BIT_INTEGER, false, true, false, false),
+    };
+
     // Attribute initialisation
     protected Map<Integer, ZclAttribute> initializeAttributes() {
-        Map<Integer, ZclAttribute> attributeMap = new ConcurrentHashMap<Integer, ZclAttribute>(8);
-
-        attributeMap.put(ATTR_TIME, new ZclAttribute(ZclClusterType.TIME, ATTR_TIME, "Time", ZclDataType.UTCTIME, true, true, true, false));
-        attributeMap.put(ATTR_TIMESTATUS, new ZclAttribute(ZclClusterType.TIME, ATTR_TIMESTATUS, "TimeStatus", ZclDataType.UNSIGNED_16_BIT_INTEGER, false, true, true, false));
-        attributeMap.put(ATTR_TIMEZONE, new ZclAttribute(ZclClusterType.TIME, ATTR_TIMEZONE, "TimeZone", ZclDataType.SIGNED_32_BIT_INTEGER, false, true, true, false));
-        attributeMap.put(ATTR_DSTSTART, new ZclAttribute(ZclClusterType.TIME, ATTR_DSTSTART, "DstStart", ZclDataType.UNSIGNED_32_BIT_INTEGER, false, true, true, false));
-        attributeMap.put(ATTR_DSTEND, new ZclAttribute(ZclClusterType.TIME, ATTR_DSTEND, "DstEnd", ZclDataType.UNSIGNED_32_BIT_INTEGER, false, true, true, false));
-        attributeMap.put(ATTR_DSTSHIFT, new ZclAttribute(ZclClusterType.TIME, ATTR_DSTSHIFT, "DstShift", ZclDataType.SIGNED_32_BIT_INTEGER, false, true, true, false));
-        attributeMap.put(ATTR_STANDARDTIME, new ZclAttribute(ZclClusterType.TIME, ATTR_STANDARDTIME, "StandardTime", ZclDataType.SIGNED_32_BIT_INTEGER, false, true, false, false));
-        attributeMap.put(ATTR_LOCALTIME, new ZclAttribute(ZclClusterType.TIME, ATTR_LOCALTIME, "LocalTime", ZclDataType.SIGNED_32_BIT_INTEGER, false, true, false, false));
-
-        return attributeMap;
+        return createAttributes(ATTRIBUTE_DEFINITIONS);
     }
 
     /**
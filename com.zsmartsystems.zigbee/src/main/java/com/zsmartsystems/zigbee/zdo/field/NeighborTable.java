@@ -85,18 +85,34 @@ public class NeighborTable {
         return extendedPanId;
     }
 
+    public void setExtendedPanId(ExtendedPanId extendedPanId) {
+        this.extendedPanId = extendedPanId;
+    }
+
     public IeeeAddress getExtendedAddress() {
         return extendedAddress;
     }
 
+    public void setExtendedAddress(IeeeAddress extendedAddress) {
+        this.extendedAddress = extendedAddress;
+    }
+
     public Integer getNetworkAddress() {
         return networkAddress;
     }
 
+    public void setNetworkAddress(Integer networkAddress) {
+        this.networkAddress = networkAddress;
+    }
+
     public LogicalType getDeviceType() {
         return deviceType;
     }
 
+    public void setDeviceType(LogicalType deviceType) {
+        this.deviceType = deviceType;
+    }
+
     private void setDeviceType(Integer deviceType) {
         switch (deviceType) {
             case 0:
@@ -134,10 +150,18 @@ public class NeighborTable {
         }
     }
 
+    public void setRxOnWhenIdle(NeighborTableRxState rxOnWhenIdle) {
+        this.rxOnWhenIdle = rxOnWhenIdle;
+    }
+
     public NeighborTableRelationship getRelationship() {
         return relationship;
     }
 
+    public void setRelationship(NeighborTableRelationship relationship) {
+        this.relationship = relationship;
+    }
+
     private void setRelationship(Integer relationship) {
         switch (relationship) {
             case 0:
@@ -165,6 +189,10 @@ public class NeighborTable {
         return permitJoining;
     }
 
+    public void setPermitJoining(NeighborTableJoining permitJoining) {
+        this.permitJoining = permitJoining;
+    }
+
     private void setPermitJoining(Integer permitJoining) {
         switch (permitJoining) {
             case 0:
@@ -183,10 +211,18 @@ public class NeighborTable {
         return depth;
     }
 
+    public void setDepth(Integer depth) {
+        this.depth = depth;
+    }
+
     public Integer getLqi() {
         return lqi;
     }
 
+    public void setLqi(Integer lqi) {
+        this.lqi = lqi;
+    }
+
     @Override
     public int hashCode() {
         final int prime = 31;
@@ -10,9 +10,11 @@ package com.zsmartsystems.zigbee;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import org.junit.Test;
@@ -20,12 +22,17 @@ import org.mockito.Mockito;
 
 import com.zsmartsystems.zigbee.dao.ZigBeeEndpointDao;
 import com.zsmartsystems.zigbee.transport.ZigBeeTransportTransmit;
+import com.zsmartsystems.zigbee.zcl.ZclAttributeListener;
+import com.zsmartsystems.zigbee.zcl.ZclCluster;
 import com.zsmartsystems.zigbee.zcl.clusters.ZclAlarmsCluster;
 import com.zsmartsystems.zigbee.zcl.clusters.ZclBasicCluster;
 import com.zsmartsystems.zigbee.zcl.clusters.ZclColorControlCluster;
 import com.zsmartsystems.zigbee.zcl.clusters.ZclDoorLockCluster;
 import com.zsmartsystems.zigbee.zcl.clusters.ZclLevelControlCluster;
+import com.zsmartsystems.zigbee.zcl.clusters.ZclOnOffCluster;
 import com.zsmartsystems.zigbee.zcl.clusters.ZclScenesCluster;
+import com.zsmartsystems.zigbee.zcl.field.AttributeReport;
+import com.zsmartsystems.zigbee.zcl.protocol.ZclDataType;
 
 /**
  *
@@ -132,6 +139,44 @@ public class ZigBeeEndpointTest {
         endpoint.setDao(dao);
     }
 
+    @Test
+    public void setDaoLazyClusters() {
+        ZigBeeEndpoint endpoint = getEndpoint();
+        endpoint.setInputClusterIds(Collections.singletonList(ZclOnOffCluster.CLUSTER_ID));
+        endpoint.setOutputClusterIds(Collections.singletonList(ZclLevelControlCluster.CLUSTER_ID));
+        endpoint.getInputCluster(ZclOnOffCluster.CLUSTER_ID).getAttribute(ZclOnOffCluster.ATTR_ONOFF)
+                .updateValue(Boolean.TRUE);
+        ZigBeeEndpointDao dao = endpoint.getDao();
+
+        ZigBeeEndpoint restored = getEndpoint();
+        restored.setDao(dao);
+        assertTrue(restored.getInputClusterIds().contains(ZclOnOffCluster.CLUSTER_ID));
+        assertTrue(restored.getOutputClusterIds().contains(ZclLevelControlCluster.CLUSTER_ID));
+
+        // Clusters that haven't been used are returned in their stored form
+        assertSame(dao.getInputClusters().get(0), restored.getDao().getInputClusters().get(0));
+
+        ZclAttributeListener listener = Mockito.mock(ZclAttributeListener.class);
+        assertTrue(restored.addAttributeListener(ZclOnOffCluster.CLUSTER_ID, true, listener));
+        assertFalse(restored.addAttributeListener(ZclOnOffCluster.CLUSTER_ID, false, listener));
+
+        ZclCluster cluster = restored.getInputCluster(ZclOnOffCluster.CLUSTER_ID);
+        assertNotNull(cluster);
+        assertTrue(cluster.isServer());
+        assertSame(cluster, restored.getInputCluster(ZclOnOffCluster.CLUSTER_ID));
+        assertEquals(Boolean.TRUE, cluster.getAttribute(ZclOnOffCluster.ATTR_ONOFF).getLastValue());
+        assertTrue(restored.getOutputCluster(ZclLevelControlCluster.CLUSTER_ID).isClient());
+
+        // The listener registered before the cluster was created is added to the cluster
+        AttributeReport report = new AttributeReport();
+        report.setAttributeDataType(ZclDataType.BOOLEAN);
+        report.setAttributeIdentifier(ZclOnOffCluster.ATTR_ONOFF);
+        report.setAttributeValue(Boolean.FALSE);
+        cluster.handleAttributeReport(Collections.singletonList(report));
+        Mockito.verify(listener, Mockito.timeout(1000).times(1))
+                .attributeUpdated(cluster.getAttribute(ZclOnOffCluster.ATTR_ONOFF));
+    }
+
     private ZigBeeEndpoint getEndpoint() {
         ZigBeeTransportTransmit mockedTransport = Mockito.mock(ZigBeeTransportTransmit.class);
         ZigBeeNetworkManager networkManager = new ZigBeeNetworkManager(mockedTransport);
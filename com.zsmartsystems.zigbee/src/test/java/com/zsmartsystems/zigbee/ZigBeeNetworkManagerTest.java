@@ -43,6 +43,9 @@ import com.zsmartsystems.zigbee.app.otaserver.ZigBeeOtaUpgradeExtension;
 import com.zsmartsystems.zigbee.security.ZigBeeKey;
 import com.zsmartsystems.zigbee.serialization.DefaultDeserializer;
 import com.zsmartsystems.zigbee.serialization.DefaultSerializer;
+import com.zsmartsystems.zigbee.transport.TransportConfig;
+import com.zsmartsystems.zigbee.transport.TransportConfigOption;
+import com.zsmartsystems.zigbee.transport.ZigBeeTransportProgressState;
 import com.zsmartsystems.zigbee.transport.ZigBeeTransportState;
 import com.zsmartsystems.zigbee.transport.ZigBeeTransportTransmit;
 import com.zsmartsystems.zigbee.zcl.ZclCommand;
@@ -205,6 +208,12 @@ public class ZigBeeNetworkManagerTest implements ZigBeeNetworkNodeListener, ZigB
         assertEquals(1, networkManager.getGroups().size());
 
         assertEquals("Group Label", networkManager.getGroup(1).getLabel());
+
+        // The transport is only updated when the group membership changes
+        ArgumentCaptor<TransportConfig> configCaptor = ArgumentCaptor.forClass(TransportConfig.class);
+        Mockito.verify(mockedTransport, Mockito.times(3)).updateTransportConfig(configCaptor.capture());
+        assertEquals(Collections.singleton(1),
+                configCaptor.getValue().getValue(TransportConfigOption.MULTICAST_GROUPS));
     }
 
     @Test
@@ -406,6 +415,29 @@ public class ZigBeeNetworkManagerTest implements ZigBeeNetworkNodeListener, ZigB
         assertEquals(2, mockedApsFrameListener.getAllValues().size() - start);
     }
 
+    @Test
+    public void testMetrics() {
+        ZigBeeNetworkManager networkManager = mockZigBeeNetworkManager();
+        networkManager.setSerializer(DefaultSerializer.class, DefaultDeserializer.class);
+
+        OnCommand cmd = new OnCommand();
+        cmd.setClusterId(6);
+        cmd.setDestinationAddress(new ZigBeeEndpointAddress(1234, 56));
+        networkManager.sendCommand(cmd);
+        networkManager.receiveCommandStatus(1, ZigBeeTransportProgressState.TX_NAK);
+        networkManager.receiveCommandStatus(1, ZigBeeTransportProgressState.RX_NAK);
+        networkManager.receiveCommandStatus(1, ZigBeeTransportProgressState.RX_ACK);
+
+        assertEquals(1, networkManager.getMetrics().getCounter(ZigBeeNetworkManager.METRIC_TX_FRAMES).getCount());
+        assertEquals(1, networkManager.getMetrics().getCounter(ZigBeeNetworkManager.METRIC_TX_NAK).getCount());
+        assertEquals(1, networkManager.getMetrics().getCounter(ZigBeeNetworkManager.METRIC_RX_NAK).getCount());
+
+        Map<String, Number> snapshot = networkManager.getMetrics().getSnapshot();
+        assertEquals(1L, snapshot.get(ZigBeeNetworkManager.METRIC_TX_FRAMES + ".count"));
+        assertTrue(snapshot.containsKey(ZigBeeNetworkManager.METRIC_NOTIFICATIONS_PENDING));
+        assertTrue(snapshot.containsKey("transaction.inflight"));
+    }
+
     private ZigBeeNetworkManager mockZigBeeNetworkManager() {
         mockedTransport = Mockito.mock(ZigBeeTransportTransmit.class);
         mockedStateListener = Mockito.mock(ZigBeeNetworkStateListener.class);
@@ -0,0 +1,103 @@
+/**
+ * Copyright (c) 2016-2019 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.capture;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Test;
+
+import com.zsmartsystems.zigbee.ZigBeeApsFrame;
+import com.zsmartsystems.zigbee.ZigBeeNwkAddressMode;
+
+/**
+ *
+ * @author Chris Jackson
+ *
+ */
+public class ZigBeeApsCaptureTest {
+    private ZigBeeApsFrame getApsFrame(int destination, int cluster) {
+        ZigBeeApsFrame apsFrame = new ZigBeeApsFrame();
+        apsFrame.setAddressMode(ZigBeeNwkAddressMode.DEVICE);
+        apsFrame.setSourceAddress(0);
+        apsFrame.setDestinationAddress(destination);
+        apsFrame.setSourceEndpoint(1);
+        apsFrame.setDestinationEndpoint(2);
+        apsFrame.setProfile(0x104);
+        apsFrame.setCluster(cluster);
+        apsFrame.setApsCounter(0x55);
+        apsFrame.setRadius(31);
+        apsFrame.setPayload(new int[] { 0x00, 0x12, 0x00, 0x00, 0x00 });
+        return apsFrame;
+    }
+
+    @Test
+    public void encodeFrame() {
+        byte[] buffer = new byte[64];
+        int length = ZigBeeApsCapture.encodeFrame(getApsFrame(0x1234, 6), 0x10, 0x2A3B, buffer);
+        assertEquals(30, length);
+        assertArrayEquals(new byte[] { 0x41, (byte) 0x88, 0x10, 0x3B, 0x2A, 0x34, 0x12, 0x00, 0x00, 0x08, 0x00, 0x34,
+                0x12, 0x00, 0x00, 0x1F, 0x10, 0x00, 0x02, 0x06, 0x00, 0x04, 0x01, 0x01, 0x55, 0x00, 0x12, 0x00, 0x00,
+                0x00 }, Arrays.copyOf(buffer, 30));
+
+        // Broadcasts use the MAC broadcast address and the APS broadcast delivery mode
+        length = ZigBeeApsCapture.encodeFrame(getApsFrame(0xFFFD, 6), 0x10, 0x2A3B, buffer);
+        assertEquals((byte) 0xFF, buffer[5]);
+        assertEquals((byte) 0xFD, buffer[11]);
+        assertEquals(0x08, buffer[17]);
+
+        // Truncated frames return the original length
+        buffer = new byte[28];
+        assertEquals(30, ZigBeeApsCapture.encodeFrame(getApsFrame(0x1234, 6), 0x10, 0x2A3B, buffer));
+    }
+
+    @Test
+    public void captureFiles() throws IOException {
+        File directory = Files.createTempDirectory("capture").toFile();
+        ZigBeeApsCapture capture = new ZigBeeApsCapture(directory, "test", 16);
+        capture.setMaxFileSize(200);
+        capture.setMaxFiles(2);
+        capture.setClusterFilter(Collections.singleton(6));
+
+        // Frames are ignored when the capture is not started
+        capture.capture(getApsFrame(0x1234, 6), true);
+
+        capture.start();
+        for (int cnt = 0; cnt < 8; cnt++) {
+            capture.capture(getApsFrame(0x1234, 6), cnt % 2 == 0);
+            capture.capture(getApsFrame(0x1234, 8), true);
+        }
+        // Only 16 frames fit in the ring
+        for (int cnt = 0; cnt < 10; cnt++) {
+            capture.capture(getApsFrame(0x1234, 6), true);
+        }
+        capture.shutdown();
+
+        assertEquals(16, capture.getCapturedFrames());
+        assertEquals(2, capture.getDroppedFrames());
+
+        // Each file holds the headers and two frames before rotating, and only the last two files are kept
+        assertFalse(new File(directory, "test-0.pcapng").exists());
+        assertTrue(new File(directory, "test-6.pcapng").exists());
+        assertTrue(new File(directory, "test-7.pcapng").exists());
+        assertEquals(2, directory.listFiles().length);
+
+        for (File file : directory.listFiles()) {
+            file.delete();
+        }
+        directory.delete();
+    }
+}
@@ -0,0 +1,64 @@
+/**
+ * Copyright (c) 2016-2019 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.capture;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import org.junit.Test;
+
+/**
+ *
+ * @author Chris Jackson
+ *
+ */
+public class ZigBeePcapNgWriterTest {
+    @Test
+    public void testBlocks() throws IOException {
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        ZigBeePcapNgWriter writer = new ZigBeePcapNgWriter(stream, 128);
+        writer.writeHeader();
+        writer.writePacket(0x123456789AL, new byte[] { 1, 2, 3, 4, 5 }, 5, 7, true);
+        writer.flush();
+
+        ByteBuffer buffer = ByteBuffer.wrap(stream.toByteArray()).order(ByteOrder.LITTLE_ENDIAN);
+        assertEquals(28 + 32 + 52, buffer.limit());
+        assertEquals(buffer.limit(), writer.getBytesWritten());
+
+        // Section header block
+        assertEquals(0x0A0D0D0A, buffer.getInt(0));
+        assertEquals(28, buffer.getInt(4));
+        assertEquals(0x1A2B3C4D, buffer.getInt(8));
+        assertEquals(28, buffer.getInt(24));
+
+        // Interface description block
+        assertEquals(1, buffer.getInt(28));
+        assertEquals(32, buffer.getInt(32));
+        assertEquals(ZigBeePcapNgWriter.LINKTYPE_IEEE802_15_4_NOFCS, buffer.getShort(36));
+        assertEquals(128, buffer.getInt(40));
+        assertEquals(32, buffer.getInt(56));
+
+        // Enhanced packet block
+        assertEquals(6, buffer.getInt(60));
+        assertEquals(52, buffer.getInt(64));
+        assertEquals(0x12, buffer.getInt(72));
+        assertEquals(0x3456789A, buffer.getInt(76));
+        assertEquals(5, buffer.getInt(80));
+        assertEquals(7, buffer.getInt(84));
+        assertEquals(1, buffer.get(88));
+        assertEquals(5, buffer.get(92));
+        assertEquals(0, buffer.get(93));
+        assertEquals(2, buffer.getShort(96));
+        assertEquals(1, buffer.getInt(100));
+        assertEquals(52, buffer.getInt(108));
+    }
+}
@@ -0,0 +1,194 @@
+/**
+ * Copyright (c) 2016-2019 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.database;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mockito;
+
+import com.zsmartsystems.zigbee.IeeeAddress;
+import com.zsmartsystems.zigbee.ZigBeeEndpoint;
+import com.zsmartsystems.zigbee.ZigBeeNetworkManager;
+import com.zsmartsystems.zigbee.ZigBeeNode;
+import com.zsmartsystems.zigbee.dao.ZigBeeNodeDao;
+import com.zsmartsystems.zigbee.transport.ZigBeeTransportTransmit;
+import com.zsmartsystems.zigbee.zcl.ZclAttribute;
+import com.zsmartsystems.zigbee.zcl.ZclCluster;
+import com.zsmartsystems.zigbee.zcl.clusters.ZclBasicCluster;
+import com.zsmartsystems.zigbee.zcl.clusters.ZclOnOffCluster;
+
+/**
+ *
+ * @author Chris Jackson
+ *
+ */
+public class ZigBeeJournalNetworkStateSerializerTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private ZigBeeNode createNode(ZigBeeNetworkManager networkManager, IeeeAddress address, int networkAddress) {
+        ZigBeeNode node = new ZigBeeNode(networkManager, address);
+        node.setNetworkAddress(networkAddress);
+
+        ZigBeeEndpoint endpoint = new ZigBeeEndpoint(node, 1);
+        endpoint.setProfileId(0x104);
+        endpoint.setInputClusterIds(Arrays.asList(ZclBasicCluster.CLUSTER_ID, ZclOnOffCluster.CLUSTER_ID));
+        node.addEndpoint(endpoint);
+
+        return node;
+    }
+
+    @Test
+    public void testJournalReplay() throws IOException {
+        ZigBeeNetworkManager networkManager = new ZigBeeNetworkManager(Mockito.mock(ZigBeeTransportTransmit.class));
+        ZigBeeNode node1 = createNode(networkManager, new IeeeAddress("1111111111111111"), 1);
+        ZigBeeNode node2 = createNode(networkManager, new IeeeAddress("2222222222222222"), 2);
+
+        File file = folder.newFile("network.journal");
+        ZigBeeNetworkStateJournal journal = new ZigBeeNetworkStateJournal(file, ZigBeeJournalSyncPolicy.GROUP);
+        journal.appendNode(node1.getDao());
+        journal.appendNode(node2.getDao());
+
+        ZclAttribute attribute = node1.getEndpoint(1).getInputCluster(ZclOnOffCluster.CLUSTER_ID)
+                .getAttribute(ZclOnOffCluster.ATTR_ONOFF);
+        attribute.updateValue(Boolean.TRUE);
+        journal.appendAttribute(node1.getIeeeAddress(), 1, ZclOnOffCluster.CLUSTER_ID, true, attribute);
+        journal.appendNodeRemove(node2.getIeeeAddress());
+
+        // Nothing is written until the group is committed
+        assertEquals(0, file.length());
+        journal.commit();
+        assertEquals(journal.getLength(), file.length());
+        journal.close();
+
+        Map<IeeeAddress, ZigBeeNodeDao> nodes = new LinkedHashMap<>();
+        assertTrue(ZigBeeNetworkStateJournal.replay(file, nodes) > 4);
+        assertEquals(1, nodes.size());
+
+        ZigBeeNode restored = new ZigBeeNode(networkManager, node1.getIeeeAddress());
+        restored.setDao(nodes.get(node1.getIeeeAddress()));
+        assertEquals(Integer.valueOf(1), restored.getNetworkAddress());
+        assertEquals(Boolean.TRUE, restored.getEndpoint(1).getInputCluster(ZclOnOffCluster.CLUSTER_ID)
+                .getAttribute(ZclOnOffCluster.ATTR_ONOFF).getLastValue());
+    }
+
+    @Test
+    public void testTornTail() throws IOException {
+        ZigBeeNetworkManager networkManager = new ZigBeeNetworkManager(Mockito.mock(ZigBeeTransportTransmit.class));
+        ZigBeeNode node1 = createNode(networkManager, new IeeeAddress("1111111111111111"), 1);
+        ZigBeeNode node2 = createNode(networkManager, new IeeeAddress("2222222222222222"), 2);
+
+        File file = folder.newFile("network.journal");
+        ZigBeeNetworkStateJournal journal = new ZigBeeNetworkStateJournal(file, ZigBeeJournalSyncPolicy.IMMEDIATE);
+        journal.appendNode(node1.getDao());
+        long length = file.length();
+        journal.appendNode(node2.getDao());
+        journal.close();
+
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(file.length() - 3);
+        }
+        Map<IeeeAddress, ZigBeeNodeDao> nodes = new LinkedHashMap<>();
+        ZigBeeNetworkStateJournal.replay(file, nodes);
+        assertEquals(1, nodes.size());
+        assertNotNull(nodes.get(node1.getIeeeAddress()));
+
+        // Corrupt the payload of the last complete record
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(length);
+            raf.seek(length - 6);
+            raf.write(0xFF ^ raf.readByte());
+        }
+        nodes.clear();
+        ZigBeeNetworkStateJournal.replay(file, nodes);
+        assertNull(nodes.get(node1.getIeeeAddress()));
+    }
+
+    @Test
+    public void testSerializer() throws IOException {
+        File file = new File(folder.getRoot(), "network.bin");
+
+        ZigBeeNetworkManager networkManager = new ZigBeeNetworkManager(Mockito.mock(ZigBeeTransportTransmit.class));
+        ZigBeeJournalNetworkStateSerializer serializer = new ZigBeeJournalNetworkStateSerializer(file);
+        serializer.setCommitInterval(60000);
+        serializer.deserialize(networkManager);
+        assertTrue(file.exists());
+
+        ZigBeeNode node = createNode(networkManager, new IeeeAddress("1234567890ABCDEF"), 0x1234);
+        ZclCluster cluster = node.getEndpoint(1).getInputCluster(ZclBasicCluster.CLUSTER_ID);
+        cluster.getAttribute(ZclBasicCluster.ATTR_MODELIDENTIFIER).updateValue("Model");
+        networkManager.addNode(node);
+        serializer.nodeAdded(node);
+        serializer.serialize(networkManager);
+        assertTrue(serializer.getJournalFile().length() > 0);
+
+        // Recover from the snapshot and journal without a clean shutdown
+        ZigBeeNetworkManager restoredManager = new ZigBeeNetworkManager(
+                Mockito.mock(ZigBeeTransportTransmit.class));
+        ZigBeeJournalNetworkStateSerializer restoredSerializer = new ZigBeeJournalNetworkStateSerializer(file);
+        restoredSerializer.deserialize(restoredManager);
+
+        ZigBeeNode restored = restoredManager.getNode(new IeeeAddress("1234567890ABCDEF"));
+        assertNotNull(restored);
+        assertEquals(Integer.valueOf(0x1234), restored.getNetworkAddress());
+        assertEquals("Model", restored.getEndpoint(1).getInputCluster(ZclBasicCluster.CLUSTER_ID)
+                .getAttribute(ZclBasicCluster.ATTR_MODELIDENTIFIER).getLastValue());
+
+        // The replayed journal is compacted into the snapshot on startup
+        assertEquals(0, restoredSerializer.getJournalFile().length());
+        assertEquals(1, ZigBeeNetworkStateSnapshot.open(file).getNodeCount());
+
+        serializer.shutdown();
+        restoredSerializer.nodeRemoved(restored);
+        restoredManager.removeNode(restored);
+        restoredSerializer.shutdown();
+        assertEquals(0, ZigBeeNetworkStateSnapshot.open(file).getNodeCount());
+        assertFalse(new File(file.getPath() + ".journal.compacting").exists());
+
+        networkManager.shutdown();
+        restoredManager.shutdown();
+    }
+
+    @Test
+    public void testCompaction() throws IOException {
+        File file = new File(folder.getRoot(), "network.bin");
+
+        ZigBeeNetworkManager networkManager = new ZigBeeNetworkManager(Mockito.mock(ZigBeeTransportTransmit.class));
+        ZigBeeJournalNetworkStateSerializer serializer = new ZigBeeJournalNetworkStateSerializer(file);
+        serializer.setCommitInterval(60000);
+        serializer.setCompactionThreshold(1000);
+        serializer.deserialize(networkManager);
+
+        for (int cnt = 1; cnt <= 50; cnt++) {
+            ZigBeeNode node = createNode(networkManager, new IeeeAddress(String.format("%016X", cnt)), cnt);
+            networkManager.addNode(node);
+            serializer.nodeAdded(node);
+            serializer.commit();
+            assertTrue(serializer.getJournalFile().length() <= 1000);
+        }
+        assertTrue(ZigBeeNetworkStateSnapshot.open(file).getNodeCount() > 0);
+
+        serializer.shutdown();
+        assertEquals(50, ZigBeeNetworkStateSnapshot.open(file).getNodeCount());
+        networkManager.shutdown();
+    }
+}
@@ -0,0 +1,177 @@
+/**
+ * Copyright (c) 2016-2019 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.database;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mockito;
+
+import com.zsmartsystems.zigbee.IeeeAddress;
+import com.zsmartsystems.zigbee.ZigBeeEndpoint;
+import com.zsmartsystems.zigbee.ZigBeeNetworkManager;
+import com.zsmartsystems.zigbee.ZigBeeNode;
+import com.zsmartsystems.zigbee.dao.ZigBeeNodeDao;
+import com.zsmartsystems.zigbee.serialization.DefaultDeserializer;
+import com.zsmartsystems.zigbee.transport.ZigBeeTransportTransmit;
+import com.zsmartsystems.zigbee.zcl.ZclAttribute;
+import com.zsmartsystems.zigbee.zcl.ZclCluster;
+import com.zsmartsystems.zigbee.zcl.clusters.ZclBasicCluster;
+import com.zsmartsystems.zigbee.zcl.clusters.ZclLevelControlCluster;
+import com.zsmartsystems.zigbee.zcl.clusters.ZclOnOffCluster;
+import com.zsmartsystems.zigbee.zdo.field.NodeDescriptor;
+import com.zsmartsystems.zigbee.zdo.field.NodeDescriptor.LogicalType;
+import com.zsmartsystems.zigbee.zdo.field.PowerDescriptor;
+
+/**
+ *
+ * @author Chris Jackson
+ *
+ */
+public class ZigBeeNetworkStateSnapshotTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private ZigBeeNode createNode(ZigBeeNetworkManager networkManager, IeeeAddress address, int networkAddress) {
+        ZigBeeNode node = new ZigBeeNode(networkManager, address);
+        node.setNetworkAddress(networkAddress);
+
+        NodeDescriptor nodeDescriptor = new NodeDescriptor();
+        nodeDescriptor.deserialize(new DefaultDeserializer(
+                new int[] { 0x01, 0x40, 0x8E, 0x4F, 0x10, 0x52, 0x52, 0x00, 0x00, 0x2C, 0x52, 0x00, 0x00 }));
+        node.setNodeDescriptor(nodeDescriptor);
+
+        PowerDescriptor powerDescriptor = new PowerDescriptor();
+        powerDescriptor.deserialize(new DefaultDeserializer(new int[] { 0x10, 0xC1 }));
+        node.setPowerDescriptor(powerDescriptor);
+
+        ZigBeeEndpoint endpoint = new ZigBeeEndpoint(node, 1);
+        endpoint.setProfileId(0x104);
+        endpoint.setInputClusterIds(Arrays.asList(ZclBasicCluster.CLUSTER_ID, ZclOnOffCluster.CLUSTER_ID));
+        endpoint.setOutputClusterIds(Collections.singletonList(ZclLevelControlCluster.CLUSTER_ID));
+        node.addEndpoint(endpoint);
+
+        return node;
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        ZigBeeNetworkManager networkManager = new ZigBeeNetworkManager(Mockito.mock(ZigBeeTransportTransmit.class));
+        ZigBeeNode node = createNode(networkManager, new IeeeAddress("1234567890ABCDEF"), 0x4321);
+
+        Calendar reportTime = Calendar.getInstance();
+        reportTime.setTimeInMillis(1500000000000L);
+        ZclCluster basicCluster = node.getEndpoint(1).getInputCluster(ZclBasicCluster.CLUSTER_ID);
+        basicCluster.getAttribute(ZclBasicCluster.ATTR_MODELIDENTIFIER).restoreValue("Model Ü", reportTime);
+        basicCluster.getAttribute(ZclBasicCluster.ATTR_ZCLVERSION).updateValue(Integer.valueOf(2));
+        ZclCluster onOffCluster = node.getEndpoint(1).getInputCluster(ZclOnOffCluster.CLUSTER_ID);
+        onOffCluster.getAttribute(ZclOnOffCluster.ATTR_ONOFF).updateValue(Boolean.TRUE);
+
+        byte[] data = ZigBeeNetworkStateSnapshot.toByteArray(Collections.singletonList(node.getDao()));
+        ZigBeeNetworkStateSnapshot snapshot = ZigBeeNetworkStateSnapshot.wrap(data);
+
+        assertEquals(1, snapshot.getNodeCount());
+        assertEquals(new IeeeAddress("1234567890ABCDEF"), snapshot.getNodeAddresses().get(0));
+        assertNull(snapshot.getNode(new IeeeAddress("0000000000000001")));
+
+        ZigBeeNodeDao nodeDao = snapshot.getNode(new IeeeAddress("1234567890ABCDEF"));
+        assertNotNull(nodeDao);
+        ZigBeeNode restored = new ZigBeeNode(networkManager, new IeeeAddress(nodeDao.getIeeeAddress()));
+        restored.setDao(nodeDao);
+
+        assertEquals(Integer.valueOf(0x4321), restored.getNetworkAddress());
+        assertEquals(node.getNodeDescriptor(), restored.getNodeDescriptor());
+        assertEquals(LogicalType.ROUTER, restored.getLogicalType());
+        assertEquals(node.getPowerDescriptor(), restored.getPowerDescriptor());
+
+        ZigBeeEndpoint endpoint = restored.getEndpoint(1);
+        assertNotNull(endpoint);
+        assertEquals(0x104, endpoint.getProfileId());
+        assertEquals(new HashSet<Integer>(Arrays.asList(ZclBasicCluster.CLUSTER_ID, ZclOnOffCluster.CLUSTER_ID)),
+                new HashSet<Integer>(endpoint.getInputClusterIds()));
+        assertTrue(endpoint.getOutputCluster(ZclLevelControlCluster.CLUSTER_ID).isClient());
+
+        ZclAttribute model = endpoint.getInputCluster(ZclBasicCluster.CLUSTER_ID)
+                .getAttribute(ZclBasicCluster.ATTR_MODELIDENTIFIER);
+        assertEquals("Model Ü", model.getLastValue());
+        assertEquals(1500000000000L, model.getLastReportTime().getTimeInMillis());
+        assertEquals(basicCluster.getAttribute(ZclBasicCluster.ATTR_MODELIDENTIFIER).getDataType(),
+                model.getDataType());
+        assertEquals(basicCluster.getAttribute(ZclBasicCluster.ATTR_MODELIDENTIFIER).getName(), model.getName());
+        assertEquals(Integer.valueOf(2), endpoint.getInputCluster(ZclBasicCluster.CLUSTER_ID)
+                .getAttribute(ZclBasicCluster.ATTR_ZCLVERSION).getLastValue());
+        assertEquals(Boolean.TRUE, endpoint.getInputCluster(ZclOnOffCluster.CLUSTER_ID)
+                .getAttribute(ZclOnOffCluster.ATTR_ONOFF).getLastValue());
+        assertNull(endpoint.getInputCluster(ZclOnOffCluster.CLUSTER_ID)
+                .getAttribute(ZclOnOffCluster.ATTR_GLOBALSCENECONTROL).getLastValue());
+    }
+
+    @Test
+    public void testSerializer() throws IOException {
+        ZigBeeNetworkManager networkManager = new ZigBeeNetworkManager(Mockito.mock(ZigBeeTransportTransmit.class));
+        List<ZigBeeNodeDao> nodes = new ArrayList<>();
+        for (int cnt = 1; cnt <= 5000; cnt++) {
+            nodes.add(createNode(networkManager, new IeeeAddress(BigInteger.valueOf(cnt)), cnt).getDao());
+        }
+
+        File file = new File(folder.getRoot(), "network.bin");
+        ZigBeeNetworkStateSnapshot.write(file, nodes);
+        assertTrue(file.exists());
+
+        ZigBeeNetworkManager restoredManager = Mockito.mock(ZigBeeNetworkManager.class);
+        ZigBeeBinaryNetworkStateSerializer serializer = new ZigBeeBinaryNetworkStateSerializer(file);
+        serializer.deserialize(restoredManager);
+        Mockito.verify(restoredManager, Mockito.times(5000)).addNode(Mockito.any(ZigBeeNode.class));
+
+        ZigBeeNetworkStateSnapshot snapshot = ZigBeeNetworkStateSnapshot.open(file);
+        assertEquals(5000, snapshot.getNodeCount());
+        assertEquals(Integer.valueOf(2500), snapshot.getNode(new IeeeAddress(BigInteger.valueOf(2500)))
+                .getNetworkAddress());
+    }
+
+    @Test
+    public void testReplaceOpenSnapshot() throws IOException {
+        ZigBeeNetworkManager networkManager = new ZigBeeNetworkManager(Mockito.mock(ZigBeeTransportTransmit.class));
+        IeeeAddress address1 = new IeeeAddress("1234567890ABCDEF");
+        IeeeAddress address2 = new IeeeAddress("FEDCBA0987654321");
+
+        File file = new File(folder.getRoot(), "network.bin");
+        ZigBeeNetworkStateSnapshot.write(file,
+                Collections.singletonList(createNode(networkManager, address1, 1234).getDao()));
+        ZigBeeNetworkStateSnapshot snapshot = ZigBeeNetworkStateSnapshot.open(file);
+
+        // The file can be replaced while the snapshot is open, and the open snapshot is not affected
+        ZigBeeNetworkStateSnapshot.write(file,
+                Collections.singletonList(createNode(networkManager, address2, 5678).getDao()));
+        assertEquals(Integer.valueOf(1234), snapshot.getNode(address1).getNetworkAddress());
+        assertNull(snapshot.getNode(address2));
+
+        assertEquals(Integer.valueOf(5678), ZigBeeNetworkStateSnapshot.open(file).getNode(address2)
+                .getNetworkAddress());
+    }
+
+    @Test(expected = IOException.class)
+    public void testInvalidFile() throws IOException {
+        ZigBeeNetworkStateSnapshot.wrap(new byte[] { 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16 });
+    }
+}
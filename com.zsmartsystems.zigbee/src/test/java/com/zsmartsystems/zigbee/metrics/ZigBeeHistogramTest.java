@@ -0,0 +1,59 @@
+/**
+ * Copyright (c) 2016-2019 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ *
+ * @author Chris Jackson
+ *
+ */
+public class ZigBeeHistogramTest {
+    @Test
+    public void testEmpty() {
+        ZigBeeHistogram histogram = new ZigBeeHistogram();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getPercentile(50));
+        assertEquals(0, histogram.getMean(), 0.0);
+    }
+
+    @Test
+    public void testPercentiles() {
+        ZigBeeHistogram histogram = new ZigBeeHistogram();
+        for (int value = 1; value <= 1000; value++) {
+            histogram.update(value);
+        }
+        assertEquals(1000, histogram.getCount());
+        assertEquals(1000, histogram.getMaximum());
+        assertEquals(500.5, histogram.getMean(), 0.01);
+
+        assertTrue(Math.abs(histogram.getPercentile(50) - 500) <= 500 / 16);
+        assertTrue(Math.abs(histogram.getPercentile(95) - 950) <= 950 / 16);
+        assertTrue(Math.abs(histogram.getPercentile(99) - 990) <= 990 / 16);
+        assertEquals(1000, histogram.getPercentile(100));
+        assertEquals(1, histogram.getPercentile(0));
+    }
+
+    @Test
+    public void testSmallValuesExact() {
+        ZigBeeHistogram histogram = new ZigBeeHistogram();
+        histogram.update(-5);
+        histogram.update(3);
+        histogram.update(7);
+        histogram.update(Long.MAX_VALUE);
+
+        assertEquals(0, histogram.getPercentile(25));
+        assertEquals(3, histogram.getPercentile(50));
+        assertEquals(7, histogram.getPercentile(75));
+        assertEquals(Long.MAX_VALUE, histogram.getMaximum());
+    }
+}
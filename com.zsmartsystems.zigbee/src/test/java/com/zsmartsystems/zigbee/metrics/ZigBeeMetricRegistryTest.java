@@ -0,0 +1,74 @@
+/**
+ * Copyright (c) 2016-2019 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+
+import java.util.Map;
+
+import org.junit.Test;
+
+/**
+ *
+ * @author Chris Jackson
+ *
+ */
+public class ZigBeeMetricRegistryTest {
+    @Test
+    public void testSnapshot() {
+        ZigBeeMetricRegistry registry = new ZigBeeMetricRegistry();
+
+        ZigBeeCounter counter = registry.getCounter("test.counter");
+        assertSame(counter, registry.getCounter("test.counter"));
+        counter.increment();
+        counter.add(4);
+
+        ZigBeeHistogram histogram = registry.getHistogram("test.latency");
+        assertSame(histogram, registry.getHistogram("test.latency"));
+        histogram.update(10);
+
+        registry.addGauge("test.gauge", new ZigBeeGauge() {
+            @Override
+            public long getValue() {
+                return 42;
+            }
+        });
+
+        ZigBeeMetricProvider provider = new ZigBeeMetricProvider() {
+            @Override
+            public void getMetrics(Map<String, Number> metrics) {
+                metrics.put("test.provider", 7);
+            }
+        };
+        registry.addProvider(provider);
+
+        Map<String, Number> snapshot = registry.getSnapshot();
+        assertEquals(5L, snapshot.get("test.counter.count"));
+        assertEquals(1L, snapshot.get("test.latency.count"));
+        assertEquals(10L, snapshot.get("test.latency.max"));
+        assertEquals(42L, snapshot.get("test.gauge"));
+        assertEquals(7, snapshot.get("test.provider"));
+
+        registry.removeGauge("test.gauge");
+        registry.removeProvider(provider);
+        snapshot = registry.getSnapshot();
+        assertFalse(snapshot.containsKey("test.gauge"));
+        assertFalse(snapshot.containsKey("test.provider"));
+    }
+
+    @Test
+    public void testCounterRate() {
+        ZigBeeCounter counter = new ZigBeeCounter();
+        assertEquals(0, counter.getRate(), 0.0);
+        counter.add(100);
+        assertEquals(100, counter.getCount());
+        assertEquals(0, counter.getRate(), 0.0);
+    }
+}
@@ -7,11 +7,14 @@
  */
 package com.zsmartsystems.zigbee.transaction;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 
 import java.util.concurrent.Future;
 
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
 import org.mockito.Mockito;
 
 import com.zsmartsystems.zigbee.CommandResult;
@@ -20,6 +23,7 @@ import com.zsmartsystems.zigbee.ZigBeeCommand;
 import com.zsmartsystems.zigbee.ZigBeeEndpointAddress;
 import com.zsmartsystems.zigbee.ZigBeeNetworkManager;
 import com.zsmartsystems.zigbee.ZigBeeNode;
+import com.zsmartsystems.zigbee.metrics.ZigBeeMetricRegistry;
 import com.zsmartsystems.zigbee.transport.ZigBeeTransportProgressState;
 
 /**
@@ -81,4 +85,60 @@ public class ZigBeeTransactionManagerTest {
         Mockito.verify(transactionListener, Mockito.times(1)).commandReceived(command);
     }
 
+
+    @Test
+    public void traceSink() {
+        ZigBeeNetworkManager networkManager = Mockito.mock(ZigBeeNetworkManager.class);
+        ZigBeeTransactionManager transactionManager = new ZigBeeTransactionManager(networkManager);
+        ZigBeeTransactionTraceSink sink = Mockito.mock(ZigBeeTransactionTraceSink.class);
+        transactionManager.setTraceSink(sink, 2);
+
+        ZigBeeCommand command = Mockito.mock(ZigBeeCommand.class);
+        for (int cnt = 0; cnt < 4; cnt++) {
+            ZigBeeTransactionTrace trace = new ZigBeeTransactionTrace();
+            trace.record(ZigBeeTransactionTrace.Stage.DISPATCHED);
+            trace.record(ZigBeeTransactionTrace.Stage.COMPLETED);
+            transactionManager.transactionCompleted(command, new CommandResult(command, trace));
+        }
+
+        // Only one in two transactions are sampled
+        Mockito.verify(sink, Mockito.timeout(TIMEOUT).times(2)).transactionTraced(ArgumentMatchers.eq(command),
+                ArgumentMatchers.any(CommandResult.class));
+    }
+
+    @Test
+    public void lateTransmitAck() {
+        ZigBeeMetricRegistry metrics = new ZigBeeMetricRegistry();
+        ZigBeeNetworkManager networkManager = Mockito.mock(ZigBeeNetworkManager.class);
+        Mockito.when(networkManager.getMetrics()).thenReturn(metrics);
+        Mockito.when(networkManager.sendCommand(ArgumentMatchers.any(ZigBeeCommand.class))).thenReturn(12);
+        ZigBeeTransactionManager transactionManager = Mockito.spy(new ZigBeeTransactionManager(networkManager));
+
+        ZigBeeCommand command = Mockito.mock(ZigBeeCommand.class);
+        ZigBeeCommand response = Mockito.mock(ZigBeeCommand.class);
+        ZigBeeTransactionMatcher responseMatcher = Mockito.mock(ZigBeeTransactionMatcher.class);
+        Mockito.when(responseMatcher.isTransactionMatch(command, response)).thenReturn(true);
+
+        transactionManager.sendTransaction(command, responseMatcher);
+        ArgumentCaptor<ZigBeeTransaction> transactionCaptor = ArgumentCaptor.forClass(ZigBeeTransaction.class);
+        Mockito.verify(transactionManager).addTransactionListener(transactionCaptor.capture());
+        ZigBeeTransaction transaction = transactionCaptor.getValue();
+        assertEquals(1L, metrics.getSnapshot().get(ZigBeeTransactionManager.METRIC_TRANSACTION_INFLIGHT));
+
+        // The response is received before the transport reports that the command was sent
+        transaction.commandReceived(response);
+        transaction.commandStatusReceived(ZigBeeTransportProgressState.TX_ACK, 12);
+
+        // Run any timers that were started, as the transaction would be timed out if it was restarted
+        ArgumentCaptor<Runnable> timerCaptor = ArgumentCaptor.forClass(Runnable.class);
+        Mockito.verify(transactionManager, Mockito.times(1)).scheduleTask(timerCaptor.capture(),
+                ArgumentMatchers.anyLong());
+        for (Runnable timer : timerCaptor.getAllValues()) {
+            timer.run();
+        }
+
+        assertEquals(0L, metrics.getSnapshot().get(ZigBeeTransactionManager.METRIC_TRANSACTION_INFLIGHT));
+        assertEquals(1, metrics.getCounter(ZigBeeTransactionManager.METRIC_TRANSACTION_COMPLETE).getCount());
+        assertEquals(0, metrics.getCounter(ZigBeeTransactionManager.METRIC_TRANSACTION_TIMEOUT).getCount());
+    }
 }
@@ -13,12 +13,14 @@ import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
 import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.Test;
 import org.mockito.ArgumentCaptor;
 import org.mockito.ArgumentMatchers;
 import org.mockito.Mockito;
 
+import com.zsmartsystems.zigbee.CommandResult;
 import com.zsmartsystems.zigbee.ZigBeeCommand;
 import com.zsmartsystems.zigbee.transport.ZigBeeTransportProgressState;
 
@@ -64,6 +66,7 @@ public class ZigBeeTransactionTest {
     @Test
     public void testTxNak() {
         ZigBeeTransactionManager transactionManager = Mockito.mock(ZigBeeTransactionManager.class);
+        Mockito.when(transactionManager.send(ArgumentMatchers.any(ZigBeeCommand.class))).thenReturn(12);
         ZigBeeCommand command = Mockito.mock(ZigBeeCommand.class);
         Mockito.when(command.getTransactionId()).thenReturn(12);
         ZigBeeTransactionMatcher matcher = Mockito.mock(ZigBeeTransactionMatcher.class);
@@ -93,9 +96,38 @@ public class ZigBeeTransactionTest {
         assertTrue(transactionFuture.isCancelled());
     }
 
+    @Test
+    public void testStatusUsesApsCounter() {
+        ZigBeeTransactionManager transactionManager = Mockito.mock(ZigBeeTransactionManager.class);
+        Mockito.when(transactionManager.send(ArgumentMatchers.any(ZigBeeCommand.class))).thenReturn(34);
+        ZigBeeCommand command = Mockito.mock(ZigBeeCommand.class);
+        Mockito.when(command.getTransactionId()).thenReturn(12);
+        ZigBeeTransactionMatcher matcher = Mockito.mock(ZigBeeTransactionMatcher.class);
+
+        ZigBeeTransactionFuture transactionFuture = new ZigBeeTransactionFuture();
+
+        ZigBeeTransaction transaction = new ZigBeeTransaction(transactionManager, command, matcher);
+        transaction.setFuture(transactionFuture);
+
+        // Status before the command is sent is ignored
+        transaction.commandStatusReceived(ZigBeeTransportProgressState.TX_NAK, 34);
+        assertFalse(transactionFuture.isDone());
+
+        transaction.send();
+
+        // The transaction ID is not used to match the transport status
+        transaction.commandStatusReceived(ZigBeeTransportProgressState.TX_NAK, 12);
+        assertFalse(transactionFuture.isDone());
+
+        transaction.commandStatusReceived(ZigBeeTransportProgressState.TX_NAK, 34);
+        assertTrue(transactionFuture.isDone());
+        assertTrue(transactionFuture.isCancelled());
+    }
+
     @Test
     public void testRxNak() {
         ZigBeeTransactionManager transactionManager = Mockito.mock(ZigBeeTransactionManager.class);
+        Mockito.when(transactionManager.send(ArgumentMatchers.any(ZigBeeCommand.class))).thenReturn(12);
         ZigBeeCommand command = Mockito.mock(ZigBeeCommand.class);
         Mockito.when(command.getTransactionId()).thenReturn(12);
         ZigBeeTransactionMatcher matcher = Mockito.mock(ZigBeeTransactionMatcher.class);
@@ -127,6 +159,7 @@ public class ZigBeeTransactionTest {
     @Test
     public void testSendOnly() {
         ZigBeeTransactionManager transactionManager = Mockito.mock(ZigBeeTransactionManager.class);
+        Mockito.when(transactionManager.send(ArgumentMatchers.any(ZigBeeCommand.class))).thenReturn(12);
         ZigBeeCommand command = Mockito.mock(ZigBeeCommand.class);
         Mockito.when(command.getTransactionId()).thenReturn(12);
 
@@ -182,6 +215,69 @@ public class ZigBeeTransactionTest {
         assertFalse(transactionFuture.isCancelled());
     }
 
+    @Test
+    public void testTrace() throws Exception {
+        ZigBeeTransactionManager transactionManager = Mockito.mock(ZigBeeTransactionManager.class);
+        Mockito.when(transactionManager.send(ArgumentMatchers.any(ZigBeeCommand.class))).thenReturn(12);
+        ZigBeeCommand command = Mockito.mock(ZigBeeCommand.class);
+        Mockito.when(command.getTransactionId()).thenReturn(12);
+        ZigBeeCommand response = Mockito.mock(ZigBeeCommand.class);
+        ZigBeeTransactionMatcher matcher = Mockito.mock(ZigBeeTransactionMatcher.class);
+        Mockito.when(matcher.isTransactionMatch(command, response)).thenReturn(true);
+
+        ZigBeeTransactionFuture transactionFuture = new ZigBeeTransactionFuture();
+
+        ZigBeeTransaction transaction = new ZigBeeTransaction(transactionManager, command, matcher);
+        transaction.setFuture(transactionFuture);
+        ZigBeeTransactionTrace trace = transaction.getTrace();
+        assertTrue(trace.hasStage(ZigBeeTransactionTrace.Stage.QUEUED));
+        assertFalse(trace.hasStage(ZigBeeTransactionTrace.Stage.DISPATCHED));
+
+        transaction.send();
+        assertTrue(trace.hasStage(ZigBeeTransactionTrace.Stage.DISPATCHED));
+
+        transaction.commandStatusReceived(ZigBeeTransportProgressState.TX_ACK, 12);
+        assertTrue(trace.hasStage(ZigBeeTransactionTrace.Stage.TRANSMITTED));
+        transaction.commandStatusReceived(ZigBeeTransportProgressState.RX_ACK, 12);
+        assertTrue(trace.hasStage(ZigBeeTransactionTrace.Stage.ACKED));
+        assertFalse(trace.hasStage(ZigBeeTransactionTrace.Stage.COMPLETED));
+
+        transaction.commandReceived(response);
+        assertTrue(trace.hasStage(ZigBeeTransactionTrace.Stage.COMPLETED));
+
+        CommandResult result = transactionFuture.get();
+        assertEquals(response, result.getResponse());
+        assertEquals(trace, result.getTrace());
+        assertTrue(trace.getTotalTime(TimeUnit.NANOSECONDS) >= 0);
+        Mockito.verify(transactionManager, Mockito.times(1)).transactionCompleted(command, result);
+    }
+
+    @Test
+    public void testTraceOnTimeout() throws Exception {
+        ZigBeeTransactionManager transactionManager = Mockito.mock(ZigBeeTransactionManager.class);
+        ScheduledFuture timerFuture = Mockito.mock(ScheduledFuture.class);
+        ZigBeeCommand command = Mockito.mock(ZigBeeCommand.class);
+        ZigBeeTransactionMatcher matcher = Mockito.mock(ZigBeeTransactionMatcher.class);
+
+        ZigBeeTransactionFuture transactionFuture = new ZigBeeTransactionFuture();
+
+        ZigBeeTransaction transaction = new ZigBeeTransaction(transactionManager, command, matcher);
+        transaction.setFuture(transactionFuture);
+
+        ArgumentCaptor<Runnable> timerCaptor = ArgumentCaptor.forClass(Runnable.class);
+        Mockito.when(transactionManager.scheduleTask(timerCaptor.capture(), ArgumentMatchers.anyLong()))
+                .thenReturn(timerFuture);
+
+        transaction.send();
+        timerCaptor.getValue().run();
+
+        CommandResult result = transactionFuture.get();
+        assertTrue(result.isTimeout());
+        assertEquals(transaction.getTrace(), result.getTrace());
+        Mockito.verify(transactionManager, Mockito.times(1)).transactionFailed(ArgumentMatchers.eq(command),
+                ArgumentMatchers.any(CommandResult.class), ArgumentMatchers.eq(true));
+    }
+
     @Test
     public void getTimeout() {
         ZigBeeTransaction transaction = new ZigBeeTransaction(null, null, null);
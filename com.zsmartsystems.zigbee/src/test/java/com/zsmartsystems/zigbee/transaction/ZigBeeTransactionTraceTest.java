@@ -0,0 +1,64 @@
+/**
+ * Copyright (c) 2016-2019 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.transaction;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.zsmartsystems.zigbee.transaction.ZigBeeTransactionTrace.Stage;
+
+/**
+ *
+ * @author Chris Jackson
+ *
+ */
+public class ZigBeeTransactionTraceTest {
+    @Test
+    public void testStages() {
+        ZigBeeTransactionTrace trace = new ZigBeeTransactionTrace();
+        assertFalse(trace.hasStage(Stage.QUEUED));
+        assertNull(trace.getTimestamp(Stage.QUEUED));
+        assertEquals(-1, trace.getTotalTime(TimeUnit.MILLISECONDS));
+
+        trace.record(Stage.QUEUED, 1000000L);
+        trace.record(Stage.DISPATCHED, 2000000L);
+        trace.record(Stage.TRANSMITTED, 12000000L);
+        trace.record(Stage.ACKED, 52000000L);
+        trace.record(Stage.COMPLETED, 152000000L);
+
+        // Stages are only recorded once
+        trace.record(Stage.QUEUED, 5000000L);
+
+        assertTrue(trace.hasStage(Stage.COMPLETED));
+        assertEquals(Long.valueOf(1000000L), trace.getTimestamp(Stage.QUEUED));
+        assertEquals(10, trace.getTransportDelay(TimeUnit.MILLISECONDS));
+        assertEquals(40, trace.getMeshDelay(TimeUnit.MILLISECONDS));
+        assertEquals(100, trace.getResponseDelay(TimeUnit.MILLISECONDS));
+        assertEquals(151, trace.getTotalTime(TimeUnit.MILLISECONDS));
+        assertEquals("ZigBeeTransactionTrace [QUEUED, DISPATCHED=+1000us, TRANSMITTED=+10000us, ACKED=+40000us, "
+                + "COMPLETED=+100000us]", trace.toString());
+    }
+
+    @Test
+    public void testNoAck() {
+        ZigBeeTransactionTrace trace = new ZigBeeTransactionTrace();
+        trace.record(Stage.DISPATCHED, 0L);
+        trace.record(Stage.TRANSMITTED, 5000000L);
+        trace.record(Stage.COMPLETED, 25000000L);
+
+        assertEquals(-1, trace.getMeshDelay(TimeUnit.MILLISECONDS));
+        assertEquals(20, trace.getResponseDelay(TimeUnit.MILLISECONDS));
+        assertEquals(-1, trace.getTotalTime(TimeUnit.MILLISECONDS));
+    }
+}
@@ -0,0 +1,112 @@
+/**
+ * Copyright (c) 2016-2019 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.transport;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+/**
+ *
+ * @author Chris Jackson
+ *
+ */
+public class ZigBeePortReaderTest {
+    @Test
+    public void testBulkRead() {
+        ZigBeePort port = Mockito.mock(ZigBeePort.class);
+        Mockito.when(port.read(ArgumentMatchers.any(int[].class), ArgumentMatchers.anyInt(), ArgumentMatchers.anyInt(),
+                ArgumentMatchers.anyInt())).thenAnswer(new Answer<Integer>() {
+                    private int block;
+
+                    @Override
+                    public Integer answer(InvocationOnMock invocation) {
+                        int[] buffer = invocation.getArgument(0);
+                        if (block++ == 0) {
+                            buffer[0] = 1;
+                            buffer[1] = 2;
+                            buffer[2] = 3;
+                            return 3;
+                        }
+                        return -1;
+                    }
+                });
+
+        ZigBeePortReader reader = new ZigBeePortReader(port, 10);
+        assertEquals(1, reader.read());
+        assertEquals(2, reader.read());
+        assertEquals(3, reader.read(100));
+        assertEquals(-1, reader.read(100));
+
+        // The port is only accessed when the buffered data is used
+        Mockito.verify(port, Mockito.times(2)).read(ArgumentMatchers.any(int[].class), ArgumentMatchers.eq(0),
+                ArgumentMatchers.eq(10), ArgumentMatchers.anyInt());
+        Mockito.verify(port, Mockito.never()).read();
+    }
+
+    @Test
+    public void testClear() {
+        ZigBeePort port = Mockito.mock(ZigBeePort.class);
+        Mockito.when(port.read(ArgumentMatchers.any(int[].class), ArgumentMatchers.anyInt(), ArgumentMatchers.anyInt(),
+                ArgumentMatchers.anyInt())).thenAnswer(new Answer<Integer>() {
+                    @Override
+                    public Integer answer(InvocationOnMock invocation) {
+                        int[] buffer = invocation.getArgument(0);
+                        Arrays.fill(buffer, 0, 4, 0x55);
+                        return 4;
+                    }
+                });
+
+        ZigBeePortReader reader = new ZigBeePortReader(port, 10);
+        assertEquals(0x55, reader.read());
+        reader.clear();
+        assertEquals(0x55, reader.read());
+        Mockito.verify(port, Mockito.times(2)).read(ArgumentMatchers.any(int[].class), ArgumentMatchers.anyInt(),
+                ArgumentMatchers.anyInt(), ArgumentMatchers.anyInt());
+    }
+
+    @Test
+    public void testDefaultMethods() {
+        final int[] received = new int[] { 0x12, 0x34, -1 };
+        final int[] written = new int[3];
+        ZigBeePort port = Mockito.mock(ZigBeePort.class, Mockito.CALLS_REAL_METHODS);
+        Mockito.doAnswer(new Answer<Void>() {
+            private int count;
+
+            @Override
+            public Void answer(InvocationOnMock invocation) {
+                written[count++] = invocation.getArgument(0);
+                return null;
+            }
+        }).when(port).write(ArgumentMatchers.anyInt());
+        Mockito.doAnswer(new Answer<Integer>() {
+            private int count;
+
+            @Override
+            public Integer answer(InvocationOnMock invocation) {
+                return received[count++];
+            }
+        }).when(port).read(ArgumentMatchers.anyInt());
+
+        port.write(new int[] { 0, 1, 2, 3, 4 }, 1, 3);
+        assertEquals(Arrays.toString(new int[] { 1, 2, 3 }), Arrays.toString(written));
+
+        int[] buffer = new int[4];
+        assertEquals(1, port.read(buffer, 2, 2, 100));
+        assertEquals(0x12, buffer[2]);
+        assertEquals(1, port.read(buffer, 0, 4, 100));
+        assertEquals(0x34, buffer[0]);
+        assertEquals(-1, port.read(buffer, 0, 4, 100));
+    }
+}
@@ -9,12 +9,17 @@ package com.zsmartsystems.zigbee.zcl;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 import java.util.Calendar;
 
 import org.junit.Test;
+import org.mockito.Mockito;
 
+import com.zsmartsystems.zigbee.ZigBeeEndpoint;
+import com.zsmartsystems.zigbee.zcl.clusters.ZclOnOffCluster;
 import com.zsmartsystems.zigbee.zcl.protocol.ZclClusterType;
 import com.zsmartsystems.zigbee.zcl.protocol.ZclDataType;
 
@@ -74,4 +79,23 @@ public class ZclAttributeTest {
         assertFalse(attribute.isLastValueCurrent(50));
         assertTrue(attribute.isLastValueCurrent(Long.MAX_VALUE));
     }
+
+    @Test
+    public void testSharedDefinition() {
+        ZclCluster cluster1 = new ZclOnOffCluster(Mockito.mock(ZigBeeEndpoint.class));
+        ZclCluster cluster2 = new ZclOnOffCluster(Mockito.mock(ZigBeeEndpoint.class));
+
+        ZclAttribute attribute1 = cluster1.getAttribute(ZclOnOffCluster.ATTR_ONOFF);
+        ZclAttribute attribute2 = cluster2.getAttribute(ZclOnOffCluster.ATTR_ONOFF);
+        assertNotSame(attribute1, attribute2);
+        assertSame(attribute1.getDefinition(), attribute2.getDefinition());
+        assertEquals("OnOff", attribute1.getName());
+        assertEquals(ZclDataType.BOOLEAN, attribute1.getDataType());
+        assertTrue(attribute1.isReportable());
+
+        // The value is held per attribute instance
+        attribute1.updateValue(Boolean.TRUE);
+        assertEquals(Boolean.TRUE, attribute1.getLastValue());
+        assertEquals(null, attribute2.getLastValue());
+    }
 }
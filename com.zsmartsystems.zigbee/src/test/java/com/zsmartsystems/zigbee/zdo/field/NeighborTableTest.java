@@ -51,6 +51,26 @@ public class NeighborTableTest extends CommandTest {
         assertEquals(Integer.valueOf(226), neighbor.getLqi());
     }
 
+    @Test
+    public void testSetters() {
+        NeighborTable neighbor = new NeighborTable();
+        neighbor.setExtendedPanId(new ExtendedPanId("3ADE68B1"));
+        neighbor.setExtendedAddress(new IeeeAddress("001FEE0000000686"));
+        neighbor.setNetworkAddress(17577);
+        neighbor.setDeviceType(LogicalType.ROUTER);
+        neighbor.setRxOnWhenIdle(NeighborTableRxState.RX_ON);
+        neighbor.setRelationship(NeighborTableRelationship.SIBLING);
+        neighbor.setPermitJoining(NeighborTableJoining.UNKNOWN);
+        neighbor.setDepth(15);
+        neighbor.setLqi(226);
+
+        int[] packet = getPacketData("B1 68 DE 3A 00 00 00 00 86 06 00 00 00 EE 1F 00 A9 44 25 02 0F E2");
+        NeighborTable deserialized = new NeighborTable();
+        deserialized.deserialize(new DefaultDeserializer(packet));
+
+        assertEquals(deserialized, neighbor);
+    }
+
     private NeighborTable getNeighborTable(Integer networkAddress, String ieeeAddressString, Integer lqi) {
         NeighborTable neighbor = new NeighborTable();
         try {